@@ -124,7 +124,7 @@ public final class HGBaseAdvertisements {
      * @return the new created view with advertisements
      */
     public static View createAdvertisementPanel(HGBaseActivity mainFrame, int width, int height) {
-        Bitmap adImg = HGBaseGuiTools.loadImage("advertisement");
+        Bitmap adImg = HGBaseGuiTools.loadImage("advertisement", width, height);
         String adUrl = mainFrame.getAdvertisementURL();
 	return ((HGBaseTools.hasContent(adUrl) && (HGBaseTools.hasContent(mainFrame.getAdvertisementErrorPageURL()) || HGBaseAppTools.isInternetAvailable()))
 		? createAdvertisementPanel(mainFrame, width, height, adUrl, true)
@@ -7,8 +7,14 @@ import android.graphics.BitmapFactory;
 import android.graphics.drawable.Drawable;
 
 import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+import at.hagru.hgbase.gui.BitmapDecoder;
 import at.hagru.hgbase.lib.HGBaseFileTools;
+import at.hagru.hgbase.lib.HGBaseLog;
 import at.hagru.hgbase.lib.HGBaseTools;
 
 /**
@@ -24,6 +30,12 @@ public final class HGBaseResources {
 	public static final String XML = "xml";
 	public static final String RAW = "raw";
 
+	private static final String R_CLASS = ".R";
+	/**
+	 * The resource ids by resource type and name, invalid names are stored with id 0.
+	 */
+	private static final Map<String, Map<String, Integer>> RESOURCE_IDS = new ConcurrentHashMap<>();
+
 	/**
 	 * Avoid instantiation.
 	 */
@@ -46,6 +58,20 @@ public final class HGBaseResources {
 	public static Bitmap getBitmap(int resId) {
 		return BitmapFactory.decodeResource(HGBaseAppTools.getContext().getResources(), resId);
 	}
+
+	/**
+	 * Decodes the bitmap with a target size, so it is not (much) larger than necessary.
+	 * 
+	 * @param resId the resource id
+	 * @param width the target width, zero or less if not limited
+	 * @param height the target height, zero or less if not limited
+	 * @param preferRGB565 true to decode opaque images with less memory
+	 * @return the bitmap object or null if the resource is no bitmap
+	 * @see BitmapDecoder
+	 */
+	public static Bitmap getBitmap(int resId, int width, int height, boolean preferRGB565) {
+		return BitmapDecoder.decodeResource(HGBaseAppTools.getContext().getResources(), resId, width, height, preferRGB565);
+	}
 	
 	/**
 	 * @param resId the resource id
@@ -57,13 +83,41 @@ public final class HGBaseResources {
 	}
 
 	/**
+	 * Returns the id of the resource with the given name. The ids are cached, also for names that are not found.
+	 * 
 	 * @param name the name of the resource
 	 * @param resourceType the resource type (i.e., the root folder of the resource)
 	 * @return the id or 0 if not found
 	 */
 	public static int getResourceIdByName(String name, String resourceType) {
 		Context context = HGBaseAppTools.getContext();
-		if (context == null || name == null || HGBaseTools.isValid(HGBaseTools.toInt(name)) 
+		if (context == null || name == null || resourceType == null) {
+			return 0;
+		}
+		Map<String, Integer> typeIds = RESOURCE_IDS.get(resourceType);
+		if (typeIds == null) {
+			typeIds = RESOURCE_IDS.computeIfAbsent(resourceType, type -> new ConcurrentHashMap<>());
+		}
+		Integer resId = typeIds.get(name);
+		if (resId == null) {
+			// the name without file extension may be cached already, e.g., by indexing the resources
+			resId = typeIds.get(HGBaseFileTools.removeFileExtension(name));
+			if (resId == null) {
+				resId = findResourceIdByName(context, name, resourceType);
+			}
+			typeIds.put(name, resId);
+		}
+		return resId;
+	}
+
+	/**
+	 * @param context the context
+	 * @param name the name of the resource
+	 * @param resourceType the resource type (i.e., the root folder of the resource)
+	 * @return the id or 0 if not found
+	 */
+	private static int findResourceIdByName(Context context, String name, String resourceType) {
+		if (HGBaseTools.isValid(HGBaseTools.toInt(name)) 
 							|| HGBaseTools.isValid(HGBaseTools.toInt(HGBaseFileTools.removeFileExtension(name)))) {
 			return 0;
 		} else {
@@ -73,6 +127,58 @@ public final class HGBaseResources {
 			return (resId != 0)? resId : r.getIdentifier(name, resourceType, null);
 		}
 	}
+
+	/**
+	 * Fills the cache of {@link #getResourceIdByName(String, String)} with all resources of the generated
+	 * {@code R} class of the app, so no resource has to be looked up by name later.<p>
+	 * This is optional and should be called at startup, e.g., on a background thread.
+	 * 
+	 * @return the number of indexed resources
+	 */
+	public static int indexResources() {
+		String packageName = HGBaseAppTools.getPackageName();
+		if (packageName == null) {
+			return 0;
+		}
+		try {
+			return indexResources(Class.forName(packageName + R_CLASS));
+		} catch (ClassNotFoundException e) {
+			HGBaseLog.logWarn("Could not find the resource class of package " + packageName + "!");
+			return 0;
+		}
+	}
+
+	/**
+	 * Fills the cache of {@link #getResourceIdByName(String, String)} with all resources of the given {@code R} class.
+	 * The simple names of the inner classes are taken as resource types.
+	 * 
+	 * @param rClass the generated {@code R} class
+	 * @return the number of indexed resources
+	 */
+	public static int indexResources(Class<?> rClass) {
+		int count = 0;
+		for (Class<?> typeClass : rClass.getClasses()) {
+			Map<String, Integer> typeIds = RESOURCE_IDS.computeIfAbsent(typeClass.getSimpleName(), type -> new ConcurrentHashMap<>());
+			for (Field field : typeClass.getFields()) {
+				if (Modifier.isStatic(field.getModifiers()) && field.getType() == int.class) {
+					try {
+						typeIds.put(field.getName(), field.getInt(null));
+						count++;
+					} catch (IllegalAccessException e) {
+						HGBaseLog.logWarn("Could not read resource id " + field.getName() + "!");
+					}
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Removes all cached resource ids, e.g., if resources were loaded dynamically.
+	 */
+	public static void clearResourceIdCache() {
+		RESOURCE_IDS.clear();
+	}
 	
 	/**
 	 * Returns the name of a given resource id.
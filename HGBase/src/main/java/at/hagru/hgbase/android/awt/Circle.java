@@ -107,8 +107,38 @@ public class Circle {
      * @return {@code true} if the given point is inside the circle, and {@code false} otherwise.
      */
     public boolean contains(@NonNull Point point) {
-        double distance = Math.sqrt(Math.pow((point.x - center.x), 2) + Math.pow((point.y - center.y), 2));
-        return distance <= radius;
+        return contains(point.x, point.y);
+    }
+
+    /**
+     * Returns {@code true} if the given position is inside the circle, and {@code false} otherwise.
+     *
+     * @param x The x coordinate of the position to test.
+     * @param y The y coordinate of the position to test.
+     * @return {@code true} if the given position is inside the circle, and {@code false} otherwise.
+     */
+    public boolean contains(int x, int y) {
+        return contains(center.x, center.y, radius, x, y);
+    }
+
+    /**
+     * Returns {@code true} if the given position is inside the circle with the given center and radius.
+     * The squared distance is compared with the squared radius, so no square root is needed.
+     *
+     * @param centerX The x coordinate of the center of the circle.
+     * @param centerY The y coordinate of the center of the circle.
+     * @param radius  The radius of the circle.
+     * @param x       The x coordinate of the position to test.
+     * @param y       The y coordinate of the position to test.
+     * @return {@code true} if the given position is inside the circle, and {@code false} otherwise.
+     */
+    public static boolean contains(int centerX, int centerY, int radius, int x, int y) {
+        if (radius < 0) {
+            return false;
+        }
+        long dx = (long) x - centerX;
+        long dy = (long) y - centerY;
+        return dx * dx + dy * dy <= (long) radius * radius;
     }
 
     /**
@@ -118,16 +148,26 @@ public class Circle {
      * @return a new Polygon object representing the regular polygon
      */
     public Polygon toPolygon(int numSides) {
+        return toPolygon(numSides, new Polygon());
+    }
+
+    /**
+     * Writes a regular polygon with the given number of sides into the given polygon.
+     * The arrays of the polygon are reused if they are large enough.
+     *
+     * @param numSides the number of sides of the polygon
+     * @param dest     the polygon to write into, its previous points are removed
+     * @return the given polygon
+     */
+    public Polygon toPolygon(int numSides, Polygon dest) {
+        dest.reset();
         double angleIncrement = 2 * Math.PI / numSides;
-        int[] xPoints = new int[numSides];
-        int[] yPoints = new int[numSides];
         for (int i = 0; i < numSides; i++) {
             double angle = i * angleIncrement;
             int x = (int) Math.round(center.x + radius * Math.cos(angle));
             int y = (int) Math.round(center.y + radius * Math.sin(angle));
-            xPoints[i] = x;
-            yPoints[i] = y;
+            dest.addPoint(x, y);
         }
-        return new Polygon(xPoints, yPoints, numSides);
+        return dest;
     }
 }
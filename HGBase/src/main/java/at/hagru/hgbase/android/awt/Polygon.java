@@ -42,6 +42,11 @@ public class Polygon {
      */
     protected Rectangle bounds;
 
+    /**
+     * The rectangle of the invalidated bounds, it is reused when the bounds are calculated again.
+     */
+    private Rectangle spareBounds;
+
     /*
      * Default length for xpoints and ypoints.
      */
@@ -78,6 +83,26 @@ public class Polygon {
         this.ypoints = Arrays.copyOf(ypoints, npoints);
     }
 
+    /**
+     * Resets this <code>Polygon</code> object to an empty polygon. The coordinate arrays are kept, so the
+     * polygon can be filled again with {@link #addPoint(int, int)} without creating new arrays.
+     */
+    public void reset() {
+        npoints = 0;
+        invalidate();
+    }
+
+    /**
+     * Invalidates the cached bounds of this <code>Polygon</code>. This method should be called after any
+     * direct manipulation of the coordinates in the <code>xpoints</code> or <code>ypoints</code> arrays.
+     */
+    public void invalidate() {
+        if (bounds != null) {
+            spareBounds = bounds;
+            bounds = null;
+        }
+    }
+
     /**
      * Calculates the bounding box of the points passed to the constructor. Sets <code>bounds</code> to the
      * result.
@@ -87,6 +112,10 @@ public class Polygon {
      * @param npoints the total number of points
      */
     void calculateBounds(int[] xpoints, int[] ypoints, int npoints) {
+        if (bounds == null) {
+            bounds = (spareBounds == null) ? new Rectangle() : spareBounds;
+            spareBounds = null;
+        }
         int boundsMinX = Integer.MAX_VALUE;
         int boundsMinY = Integer.MAX_VALUE;
         int boundsMaxX = Integer.MIN_VALUE;
@@ -100,7 +129,7 @@ public class Polygon {
             boundsMinY = Math.min(boundsMinY, y);
             boundsMaxY = Math.max(boundsMaxY, y);
         }
-        bounds = new Rectangle(boundsMinX, boundsMinY, boundsMaxX - boundsMinX, boundsMaxY - boundsMinY);
+        bounds.setBounds(boundsMinX, boundsMinY, boundsMaxX - boundsMinX, boundsMaxY - boundsMinY);
     }
 
     /**
@@ -175,6 +204,23 @@ public class Polygon {
         return bounds.getBounds();
     }
 
+    /**
+     * Writes the bounding box of this <code>Polygon</code> into the given rectangle. Apart from the cached
+     * bounding box that is created the first time, no object is created.
+     *
+     * @param dest the rectangle to write the bounds into
+     * @return the given rectangle
+     */
+    public Rectangle getBounds(Rectangle dest) {
+        if (npoints == 0) {
+            return dest.setBounds(0, 0, 0, 0);
+        }
+        if (bounds == null) {
+            calculateBounds(xpoints, ypoints, npoints);
+        }
+        return bounds.getBounds(dest);
+    }
+
     /**
      * Determines whether the specified {@link Point} is inside this <code>Polygon</code>.
      * 
@@ -196,7 +242,31 @@ public class Polygon {
      *         {@code false} otherwise.
      */
     public boolean contains(int x, int y) {
-        if (npoints <= 2 || !getBounds().contains(x, y)) {
+        if (npoints <= 2) {
+            return false;
+        }
+        if (bounds == null) {
+            calculateBounds(xpoints, ypoints, npoints);
+        }
+        if (!bounds.contains(x, y)) {
+            return false;
+        }
+        return contains(xpoints, ypoints, npoints, x, y);
+    }
+
+    /**
+     * Determines whether the specified coordinates are inside the polygon given by the coordinate arrays,
+     * without creating any object.
+     *
+     * @param xpoints the array of X coordinates
+     * @param ypoints the array of Y coordinates
+     * @param npoints the total number of points
+     * @param x the specified X coordinate to be tested
+     * @param y the specified Y coordinate to be tested
+     * @return {@code true} if the polygon contains the specified coordinates {@code (x,y)}; {@code false} otherwise.
+     */
+    public static boolean contains(int[] xpoints, int[] ypoints, int npoints, int x, int y) {
+        if (npoints <= 2) {
             return false;
         }
         int hits = 0;
@@ -268,7 +338,45 @@ public class Polygon {
         if (rectangle == null) {
             return false;
         }
-        return contains(rectangle.getUpperLeft()) && contains(rectangle.getUpperRight()) && contains(rectangle.getLowerLeft()) && contains(rectangle.getLowerRight());
+        int right = rectangle.getRight();
+        int bottom = rectangle.getBottom();
+        return contains(rectangle.x, rectangle.y) && contains(right, rectangle.y) && contains(rectangle.x, bottom) && contains(right, bottom);
+    }
+
+    /**
+     * Returns the squared distance of the specified coordinates to this <code>Polygon</code>.
+     *
+     * @param x the specified X coordinate
+     * @param y the specified Y coordinate
+     * @return zero if the polygon contains the coordinates, otherwise the squared distance to the nearest edge,
+     *         infinite if the polygon has no points
+     */
+    public double getSquaredDistance(int x, int y) {
+        if (npoints == 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        if (contains(x, y)) {
+            return 0.0;
+        }
+        double minDistance = Double.POSITIVE_INFINITY;
+        int lastx = xpoints[npoints - 1];
+        int lasty = ypoints[npoints - 1];
+        for (int i = 0; i < npoints; i++) {
+            double dx = (double) xpoints[i] - lastx;
+            double dy = (double) ypoints[i] - lasty;
+            double ex = (double) x - lastx;
+            double ey = (double) y - lasty;
+            double length = dx * dx + dy * dy;
+            if (length > 0) {
+                double t = Math.max(0.0, Math.min(1.0, (ex * dx + ey * dy) / length));
+                ex -= t * dx;
+                ey -= t * dy;
+            }
+            minDistance = Math.min(minDistance, ex * ex + ey * ey);
+            lastx = xpoints[i];
+            lasty = ypoints[i];
+        }
+        return minDistance;
     }
 
     @Override
@@ -0,0 +1,742 @@
+package at.hagru.hgbase.android.awt;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Boolean operations, simplification and convex hull for polygons.<p>
+ * The boolean operations (intersection, union and difference) work on simple polygons, i.e., polygons whose edges
+ * do not cross each other. They use the Greiner-Hormann algorithm: the intersections of all edges are computed
+ * (O(n*m) for polygons with n and m points), inserted into both polygons, and the result is traced along the
+ * polygons (O(n + m + k) for k intersections). To avoid the special cases of points that lie exactly on an edge of
+ * the other polygon, the second polygon is shifted by a tiny, not representable distance while computing. The
+ * results are rounded to integer coordinates.<p>
+ * A result is a list of contours that are interpreted with the even-odd rule, i.e., a point is part of the result
+ * if it is inside an odd number of contours. So a hole is a contour within another contour.<p>
+ * If one of the polygons is an axis-aligned rectangle and the other one is convex, the intersection is calculated
+ * by clipping the other polygon at the rectangle in O(n). Concave polygons are not clipped this way, because the
+ * Sutherland-Hodgman algorithm would connect the separate parts of the result by edges of zero width, they are
+ * combined with the rectangle by the general algorithm, which also needs O(n) time for the four sides of the
+ * rectangle. Rectangles can be combined with {@link #intersection(Rectangle, Rectangle)}
+ * and {@link #difference(Rectangle, Rectangle)} in constant time.
+ *
+ * @author hagru
+ */
+public final class PolygonTools {
+
+    // shift distances for the second polygon, the ratio must not be a simple fraction
+    private static final double SHIFT_X = 1.0e-6 * Math.sqrt(2.0);
+    private static final double SHIFT_Y = 1.0e-6 * Math.sqrt(3.0);
+
+    /**
+     * Prevent instantiation.
+     */
+    private PolygonTools() {
+        super();
+    }
+
+    /**
+     * Returns the area that is covered by both polygons. Needs O(n*m) time, or O(n) if one polygon is a rectangle.
+     * If the other polygon is concave, the result may consist of several contours.
+     *
+     * @param a the first polygon
+     * @param b the second polygon
+     * @return the contours of the intersection, may be empty
+     */
+    public static List<Polygon> intersection(Polygon a, Polygon b) {
+        if (a.npoints < 3 || b.npoints < 3 || !a.getBounds().intersects(b.getBounds())) {
+            return new ArrayList<>();
+        }
+        if (isRectangle(b) && isConvex(a)) {
+            return toList(clip(a, b.getBounds()));
+        } else if (isRectangle(a) && isConvex(b)) {
+            return toList(clip(b, a.getBounds()));
+        }
+        return combine(a, b, true, true);
+    }
+
+    /**
+     * Returns the area that is covered by the polygon and the rectangle. Needs O(n) time.
+     * If the polygon is concave, the result may consist of several contours.
+     *
+     * @param polygon the polygon
+     * @param rectangle the rectangle
+     * @return the contours of the intersection, may be empty
+     */
+    public static List<Polygon> intersection(Polygon polygon, Rectangle rectangle) {
+        if (polygon.npoints < 3 || rectangle.isEmpty() || !polygon.getBounds().intersects(rectangle)) {
+            return new ArrayList<>();
+        }
+        if (isConvex(polygon)) {
+            return toList(clip(polygon, rectangle));
+        }
+        return combine(polygon, toPolygon(rectangle), true, true);
+    }
+
+    /**
+     * Returns the area that is covered by both rectangles. Needs constant time.
+     *
+     * @param a the first rectangle
+     * @param b the second rectangle
+     * @return the intersection or null if the rectangles do not intersect
+     */
+    public static Rectangle intersection(Rectangle a, Rectangle b) {
+        return a.getIntersection(b);
+    }
+
+    /**
+     * Returns the area that is covered by at least one of the polygons. Needs O(n*m) time.
+     *
+     * @param a the first polygon
+     * @param b the second polygon
+     * @return the contours of the union
+     */
+    public static List<Polygon> union(Polygon a, Polygon b) {
+        if (a.npoints < 3 || b.npoints < 3 || !a.getBounds().intersects(b.getBounds())) {
+            List<Polygon> result = new ArrayList<>(2);
+            addIfNotEmpty(result, a);
+            addIfNotEmpty(result, b);
+            return result;
+        }
+        return combine(a, b, false, false);
+    }
+
+    /**
+     * Returns the area that is covered by the first polygon but not by the second one. Needs O(n*m) time.
+     *
+     * @param a the first polygon
+     * @param b the polygon to subtract
+     * @return the contours of the difference, may be empty
+     */
+    public static List<Polygon> difference(Polygon a, Polygon b) {
+        if (a.npoints < 3 || b.npoints < 3 || !a.getBounds().intersects(b.getBounds())) {
+            List<Polygon> result = new ArrayList<>(1);
+            addIfNotEmpty(result, a);
+            return result;
+        }
+        return combine(a, b, false, true);
+    }
+
+    /**
+     * Returns the area that is covered by the first rectangle but not by the second one as up to four rectangles
+     * that do not overlap. Needs constant time.
+     *
+     * @param a the first rectangle
+     * @param b the rectangle to subtract
+     * @return the rectangles of the difference, may be empty
+     */
+    public static List<Rectangle> difference(Rectangle a, Rectangle b) {
+        List<Rectangle> result = new ArrayList<>(4);
+        if (a.isEmpty()) {
+            return result;
+        }
+        Rectangle cut = a.getIntersection(b);
+        if (cut == null) {
+            result.add(a.getBounds());
+            return result;
+        }
+        if (cut.y > a.y) {
+            result.add(new Rectangle(a.x, a.y, a.width, cut.y - a.y));
+        }
+        if (cut.getBottom() < a.getBottom()) {
+            result.add(new Rectangle(a.x, cut.getBottom(), a.width, a.getBottom() - cut.getBottom()));
+        }
+        if (cut.x > a.x) {
+            result.add(new Rectangle(a.x, cut.y, cut.x - a.x, cut.height));
+        }
+        if (cut.getRight() < a.getRight()) {
+            result.add(new Rectangle(cut.getRight(), cut.y, a.getRight() - cut.getRight(), cut.height));
+        }
+        return result;
+    }
+
+    /**
+     * Creates a polygon with the four corners of the rectangle.
+     *
+     * @param rectangle the rectangle
+     * @return the new polygon
+     */
+    public static Polygon toPolygon(Rectangle rectangle) {
+        int right = rectangle.getRight();
+        int bottom = rectangle.getBottom();
+        return new Polygon(new int[] {rectangle.x, right, right, rectangle.x},
+                           new int[] {rectangle.y, rectangle.y, bottom, bottom}, 4);
+    }
+
+    /**
+     * Checks whether the polygon is a rectangle whose sides are parallel to the x and y axes.
+     *
+     * @param polygon the polygon
+     * @return true if the polygon has four points that form an axis-aligned rectangle
+     */
+    public static boolean isRectangle(Polygon polygon) {
+        if (polygon.npoints != 4) {
+            return false;
+        }
+        int[] x = polygon.xpoints;
+        int[] y = polygon.ypoints;
+        return (x[0] == x[1] && y[1] == y[2] && x[2] == x[3] && y[3] == y[0])
+               || (y[0] == y[1] && x[1] == x[2] && y[2] == y[3] && x[3] == x[0]);
+    }
+
+    /**
+     * Checks whether the polygon is convex, i.e., all corners turn in the same direction.
+     * Collinear and repeated points are ignored. Needs O(n) time.
+     *
+     * @param polygon a simple polygon
+     * @return true if the polygon is convex, false if it is concave or has less than three points
+     */
+    public static boolean isConvex(Polygon polygon) {
+        int n = polygon.npoints;
+        int[] x = polygon.xpoints;
+        int[] y = polygon.ypoints;
+        int sign = 0;
+        for (int i = 0; i < n; i++) {
+            int last = (i == 0) ? n - 1 : i - 1;
+            int next = (i == n - 1) ? 0 : i + 1;
+            long turn = cross(x[last], y[last], x[i], y[i], x[next], y[next]);
+            if (turn != 0) {
+                int turnSign = (turn > 0) ? 1 : -1;
+                if (sign != 0 && turnSign != sign) {
+                    return false;
+                }
+                sign = turnSign;
+            }
+        }
+        return (sign != 0);
+    }
+
+    /**
+     * Simplifies the polygon with the Douglas-Peucker algorithm. Points are removed as long as no removed point is
+     * farther away from the simplified outline than the tolerance. Needs O(n log n) time on average and O(n^2)
+     * in the worst case.
+     *
+     * @param polygon the polygon
+     * @param tolerance the maximum distance of a removed point to the simplified outline
+     * @return a new polygon, it may have less than three points if the polygon is very thin
+     */
+    public static Polygon simplify(Polygon polygon, double tolerance) {
+        int n = polygon.npoints;
+        int[] x = polygon.xpoints;
+        int[] y = polygon.ypoints;
+        if (n <= 3) {
+            return new Polygon(x, y, n);
+        }
+        // split the closed outline at the first point and the point farthest away from it
+        int far = 0;
+        long farDistance = -1;
+        for (int i = 1; i < n; i++) {
+            long dx = (long) x[i] - x[0];
+            long dy = (long) y[i] - y[0];
+            long distance = dx * dx + dy * dy;
+            if (distance > farDistance) {
+                farDistance = distance;
+                far = i;
+            }
+        }
+        boolean[] keep = new boolean[n];
+        keep[0] = true;
+        keep[far] = true;
+        double squaredTolerance = tolerance * tolerance;
+        // index n stands for the first point again
+        int[] stack = new int[2 * (n + 1)];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = far;
+        stack[top++] = far;
+        stack[top++] = n;
+        while (top > 0) {
+            int last = stack[--top];
+            int first = stack[--top];
+            int ax = x[first];
+            int ay = y[first];
+            int bx = x[last % n];
+            int by = y[last % n];
+            int index = -1;
+            double maxDistance = squaredTolerance;
+            for (int i = first + 1; i < last; i++) {
+                double distance = getSquaredSegmentDistance(x[i], y[i], ax, ay, bx, by);
+                if (distance > maxDistance) {
+                    maxDistance = distance;
+                    index = i;
+                }
+            }
+            if (index >= 0) {
+                keep[index] = true;
+                stack[top++] = first;
+                stack[top++] = index;
+                stack[top++] = index;
+                stack[top++] = last;
+            }
+        }
+        Polygon result = new Polygon();
+        for (int i = 0; i < n; i++) {
+            if (keep[i]) {
+                result.addPoint(x[i], y[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the convex hull of the points of the polygon with Andrew's monotone chain algorithm.
+     * Needs O(n log n) time.
+     *
+     * @param polygon the polygon
+     * @return a new polygon with the points of the convex hull without collinear points, counterclockwise in a
+     *         coordinate system with the y axis pointing up (i.e., clockwise on the screen)
+     */
+    public static Polygon convexHull(Polygon polygon) {
+        int n = polygon.npoints;
+        long[] points = new long[n];
+        for (int i = 0; i < n; i++) {
+            // sort by x and then by y, the sign bit of y is flipped to keep the order of negative values
+            points[i] = ((long) polygon.xpoints[i] << 32) | ((polygon.ypoints[i] ^ 0x80000000) & 0xFFFFFFFFL);
+        }
+        Arrays.sort(points);
+        int[] hx = new int[2 * n];
+        int[] hy = new int[2 * n];
+        int k = 0;
+        int previous = -1;
+        for (int i = 0; i < n; i++) {
+            if (i > 0 && points[i] == points[previous]) {
+                continue;
+            }
+            previous = i;
+            int px = getHullX(points[i]);
+            int py = getHullY(points[i]);
+            while (k >= 2 && cross(hx[k - 2], hy[k - 2], hx[k - 1], hy[k - 1], px, py) <= 0) {
+                k--;
+            }
+            hx[k] = px;
+            hy[k] = py;
+            k++;
+        }
+        int lower = k + 1;
+        for (int i = n - 2; i >= 0; i--) {
+            int px = getHullX(points[i]);
+            int py = getHullY(points[i]);
+            while (k >= lower && cross(hx[k - 2], hy[k - 2], hx[k - 1], hy[k - 1], px, py) <= 0) {
+                k--;
+            }
+            hx[k] = px;
+            hy[k] = py;
+            k++;
+        }
+        // the last point is the same as the first one
+        int count = (k > 1) ? k - 1 : k;
+        return new Polygon(hx, hy, count);
+    }
+
+    /**
+     * @param point the packed point
+     * @return the x coordinate
+     */
+    private static int getHullX(long point) {
+        return (int) (point >> 32);
+    }
+
+    /**
+     * @param point the packed point
+     * @return the y coordinate
+     */
+    private static int getHullY(long point) {
+        return ((int) point) ^ 0x80000000;
+    }
+
+    /**
+     * @return the cross product of the vectors (a, b) and (a, c), positive for a counterclockwise turn
+     */
+    private static long cross(int ax, int ay, int bx, int by, int cx, int cy) {
+        return ((long) bx - ax) * ((long) cy - ay) - ((long) by - ay) * ((long) cx - ax);
+    }
+
+    /**
+     * @return the squared distance of the point (px, py) to the segment from (ax, ay) to (bx, by)
+     */
+    private static double getSquaredSegmentDistance(int px, int py, int ax, int ay, int bx, int by) {
+        double dx = (double) bx - ax;
+        double dy = (double) by - ay;
+        double ex = (double) px - ax;
+        double ey = (double) py - ay;
+        double length = dx * dx + dy * dy;
+        if (length > 0) {
+            double t = Math.max(0.0, Math.min(1.0, (ex * dx + ey * dy) / length));
+            ex -= t * dx;
+            ey -= t * dy;
+        }
+        return ex * ex + ey * ey;
+    }
+
+    /**
+     * Clips the polygon at the rectangle with the Sutherland-Hodgman algorithm. The result is always one contour,
+     * so for a concave polygon that falls apart into several parts, the parts are connected by edges of zero width
+     * along the sides of the rectangle. Therefore only convex polygons are clipped this way.
+     *
+     * @param polygon the polygon
+     * @param rectangle the rectangle
+     * @return the clipped polygon, may have less than three points
+     */
+    private static Polygon clip(Polygon polygon, Rectangle rectangle) {
+        int n = polygon.npoints;
+        double[] x = new double[n];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = polygon.xpoints[i];
+            y[i] = polygon.ypoints[i];
+        }
+        double[][] buffer = {x, y};
+        n = clipEdge(buffer, n, 0, rectangle.x, false);
+        n = clipEdge(buffer, n, 0, rectangle.getRight(), true);
+        n = clipEdge(buffer, n, 1, rectangle.y, false);
+        n = clipEdge(buffer, n, 1, rectangle.getBottom(), true);
+        return toPolygon(buffer[0], buffer[1], n);
+    }
+
+    /**
+     * Clips the points at one side of a rectangle.
+     *
+     * @param buffer the x and y coordinates, they are replaced by the clipped coordinates
+     * @param n the number of points
+     * @param axis 0 for a vertical side, 1 for a horizontal side
+     * @param limit the coordinate of the side
+     * @param keepBelow true to keep the points below the limit, false to keep the points above
+     * @return the number of clipped points
+     */
+    private static int clipEdge(double[][] buffer, int n, int axis, double limit, boolean keepBelow) {
+        double[] inX = buffer[0];
+        double[] inY = buffer[1];
+        double[] outX = new double[2 * n];
+        double[] outY = new double[2 * n];
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            int last = (i == 0) ? n - 1 : i - 1;
+            double cur = (axis == 0) ? inX[i] : inY[i];
+            double prev = (axis == 0) ? inX[last] : inY[last];
+            boolean curInside = keepBelow ? cur <= limit : cur >= limit;
+            boolean prevInside = keepBelow ? prev <= limit : prev >= limit;
+            if (curInside != prevInside) {
+                double t = (limit - prev) / (cur - prev);
+                outX[count] = (axis == 0) ? limit : inX[last] + t * (inX[i] - inX[last]);
+                outY[count] = (axis == 1) ? limit : inY[last] + t * (inY[i] - inY[last]);
+                count++;
+            }
+            if (curInside) {
+                outX[count] = inX[i];
+                outY[count] = inY[i];
+                count++;
+            }
+        }
+        buffer[0] = outX;
+        buffer[1] = outY;
+        return count;
+    }
+
+    /**
+     * Combines two polygons with the Greiner-Hormann algorithm.
+     *
+     * @param a the first polygon
+     * @param b the second polygon
+     * @param aForward true to trace the first polygon inside of the second one
+     * @param bForward true to trace the second polygon inside of the first one
+     * @return the contours of the result
+     */
+    private static List<Polygon> combine(Polygon a, Polygon b, boolean aForward, boolean bForward) {
+        Vertex subject = createRing(a, 0.0, 0.0);
+        Vertex clip = createRing(b, SHIFT_X, SHIFT_Y);
+        int intersections = insertIntersections(subject, clip);
+        boolean subjectInClip = isInside(subject.x, subject.y, clip);
+        boolean clipInSubject = isInside(clip.x, clip.y, subject);
+        List<Polygon> result = new ArrayList<>();
+        if (intersections == 0) {
+            if (aForward && bForward) {
+                // intersection
+                if (subjectInClip) {
+                    addIfNotEmpty(result, a);
+                } else if (clipInSubject) {
+                    addIfNotEmpty(result, b);
+                }
+            } else if (!aForward && !bForward) {
+                // union
+                if (subjectInClip) {
+                    addIfNotEmpty(result, b);
+                } else if (clipInSubject) {
+                    addIfNotEmpty(result, a);
+                } else {
+                    addIfNotEmpty(result, a);
+                    addIfNotEmpty(result, b);
+                }
+            } else if (!subjectInClip) {
+                // difference, the second polygon is a hole or outside
+                addIfNotEmpty(result, a);
+                if (clipInSubject) {
+                    addIfNotEmpty(result, b);
+                }
+            }
+            return result;
+        }
+        markEntries(subject, aForward ^ subjectInClip);
+        markEntries(clip, bForward ^ clipInSubject);
+        int maxSteps = 2 * (a.npoints + b.npoints + 2 * intersections);
+        for (Vertex start = nextUnvisited(subject); start != null; start = nextUnvisited(subject)) {
+            ContourBuilder contour = new ContourBuilder();
+            Vertex current = start;
+            contour.add(current.x, current.y);
+            int steps = 0;
+            do {
+                current.visit();
+                if (current.entry) {
+                    do {
+                        current = current.next;
+                        contour.add(current.x, current.y);
+                    } while (!current.intersection && ++steps < maxSteps);
+                } else {
+                    do {
+                        current = current.prev;
+                        contour.add(current.x, current.y);
+                    } while (!current.intersection && ++steps < maxSteps);
+                }
+                current = current.corresponding;
+            } while (!current.visited && ++steps < maxSteps);
+            addIfNotEmpty(result, contour.toPolygon());
+        }
+        return result;
+    }
+
+    /**
+     * Creates a closed ring of vertices for the polygon.
+     *
+     * @param polygon the polygon
+     * @param shiftX the distance to shift in x direction
+     * @param shiftY the distance to shift in y direction
+     * @return the first vertex of the ring
+     */
+    private static Vertex createRing(Polygon polygon, double shiftX, double shiftY) {
+        Vertex first = null;
+        Vertex last = null;
+        for (int i = 0; i < polygon.npoints; i++) {
+            Vertex vertex = new Vertex(polygon.xpoints[i] + shiftX, polygon.ypoints[i] + shiftY);
+            if (first == null) {
+                first = vertex;
+            } else {
+                last.next = vertex;
+                vertex.prev = last;
+            }
+            last = vertex;
+        }
+        last.next = first;
+        first.prev = last;
+        return first;
+    }
+
+    /**
+     * Inserts the intersections of all edges into both rings.
+     *
+     * @param subject the first vertex of the first ring
+     * @param clip the first vertex of the second ring
+     * @return the number of intersections
+     */
+    private static int insertIntersections(Vertex subject, Vertex clip) {
+        int count = 0;
+        Vertex s = subject;
+        do {
+            Vertex sNext = nextOriginal(s.next);
+            Vertex c = clip;
+            do {
+                Vertex cNext = nextOriginal(c.next);
+                double denominator = (cNext.y - c.y) * (sNext.x - s.x) - (cNext.x - c.x) * (sNext.y - s.y);
+                if (denominator != 0.0) {
+                    double toSubject = ((cNext.x - c.x) * (s.y - c.y) - (cNext.y - c.y) * (s.x - c.x)) / denominator;
+                    double toClip = ((sNext.x - s.x) * (s.y - c.y) - (sNext.y - s.y) * (s.x - c.x)) / denominator;
+                    if (toSubject > 0.0 && toSubject < 1.0 && toClip > 0.0 && toClip < 1.0) {
+                        double ix = s.x + toSubject * (sNext.x - s.x);
+                        double iy = s.y + toSubject * (sNext.y - s.y);
+                        Vertex si = new Vertex(ix, iy);
+                        Vertex ci = new Vertex(ix, iy);
+                        si.intersection = true;
+                        ci.intersection = true;
+                        si.alpha = toSubject;
+                        ci.alpha = toClip;
+                        si.corresponding = ci;
+                        ci.corresponding = si;
+                        insertBetween(si, s, sNext);
+                        insertBetween(ci, c, cNext);
+                        count++;
+                    }
+                }
+                c = cNext;
+            } while (c != clip);
+            s = sNext;
+        } while (s != subject);
+        return count;
+    }
+
+    /**
+     * @param vertex a vertex
+     * @return the vertex or the next vertex that is not an intersection
+     */
+    private static Vertex nextOriginal(Vertex vertex) {
+        Vertex current = vertex;
+        while (current.intersection) {
+            current = current.next;
+        }
+        return current;
+    }
+
+    /**
+     * Inserts the intersection between two original vertices, ordered by the position on the edge.
+     */
+    private static void insertBetween(Vertex vertex, Vertex start, Vertex end) {
+        Vertex current = start.next;
+        while (current != end && current.alpha < vertex.alpha) {
+            current = current.next;
+        }
+        vertex.next = current;
+        vertex.prev = current.prev;
+        current.prev.next = vertex;
+        current.prev = vertex;
+    }
+
+    /**
+     * Marks the intersections of the ring alternately as entry and exit.
+     *
+     * @param first the first vertex of the ring
+     * @param entry the mark of the first intersection
+     */
+    private static void markEntries(Vertex first, boolean entry) {
+        boolean current = entry;
+        Vertex vertex = first;
+        do {
+            if (vertex.intersection) {
+                vertex.entry = current;
+                current = !current;
+            }
+            vertex = vertex.next;
+        } while (vertex != first);
+    }
+
+    /**
+     * @param first the first vertex of the ring
+     * @return the next intersection that was not visited yet or null
+     */
+    private static Vertex nextUnvisited(Vertex first) {
+        Vertex vertex = first;
+        do {
+            if (vertex.intersection && !vertex.visited) {
+                return vertex;
+            }
+            vertex = vertex.next;
+        } while (vertex != first);
+        return null;
+    }
+
+    /**
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @param first the first vertex of the ring
+     * @return true if the point is inside the ring, using the even-odd rule
+     */
+    private static boolean isInside(double x, double y, Vertex first) {
+        boolean inside = false;
+        Vertex vertex = first;
+        do {
+            Vertex next = vertex.next;
+            if ((vertex.y > y) != (next.y > y)
+                    && x < (next.x - vertex.x) * (y - vertex.y) / (next.y - vertex.y) + vertex.x) {
+                inside = !inside;
+            }
+            vertex = next;
+        } while (vertex != first);
+        return inside;
+    }
+
+    /**
+     * @param x the x coordinates
+     * @param y the y coordinates
+     * @param n the number of points
+     * @return the polygon with the rounded points
+     */
+    private static Polygon toPolygon(double[] x, double[] y, int n) {
+        ContourBuilder contour = new ContourBuilder();
+        for (int i = 0; i < n; i++) {
+            contour.add(x[i], y[i]);
+        }
+        return contour.toPolygon();
+    }
+
+    /**
+     * @param polygon a polygon
+     * @return a list with the polygon, or an empty list if the polygon has less than three points
+     */
+    private static List<Polygon> toList(Polygon polygon) {
+        if (polygon.npoints < 3) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(Collections.singletonList(polygon));
+    }
+
+    /**
+     * @param result the list of contours
+     * @param polygon the polygon to add if it has at least three points
+     */
+    private static void addIfNotEmpty(List<Polygon> result, Polygon polygon) {
+        if (polygon.npoints >= 3) {
+            result.add(polygon);
+        }
+    }
+
+    /**
+     * A point of a polygon or an intersection of two polygons.
+     */
+    private static final class Vertex {
+        final double x;
+        final double y;
+        Vertex next;
+        Vertex prev;
+        Vertex corresponding;
+        double alpha;
+        boolean intersection;
+        boolean entry;
+        boolean visited;
+
+        Vertex(double x, double y) {
+            this.x = x;
+            this.y = y;
+        }
+
+        void visit() {
+            visited = true;
+            if (corresponding != null && !corresponding.visited) {
+                corresponding.visit();
+            }
+        }
+    }
+
+    /**
+     * Collects rounded points and skips repeated points.
+     */
+    private static final class ContourBuilder {
+        private final Polygon polygon = new Polygon();
+
+        void add(double x, double y) {
+            int px = (int) Math.round(x);
+            int py = (int) Math.round(y);
+            int n = polygon.npoints;
+            if (n == 0 || polygon.xpoints[n - 1] != px || polygon.ypoints[n - 1] != py) {
+                polygon.addPoint(px, py);
+            }
+        }
+
+        Polygon toPolygon() {
+            // the contour is closed, so the last point may be the same as the first one
+            int n = polygon.npoints;
+            if (n > 1 && polygon.xpoints[0] == polygon.xpoints[n - 1] && polygon.ypoints[0] == polygon.ypoints[n - 1]) {
+                polygon.npoints--;
+                polygon.invalidate();
+            }
+            return polygon;
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package at.hagru.hgbase.android.awt;
+
+import android.graphics.Point;
+
+import java.util.Arrays;
+
+/**
+ * An immutable polygon that is prepared for many point tests.<p>
+ * The bounds, the center and the edges are calculated once. The edges that are not horizontal are kept with
+ * their lower point and slope in flat arrays and are sorted into bands by their y range, so a point test only
+ * checks the edges of one band. For large polygons this needs about constant time instead of walking all edges.
+ * The point test gives the same results as {@link Polygon#contains(int, int)}.
+ *
+ * @author hagru
+ */
+public final class PreparedPolygon {
+
+    private final int npoints;
+    private final int[] xpoints;
+    private final int[] ypoints;
+    private final int minX;
+    private final int minY;
+    private final int maxX;
+    private final int maxY;
+    private final int centerX;
+    private final int centerY;
+    // the edges, (x0,y0) is the lower point, the edge covers y0 <= y < y1
+    private final int[] edgeX0;
+    private final int[] edgeY0;
+    private final int[] edgeY1;
+    private final int[] edgeMinX;
+    private final int[] edgeMaxX;
+    private final int[] edgeDx;
+    private final int[] edgeDy;
+    // the edges of band b are bandEdges[bandStart[b]] to bandEdges[bandStart[b + 1] - 1]
+    private final int bandCount;
+    private final int[] bandStart;
+    private final int[] bandEdges;
+
+    /**
+     * @param polygon the polygon to prepare, later changes of the polygon are not reflected
+     */
+    public PreparedPolygon(Polygon polygon) {
+        this(polygon.xpoints, polygon.ypoints, polygon.npoints);
+    }
+
+    /**
+     * @param xpoints an array of X coordinates
+     * @param ypoints an array of Y coordinates
+     * @param npoints the total number of points
+     * @throws IndexOutOfBoundsException if <code>npoints</code> is greater than the length of the arrays
+     * @throws NegativeArraySizeException if <code>npoints</code> is negative
+     */
+    public PreparedPolygon(int[] xpoints, int[] ypoints, int npoints) {
+        if (npoints > xpoints.length || npoints > ypoints.length) {
+            throw new IndexOutOfBoundsException("npoints > xpoints.length || " + "npoints > ypoints.length");
+        }
+        if (npoints < 0) {
+            throw new NegativeArraySizeException("npoints < 0");
+        }
+        this.npoints = npoints;
+        this.xpoints = Arrays.copyOf(xpoints, npoints);
+        this.ypoints = Arrays.copyOf(ypoints, npoints);
+        int bMinX = Integer.MAX_VALUE;
+        int bMinY = Integer.MAX_VALUE;
+        int bMaxX = Integer.MIN_VALUE;
+        int bMaxY = Integer.MIN_VALUE;
+        double sumX = 0.;
+        double sumY = 0.;
+        for (int i = 0; i < npoints; i++) {
+            bMinX = Math.min(bMinX, xpoints[i]);
+            bMaxX = Math.max(bMaxX, xpoints[i]);
+            bMinY = Math.min(bMinY, ypoints[i]);
+            bMaxY = Math.max(bMaxY, ypoints[i]);
+            sumX += xpoints[i];
+            sumY += ypoints[i];
+        }
+        if (npoints == 0) {
+            bMinX = bMinY = bMaxX = bMaxY = 0;
+        }
+        this.minX = bMinX;
+        this.minY = bMinY;
+        this.maxX = bMaxX;
+        this.maxY = bMaxY;
+        if (npoints == 2) {
+            this.centerX = bMinX + (bMaxX - bMinX + 1) / 2;
+            this.centerY = bMinY + (bMaxY - bMinY + 1) / 2;
+        } else if (npoints > 0) {
+            this.centerX = (int) (sumX / npoints);
+            this.centerY = (int) (sumY / npoints);
+        } else {
+            this.centerX = 0;
+            this.centerY = 0;
+        }
+        // collect the edges that are not horizontal
+        int edgeCount = 0;
+        for (int i = 0; i < npoints; i++) {
+            if (this.ypoints[i] != this.ypoints[(i == 0) ? npoints - 1 : i - 1]) {
+                edgeCount++;
+            }
+        }
+        edgeX0 = new int[edgeCount];
+        edgeY0 = new int[edgeCount];
+        edgeY1 = new int[edgeCount];
+        edgeMinX = new int[edgeCount];
+        edgeMaxX = new int[edgeCount];
+        edgeDx = new int[edgeCount];
+        edgeDy = new int[edgeCount];
+        int e = 0;
+        for (int i = 0; i < npoints; i++) {
+            int last = (i == 0) ? npoints - 1 : i - 1;
+            int curx = this.xpoints[i];
+            int cury = this.ypoints[i];
+            int lastx = this.xpoints[last];
+            int lasty = this.ypoints[last];
+            if (cury == lasty) {
+                continue;
+            }
+            boolean curIsLower = (cury < lasty);
+            edgeX0[e] = curIsLower ? curx : lastx;
+            edgeY0[e] = curIsLower ? cury : lasty;
+            edgeY1[e] = curIsLower ? lasty : cury;
+            edgeDx[e] = curIsLower ? lastx - curx : curx - lastx;
+            edgeDy[e] = edgeY1[e] - edgeY0[e];
+            edgeMinX[e] = Math.min(curx, lastx);
+            edgeMaxX[e] = Math.max(curx, lastx);
+            e++;
+        }
+        // sort the edges into bands of rows
+        long rows = (long) bMaxY - bMinY + 1;
+        bandCount = (int) Math.max(1, Math.min(edgeCount, rows));
+        bandStart = new int[bandCount + 1];
+        for (int i = 0; i < edgeCount; i++) {
+            // the last covered row is y1 - 1, so the edge is in all bands from y0 to y1 - 1
+            for (int b = getBand(edgeY0[i]), last = getBand(edgeY1[i] - 1); b <= last; b++) {
+                bandStart[b + 1]++;
+            }
+        }
+        for (int b = 0; b < bandCount; b++) {
+            bandStart[b + 1] += bandStart[b];
+        }
+        bandEdges = new int[bandStart[bandCount]];
+        int[] fill = Arrays.copyOf(bandStart, bandCount);
+        for (int i = 0; i < edgeCount; i++) {
+            for (int b = getBand(edgeY0[i]), last = getBand(edgeY1[i] - 1); b <= last; b++) {
+                bandEdges[fill[b]++] = i;
+            }
+        }
+    }
+
+    /**
+     * Creates a prepared polygon from the given points.
+     *
+     * @param positions the points to define the polygon
+     * @return the prepared polygon
+     */
+    public static PreparedPolygon of(Point[] positions) {
+        int[] x = new int[positions.length];
+        int[] y = new int[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            x[i] = positions[i].x;
+            y[i] = positions[i].y;
+        }
+        return new PreparedPolygon(x, y, positions.length);
+    }
+
+    /**
+     * Checks whether this polygon was created from the given points, without creating any object.
+     *
+     * @param positions the points to compare
+     * @return true if the points are the same as the points of this polygon
+     */
+    public boolean matches(Point[] positions) {
+        if (positions == null || positions.length != npoints) {
+            return false;
+        }
+        for (int i = 0; i < npoints; i++) {
+            if (positions[i].x != xpoints[i] || positions[i].y != ypoints[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the number of points
+     */
+    public int getPointCount() {
+        return npoints;
+    }
+
+    /**
+     * @param index the index of the point
+     * @return the X coordinate of the point
+     */
+    public int getX(int index) {
+        return xpoints[index];
+    }
+
+    /**
+     * @param index the index of the point
+     * @return the Y coordinate of the point
+     */
+    public int getY(int index) {
+        return ypoints[index];
+    }
+
+    /**
+     * @return a new rectangle with the bounds of this polygon
+     */
+    public Rectangle getBounds() {
+        return new Rectangle(minX, minY, maxX - minX, maxY - minY);
+    }
+
+    /**
+     * Returns the center of this polygon, i.e., the average of the points, or the middle of the two points.
+     *
+     * @return a new point with the center or null if the polygon has no points
+     */
+    public Point getCenter() {
+        if (npoints == 0) {
+            return null;
+        }
+        return new Point(centerX, centerY);
+    }
+
+    /**
+     * @return a new {@link Polygon} with the points of this polygon
+     */
+    public Polygon toPolygon() {
+        return new Polygon(xpoints, ypoints, npoints);
+    }
+
+    /**
+     * @param p the point to test
+     * @return true if the polygon contains the point
+     */
+    public boolean contains(Point p) {
+        return contains(p.x, p.y);
+    }
+
+    /**
+     * Determines whether the specified coordinates are inside this polygon.
+     *
+     * @param x the X coordinate to test
+     * @param y the Y coordinate to test
+     * @return true if the polygon contains the point
+     */
+    public boolean contains(int x, int y) {
+        if (npoints <= 2 || x < minX || y < minY || x >= maxX || y >= maxY) {
+            return false;
+        }
+        int band = getBand(y);
+        boolean inside = false;
+        for (int i = bandStart[band], end = bandStart[band + 1]; i < end; i++) {
+            int e = bandEdges[i];
+            if (x >= edgeMaxX[e] || y < edgeY0[e] || y >= edgeY1[e]) {
+                continue;
+            }
+            if (x < edgeMinX[e] || x - edgeX0[e] < (double) (y - edgeY0[e]) / edgeDy[e] * edgeDx[e]) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+
+    /**
+     * Returns {@code true} if the specified rectangle lies completely within this polygon.
+     *
+     * @param rectangle the rectangle to check
+     * @return {@code true} if all corners of the rectangle are in this polygon
+     */
+    public boolean contains(Rectangle rectangle) {
+        if (rectangle == null) {
+            return false;
+        }
+        int right = rectangle.x + rectangle.width;
+        int bottom = rectangle.y + rectangle.height;
+        return contains(rectangle.x, rectangle.y) && contains(right, rectangle.y)
+               && contains(rectangle.x, bottom) && contains(right, bottom);
+    }
+
+    /**
+     * Tests many points at once.
+     *
+     * @param xs the X coordinates of the points
+     * @param ys the Y coordinates of the points, at least as many as X coordinates
+     * @param out the results, at least as many as X coordinates
+     * @return the number of points that are inside this polygon
+     */
+    public int containsAll(int[] xs, int[] ys, boolean[] out) {
+        int count = 0;
+        for (int i = 0; i < xs.length; i++) {
+            out[i] = contains(xs[i], ys[i]);
+            if (out[i]) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @param y a Y coordinate within the bounds
+     * @return the band of the row
+     */
+    private int getBand(int y) {
+        return (int) (((long) y - minY) * bandCount / ((long) maxY - minY + 1));
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getName() + " x = " + Arrays.toString(xpoints) + ", y = " + Arrays.toString(ypoints);
+    }
+}
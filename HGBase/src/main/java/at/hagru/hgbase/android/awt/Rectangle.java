@@ -210,6 +210,44 @@ public class Rectangle {
         return new Rectangle(x, y, width, height);
     }
 
+    /**
+     * Copies the bounds of this <code>Rectangle</code> into the given rectangle, without creating any object.
+     *
+     * @param dest the rectangle to write the bounds into
+     * @return the given rectangle
+     */
+    public Rectangle getBounds(Rectangle dest) {
+        return dest.setBounds(x, y, width, height);
+    }
+
+    /**
+     * Sets the bounding <code>Rectangle</code> of this <code>Rectangle</code> to the specified values.
+     *
+     * @param x      the new X coordinate for the upper-left corner of this <code>Rectangle</code>
+     * @param y      the new Y coordinate for the upper-left corner of this <code>Rectangle</code>
+     * @param width  the new width for this <code>Rectangle</code>
+     * @param height the new height for this <code>Rectangle</code>
+     * @return this rectangle
+     */
+    public Rectangle setBounds(int x, int y, int width, int height) {
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+        return this;
+    }
+
+    /**
+     * Sets the bounding <code>Rectangle</code> of this <code>Rectangle</code> to match the specified
+     * <code>Rectangle</code>.
+     *
+     * @param r the specified <code>Rectangle</code>
+     * @return this rectangle
+     */
+    public Rectangle setBounds(Rectangle r) {
+        return setBounds(r.x, r.y, r.width, r.height);
+    }
+
     /**
      * Returns the location of this <code>Rectangle</code>.
      * <p>
@@ -222,6 +260,17 @@ public class Rectangle {
         return new Point(x, y);
     }
 
+    /**
+     * Writes the location of this <code>Rectangle</code> into the given point, without creating any object.
+     *
+     * @param dest the point to write the upper-left corner into
+     * @return the given point
+     */
+    public Point getLocation(Point dest) {
+        dest.set(x, y);
+        return dest;
+    }
+
     /**
      * Returns the location of the upper-left corner of this {@code Rectangle}.<br>
      * This is the same as {@link Rectangle#getLocation()}.
@@ -232,6 +281,16 @@ public class Rectangle {
         return getLocation();
     }
 
+    /**
+     * Writes the location of the upper-left corner of this {@code Rectangle} into the given point.
+     *
+     * @param dest The point to write the location into.
+     * @return The given point.
+     */
+    public Point getUpperLeft(Point dest) {
+        return getLocation(dest);
+    }
+
     /**
      * Returns the location of the upper-right corner of this {@code Rectangle}.
      *
@@ -241,6 +300,17 @@ public class Rectangle {
         return new Point(getRight(), getTop());
     }
 
+    /**
+     * Writes the location of the upper-right corner of this {@code Rectangle} into the given point.
+     *
+     * @param dest The point to write the location into.
+     * @return The given point.
+     */
+    public Point getUpperRight(Point dest) {
+        dest.set(getRight(), getTop());
+        return dest;
+    }
+
     /**
      * Returns the location of the lower-left corner of this {@code Rectangle}.
      *
@@ -250,6 +320,17 @@ public class Rectangle {
         return new Point(getLeft(), getBottom());
     }
 
+    /**
+     * Writes the location of the lower-left corner of this {@code Rectangle} into the given point.
+     *
+     * @param dest The point to write the location into.
+     * @return The given point.
+     */
+    public Point getLowerLeft(Point dest) {
+        dest.set(getLeft(), getBottom());
+        return dest;
+    }
+
     /**
      * Returns the location of the lower-right corner of this {@code Rectangle}.
      *
@@ -259,6 +340,17 @@ public class Rectangle {
         return new Point(getRight(), getBottom());
     }
 
+    /**
+     * Writes the location of the lower-right corner of this {@code Rectangle} into the given point.
+     *
+     * @param dest The point to write the location into.
+     * @return The given point.
+     */
+    public Point getLowerRight(Point dest) {
+        dest.set(getRight(), getBottom());
+        return dest;
+    }
+
     /**
      * Gets the size of this <code>Rectangle</code>, represented by the returned <code>Dimension</code>.
      * <p>
@@ -292,15 +384,27 @@ public class Rectangle {
      * <code>false</code> otherwise.
      */
     public boolean contains(int X, int Y) {
-        int w = this.width;
-        int h = this.height;
+        return contains(x, y, width, height, X, Y);
+    }
+
+    /**
+     * Checks whether or not the rectangle with the given bounds contains the point at the specified location
+     * {@code (X,Y)}, without creating any object.
+     *
+     * @param x the X coordinate of the rectangle
+     * @param y the Y coordinate of the rectangle
+     * @param w the width of the rectangle
+     * @param h the height of the rectangle
+     * @param X the specified X coordinate
+     * @param Y the specified Y coordinate
+     * @return <code>true</code> if the point {@code (X,Y)} is inside the rectangle; <code>false</code> otherwise.
+     */
+    public static boolean contains(int x, int y, int w, int h, int X, int Y) {
         if ((w | h) < 0) {
             // At least one of the dimensions is negative...
             return false;
         }
         // Note: if either dimension is zero, tests below must return false...
-        int x = this.x;
-        int y = this.y;
         if (X < x || Y < y) {
             return false;
         }
@@ -310,6 +414,21 @@ public class Rectangle {
         return ((w < x || w > X) && (h < y || h > Y));
     }
 
+    /**
+     * Returns the squared distance of the point at the specified location {@code (X,Y)} to this
+     * <code>Rectangle</code>.
+     *
+     * @param X the specified X coordinate
+     * @param Y the specified Y coordinate
+     * @return zero if the point is inside or on the border of this <code>Rectangle</code>, otherwise the
+     * squared distance to the nearest side.
+     */
+    public double getSquaredDistance(int X, int Y) {
+        long dx = Math.max(0, Math.max((long) x - X, (long) X - getRight()));
+        long dy = Math.max(0, Math.max((long) y - Y, (long) Y - getBottom()));
+        return (double) (dx * dx + dy * dy);
+    }
+
     public boolean isEmpty() {
         return (width <= 0) || (height <= 0);
     }
@@ -337,6 +456,17 @@ public class Rectangle {
         return new Rect(this.x, this.y, this.x + this.width, this.y + this.height);
     }
 
+    /**
+     * Writes this rectangle into the given {@link Rect}, without creating any object.
+     *
+     * @param dest The {@link Rect} to write into.
+     * @return The given {@link Rect}.
+     */
+    public Rect toRect(Rect dest) {
+        dest.set(this.x, this.y, this.x + this.width, this.y + this.height);
+        return dest;
+    }
+
     /**
      * Returns {@code true} if this rectangle intersects the specified rectangle.
      *
@@ -344,7 +474,25 @@ public class Rectangle {
      * @return {@code true} if this rectangle intersects the specified rectangle.
      */
     public boolean intersects(Rectangle other) {
-        return Rect.intersects(this.toRect(), other.toRect());
+        return intersects(x, y, width, height, other.x, other.y, other.width, other.height);
+    }
+
+    /**
+     * Returns {@code true} if the two rectangles with the given bounds intersect, without creating any object.
+     * The rules are the same as for {@link Rect#intersects(Rect, Rect)}.
+     *
+     * @param x1 The X coordinate of the first rectangle.
+     * @param y1 The Y coordinate of the first rectangle.
+     * @param w1 The width of the first rectangle.
+     * @param h1 The height of the first rectangle.
+     * @param x2 The X coordinate of the second rectangle.
+     * @param y2 The Y coordinate of the second rectangle.
+     * @param w2 The width of the second rectangle.
+     * @param h2 The height of the second rectangle.
+     * @return {@code true} if the rectangles intersect.
+     */
+    public static boolean intersects(int x1, int y1, int w1, int h1, int x2, int y2, int w2, int h2) {
+        return x1 < x2 + w2 && x2 < x1 + w1 && y1 < y2 + h2 && y2 < y1 + h1;
     }
 
     /**
@@ -356,12 +504,29 @@ public class Rectangle {
      * @return The intersection rectangle or {@code null} if there is no intersection.
      */
     public Rectangle getIntersection(Rectangle other) {
-        Rect intersection = new Rect();
-        if (intersection.setIntersect(this.toRect(), other.toRect())) {
-            return new Rectangle(intersection);
-        } else {
-            return null;
+        Rectangle intersection = new Rectangle();
+        return getIntersection(other, intersection) ? intersection : null;
+    }
+
+    /**
+     * Checks if the specified rectangle intersects with this rectangle.<br>
+     * If so, the intersection rectangle will be written into the given destination, otherwise it is not changed.
+     * No object is created. The destination may be this or the other rectangle.
+     *
+     * @param other The other rectangle being tested for intersection.
+     * @param dest  The rectangle to write the intersection into.
+     * @return {@code true} if there is an intersection.
+     */
+    public boolean getIntersection(Rectangle other, Rectangle dest) {
+        if (!intersects(other)) {
+            return false;
         }
+        int left = Math.max(x, other.x);
+        int top = Math.max(y, other.y);
+        int right = Math.min(x + width, other.x + other.width);
+        int bottom = Math.min(y + height, other.y + other.height);
+        dest.setBounds(left, top, right - left, bottom - top);
+        return true;
     }
 
     /**
@@ -398,6 +563,17 @@ public class Rectangle {
         return new Point(x + (width/2), y + (height/2));
     }
 
+    /**
+     * Writes the center position of this rectangle into the given point, without creating any object.
+     *
+     * @param dest The point to write the center into.
+     * @return The given point.
+     */
+    public Point getCenter(Point dest) {
+        dest.set(x + (width/2), y + (height/2));
+        return dest;
+    }
+
     /**
      * Returns the diagonal of this rectangle.
      *
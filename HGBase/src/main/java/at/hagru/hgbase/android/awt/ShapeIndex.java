@@ -0,0 +1,447 @@
+package at.hagru.hgbase.android.awt;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A spatial index for hit-testing many shapes, e.g., the fields of a board.<p>
+ * The shapes are kept in a uniform grid by their bounds, so a query only tests the shapes of the grid cells
+ * it touches instead of all shapes. Point queries test the shapes exactly with the {@link HitTester},
+ * rectangle and radius queries return all shapes whose bounds intersect the area. The distance of a point to a
+ * shape is measured by the {@link DistanceMeasure} or to the bounds of the shape.
+ * Results are in the order the shapes were inserted.<p>
+ * The index is not thread-safe. A shape that is moved has to be updated with {@link #update(Object, Rectangle)}.
+ *
+ * @param <T> the type of the shapes
+ * @author hagru
+ */
+public class ShapeIndex<T> {
+
+    /**
+     * The default size of a grid cell in pixels.
+     */
+    public static final int DEFAULT_CELL_SIZE = 64;
+
+    private final int cellSize;
+    private final HitTester<T> tester;
+    private final DistanceMeasure<T> measure;
+    private final Map<Long, List<Entry<T>>> cells = new HashMap<>();
+    private final Map<T, Entry<T>> entries = new IdentityHashMap<>();
+    private final List<Entry<T>> found = new ArrayList<>();
+    private long nextSequence;
+    private int queryStamp;
+
+    /**
+     * Tests whether a shape contains a point.
+     *
+     * @param <T> the type of the shapes
+     */
+    public interface HitTester<T> {
+
+        /**
+         * @param shape the shape
+         * @param x the x position
+         * @param y the y position
+         * @return true if the shape contains the point
+         */
+        boolean contains(T shape, int x, int y);
+    }
+
+    /**
+     * Measures the distance of a point to a shape.
+     *
+     * @param <T> the type of the shapes
+     */
+    public interface DistanceMeasure<T> {
+
+        /**
+         * @param shape the shape
+         * @param x the x position
+         * @param y the y position
+         * @return zero if the shape contains the point, otherwise the squared distance of the point to the shape
+         */
+        double getSquaredDistance(T shape, int x, int y);
+    }
+
+    /**
+     * Creates an index that tests points only against the bounds of the shapes.
+     *
+     * @param cellSize the size of a grid cell, should be about the size of a typical shape
+     */
+    public ShapeIndex(int cellSize) {
+        this(cellSize, null);
+    }
+
+    /**
+     * @param cellSize the size of a grid cell, should be about the size of a typical shape
+     * @param tester the exact test for point queries, null to use the bounds only
+     */
+    public ShapeIndex(int cellSize, HitTester<T> tester) {
+        this(cellSize, tester, null);
+    }
+
+    /**
+     * @param cellSize the size of a grid cell, should be about the size of a typical shape
+     * @param tester the exact test for point queries, null to use the bounds only
+     * @param measure the exact distance of a point to a shape, null to use the distance to the bounds
+     */
+    public ShapeIndex(int cellSize, HitTester<T> tester, DistanceMeasure<T> measure) {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("cellSize <= 0");
+        }
+        this.cellSize = cellSize;
+        this.tester = tester;
+        this.measure = measure;
+    }
+
+    /**
+     * @param cellSize the size of a grid cell
+     * @return an index for polygons, tested exactly by {@link Polygon#contains(int, int)}
+     */
+    public static ShapeIndex<Polygon> forPolygons(int cellSize) {
+        return new ShapeIndex<>(cellSize, Polygon::contains, Polygon::getSquaredDistance);
+    }
+
+    /**
+     * @param cellSize the size of a grid cell
+     * @return an index for rectangles, tested exactly by {@link Rectangle#contains(int, int)}
+     */
+    public static ShapeIndex<Rectangle> forRectangles(int cellSize) {
+        return new ShapeIndex<>(cellSize, Rectangle::contains, Rectangle::getSquaredDistance);
+    }
+
+    /**
+     * @return the size of a grid cell
+     */
+    public int getCellSize() {
+        return cellSize;
+    }
+
+    /**
+     * @return the number of shapes in the index
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return true if there are no shapes in the index
+     */
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    /**
+     * @param shape a shape
+     * @return true if the shape is in the index
+     */
+    public boolean containsShape(T shape) {
+        return entries.containsKey(shape);
+    }
+
+    /**
+     * Inserts a shape, a shape that is already in the index is updated.
+     *
+     * @param shape the shape
+     * @param bounds the bounds of the shape, they are copied
+     */
+    public void insert(T shape, Rectangle bounds) {
+        Entry<T> old = entries.get(shape);
+        long sequence;
+        if (old == null) {
+            sequence = nextSequence++;
+        } else {
+            // a moved shape keeps its position in the order of insertion
+            removeFromCells(old);
+            sequence = old.sequence;
+        }
+        Entry<T> entry = new Entry<>(shape, bounds.getBounds(), sequence);
+        entries.put(shape, entry);
+        int minX = toCell(bounds.x);
+        int minY = toCell(bounds.y);
+        int maxX = toCell(bounds.x + bounds.width);
+        int maxY = toCell(bounds.y + bounds.height);
+        for (int cx = minX; cx <= maxX; cx++) {
+            for (int cy = minY; cy <= maxY; cy++) {
+                addToCell(cells.computeIfAbsent(toKey(cx, cy), k -> new ArrayList<>(4)), entry);
+            }
+        }
+    }
+
+    /**
+     * Updates the bounds of a shape that has been moved or resized. The shape keeps its position in the order
+     * of insertion, so it has the same priority for the queries as before.
+     *
+     * @param shape the shape
+     * @param bounds the new bounds of the shape
+     */
+    public void update(T shape, Rectangle bounds) {
+        insert(shape, bounds);
+    }
+
+    /**
+     * Removes a shape.
+     *
+     * @param shape the shape
+     * @return true if the shape was in the index
+     */
+    public boolean remove(T shape) {
+        Entry<T> entry = entries.remove(shape);
+        if (entry == null) {
+            return false;
+        }
+        removeFromCells(entry);
+        return true;
+    }
+
+    /**
+     * Removes all shapes.
+     */
+    public void clear() {
+        cells.clear();
+        entries.clear();
+    }
+
+    /**
+     * Returns the first inserted shape that contains the given point.
+     *
+     * @param x the x position
+     * @param y the y position
+     * @return the shape or null if no shape contains the point
+     */
+    public T findAt(int x, int y) {
+        List<Entry<T>> cell = cells.get(toKey(toCell(x), toCell(y)));
+        if (cell != null) {
+            // the entries of a cell are in the order of insertion
+            for (Entry<T> entry : cell) {
+                if (hits(entry, x, y)) {
+                    return entry.shape;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns all shapes that contain the given point.
+     *
+     * @param x the x position
+     * @param y the y position
+     * @return the shapes, may be empty
+     */
+    public List<T> queryPoint(int x, int y) {
+        List<Entry<T>> cell = cells.get(toKey(toCell(x), toCell(y)));
+        if (cell == null) {
+            return Collections.emptyList();
+        }
+        List<T> result = new ArrayList<>();
+        for (Entry<T> entry : cell) {
+            if (hits(entry, x, y)) {
+                result.add(entry.shape);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns all shapes whose bounds intersect the given rectangle.
+     *
+     * @param area the rectangle
+     * @return the shapes, may be empty
+     */
+    public List<T> queryRectangle(Rectangle area) {
+        return queryArea(area.x, area.y, area.x + area.width, area.y + area.height);
+    }
+
+    /**
+     * Returns all shapes whose bounds intersect the area within the given distance to the point.
+     * This is a single query for all positions a tolerant touch may test.
+     *
+     * @param x the x position
+     * @param y the y position
+     * @param xRadius the maximum x distance
+     * @param yRadius the maximum y distance
+     * @return the shapes, may be empty
+     */
+    public List<T> queryRadius(int x, int y, int xRadius, int yRadius) {
+        int xr = Math.abs(xRadius);
+        int yr = Math.abs(yRadius);
+        return queryArea(x - xr, y - yr, x + xr, y + yr);
+    }
+
+    /**
+     * Tests the point exactly against the shape, with the bounds as fast rejection.
+     *
+     * @param shape a shape of the index
+     * @param x the x position
+     * @param y the y position
+     * @return true if the shape contains the point
+     */
+    public boolean hits(T shape, int x, int y) {
+        Entry<T> entry = entries.get(shape);
+        return (entry != null && hits(entry, x, y));
+    }
+
+    /**
+     * Returns the squared distance of the point to the shape, measured by the {@link DistanceMeasure} or
+     * to the bounds of the shape.
+     *
+     * @param shape a shape of the index
+     * @param x the x position
+     * @param y the y position
+     * @return zero if the shape contains the point, otherwise the squared distance,
+     *         infinite if the shape is not in the index
+     */
+    public double getSquaredDistance(T shape, int x, int y) {
+        Entry<T> entry = entries.get(shape);
+        if (entry == null) {
+            return Double.POSITIVE_INFINITY;
+        } else if (measure != null) {
+            return measure.getSquaredDistance(shape, x, y);
+        } else if (hits(entry, x, y)) {
+            return 0.0;
+        }
+        return entry.bounds.getSquaredDistance(x, y);
+    }
+
+    /**
+     * @param entry an entry
+     * @param x the x position
+     * @param y the y position
+     * @return true if the shape of the entry contains the point
+     */
+    private boolean hits(Entry<T> entry, int x, int y) {
+        Rectangle b = entry.bounds;
+        if (x < b.x || y < b.y || x > b.x + b.width || y > b.y + b.height) {
+            return false;
+        }
+        return (tester == null || tester.contains(entry.shape, x, y));
+    }
+
+    /**
+     * @param left the left side, inclusive
+     * @param top the upper side, inclusive
+     * @param right the right side, inclusive
+     * @param bottom the lower side, inclusive
+     * @return the shapes whose bounds intersect the area in the order of insertion
+     */
+    private List<T> queryArea(int left, int top, int right, int bottom) {
+        if (++queryStamp == 0) {
+            // the stamp overflowed, so older stamps must not be mistaken for the current one
+            for (Entry<T> entry : entries.values()) {
+                entry.stamp = 0;
+            }
+            queryStamp = 1;
+        }
+        int minX = toCell(left);
+        int minY = toCell(top);
+        int maxX = toCell(right);
+        int maxY = toCell(bottom);
+        found.clear();
+        for (int cx = minX; cx <= maxX; cx++) {
+            for (int cy = minY; cy <= maxY; cy++) {
+                List<Entry<T>> cell = cells.get(toKey(cx, cy));
+                if (cell == null) {
+                    continue;
+                }
+                for (Entry<T> entry : cell) {
+                    if (entry.stamp != queryStamp) {
+                        entry.stamp = queryStamp;
+                        Rectangle b = entry.bounds;
+                        if (b.x <= right && b.y <= bottom && b.x + b.width >= left && b.y + b.height >= top) {
+                            found.add(entry);
+                        }
+                    }
+                }
+            }
+        }
+        if (found.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (found.size() > 1) {
+            Collections.sort(found, (e1, e2) -> Long.compare(e1.sequence, e2.sequence));
+        }
+        List<T> result = new ArrayList<>(found.size());
+        for (Entry<T> entry : found) {
+            result.add(entry.shape);
+        }
+        found.clear();
+        return result;
+    }
+
+    /**
+     * Adds the entry to the cell, so the entries of the cell stay in the order of insertion.
+     *
+     * @param cell the entries of a grid cell
+     * @param entry the entry to add
+     */
+    private static <T> void addToCell(List<Entry<T>> cell, Entry<T> entry) {
+        int index = cell.size();
+        while (index > 0 && cell.get(index - 1).sequence > entry.sequence) {
+            index--;
+        }
+        cell.add(index, entry);
+    }
+
+    /**
+     * Removes the entry from all grid cells of its bounds.
+     *
+     * @param entry the entry to remove
+     */
+    private void removeFromCells(Entry<T> entry) {
+        Rectangle bounds = entry.bounds;
+        int minX = toCell(bounds.x);
+        int minY = toCell(bounds.y);
+        int maxX = toCell(bounds.x + bounds.width);
+        int maxY = toCell(bounds.y + bounds.height);
+        for (int cx = minX; cx <= maxX; cx++) {
+            for (int cy = minY; cy <= maxY; cy++) {
+                Long key = toKey(cx, cy);
+                List<Entry<T>> cell = cells.get(key);
+                if (cell != null) {
+                    cell.remove(entry);
+                    if (cell.isEmpty()) {
+                        cells.remove(key);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @param coordinate a x or y coordinate
+     * @return the index of the grid cell
+     */
+    private int toCell(int coordinate) {
+        return Math.floorDiv(coordinate, cellSize);
+    }
+
+    /**
+     * @param cx the x index of the grid cell
+     * @param cy the y index of the grid cell
+     * @return the key of the grid cell
+     */
+    private static Long toKey(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xFFFFFFFFL);
+    }
+
+    /**
+     * A shape with its bounds.
+     */
+    private static final class Entry<T> {
+        final T shape;
+        final Rectangle bounds;
+        final long sequence;
+        int stamp;
+
+        Entry(T shape, Rectangle bounds, long sequence) {
+            this.shape = shape;
+            this.bounds = bounds;
+            this.sequence = sequence;
+        }
+    }
+}
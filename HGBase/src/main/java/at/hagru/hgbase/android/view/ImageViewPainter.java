@@ -2,17 +2,41 @@ package at.hagru.hgbase.android.view;
 
 import android.graphics.Bitmap;
 import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.PorterDuff;
+import android.graphics.PorterDuffXfermode;
 import android.widget.ImageView;
 
+import at.hagru.hgbase.android.awt.Rectangle;
+import at.hagru.hgbase.gui.AsyncImageLoader;
+import at.hagru.hgbase.gui.BitmapPool;
+
 /**
  * Helper class to easily paint on an image view by overriding an
- * {@code onPaint} method.
+ * {@code onPaint} method.<p>
+ * The images are taken from the {@link BitmapPool}, an image is given back when the next image is displayed.
+ * So the image displayed by the view must not be used anywhere else.<p>
+ * In the incremental mode, the painter keeps a back buffer with the previous image. Regions that changed are
+ * marked by {@link #markDirty(Rectangle)}, {@link #paintDirty()} then only repaints these regions on the back buffer
+ * and swaps the buffers. {@link #onPaint(Canvas)} is called with a canvas clipped to the dirty regions,
+ * it may check {@link Canvas#getClipBounds()} to skip drawing outside of them.
  * 
  * @author hagru
  */
 public abstract class ImageViewPainter {
 
+	private static final AsyncImageLoader PAINT_LOADER = new AsyncImageLoader();
+
+	private static final Paint COPY_PAINT = createCopyPaint();
+
 	private ImageView view;
+	private Bitmap displayedImage;
+	private Bitmap backBuffer;
+	private boolean backBufferValid;
+	private Rectangle backBufferStale;
+	private Rectangle dirtyRegion;
+	private boolean incremental;
 
 	/**
 	 * Create a painter for the given view.
@@ -38,16 +62,199 @@ public abstract class ImageViewPainter {
 		return view.getHeight();
 	}
 
+	/**
+	 * @return a paint that replaces the pixels of the target
+	 */
+	private static Paint createCopyPaint() {
+		Paint paint = new Paint();
+		paint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.SRC));
+		return paint;
+	}
+
+	/**
+	 * Switches the incremental mode on or off.
+	 * 
+	 * @param incremental true to repaint only the dirty regions with {@link #paintDirty()}
+	 */
+	public void setIncremental(boolean incremental) {
+		this.incremental = incremental;
+		if (!incremental) {
+			BitmapPool.release(backBuffer);
+			backBuffer = null;
+			backBufferValid = false;
+			dirtyRegion = null;
+		}
+	}
+
+	/**
+	 * @return true if the incremental mode is on
+	 */
+	public boolean isIncremental() {
+		return incremental;
+	}
+
+	/**
+	 * Marks a region that has to be repainted by the next {@link #paintDirty()}.
+	 * 
+	 * @param region the changed region, may be null
+	 */
+	public void markDirty(Rectangle region) {
+		if (region != null) {
+			markDirty(region.x, region.y, region.width, region.height);
+		}
+	}
+
+	/**
+	 * Marks a region that has to be repainted by the next {@link #paintDirty()}.
+	 * 
+	 * @param x the x coordinate of the changed region
+	 * @param y the y coordinate of the changed region
+	 * @param width the width of the changed region
+	 * @param height the height of the changed region
+	 */
+	public void markDirty(int x, int y, int width, int height) {
+		if (width <= 0 || height <= 0) {
+			return;
+		}
+		if (dirtyRegion == null) {
+			dirtyRegion = new Rectangle(x, y, width, height);
+		} else {
+			int right = Math.max(dirtyRegion.getRight(), x + width);
+			int bottom = Math.max(dirtyRegion.getBottom(), y + height);
+			dirtyRegion.x = Math.min(dirtyRegion.x, x);
+			dirtyRegion.y = Math.min(dirtyRegion.y, y);
+			dirtyRegion.width = right - dirtyRegion.x;
+			dirtyRegion.height = bottom - dirtyRegion.y;
+		}
+	}
+
+	/**
+	 * Marks the whole view to be repainted by the next {@link #paintDirty()}.
+	 */
+	public void markAllDirty() {
+		markDirty(0, 0, getWidth(), getHeight());
+	}
+
+	/**
+	 * Repaints the regions marked as dirty and displays the result.<p>
+	 * If the incremental mode is off or there is no image of the current size yet, the whole view is painted.
+	 * Must be called on the UI thread.
+	 */
+	public final void paintDirty() {
+		int width = getWidth();
+		int height = getHeight();
+		if (width <= 0 || height <= 0) {
+			return;
+		}
+		if (!incremental || !hasSize(displayedImage, width, height)) {
+			paint();
+			return;
+		}
+		Rectangle region = (dirtyRegion == null) ? null : dirtyRegion.getIntersection(new Rectangle(width, height));
+		dirtyRegion = null;
+		if (region == null || region.isEmpty()) {
+			return;
+		}
+		PAINT_LOADER.cancel(view);
+		Bitmap front = displayedImage;
+		updateBackBuffer(front, width, height);
+		Canvas canvas = new Canvas(backBuffer);
+		canvas.save();
+		canvas.clipRect(region.x, region.y, region.getRight(), region.getBottom());
+		canvas.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
+		onPaint(canvas);
+		canvas.restore();
+		// swap the buffers, the old front buffer misses the region painted now
+		view.setImageBitmap(backBuffer);
+		displayedImage = backBuffer;
+		backBuffer = front;
+		backBufferValid = true;
+		backBufferStale = region;
+	}
+
+	/**
+	 * Brings the back buffer to the state of the displayed image, only the stale region is copied.
+	 * 
+	 * @param front the displayed image
+	 * @param width the width of the view
+	 * @param height the height of the view
+	 */
+	private void updateBackBuffer(Bitmap front, int width, int height) {
+		if (!hasSize(backBuffer, width, height)) {
+			BitmapPool.release(backBuffer);
+			backBuffer = BitmapPool.acquire(width, height, Bitmap.Config.ARGB_8888);
+			backBufferValid = false;
+		}
+		Canvas canvas = new Canvas(backBuffer);
+		if (backBufferValid) {
+			if (backBufferStale != null) {
+				canvas.drawBitmap(front, backBufferStale.toRect(), backBufferStale.toRect(), COPY_PAINT);
+			}
+		} else {
+			canvas.drawBitmap(front, 0, 0, COPY_PAINT);
+		}
+		backBufferStale = null;
+	}
+
+	/**
+	 * @param bitmap the bitmap, may be null
+	 * @param width the expected width
+	 * @param height the expected height
+	 * @return true if the bitmap exists and has the expected size
+	 */
+	private static boolean hasSize(Bitmap bitmap, int width, int height) {
+		return bitmap != null && bitmap.getWidth() == width && bitmap.getHeight() == height;
+	}
+
 	/**
 	 * Start the painting on the image view.
 	 */
 	public final void paint() {
 		if (getWidth() > 0 && getHeight() > 0) {
-			Bitmap bitmap = Bitmap.createBitmap(getWidth(), getHeight(), Bitmap.Config.ARGB_8888);
-			Canvas canvas = new Canvas(bitmap);
-			onPaint(canvas);
-			view.setImageBitmap(bitmap);
+			PAINT_LOADER.cancel(view);
+			showImage(createImage(getWidth(), getHeight()));
+		}
+	}
+
+	/**
+	 * Start the painting on a background thread, the image is set on the view on the UI thread.<p>
+	 * A painting that was started before and is not finished yet will not be displayed.
+	 * Use this only if {@link #onPaint(Canvas)} does not access the view and its data can be read from another thread.
+	 */
+	public final void paintAsync() {
+		final int width = getWidth();
+		final int height = getHeight();
+		if (width > 0 && height > 0) {
+			PAINT_LOADER.load(new Object(), () -> createImage(width, height), view, this::showImage);
+		}
+	}
+
+	/**
+	 * @param width the width of the image
+	 * @param height the height of the image
+	 * @return a new image painted by {@link #onPaint(Canvas)}
+	 */
+	private Bitmap createImage(int width, int height) {
+		Bitmap bitmap = BitmapPool.acquire(width, height, Bitmap.Config.ARGB_8888);
+		Canvas canvas = new Canvas(bitmap);
+		onPaint(canvas);
+		return bitmap;
+	}
+
+	/**
+	 * Displays the new image and gives the previous one back to the pool.
+	 * 
+	 * @param image the new image
+	 */
+	private void showImage(Bitmap image) {
+		view.setImageBitmap(image);
+		if (displayedImage != null && displayedImage != image) {
+			BitmapPool.release(displayedImage);
 		}
+		displayedImage = image;
+		// the whole image is new, so the back buffer has to be copied completely
+		backBufferValid = false;
+		dirtyRegion = null;
 	}
 
 	/**
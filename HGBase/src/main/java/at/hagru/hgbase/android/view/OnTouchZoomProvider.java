@@ -1,21 +1,36 @@
 package at.hagru.hgbase.android.view;
 
 import android.annotation.SuppressLint;
+import android.view.Choreographer;
 import android.view.MotionEvent;
 import android.view.View;
 
 /**
- * Allow to react on zooming touches.
+ * Allow to react on zooming touches.<p>
+ * By default every move of two fingers performs a zoom. In the frame synchronized mode the moves are coalesced to
+ * one zoom per display frame, the distance of the fingers is measured exactly, the zoom can be smoothed and the
+ * listener gets the focal point between the fingers.
  */
 public class OnTouchZoomProvider implements View.OnTouchListener {
     
     private static final int NO_ZOOM = 100;
+    private static final float MAX_SMOOTHING = 0.95f;
+    private static final float MIN_ZOOM_STEP = 0.01f;
 	
     private ZoomListener listener;
 	private int maxZoom;
 	private int minZoom;
     private int zoomFactor = NO_ZOOM;
 	private float oldDistance = 0;
+	private boolean frameSynchronized;
+	private float smoothing;
+	private float exactZoom = NO_ZOOM;
+	private float targetZoom = NO_ZOOM;
+	private float focusX;
+	private float focusY;
+	private View zoomView;
+	private boolean framePosted;
+	private final Choreographer.FrameCallback frameCallback = this::onFrame;
 	
 	/**
 	 * Creates a listener that reacts on zoom touch events of a view.
@@ -44,6 +59,8 @@ public class OnTouchZoomProvider implements View.OnTouchListener {
 	 */
 	public void setZoomFactor(int zoomFactor) {
 		this.zoomFactor = zoomFactor;
+		this.exactZoom = zoomFactor;
+		this.targetZoom = zoomFactor;
 	}
 
 	/**
@@ -82,6 +99,59 @@ public class OnTouchZoomProvider implements View.OnTouchListener {
         this.minZoom = minZoom;
     }
     
+    /**
+     * @return true if the moves are coalesced to one zoom per display frame
+     */
+    public boolean isFrameSynchronized() {
+        return frameSynchronized;
+    }
+
+    /**
+     * Sets the frame synchronized mode. In this mode the moves are coalesced to one zoom per display frame, and
+     * the listener is called by {@link ZoomListener#performZoom(View, int, float, float, float)} with the focal point.
+     * 
+     * @param frameSynchronized true to zoom at most once per display frame
+     */
+    public void setFrameSynchronized(boolean frameSynchronized) {
+        this.frameSynchronized = frameSynchronized;
+        if (!frameSynchronized && framePosted) {
+            Choreographer.getInstance().removeFrameCallback(frameCallback);
+            framePosted = false;
+            zoomView = null;
+        }
+    }
+
+    /**
+     * @return the smoothing of the frame synchronized zoom
+     */
+    public float getSmoothing() {
+        return smoothing;
+    }
+
+    /**
+     * Sets the smoothing of the frame synchronized zoom. With a smoothing of 0.5, every frame the zoom moves
+     * half of the way to the zoom given by the fingers.
+     * 
+     * @param smoothing the part of the way the zoom stays behind per frame, from 0 (no smoothing) to 0.95
+     */
+    public void setSmoothing(float smoothing) {
+        this.smoothing = Math.min(Math.max(smoothing, 0f), MAX_SMOOTHING);
+    }
+
+    /**
+     * @return the x position between the fingers of the last zoom, relative to the view
+     */
+    public float getFocusX() {
+        return focusX;
+    }
+
+    /**
+     * @return the y position between the fingers of the last zoom, relative to the view
+     */
+    public float getFocusY() {
+        return focusY;
+    }
+
     /**
      * @return true if the zoom provider is currently zooming
      */
@@ -93,6 +163,9 @@ public class OnTouchZoomProvider implements View.OnTouchListener {
 	@Override
 	public boolean onTouch(View v, MotionEvent event) {
 		if ((event.getAction() & MotionEvent.ACTION_MASK) == MotionEvent.ACTION_MOVE && event.getPointerCount() > 1) {
+			if (frameSynchronized) {
+				return onZoomMove(v, event);
+			}
 			float x = event.getX(0) - event.getX(1);
 			float y = event.getY(0) - event.getY(1);
 			float newDistance =  Math.abs(x) + Math.abs(y);				
@@ -114,4 +187,65 @@ public class OnTouchZoomProvider implements View.OnTouchListener {
 		return false;
 	}
 
-}
\ No newline at end of file
+	/**
+	 * Stores the zoom given by the fingers, it is performed with the next display frame.
+	 * 
+	 * @param v the view
+	 * @param event the move event with at least two pointers
+	 * @return true if the event was consumed
+	 */
+	private boolean onZoomMove(View v, MotionEvent event) {
+		float x = event.getX(0) - event.getX(1);
+		float y = event.getY(0) - event.getY(1);
+		float newDistance = (float) Math.sqrt(x * x + y * y);
+		focusX = (event.getX(0) + event.getX(1)) / 2f;
+		focusY = (event.getY(0) + event.getY(1)) / 2f;
+		if (oldDistance != 0) {
+			targetZoom = Math.min(Math.max(targetZoom * newDistance / oldDistance, minZoom), maxZoom);
+			oldDistance = newDistance;
+			zoomView = v;
+			if (!framePosted) {
+				framePosted = true;
+				Choreographer.getInstance().postFrameCallback(frameCallback);
+			}
+			return true;
+		}
+		if (!framePosted && Math.round(exactZoom) != zoomFactor) {
+			// the zoom factor was changed by the default mode
+			exactZoom = zoomFactor;
+			targetZoom = zoomFactor;
+		}
+		oldDistance = newDistance;
+		return false;
+	}
+
+	/**
+	 * Performs the zoom once per display frame and moves on until the smoothed zoom reaches the zoom of the fingers.
+	 * 
+	 * @param frameTimeNanos the time of the frame
+	 */
+	private void onFrame(long frameTimeNanos) {
+		framePosted = false;
+		View v = zoomView;
+		if (v == null) {
+			return;
+		}
+		float newZoom = exactZoom + (1f - smoothing) * (targetZoom - exactZoom);
+		if (Math.abs(targetZoom - newZoom) < MIN_ZOOM_STEP) {
+			newZoom = targetZoom;
+		}
+		if (newZoom != exactZoom) {
+			float scale = (exactZoom > 0) ? newZoom / exactZoom : 1f;
+			exactZoom = newZoom;
+			zoomFactor = Math.round(newZoom);
+			listener.performZoom(v, zoomFactor, scale, focusX, focusY);
+		}
+		if (exactZoom != targetZoom) {
+			framePosted = true;
+			Choreographer.getInstance().postFrameCallback(frameCallback);
+		} else if (!isZooming()) {
+			zoomView = null;
+		}
+	}
+
+}
\ No newline at end of file
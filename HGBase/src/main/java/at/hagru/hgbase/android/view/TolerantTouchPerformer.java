@@ -1,5 +1,10 @@
 package at.hagru.hgbase.android.view;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import at.hagru.hgbase.android.awt.ShapeIndex;
+
 /**
  * Helper class to allow a tolerance for touch actions.
  * 
@@ -9,6 +14,7 @@ package at.hagru.hgbase.android.view;
 public abstract class TolerantTouchPerformer<T> {
 	
     private static final int TOUCH_TOLERANCE = 20;
+    private static final int TOLERANCE_STEPS = 4;
     
     private final int xTolerance;
     private final int yTolerance;
@@ -50,15 +56,185 @@ public abstract class TolerantTouchPerformer<T> {
     public T run(int xPos, int yPos) {
     	T result = performTouch(xPos, yPos);
     	if (result == null) {
-        	for (int i = 0; i < 4 && result == null; i++) {
-        		int newX = (i % 2 == 0) ? xPos + xTolerance : xPos - xTolerance;
-        		int newY = (i % 2 == 1) ? yPos + yTolerance : yPos - yTolerance;
-        		result = performTouch(newX, newY);
+        	for (int i = 0; i < TOLERANCE_STEPS && result == null; i++) {
+        		result = performTouch(getToleranceX(xPos, i), getToleranceY(yPos, i));
         	}    		
     	}
     	return result;
     }
 
+    /**
+     * Do the tolerance touch performance on the shapes of a spatial index. The index is queried only once
+     * for all shapes within the tolerance, the shapes are tested at the same positions as by {@link #run(int, int)}.
+     * 
+     * @param index the spatial index of the shapes
+     * @param xPos the x position
+     * @param yPos the y position
+     * @param <S> the type of the shapes
+     * @return the first shape that contains one of the positions or null if the touch was not successful
+     */
+    public <S> S run(ShapeIndex<S> index, int xPos, int yPos) {
+    	List<S> candidates = index.queryRadius(xPos, yPos, xTolerance, yTolerance);
+    	if (candidates.isEmpty()) {
+    		return null;
+    	}
+    	for (int i = -1; i < TOLERANCE_STEPS; i++) {
+    		int x = (i < 0) ? xPos : getToleranceX(xPos, i);
+    		int y = (i < 0) ? yPos : getToleranceY(yPos, i);
+    		for (S shape : candidates) {
+    			if (index.hits(shape, x, y)) {
+    				return shape;
+    			}
+    		}
+    	}
+    	return null;
+    }
+
+    /**
+     * Do the tolerance touch performance for a batch of positions, e.g., for multi-touch or historical move samples.
+     * 
+     * @param xPos the x positions
+     * @param yPos the y positions, at least as many as x positions
+     * @return the success objects or null for the positions where the touch was not successful
+     */
+    public List<T> run(int[] xPos, int[] yPos) {
+    	List<T> results = new ArrayList<>(xPos.length);
+    	for (int i = 0; i < xPos.length; i++) {
+    		results.add(run(xPos[i], yPos[i]));
+    	}
+    	return results;
+    }
+
+    /**
+     * Do the touch performance in the nearest candidate mode. The candidates within the tolerance are collected
+     * once by {@link #collectCandidates(int, int, int, int, List)} and the candidate with the smallest
+     * distance to the position is returned. In this mode the tolerance is the distance to the corners of the
+     * tolerance box, as they are the farthest positions tested by {@link #run(int, int)}.
+     * If collecting candidates is not supported, this is the same as {@link #run(int, int)}.
+     * 
+     * @param xPos the x position
+     * @param yPos the y position
+     * @return the nearest candidate or null if there is no candidate within the tolerance
+     */
+    public T runNearest(int xPos, int yPos) {
+    	List<T> candidates = new ArrayList<>();
+    	int radius = getNearestRadius();
+    	if (!collectCandidates(xPos - radius, yPos - radius, xPos + radius, yPos + radius, candidates)) {
+    		return run(xPos, yPos);
+    	}
+    	return findNearest(candidates, xPos, yPos, this::getSquaredDistance);
+    }
+
+    /**
+     * Do the touch performance in the nearest candidate mode for a batch of positions. The candidates are
+     * collected for each position, so every position only gets a candidate within its own tolerance.
+     * 
+     * @param xPos the x positions
+     * @param yPos the y positions, at least as many as x positions
+     * @return the nearest candidates or null for the positions without a candidate within the tolerance
+     */
+    public List<T> runNearest(int[] xPos, int[] yPos) {
+    	List<T> results = new ArrayList<>(xPos.length);
+    	for (int i = 0; i < xPos.length; i++) {
+    		results.add(runNearest(xPos[i], yPos[i]));
+    	}
+    	return results;
+    }
+
+    /**
+     * Do the touch performance in the nearest candidate mode on the shapes of a spatial index.
+     * The index is queried only once for all shapes within the tolerance.
+     * 
+     * @param index the spatial index of the shapes
+     * @param xPos the x position
+     * @param yPos the y position
+     * @param <S> the type of the shapes
+     * @return the nearest shape or null if there is no shape within the tolerance
+     */
+    public <S> S runNearest(ShapeIndex<S> index, int xPos, int yPos) {
+    	int radius = getNearestRadius();
+    	List<S> candidates = index.queryRadius(xPos, yPos, radius, radius);
+    	return findNearest(candidates, xPos, yPos, index::getSquaredDistance);
+    }
+
+    /**
+     * Do the touch performance in the nearest candidate mode on the shapes of a spatial index for a batch of
+     * positions. The index is queried for each position, so every position only gets a shape within its own
+     * tolerance and the costs depend on the number of shapes near the positions, not on their spread.
+     * 
+     * @param index the spatial index of the shapes
+     * @param xPos the x positions
+     * @param yPos the y positions, at least as many as x positions
+     * @param <S> the type of the shapes
+     * @return the nearest shapes or null for the positions without a shape within the tolerance
+     */
+    public <S> List<S> runNearest(ShapeIndex<S> index, int[] xPos, int[] yPos) {
+    	List<S> results = new ArrayList<>(xPos.length);
+    	for (int i = 0; i < xPos.length; i++) {
+    		results.add(runNearest(index, xPos[i], yPos[i]));
+    	}
+    	return results;
+    }
+
+    /**
+     * Returns the candidate with the smallest distance, the first one if there are several.
+     * 
+     * @param candidates the candidates
+     * @param xPos the x position
+     * @param yPos the y position
+     * @param measure the distance of a candidate to the position
+     * @param <S> the type of the candidates
+     * @return the nearest candidate or null if no candidate is within the tolerance
+     */
+    private <S> S findNearest(List<S> candidates, int xPos, int yPos, ShapeIndex.DistanceMeasure<S> measure) {
+    	double maxDistance = getNearestSquaredRadius();
+    	S nearest = null;
+    	double nearestDistance = Double.POSITIVE_INFINITY;
+    	for (S candidate : candidates) {
+    		double distance = measure.getSquaredDistance(candidate, xPos, yPos);
+    		if (distance <= maxDistance && distance < nearestDistance) {
+    			nearest = candidate;
+    			nearestDistance = distance;
+    			if (distance == 0.0) {
+    				break;
+    			}
+    		}
+    	}
+    	return nearest;
+    }
+
+    /**
+     * @return the squared distance of the corners of the tolerance box
+     */
+    private double getNearestSquaredRadius() {
+    	return (double) xTolerance * xTolerance + (double) yTolerance * yTolerance;
+    }
+
+    /**
+     * @return the distance of the corners of the tolerance box, rounded up
+     */
+    private int getNearestRadius() {
+    	return (int) Math.ceil(Math.sqrt(getNearestSquaredRadius()));
+    }
+
+    /**
+     * @param xPos the x position
+     * @param step the tolerance step
+     * @return the x position to test at the given step
+     */
+    private int getToleranceX(int xPos, int step) {
+    	return (step % 2 == 0) ? xPos + xTolerance : xPos - xTolerance;
+    }
+
+    /**
+     * @param yPos the y position
+     * @param step the tolerance step
+     * @return the y position to test at the given step
+     */
+    private int getToleranceY(int yPos, int step) {
+    	return (step % 2 == 1) ? yPos + yTolerance : yPos - yTolerance;
+    }
+
     /**
      * Implement this method to perform the action for the given x/y position.
      * 
@@ -67,5 +243,33 @@ public abstract class TolerantTouchPerformer<T> {
      * @return the success object or null if the touch was not successful
      */
     abstract protected T performTouch(int xPos, int yPos);
+
+    /**
+     * Override this method (and {@link #getSquaredDistance(Object, int, int)}) to support the nearest candidate
+     * mode. All candidates that may be within the given area have to be added.
+     * 
+     * @param left the left side of the area
+     * @param top the upper side of the area
+     * @param right the right side of the area
+     * @param bottom the lower side of the area
+     * @param candidates the list to add the candidates to
+     * @return true if candidates are supported, false to use {@link #performTouch(int, int)} instead
+     */
+    protected boolean collectCandidates(int left, int top, int right, int bottom, List<T> candidates) {
+    	return false;
+    }
+
+    /**
+     * Override this method to measure the distance of a candidate in the nearest candidate mode.
+     * By default all candidates have the same distance, so the first candidate is returned.
+     * 
+     * @param candidate the candidate
+     * @param xPos the x position
+     * @param yPos the y position
+     * @return zero if the candidate contains the position, otherwise the squared distance to the position
+     */
+    protected double getSquaredDistance(T candidate, int xPos, int yPos) {
+    	return 0.0;
+    }
     
 }
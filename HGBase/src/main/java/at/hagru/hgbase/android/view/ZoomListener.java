@@ -17,5 +17,19 @@ public interface ZoomListener {
      * @param scaleDiff the scale factor of the current zoom event (zoom in: > 1.0, zoom out: < 1.0)
      */
     public void performZoom(View v, int zoom, float scaleDiff);
+
+    /**
+     * Perform the zoom action around a focal point. This is called by a frame synchronized
+     * {@link OnTouchZoomProvider}, by default it ignores the focal point.
+     * 
+     * @param v the view the zoom touch event happened
+     * @param zoom the new zoom factor
+     * @param scaleDiff the scale factor of the current zoom event (zoom in: > 1.0, zoom out: < 1.0)
+     * @param focusX the x position between the fingers, relative to the view
+     * @param focusY the y position between the fingers, relative to the view
+     */
+    default void performZoom(View v, int zoom, float scaleDiff, float focusX, float focusY) {
+        performZoom(v, zoom, scaleDiff);
+    }
         
 }
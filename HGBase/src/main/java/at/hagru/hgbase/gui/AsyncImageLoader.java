@@ -0,0 +1,279 @@
+package at.hagru.hgbase.gui;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.View;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import at.hagru.hgbase.HGBaseActivity;
+import at.hagru.hgbase.android.HGBaseAppTools;
+import at.hagru.hgbase.lib.HGBaseLog;
+
+/**
+ * Decodes images in the background and delivers them on the UI thread.<p>
+ * All loaders share a small pool of worker threads. Concurrent requests for the same key are decoded only once.
+ * A request for a view replaces the previous request for this view, and the request is cancelled if the view is
+ * detached from its window. The images are delivered by the thread handler of the {@link HGBaseActivity} or by
+ * a handler of the main thread.
+ *
+ * @author hagru
+ */
+public final class AsyncImageLoader {
+
+    private static final int THREAD_COUNT = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+    private static final long KEEP_ALIVE_SECONDS = 30;
+    private static final ThreadPoolExecutor EXECUTOR = createExecutor();
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+
+    private final Map<Object, Request> requests = new HashMap<>();
+    private final Map<View, Delivery> targets = new WeakHashMap<>();
+    private final Set<View> observedViews = Collections.newSetFromMap(new WeakHashMap<>());
+    private final View.OnAttachStateChangeListener detachListener = new View.OnAttachStateChangeListener() {
+        @Override
+        public void onViewAttachedToWindow(View v) {
+            // NOCHECK: only detaching is of interest
+        }
+
+        @Override
+        public void onViewDetachedFromWindow(View v) {
+            cancel(v);
+        }
+    };
+
+    public AsyncImageLoader() {
+        super();
+    }
+
+    /**
+     * @return the executor with a bounded number of low priority daemon threads
+     */
+    private static ThreadPoolExecutor createExecutor() {
+        ThreadFactory factory = new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "HGBaseImageLoader-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            }
+        };
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(THREAD_COUNT, THREAD_COUNT, KEEP_ALIVE_SECONDS,
+                                                             TimeUnit.SECONDS, new LinkedBlockingQueue<>(), factory);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Decodes an image in the background. A previous request for the target view is cancelled.
+     *
+     * @param key the key of the image, requests with the same key are decoded only once
+     * @param decoder the code that decodes the image, called on a worker thread
+     * @param target the view that shows the image, may be null
+     * @param callback the callback for the image (that may be null), called on the UI thread
+     */
+    public void load(Object key, Supplier<Bitmap> decoder, View target, Consumer<Bitmap> callback) {
+        Handler handler = getHandler(target);
+        synchronized (this) {
+            cancelTarget(target);
+            Request request = requests.get(key);
+            boolean isNew = (request == null);
+            if (isNew) {
+                request = new Request(key);
+                requests.put(key, request);
+            }
+            Delivery delivery = new Delivery(request, target, callback, handler);
+            request.deliveries.add(delivery);
+            addTarget(target, delivery);
+            if (isNew) {
+                final Request newRequest = request;
+                newRequest.future = EXECUTOR.submit(() -> complete(newRequest, decoder));
+            }
+        }
+    }
+
+    /**
+     * Delivers an image that is already available, e.g., from a cache. A previous request for the target view
+     * is cancelled. If the current thread is the UI thread, the callback is called at once.
+     *
+     * @param image the image, may be null
+     * @param target the view that shows the image, may be null
+     * @param callback the callback for the image, called on the UI thread
+     */
+    public void deliver(Bitmap image, View target, Consumer<Bitmap> callback) {
+        Handler handler = getHandler(target);
+        if (handler.getLooper() == Looper.myLooper()) {
+            cancel(target);
+            callback.accept(image);
+        } else {
+            Delivery delivery = new Delivery(null, target, callback, handler);
+            synchronized (this) {
+                cancelTarget(target);
+                addTarget(target, delivery);
+            }
+            handler.post(() -> deliver(delivery, image));
+        }
+    }
+
+    /**
+     * Cancels the request for the given view, so no image will be delivered for it.
+     *
+     * @param target the view, may be null
+     * @return true if there was a request for the view
+     */
+    public synchronized boolean cancel(View target) {
+        return cancelTarget(target);
+    }
+
+    /**
+     * @return the number of images that are decoded or wait for decoding
+     */
+    public synchronized int getPendingCount() {
+        return requests.size();
+    }
+
+    /**
+     * Decodes the image on the worker thread and posts it to all deliveries that are not cancelled.
+     *
+     * @param request the request
+     * @param decoder the code that decodes the image
+     */
+    private void complete(Request request, Supplier<Bitmap> decoder) {
+        Bitmap image = null;
+        try {
+            image = decoder.get();
+        } catch (RuntimeException e) {
+            HGBaseLog.logError("Could not decode image " + request.key + "! " + e.getMessage());
+        }
+        List<Delivery> deliveries;
+        synchronized (this) {
+            if (requests.get(request.key) == request) {
+                requests.remove(request.key);
+            }
+            request.done = true;
+            deliveries = new ArrayList<>(request.deliveries);
+        }
+        for (Delivery delivery : deliveries) {
+            final Bitmap result = image;
+            delivery.handler.post(() -> deliver(delivery, result));
+        }
+    }
+
+    /**
+     * Calls the callback of the delivery on the UI thread, if it was not cancelled in the meantime.
+     *
+     * @param delivery the delivery
+     * @param image the image
+     */
+    private void deliver(Delivery delivery, Bitmap image) {
+        synchronized (this) {
+            if (delivery.cancelled) {
+                return;
+            }
+            View target = delivery.target;
+            if (target != null && targets.get(target) == delivery) {
+                targets.remove(target);
+            }
+        }
+        delivery.callback.accept(image);
+    }
+
+    /**
+     * @param target the view, may be null
+     * @param delivery the delivery for the view
+     */
+    private void addTarget(View target, Delivery delivery) {
+        if (target != null) {
+            targets.put(target, delivery);
+            if (observedViews.add(target)) {
+                target.addOnAttachStateChangeListener(detachListener);
+            }
+        }
+    }
+
+    /**
+     * Cancels the delivery for the given view and the request, if no other view waits for the image.
+     * Must be called with the lock of this loader.
+     *
+     * @param target the view, may be null
+     * @return true if there was a delivery for the view
+     */
+    private boolean cancelTarget(View target) {
+        Delivery delivery = (target == null) ? null : targets.remove(target);
+        if (delivery == null) {
+            return false;
+        }
+        delivery.cancelled = true;
+        Request request = delivery.request;
+        if (request != null) {
+            request.deliveries.remove(delivery);
+            if (request.deliveries.isEmpty() && !request.done) {
+                request.future.cancel(false);
+                requests.remove(request.key);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param target the view, may be null
+     * @return the handler of the activity of the view or of the app or a handler for the main thread
+     */
+    private static Handler getHandler(View target) {
+        Context context = (target == null) ? HGBaseAppTools.getContext() : target.getContext();
+        if (context instanceof HGBaseActivity && ((HGBaseActivity) context).getThreadHandler() != null) {
+            return ((HGBaseActivity) context).getThreadHandler();
+        }
+        return MAIN_HANDLER;
+    }
+
+    /**
+     * An image that is decoded or waits for decoding.
+     */
+    private static final class Request {
+        final Object key;
+        final List<Delivery> deliveries = new ArrayList<>(1);
+        Future<?> future;
+        boolean done;
+
+        Request(Object key) {
+            this.key = key;
+        }
+    }
+
+    /**
+     * A callback that waits for an image.
+     */
+    private static final class Delivery {
+        final Request request;
+        final Consumer<Bitmap> callback;
+        final Handler handler;
+        final View target;
+        boolean cancelled;
+
+        Delivery(Request request, View target, Consumer<Bitmap> callback, Handler handler) {
+            this.request = request;
+            this.target = target;
+            this.callback = callback;
+            this.handler = handler;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package at.hagru.hgbase.gui;
+
+import android.content.ComponentCallbacks2;
+import android.content.res.Configuration;
+import android.graphics.Bitmap;
+import android.util.LruCache;
+
+import java.util.Objects;
+
+import androidx.annotation.NonNull;
+
+/**
+ * A cache for bitmaps that is bounded by the bytes of the bitmaps and evicts the least recently used bitmaps first.<p>
+ * The cache can be registered as component callback, then it shrinks when the system asks to trim memory.
+ * Evicted bitmaps are not recycled, because they may still be used by views.
+ * Images decoded with a target size should be cached with a key got by {@link #createKey(Object, int, int)}.
+ *
+ * @author hagru
+ */
+public final class BitmapCache extends LruCache<Object, Bitmap> implements ComponentCallbacks2 {
+
+    /**
+     * The part of the maximum heap size that is used by default.
+     */
+    private static final int DEFAULT_HEAP_DIVISOR = 8;
+
+    /**
+     * Creates a cache that uses an eighth of the maximum heap size.
+     */
+    public BitmapCache() {
+        this(getDefaultMaxBytes());
+    }
+
+    /**
+     * @param maxBytes the maximum number of bytes of all cached bitmaps
+     */
+    public BitmapCache(int maxBytes) {
+        super(maxBytes);
+    }
+
+    /**
+     * @return the default maximum number of bytes, an eighth of the maximum heap size
+     */
+    public static int getDefaultMaxBytes() {
+        return (int) Math.min(Integer.MAX_VALUE, Runtime.getRuntime().maxMemory() / DEFAULT_HEAP_DIVISOR);
+    }
+
+    /**
+     * Creates a key for an image decoded with a target size, so the same source can be cached in different sizes.
+     *
+     * @param source the source of the image, e.g., the resource id or path
+     * @param width the target width, zero or less if not limited
+     * @param height the target height, zero or less if not limited
+     * @return the key for the cache
+     */
+    public static Object createKey(Object source, int width, int height) {
+        return new Key(source, Math.max(width, 0), Math.max(height, 0));
+    }
+
+    @Override
+    protected int sizeOf(@NonNull Object key, @NonNull Bitmap value) {
+        return value.getAllocationByteCount();
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        if (level >= TRIM_MEMORY_MODERATE) {
+            evictAll();
+        } else if (level >= TRIM_MEMORY_RUNNING_LOW) {
+            trimToSize(maxSize() / 2);
+        }
+    }
+
+    @Override
+    public void onLowMemory() {
+        evictAll();
+    }
+
+    @Override
+    public void onConfigurationChanged(@NonNull Configuration newConfig) {
+        // NOCHECK: the cached bitmaps do not depend on the configuration
+    }
+
+    /**
+     * The key of an image with its target size.
+     */
+    private static final class Key {
+        private final Object source;
+        private final int width;
+        private final int height;
+
+        Key(Object source, int width, int height) {
+            this.source = source;
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return width == other.width && height == other.height && Objects.equals(source, other.source);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(source, width, height);
+        }
+    }
+}
@@ -9,7 +9,9 @@ import at.hagru.hgbase.android.HGBaseAppTools;
 
 /**
  * Uses a canvas (and an underlying bitmap) to directly draw on a bitmap. 
- * Allows you to retrieve a drawable object or the bitmap itself.
+ * Allows you to retrieve a drawable object or the bitmap itself.<p>
+ * A canvas created with a size takes its bitmap from the {@link BitmapPool},
+ * call {@link #release()} to give it back if the bitmap is not used any more.
  * 
  * @author hagru
  */
@@ -24,7 +26,7 @@ public class BitmapCanvas extends Canvas {
      * @param height of the image
      */
     public BitmapCanvas(int width, int height) {
-        this(Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888));
+        this(BitmapPool.acquire(width, height, Bitmap.Config.ARGB_8888));
     }
 
     /**
@@ -55,4 +57,16 @@ public class BitmapCanvas extends Canvas {
         return new BitmapDrawable(HGBaseAppTools.getContext().getResources(), bitmap);
     }
 
+    /**
+     * Gives the bitmap back to the {@link BitmapPool}. Neither the canvas nor the bitmap
+     * or drawable got from it must be used any more.
+     */
+    public void release() {
+        if (bitmap != null) {
+            setBitmap(null);
+            BitmapPool.release(bitmap);
+            bitmap = null;
+        }
+    }
+
 }
@@ -0,0 +1,138 @@
+package at.hagru.hgbase.gui;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+
+import java.io.InputStream;
+
+import at.hagru.hgbase.lib.HGBaseFileTools;
+
+/**
+ * Decodes images with a target size.<p>
+ * First only the bounds of the image are decoded, then the image is decoded with the largest power of two
+ * as sample size that keeps the image at least as large as the target size. So large images are never decoded
+ * at full resolution if only a small image is needed. Optionally, opaque (JPEG) images are decoded with
+ * {@link Bitmap.Config#RGB_565}, which needs half of the memory.<p>
+ * A target width or height less or equal to zero means that this dimension is not limited.
+ *
+ * @author hagru
+ */
+public final class BitmapDecoder {
+
+    private static final String MIME_TYPE_JPEG = "image/jpeg";
+
+    private BitmapDecoder() {
+        super();
+    }
+
+    /**
+     * Decodes an image resource.
+     *
+     * @param res the resources
+     * @param resId the resource id of the image
+     * @param width the target width
+     * @param height the target height
+     * @param preferRGB565 true to decode opaque images with {@link Bitmap.Config#RGB_565}
+     * @return the image or null if it cannot be decoded
+     */
+    public static Bitmap decodeResource(Resources res, int resId, int width, int height, boolean preferRGB565) {
+        return decode(options -> BitmapFactory.decodeResource(res, resId, options), width, height, preferRGB565);
+    }
+
+    /**
+     * Decodes an image file.
+     *
+     * @param imagePath the path of the image file
+     * @param width the target width
+     * @param height the target height
+     * @param preferRGB565 true to decode opaque images with {@link Bitmap.Config#RGB_565}
+     * @return the image or null if it cannot be decoded
+     */
+    public static Bitmap decodeFile(String imagePath, int width, int height, boolean preferRGB565) {
+        return decode(options -> BitmapFactory.decodeFile(imagePath, options), width, height, preferRGB565);
+    }
+
+    /**
+     * Decodes an image from the assets folder.
+     *
+     * @param imagePath the path of the image in the assets folder
+     * @param width the target width
+     * @param height the target height
+     * @param preferRGB565 true to decode opaque images with {@link Bitmap.Config#RGB_565}
+     * @return the image or null if it cannot be decoded
+     */
+    public static Bitmap decodeAsset(String imagePath, int width, int height, boolean preferRGB565) {
+        return decode(options -> {
+            InputStream stream = HGBaseFileTools.openAssetsFileStream(imagePath);
+            if (stream == null) {
+                return null;
+            }
+            try {
+                return BitmapFactory.decodeStream(stream, null, options);
+            } finally {
+                HGBaseFileTools.closeStream(stream);
+            }
+        }, width, height, preferRGB565);
+    }
+
+    /**
+     * Calculates the sample size for decoding an image, i.e., the largest power of two that keeps
+     * the sampled image at least as large as the target size.
+     *
+     * @param imageWidth the width of the image
+     * @param imageHeight the height of the image
+     * @param width the target width
+     * @param height the target height
+     * @return the sample size, at least 1
+     */
+    public static int calculateSampleSize(int imageWidth, int imageHeight, int width, int height) {
+        int sampleSize = 1;
+        if (width <= 0 && height <= 0) {
+            return sampleSize;
+        }
+        while ((width <= 0 || imageWidth / (sampleSize * 2) >= width)
+                && (height <= 0 || imageHeight / (sampleSize * 2) >= height)) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    /**
+     * @param source the source of the image
+     * @param width the target width
+     * @param height the target height
+     * @param preferRGB565 true to decode opaque images with {@link Bitmap.Config#RGB_565}
+     * @return the image or null if it cannot be decoded
+     */
+    private static Bitmap decode(ImageSource source, int width, int height, boolean preferRGB565) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        if (width > 0 || height > 0 || preferRGB565) {
+            options.inJustDecodeBounds = true;
+            source.decode(options);
+            if (options.outWidth <= 0 || options.outHeight <= 0) {
+                // no bounds, so the image cannot be decoded at all
+                return null;
+            }
+            options.inJustDecodeBounds = false;
+            options.inSampleSize = calculateSampleSize(options.outWidth, options.outHeight, width, height);
+            if (preferRGB565 && MIME_TYPE_JPEG.equals(options.outMimeType)) {
+                options.inPreferredConfig = Bitmap.Config.RGB_565;
+            }
+            return source.decode(options);
+        }
+        return source.decode(null);
+    }
+
+    /**
+     * The source of an image that may be decoded more than once.
+     */
+    private interface ImageSource {
+
+        /**
+         * @param options the options for decoding, may be null
+         * @return the decoded image or null
+         */
+        Bitmap decode(BitmapFactory.Options options);
+    }
+}
@@ -0,0 +1,246 @@
+package at.hagru.hgbase.gui;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+/**
+ * A pool of mutable bitmaps, so bitmaps that are painted again and again do not have to be allocated every time.<p>
+ * The bitmaps are kept in buckets by their allocated bytes, rounded up to a power of two. A bitmap with the same
+ * size and configuration is reused directly, a larger one is reconfigured to the requested size. A bitmap is cleared
+ * when it is taken out of the pool. A bitmap given back to the pool must not be used any more by the caller.<p>
+ * The pool is bounded by a number of bytes, bitmaps that do not fit into the pool any more are recycled.
+ *
+ * @author hagru
+ */
+public final class BitmapPool {
+
+    private static final int BUCKET_COUNT = 32;
+    /**
+     * A bitmap from the next larger bucket may be used, so at most four times of the needed bytes are wasted.
+     */
+    private static final int MAX_BUCKET_DISTANCE = 1;
+    private static final int DEFAULT_HEAP_DIVISOR = 16;
+
+    @SuppressWarnings("unchecked")
+    private static final ArrayDeque<Bitmap>[] BUCKETS = new ArrayDeque[BUCKET_COUNT];
+    private static long maxBytes = Runtime.getRuntime().maxMemory() / DEFAULT_HEAP_DIVISOR;
+    private static long pooledBytes;
+    private static long hits;
+    private static long reconfigurations;
+    private static long misses;
+
+    static {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            BUCKETS[i] = new ArrayDeque<>();
+        }
+    }
+
+    private BitmapPool() {
+        super();
+    }
+
+    /**
+     * Takes a cleared bitmap out of the pool or creates a new one.
+     *
+     * @param width the width of the bitmap
+     * @param height the height of the bitmap
+     * @param config the configuration of the bitmap
+     * @return a mutable bitmap, to be given back with {@link #release(Bitmap)}
+     */
+    public static Bitmap acquire(int width, int height, Bitmap.Config config) {
+        long neededBytes = (long) width * height * getBytesPerPixel(config);
+        int bucket = getBucket(neededBytes);
+        synchronized (BUCKETS) {
+            for (int i = bucket; i <= bucket + MAX_BUCKET_DISTANCE && i < BUCKET_COUNT; i++) {
+                Bitmap bitmap = takeBitmap(BUCKETS[i], width, height, config, neededBytes);
+                if (bitmap != null) {
+                    bitmap.eraseColor(Color.TRANSPARENT);
+                    return bitmap;
+                }
+            }
+            misses++;
+        }
+        return Bitmap.createBitmap(width, height, config);
+    }
+
+    /**
+     * Gives a bitmap back to the pool. The bitmap must not be used any more.
+     *
+     * @param bitmap the bitmap, may be null
+     */
+    public static void release(Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled() || !bitmap.isMutable()) {
+            return;
+        }
+        int bytes = bitmap.getAllocationByteCount();
+        synchronized (BUCKETS) {
+            if (bytes > maxBytes) {
+                bitmap.recycle();
+                return;
+            }
+            ArrayDeque<Bitmap> bucket = BUCKETS[getBucket(bytes)];
+            if (bucket.contains(bitmap)) {
+                return;
+            }
+            bucket.addLast(bitmap);
+            pooledBytes += bytes;
+            trimToSize(maxBytes);
+        }
+    }
+
+    /**
+     * Sets the maximum number of bytes of all pooled bitmaps.
+     *
+     * @param bytes the maximum number of bytes, zero to disable the pool
+     */
+    public static void setMaxBytes(long bytes) {
+        synchronized (BUCKETS) {
+            maxBytes = Math.max(0, bytes);
+            trimToSize(maxBytes);
+        }
+    }
+
+    /**
+     * @return the maximum number of bytes of all pooled bitmaps
+     */
+    public static long getMaxBytes() {
+        synchronized (BUCKETS) {
+            return maxBytes;
+        }
+    }
+
+    /**
+     * @return the number of bytes of all pooled bitmaps
+     */
+    public static long getPooledBytes() {
+        synchronized (BUCKETS) {
+            return pooledBytes;
+        }
+    }
+
+    /**
+     * Recycles all pooled bitmaps.
+     */
+    public static void clear() {
+        synchronized (BUCKETS) {
+            trimToSize(0);
+        }
+    }
+
+    /**
+     * @return the number of times a pooled bitmap with the same size was reused
+     */
+    public static long getHits() {
+        synchronized (BUCKETS) {
+            return hits;
+        }
+    }
+
+    /**
+     * @return the number of times a larger pooled bitmap was reconfigured and reused
+     */
+    public static long getReconfigurations() {
+        synchronized (BUCKETS) {
+            return reconfigurations;
+        }
+    }
+
+    /**
+     * @return the number of times a new bitmap had to be created
+     */
+    public static long getMisses() {
+        synchronized (BUCKETS) {
+            return misses;
+        }
+    }
+
+    /**
+     * @return the part of the requests that got a pooled bitmap, between 0 and 1
+     */
+    public static double getReuseRate() {
+        synchronized (BUCKETS) {
+            long requests = hits + reconfigurations + misses;
+            return (requests == 0) ? 0.0 : (double) (hits + reconfigurations) / requests;
+        }
+    }
+
+    /**
+     * Sets all counters to zero.
+     */
+    public static void resetStatistics() {
+        synchronized (BUCKETS) {
+            hits = 0;
+            reconfigurations = 0;
+            misses = 0;
+        }
+    }
+
+    /**
+     * Takes a matching bitmap out of the bucket, must be called with the lock of the buckets.
+     *
+     * @return the bitmap or null if there is no matching bitmap
+     */
+    private static Bitmap takeBitmap(ArrayDeque<Bitmap> bucket, int width, int height, Bitmap.Config config, long neededBytes) {
+        Bitmap larger = null;
+        for (Iterator<Bitmap> it = bucket.iterator(); it.hasNext(); ) {
+            Bitmap bitmap = it.next();
+            if (bitmap.getWidth() == width && bitmap.getHeight() == height && bitmap.getConfig() == config) {
+                it.remove();
+                pooledBytes -= bitmap.getAllocationByteCount();
+                hits++;
+                return bitmap;
+            } else if (larger == null && bitmap.getAllocationByteCount() >= neededBytes) {
+                larger = bitmap;
+            }
+        }
+        if (larger != null) {
+            bucket.remove(larger);
+            pooledBytes -= larger.getAllocationByteCount();
+            larger.reconfigure(width, height, config);
+            reconfigurations++;
+        }
+        return larger;
+    }
+
+    /**
+     * Recycles the oldest bitmaps of the largest buckets, must be called with the lock of the buckets.
+     *
+     * @param bytes the maximum number of bytes to keep
+     */
+    private static void trimToSize(long bytes) {
+        for (int i = BUCKET_COUNT - 1; i >= 0 && pooledBytes > bytes; i--) {
+            while (!BUCKETS[i].isEmpty() && pooledBytes > bytes) {
+                Bitmap bitmap = BUCKETS[i].removeFirst();
+                pooledBytes -= bitmap.getAllocationByteCount();
+                bitmap.recycle();
+            }
+        }
+    }
+
+    /**
+     * @param bytes the number of bytes
+     * @return the index of the bucket, i.e., the exponent of the next power of two
+     */
+    private static int getBucket(long bytes) {
+        int bucket = (bytes <= 1) ? 0 : 64 - Long.numberOfLeadingZeros(bytes - 1);
+        return Math.min(bucket, BUCKET_COUNT - 1);
+    }
+
+    /**
+     * @param config the configuration of a bitmap
+     * @return the number of bytes for one pixel
+     */
+    private static int getBytesPerPixel(Bitmap.Config config) {
+        if (config == Bitmap.Config.ALPHA_8) {
+            return 1;
+        } else if (config == Bitmap.Config.RGB_565 || config == Bitmap.Config.ARGB_4444) {
+            return 2;
+        } else if (config == Bitmap.Config.RGBA_F16) {
+            return 8;
+        }
+        return 4;
+    }
+}
@@ -44,7 +44,6 @@ import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -52,6 +51,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.WeakHashMap;
+import java.util.function.Consumer;
 
 import androidx.annotation.NonNull;
 import at.hagru.hgbase.HGBaseActivity;
@@ -60,8 +60,8 @@ import at.hagru.hgbase.android.HGBaseAppTools;
 import at.hagru.hgbase.android.HGBaseResources;
 import at.hagru.hgbase.android.awt.Dimension;
 import at.hagru.hgbase.android.awt.Polygon;
+import at.hagru.hgbase.android.awt.PreparedPolygon;
 import at.hagru.hgbase.gui.menu.IMenuAction;
-import at.hagru.hgbase.lib.HGBaseFileTools;
 import at.hagru.hgbase.lib.HGBaseLog;
 import at.hagru.hgbase.lib.HGBaseText;
 import at.hagru.hgbase.lib.HGBaseTools;
@@ -76,8 +76,13 @@ public class HGBaseGuiTools {
     final static private int DEFAULT_FIELD_HEIGHT = (int) (18 * (DENSITY + 0.75f)); //42   
     final static private int DEFAULT_BUTTON_HEIGHT = (int) (28 * (DENSITY + 0.75f)); //64
 
-    private final static Map<Integer, Bitmap> imageResIdMap = new HashMap<>();
-    private final static Map<String, Bitmap> imageStringMap = new HashMap<>();
+    private final static BitmapCache IMAGE_CACHE = new BitmapCache();
+    private final static AsyncImageLoader IMAGE_LOADER = new AsyncImageLoader();
+    private final static Map<Point[], PreparedPolygon> POLYGON_CACHE = new WeakHashMap<>();
+
+    static {
+        HGBaseAppTools.getContext().getApplicationContext().registerComponentCallbacks(IMAGE_CACHE);
+    }
 
     /**
      * @return the default field height (for small fields)
@@ -467,19 +472,43 @@ public class HGBaseGuiTools {
      * @return the image or null if resource is invalid
      */
     public static Bitmap loadImage(int resId) {
-        Bitmap img = imageResIdMap.get(resId);
-        if (img != null) {
-            return img;
-        } else {
-            try {
-                img = HGBaseResources.getBitmap(resId);
-                if (img != null) {
-                    imageResIdMap.put(resId, img);
-                }
-                return img;
-            } catch (NotFoundException e) {
-                return null;
+        return loadImage(resId, 0, 0);
+    }
+
+    /**
+     * Loads an image given by an resource id with a target size.<p>
+     * The image is decoded with a sample size, so it is not (much) larger than necessary.
+     *
+     * @param resId the resource id of the image
+     * @param width the target width, zero or less if not limited
+     * @param height the target height, zero or less if not limited
+     * @return the image or null if resource is invalid
+     * @see BitmapDecoder
+     */
+    public static Bitmap loadImage(int resId, int width, int height) {
+        Object key = BitmapCache.createKey(resId, width, height);
+        Bitmap img = IMAGE_CACHE.get(key);
+        return (img != null) ? img : decodeImage(key, resId, width, height);
+    }
+
+    /**
+     * Decodes an image given by an resource id and puts it into the image cache.
+     *
+     * @param key the key for the image cache
+     * @param resId the resource id of the image
+     * @param width the target width, zero or less if not limited
+     * @param height the target height, zero or less if not limited
+     * @return the image or null if resource is invalid
+     */
+    private static Bitmap decodeImage(Object key, int resId, int width, int height) {
+        try {
+            Bitmap img = HGBaseResources.getBitmap(resId, width, height, false);
+            if (img != null) {
+                IMAGE_CACHE.put(key, img);
             }
+            return img;
+        } catch (NotFoundException e) {
+            return null;
         }
     }
 
@@ -492,26 +521,115 @@ public class HGBaseGuiTools {
      * @return the image or null if path is invalid
      */
     public static Bitmap loadImage(String imagePath) {
+        return loadImage(imagePath, 0, 0);
+    }
+
+    /**
+     * Loads an image given by an (relative) image path with a target size.<p>
+     * First the drawables folder is searched, then the assets folder (only there sub-folders are possible) and finally
+     * from external file. The image is decoded with a sample size, so it is not (much) larger than necessary.
+     *
+     * @param imagePath the path to the image (must be in folder drawable)
+     * @param width the target width, zero or less if not limited
+     * @param height the target height, zero or less if not limited
+     * @return the image or null if path is invalid
+     * @see BitmapDecoder
+     */
+    public static Bitmap loadImage(String imagePath, int width, int height) {
         int resId = HGBaseResources.getResourceIdByName(imagePath, HGBaseResources.DRAWABLE);
         if (resId > 0) {
-            return loadImage(resId);
+            return loadImage(resId, width, height);
         } else {
-            Bitmap img = imageStringMap.get(imagePath);
-            if (img == null) {
-                img = BitmapFactory.decodeStream(HGBaseFileTools.openAssetsFileStream(imagePath));
-                if (img != null) {
-                    imageStringMap.put(imagePath, img);
-                } else {
-                    img = BitmapFactory.decodeFile(imagePath);
-                    if (img != null) {
-                        imageStringMap.put(imagePath, img);
-                    }
-                }
+            Object key = BitmapCache.createKey(imagePath, width, height);
+            Bitmap img = IMAGE_CACHE.get(key);
+            return (img != null) ? img : decodeImage(key, imagePath, width, height);
+        }
+    }
+
+    /**
+     * Decodes an image from the assets folder or from an external file and puts it into the image cache.
+     *
+     * @param key the key for the image cache
+     * @param imagePath the path to the image
+     * @param width the target width, zero or less if not limited
+     * @param height the target height, zero or less if not limited
+     * @return the image or null if path is invalid
+     */
+    private static Bitmap decodeImage(Object key, String imagePath, int width, int height) {
+        Bitmap img = BitmapDecoder.decodeAsset(imagePath, width, height, false);
+        if (img == null) {
+            img = BitmapDecoder.decodeFile(imagePath, width, height, false);
+        }
+        if (img != null) {
+            IMAGE_CACHE.put(key, img);
+        }
+        return img;
+    }
+
+    /**
+     * Loads an image given by an resource id with a target size in the background, see {@link #loadImage(int, int, int)}.
+     * An image from the cache is delivered without decoding.
+     *
+     * @param resId the resource id of the image
+     * @param width the target width, zero or less if not limited
+     * @param height the target height, zero or less if not limited
+     * @param target the view that shows the image, a previous request for this view is cancelled, may be null
+     * @param callback the callback for the image (null if resource is invalid), called on the UI thread
+     * @see AsyncImageLoader
+     */
+    public static void loadImageAsync(int resId, int width, int height, View target, Consumer<Bitmap> callback) {
+        Object key = BitmapCache.createKey(resId, width, height);
+        Bitmap img = IMAGE_CACHE.get(key);
+        if (img != null) {
+            IMAGE_LOADER.deliver(img, target, callback);
+        } else {
+            IMAGE_LOADER.load(key, () -> decodeImage(key, resId, width, height), target, callback);
+        }
+    }
+
+    /**
+     * Loads an image given by an (relative) image path with a target size in the background,
+     * see {@link #loadImage(String, int, int)}. An image from the cache is delivered without decoding.
+     *
+     * @param imagePath the path to the image
+     * @param width the target width, zero or less if not limited
+     * @param height the target height, zero or less if not limited
+     * @param target the view that shows the image, a previous request for this view is cancelled, may be null
+     * @param callback the callback for the image (null if path is invalid), called on the UI thread
+     * @see AsyncImageLoader
+     */
+    public static void loadImageAsync(String imagePath, int width, int height, View target, Consumer<Bitmap> callback) {
+        int resId = HGBaseResources.getResourceIdByName(imagePath, HGBaseResources.DRAWABLE);
+        if (resId > 0) {
+            loadImageAsync(resId, width, height, target, callback);
+        } else {
+            Object key = BitmapCache.createKey(imagePath, width, height);
+            Bitmap img = IMAGE_CACHE.get(key);
+            if (img != null) {
+                IMAGE_LOADER.deliver(img, target, callback);
+            } else {
+                IMAGE_LOADER.load(key, () -> decodeImage(key, imagePath, width, height), target, callback);
             }
-            return img;
         }
     }
 
+    /**
+     * @return the loader for decoding the images of {@link #loadImageAsync(int, int, int, View, Consumer)}
+     */
+    public static AsyncImageLoader getImageLoader() {
+        return IMAGE_LOADER;
+    }
+
+    /**
+     * Returns the cache of the images loaded by {@link #loadImage(int)} and {@link #loadImage(String)}.<p>
+     * The cache is bounded by the bytes of the images and provides the hit, miss and eviction counters.
+     *
+     * @return the image cache
+     */
+    public static BitmapCache getImageCache() {
+        return IMAGE_CACHE;
+    }
+
     /**
      * Loads an image from a file name.
      *
@@ -522,6 +640,19 @@ public class HGBaseGuiTools {
         return BitmapFactory.decodeFile(imagePath);
     }
 
+    /**
+     * Loads an image from a file name with a target size.
+     *
+     * @param imagePath the path of the image file
+     * @param width the target width, zero or less if not limited
+     * @param height the target height, zero or less if not limited
+     * @return the image or null if not found
+     * @see BitmapDecoder
+     */
+    public static Bitmap loadImageFromFile(String imagePath, int width, int height) {
+        return BitmapDecoder.decodeFile(imagePath, width, height, false);
+    }
+
     /**
      * Takes a screenshot from the activity and returns a bitmap.
      *
@@ -540,12 +671,14 @@ public class HGBaseGuiTools {
      * Sets the text on a label in a thread-safe way.<p>
      * As it is only allowed to modify the label from the same thread that has created the view,
      * a helper method is needed to set the text on a label from another view.
+     * An image that is still loaded for the label in the background is cancelled, so it does not replace the text.
      *
      * @param label the label to modify
      * @param text  the text to set
      */
     public static void setTextOnLabel(final TextView label, final CharSequence text) {
         if (label != null) {
+            IMAGE_LOADER.cancel(label);
             boolean success = label.post(() -> label.setText(text));
             if (!success) {
                 HGBaseLog.logWarn("Could not set text '" + text + "' on label " + label);
@@ -583,6 +716,38 @@ public class HGBaseGuiTools {
         }
     }
 
+    /**
+     * Loads an image in the background and puts it on the given label, see {@link #loadImageAsync(int, int, int, View, Consumer)}.
+     * If the image is too big it's scaled to the given width/height.
+     *
+     * @param label  The label.
+     * @param resId  The resource id of the image.
+     * @param width  The maximal width of the result image.
+     * @param height The maximal height of the result image.
+     */
+    public static void setImageOnLabelAsync(final TextView label, final int resId, final int width, final int height) {
+        if (label != null) {
+            loadImageAsync(resId, width, height, label,
+                           image -> setTextOnLabel(label, createStringForImage(label.getContext(), image, width, height)));
+        }
+    }
+
+    /**
+     * Loads an image in the background and puts it on the given label, see {@link #loadImageAsync(String, int, int, View, Consumer)}.
+     * If the image is too big it's scaled to the given width/height.
+     *
+     * @param label     The label.
+     * @param imagePath The (relative) path of the image.
+     * @param width     The maximal width of the result image.
+     * @param height    The maximal height of the result image.
+     */
+    public static void setImageOnLabelAsync(final TextView label, final String imagePath, final int width, final int height) {
+        if (label != null) {
+            loadImageAsync(imagePath, width, height, label,
+                           image -> setTextOnLabel(label, createStringForImage(label.getContext(), image, width, height)));
+        }
+    }
+
     /**
      * Create the string for a text view that will show the given image.
      *
@@ -760,7 +925,36 @@ public class HGBaseGuiTools {
      * @return true if the point is within the polygon, otherwise false
      */
     public static boolean isPointInPolygon(Point point, Point[] polygon) {
-        return createPolygon(polygon).contains(point);
+        return getPreparedPolygon(polygon).contains(point);
+    }
+
+    /**
+     * Checks whether a given point is within a prepared polygon.
+     *
+     * @param point   the point the test
+     * @param polygon the prepared polygon
+     * @return true if the point is within the polygon, otherwise false
+     */
+    public static boolean isPointInPolygon(Point point, PreparedPolygon polygon) {
+        return polygon.contains(point);
+    }
+
+    /**
+     * Returns the prepared polygon for the given point array. The polygon is cached as long as the array is
+     * used and is prepared again if the points of the array have changed.
+     *
+     * @param positions the points to define the polygon
+     * @return the prepared polygon
+     */
+    public static PreparedPolygon getPreparedPolygon(Point[] positions) {
+        synchronized (POLYGON_CACHE) {
+            PreparedPolygon polygon = POLYGON_CACHE.get(positions);
+            if (polygon == null || !polygon.matches(positions)) {
+                polygon = PreparedPolygon.of(positions);
+                POLYGON_CACHE.put(positions, polygon);
+            }
+            return polygon;
+        }
     }
 
     /**
@@ -774,27 +968,21 @@ public class HGBaseGuiTools {
             return null;
         } else if (polygon.length == 1) {
             return polygon[0];
-        } else if (polygon.length == 2) {
-            int leftX = Math.min(polygon[0].x, polygon[1].x);
-            int rightX = Math.max(polygon[0].x, polygon[1].x);
-            int centerX = leftX + (rightX - leftX + 1) / 2;
-            int topY = Math.min(polygon[0].y, polygon[1].y);
-            int bottomY = Math.max(polygon[0].y, polygon[1].y);
-            int centerY = topY + (bottomY - topY + 1) / 2;
-            return new Point(centerX, centerY);
         } else {
-            double x = 0.;
-            double y = 0.;
-            for (Point point : polygon) {
-                x += point.x;
-                y += point.y;
-            }
-            x = x / polygon.length;
-            y = y / polygon.length;
-            return new Point((int) x, (int) y);
+            return getPreparedPolygon(polygon).getCenter();
         }
     }
 
+    /**
+     * Returns the center of the given prepared polygon.
+     *
+     * @param polygon the prepared polygon
+     * @return the center or null if the polygon is null or has no points
+     */
+    public static Point getCenterOfPolygon(PreparedPolygon polygon) {
+        return (polygon == null) ? null : polygon.getCenter();
+    }
+
     /**
      * Sets the given view enabled/disabled in a null-safe way.
      *
@@ -975,4 +1163,4 @@ public class HGBaseGuiTools {
          */
         protected abstract void perform(View view);
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -298,4 +298,30 @@ public class HGBaseMultiTextPanel extends LinearLayout {
         }        
     }
 
+    /**
+     * Loads the image in the background and sets it on the status panel.
+     *
+     * @param index the index of the status panel
+     * @param resId the resource id of the image to set
+     */
+    public void setImageAsync(final int index, final int resId) {
+        if (index >= 0 && index < txtLabel.length) {
+            TextView label = txtLabel[index];
+            HGBaseGuiTools.setImageOnLabelAsync(label, resId, label.getMaxWidth(), label.getMaxHeight());
+        }
+    }
+
+    /**
+     * Loads the image in the background and sets it on the status panel.
+     *
+     * @param index the index of the status panel
+     * @param imagePath the (relative) path of the image to set
+     */
+    public void setImageAsync(final int index, final String imagePath) {
+        if (index >= 0 && index < txtLabel.length) {
+            TextView label = txtLabel[index];
+            HGBaseGuiTools.setImageOnLabelAsync(label, imagePath, label.getMaxWidth(), label.getMaxHeight());
+        }
+    }
+
 }
@@ -2,7 +2,9 @@ package at.hagru.hgbase.gui;
 
 import android.app.Activity;
 import android.app.Dialog;
+import android.graphics.Bitmap;
 import android.graphics.Color;
+import android.util.DisplayMetrics;
 import android.view.Gravity;
 import android.view.ViewGroup.LayoutParams;
 import android.view.WindowManager;
@@ -146,7 +148,16 @@ public class HGBaseWelcome {
             welcomeImageView.setLayoutParams(new LayoutParams(LayoutParams.MATCH_PARENT, heightOrWidth));            
         }
         welcomeImageView.setScaleType(ImageView.ScaleType.FIT_CENTER);
-        welcomeImageView.setImageResource(imageId);
+        // decode the image only as large as it is displayed, the other dimension is at most the screen size
+        DisplayMetrics metrics = activity.getResources().getDisplayMetrics();
+        int width = (fitToHeight) ? heightOrWidth : metrics.widthPixels;
+        int height = (fitToHeight) ? metrics.heightPixels : heightOrWidth;
+        Bitmap welcomeImage = HGBaseResources.getBitmap(imageId, width, height, true);
+        if (welcomeImage != null) {
+            welcomeImageView.setImageBitmap(welcomeImage);
+        } else {
+            welcomeImageView.setImageResource(imageId);
+        }
         return welcomeImageView;
     }
 
@@ -4,10 +4,12 @@ import android.content.SharedPreferences;
 import android.preference.PreferenceManager;
 
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Set;
 
 import at.hagru.hgbase.android.HGBaseAppTools;
 import at.hagru.hgbase.android.awt.Color;
+import at.hagru.hgbase.lib.PreferenceCache.CachedValue;
 
 /**
  * This is a facade to the android shared preferences and contains the configuration information.
@@ -17,6 +19,10 @@ import at.hagru.hgbase.android.awt.Color;
 public final class HGBaseConfig {
 	
 	private static final SharedPreferences PREFS = PreferenceManager.getDefaultSharedPreferences(HGBaseAppTools.getContext());
+	private static final Object EDIT_LOCK = new Object();
+	private static final ThreadLocal<Batch> BATCH = new ThreadLocal<>();
+	private static boolean writeBehind = false;
+	private static final PreferenceCache CACHE = new PreferenceCache(PREFS);
 	
     private HGBaseConfig() {
         super();
@@ -38,7 +44,7 @@ public final class HGBaseConfig {
      * @return True, if this key exists.
      */
     public static boolean existsKey(String key) {
-    	return PREFS.contains(key);
+    	return (CACHE.lookup(key) != CachedValue.MISSING);
     }
     
     /**
@@ -48,8 +54,7 @@ public final class HGBaseConfig {
 	 * @return option
 	 */
 	public static String get(String key) {
-    	Object value = PREFS.getAll().get(key);
-    	return (value != null) ? value.toString() : "";
+    	return CACHE.lookup(key).text;
 	    //return get(key, ""); -> fails if the preference is no String, but of another type
 	}
 
@@ -59,8 +64,7 @@ public final class HGBaseConfig {
      * @return array with keys of options
      */
     public static String[] getKeys() {
-    	Set<String> keys = PREFS.getAll().keySet();
-    	return keys.toArray(new String[keys.size()]);
+    	return CACHE.getKeys().clone();
     }
 
     /**
@@ -71,7 +75,11 @@ public final class HGBaseConfig {
      * @return text option
      */
     public static String get(String key, String defaultValue) {
-    	return PREFS.getString(key, defaultValue);
+    	CachedValue value = CACHE.lookup(key);
+    	if (value.raw instanceof String) {
+    		return (String) value.raw;
+    	}
+    	return (value == CachedValue.MISSING) ? defaultValue : PREFS.getString(key, defaultValue);
     }
 
     /**
@@ -91,8 +99,13 @@ public final class HGBaseConfig {
      * @param defaultValues default values
      * @return text option as set of strings.
      */
+    @SuppressWarnings("unchecked")
     public static Set<String> getStrings(String key, Set<String> defaultValues) {
-    	return PREFS.getStringSet(key, defaultValues);
+    	CachedValue value = CACHE.lookup(key);
+    	if (value.raw instanceof Set) {
+    		return (Set<String>) value.raw;
+    	}
+    	return (value == CachedValue.MISSING) ? defaultValues : PREFS.getStringSet(key, defaultValues);
     }
 
     /**
@@ -113,7 +126,11 @@ public final class HGBaseConfig {
      * @return text option as integer
      */
     public static int getInt(String key, int defaultValue) {
-        return PREFS.getInt(key, defaultValue);
+        CachedValue value = CACHE.lookup(key);
+        if (value.isInt) {
+            return value.intValue;
+        }
+        return (value == CachedValue.MISSING) ? defaultValue : PREFS.getInt(key, defaultValue);
     }
 
     /**
@@ -134,7 +151,11 @@ public final class HGBaseConfig {
      * @return text option as boolean
      */
     public static boolean getBoolean(String key, boolean defaultValue) {
-        return PREFS.getBoolean(key, defaultValue);
+        CachedValue value = CACHE.lookup(key);
+        if (value.isBoolean) {
+            return value.booleanValue;
+        }
+        return (value == CachedValue.MISSING) ? defaultValue : PREFS.getBoolean(key, defaultValue);
     }
 
     /**
@@ -142,6 +163,10 @@ public final class HGBaseConfig {
      * @return The color or null if invalid.
      */
     public static Color getColor(String key) {
+        CachedValue value = CACHE.lookup(key);
+        if (value.isInt) {
+            return value.color;
+        }
         int rgb = getInt(key);
         return (rgb == HGBaseTools.INVALID_INT) ? null : new Color(rgb);
     }
@@ -165,7 +190,9 @@ public final class HGBaseConfig {
      * @return true if this key existed and was deleted
      */
     public static void remove(String key) {
-    	PREFS.edit().remove(key).commit();
+    	synchronized (EDIT_LOCK) {
+    		write(edit().remove(key), key);
+    	}
     }
 
     /**
@@ -178,7 +205,9 @@ public final class HGBaseConfig {
     	if (option == null) {
     		remove(key);
     	} else {
-    		PREFS.edit().putString(key, option).commit();
+    		synchronized (EDIT_LOCK) {
+    			write(edit().putString(key, option), key);
+    		}
     	}
     }
 
@@ -189,7 +218,9 @@ public final class HGBaseConfig {
      * @param options string set of the options
      */
     public static void set(String key, Set<String> options) {
-        PREFS.edit().putStringSet(key, options).commit();
+        synchronized (EDIT_LOCK) {
+            write(edit().putStringSet(key, options), key);
+        }
     }
 
     /**
@@ -199,7 +230,9 @@ public final class HGBaseConfig {
      * @param option integer value of the option
      */
     public static void set(String key, int option) {
-        PREFS.edit().putInt(key, option).commit();
+        synchronized (EDIT_LOCK) {
+            write(edit().putInt(key, option), key);
+        }
     }
 
     /**
@@ -209,7 +242,9 @@ public final class HGBaseConfig {
      * @param option boolean value of the option
      */
     public static void set(String key, boolean option) {
-		PREFS.edit().putBoolean(key, option).commit();
+        synchronized (EDIT_LOCK) {
+            write(edit().putBoolean(key, option), key);
+        }
     }
 
     /**
@@ -225,6 +260,175 @@ public final class HGBaseConfig {
     }
 
 
+    /**
+     * Starts a batch of changes of the current thread. Until the matching call of {@link #endEdit()} all changes
+     * made by the {@code set} and {@code remove} methods in this thread are collected and written to the preferences
+     * at once, changes of other threads are written as usual.
+     * Batches may be nested, the changes are written when the outermost batch ends.<p>
+     * Note that changes of a running batch are not visible to the {@code get} methods before the batch ends.
+     */
+    public static void beginEdit() {
+        Batch batch = BATCH.get();
+        if (batch == null) {
+            batch = new Batch(PREFS.edit());
+            BATCH.set(batch);
+        }
+        batch.depth++;
+    }
+
+    /**
+     * Ends a batch of changes started by {@link #beginEdit()}. If this is the outermost batch, all collected
+     * changes are written with one single write.
+     *
+     * @return false if the collected changes could not be written, otherwise true
+     * @throws IllegalStateException if the current thread has not started a batch
+     */
+    public static boolean endEdit() {
+        return endEdit(false);
+    }
+
+    /**
+     * Runs the given changes in one batch, i.e., all changes are written at once.
+     * If the changes throw an exception, the batch is discarded and nothing is written. Within an enclosing batch
+     * the changes of the enclosing batch are discarded as well, because they are collected by the same editor.
+     *
+     * @param changes the code that changes the options
+     * @return false if the changes could not be written, otherwise true
+     * @see #beginEdit()
+     */
+    public static boolean edit(Runnable changes) {
+        beginEdit();
+        try {
+            changes.run();
+        } catch (RuntimeException | Error e) {
+            endEdit(true);
+            throw e;
+        }
+        return endEdit(false);
+    }
+
+    /**
+     * @return true if the current thread is running a batch of changes
+     */
+    public static boolean isEditing() {
+        return (BATCH.get() != null);
+    }
+
+    /**
+     * Sets the write-behind mode. By default, every change is committed synchronously to the disk.
+     * In write-behind mode changes are stored in memory immediately and written to the disk in the background,
+     * where consecutive writes are coalesced, see {@link SharedPreferences.Editor#apply()}.
+     *
+     * @param writeBehind true to activate the write-behind mode, false to commit every change synchronously
+     * @see #flush()
+     */
+    public static void setWriteBehind(boolean writeBehind) {
+        synchronized (EDIT_LOCK) {
+            HGBaseConfig.writeBehind = writeBehind;
+        }
+    }
+
+    /**
+     * @return true if the write-behind mode is active
+     * @see #setWriteBehind(boolean)
+     */
+    public static boolean isWriteBehind() {
+        synchronized (EDIT_LOCK) {
+            return writeBehind;
+        }
+    }
+
+    /**
+     * Writes all pending changes synchronously to the disk. This includes the changes of a running batch
+     * of the current thread as well as changes still waiting to be written in write-behind mode.
+     * The batches of other threads are not written. Should be called before the application shuts down.
+     *
+     * @return false if the changes could not be written, otherwise true
+     */
+    public static boolean flush() {
+        synchronized (EDIT_LOCK) {
+            Batch batch = BATCH.get();
+            SharedPreferences.Editor editor = (batch == null) ? PREFS.edit() : batch.editor;
+            if (batch != null) {
+                batch.editor = PREFS.edit();
+            }
+            // a synchronous commit waits until all previously applied changes are written
+            boolean written = editor.commit();
+            if (batch != null) {
+                batch.invalidateKeys();
+            }
+            return written;
+        }
+    }
+
+    /**
+     * Ends a batch of changes of the current thread.
+     *
+     * @param discard true to discard the changes of the batch
+     * @return false if the changes could not be written or were discarded, otherwise true
+     * @throws IllegalStateException if the current thread has not started a batch
+     */
+    private static boolean endEdit(boolean discard) {
+        Batch batch = BATCH.get();
+        if (batch == null) {
+            throw new IllegalStateException("No edit batch was started!");
+        }
+        batch.discarded |= discard;
+        batch.depth--;
+        if (batch.depth > 0) {
+            return true;
+        }
+        BATCH.remove();
+        if (batch.discarded) {
+            return false;
+        }
+        synchronized (EDIT_LOCK) {
+            boolean written = writeBehind ? apply(batch.editor) : batch.editor.commit();
+            batch.invalidateKeys();
+            return written;
+        }
+    }
+
+    /**
+     * Returns the editor to use for the next change, i.e., the editor of the running batch of the current thread
+     * or a new one. Has to be called with the edit lock held.
+     *
+     * @return the editor for the next change
+     */
+    private static SharedPreferences.Editor edit() {
+        Batch batch = BATCH.get();
+        return (batch == null) ? PREFS.edit() : batch.editor;
+    }
+
+    /**
+     * Writes the changes of the given editor, if no batch is running. Has to be called with the edit lock held.
+     *
+     * @param editor the editor with the changes
+     * @param key the key of the changed option
+     * @return false if the changes could not be written, otherwise true
+     */
+    private static boolean write(SharedPreferences.Editor editor, String key) {
+        Batch batch = BATCH.get();
+        if (batch != null && editor == batch.editor) {
+            batch.keys.add(key);
+            return true;
+        }
+        boolean written = writeBehind ? apply(editor) : editor.commit();
+        CACHE.invalidate(key);
+        return written;
+    }
+
+    /**
+     * Applies the changes of the given editor in the background.
+     *
+     * @param editor the editor with the changes
+     * @return always true, because the result of the background write is not known
+     */
+    private static boolean apply(SharedPreferences.Editor editor) {
+        editor.apply();
+        return true;
+    }
+
     /**
      * Sets default values from a preferences file by reading the {@code android:defaultvalue} attribute.
      * 
@@ -232,6 +436,32 @@ public final class HGBaseConfig {
      */
     public static void setDefaultValuesFromPreferencesFile(int resId) {
     	PreferenceManager.setDefaultValues(HGBaseAppTools.getContext(), resId, false);    	
+    	CACHE.invalidate(null);
+    }
+
+    /**
+     * The running batch of changes of one thread.
+     */
+    private static final class Batch {
+
+        SharedPreferences.Editor editor;
+        int depth;
+        boolean discarded;
+        final Set<String> keys = new HashSet<>();
+
+        Batch(SharedPreferences.Editor editor) {
+            this.editor = editor;
+        }
+
+        /**
+         * Invalidates the cached values of all keys changed by this batch.
+         */
+        void invalidateKeys() {
+            for (String key : keys) {
+                CACHE.invalidate(key);
+            }
+            keys.clear();
+        }
     }
 
 }
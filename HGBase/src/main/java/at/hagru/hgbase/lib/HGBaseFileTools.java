@@ -148,7 +148,8 @@ public final class HGBaseFileTools {
      * @return the absolute path
      */
     public static String getAbsolutePath(String file) {
-    	return getAbsolutePath(file, getCurrentDir());
+    	// an absolute path does not need the context, so it can be used before the app is started
+    	return isRelativePath(file) ? getAbsolutePath(file, getCurrentDir()) : file;
     }
     
     /**
@@ -160,13 +161,21 @@ public final class HGBaseFileTools {
      * @return the absolute path
      */
     public static String getAbsolutePath(String file, File baseDir) {
-        if (HGBaseTools.hasContent(file) && baseDir != null && baseDir.isDirectory() &&  file.charAt(0) != '/' && file.indexOf(':') < 0) {
+        if (isRelativePath(file) && baseDir != null && baseDir.isDirectory()) {
             return new File(baseDir, file).getAbsolutePath();
         } else {
             return file;
         }
     }
 
+    /**
+     * @param file name of the file, may be null
+     * @return true if the file name is not empty and not an absolute path
+     */
+    private static boolean isRelativePath(String file) {
+        return HGBaseTools.hasContent(file) && file.charAt(0) != '/' && file.indexOf(':') < 0;
+    }
+
     /**
      * Checks if it is possible to write to the external file system.
      * 
@@ -7,20 +7,21 @@ import android.Manifest;
 import android.app.Activity;
 import android.util.Log;
 
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.Locale;
+import java.util.function.Supplier;
 
 import at.hagru.hgbase.HGBaseActivity;
 import at.hagru.hgbase.android.HGBaseAppTools;
+import at.hagru.hgbase.lib.internal.AsyncLogWriter;
 
 /**
  * Support for logging.<p>
- * This is a facade to the Android default logging class.
+ * This is a facade to the Android default logging class.<p>
+ * When logging to a file, the lines are written by a background thread, so logging never waits for the file.
+ * Call {@link #flush()} to make sure all lines are written.<p>
+ * Messages below the minimum level (see {@link #setMinLevel(int)}) are dropped. The overloads with a
+ * {@link Supplier} or a format string only build the message if the level is enabled.
  * 
  * @author hagru
  * @see Log
@@ -28,9 +29,31 @@ import at.hagru.hgbase.android.HGBaseAppTools;
 public final class HGBaseLog {
 	
 	public static final int FILE_LOG_PERMISSION_REQUEST = 77;
-	private static final String LOG_PATH = HGBaseFileTools.getExternalDir().getAbsolutePath() + "/Download/";
+	private static final String LOG_DIR = "/Download/";
+	private static final int FILE_LOG_BUFFER_LINES = 1024;
+	private static final long FILE_LOG_TIMEOUT_MILLIS = 2000;
 	private static File logFile =  null;
 	private static boolean fileLogging = false;
+	private static volatile AsyncLogWriter fileWriter = null;
+	private static OverflowPolicy overflowPolicy = OverflowPolicy.DROP;
+	private static long maxLogFileSize = 0;
+	private static int maxLogArchives = 0;
+	private static boolean compressLogArchives = false;
+	private static volatile int minLevel = Log.VERBOSE;
+
+	/**
+	 * Defines what happens with a log line, if the lines are logged faster than they can be written to the file.
+	 */
+	public enum OverflowPolicy {
+		/**
+		 * The line is dropped, logging never waits.
+		 */
+		DROP,
+		/**
+		 * Logging waits until the line can be buffered.
+		 */
+		BLOCK
+	}
 
 	/**
 	 * Prevent instantiation.
@@ -48,6 +71,16 @@ public final class HGBaseLog {
     	return HGBaseAppTools.getAppName();
     }
 
+    /**
+     * Returns the default directory for log files. It is not determined before it is needed, so the class
+     * can be used without the external storage, e.g., in unit tests.
+     *
+     * @return the path of the directory for log files
+     */
+    private static String getLogPath() {
+    	return HGBaseFileTools.getExternalDir().getAbsolutePath() + LOG_DIR;
+    }
+
     /**
      * @return the name of the logging file
      */
@@ -65,7 +98,7 @@ public final class HGBaseLog {
      */
     public static void setLogFile(Activity activity, String logFileName) {
     	if (HGBaseTools.hasContent(logFileName)) {
-    		String absoluteFileName = (logFileName.contains("/") || logFileName.contains("\\")) ? logFileName : LOG_PATH + logFileName;
+    		String absoluteFileName = (logFileName.contains("/") || logFileName.contains("\\")) ? logFileName : getLogPath() + logFileName;
     		if (!isFileLogging() || !absoluteFileName.equals(logFile.getAbsolutePath())) {
     			logFile = new File(absoluteFileName);
     			if (HGBaseAppTools.checkPermission(activity, Manifest.permission.WRITE_EXTERNAL_STORAGE)) {
@@ -77,6 +110,7 @@ public final class HGBaseLog {
     	} else {
             logFile = null;
             fileLogging = false;
+            stopFileWriter();
     	}
     }
     
@@ -87,6 +121,7 @@ public final class HGBaseLog {
 	    if (!logFile.exists()) {
 	        try {
 	        	logFile.createNewFile();
+	        	startFileWriter();
 	        	fileLogging = true;
 	        	log("Create log file: " + getLogFile());
 	        } catch (IOException e) {
@@ -95,11 +130,109 @@ public final class HGBaseLog {
 	        	fileLogging = false;
 	        }
 	    } else {
+	    	startFileWriter();
 	    	fileLogging = true;
         	log("Open log file: " + getLogFile());
 	    }
     }
     
+    /**
+     * Starts a new writer thread for the current log file and stops the previous one.
+     */
+    private static synchronized void startFileWriter() {
+        stopFileWriter();
+        AsyncLogWriter writer = new AsyncLogWriter(logFile, getTag(), FILE_LOG_BUFFER_LINES, overflowPolicy);
+        writer.setRotation(maxLogFileSize, maxLogArchives, compressLogArchives);
+        writer.start();
+        fileWriter = writer;
+    }
+
+    /**
+     * Stops the current writer thread, if there is one.
+     */
+    private static synchronized void stopFileWriter() {
+        AsyncLogWriter writer = fileWriter;
+        fileWriter = null;
+        if (writer != null) {
+            writer.shutdown(FILE_LOG_TIMEOUT_MILLIS);
+        }
+    }
+
+    /**
+     * Waits until all lines logged so far are written to the log file.
+     * Does nothing if file logging is not active.
+     *
+     * @return false if the lines could not be written in time, otherwise true
+     */
+    public static boolean flush() {
+        AsyncLogWriter writer = fileWriter;
+        return (writer == null) || writer.flush(FILE_LOG_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Writes all pending lines, closes the log file and stops file logging.
+     * Should be called before the application shuts down.
+     */
+    public static void shutdown() {
+        fileLogging = false;
+        stopFileWriter();
+    }
+
+    /**
+     * Sets what happens with a log line, if the lines are logged faster than they can be written to the file.
+     * The default is {@link OverflowPolicy#DROP}.
+     *
+     * @param policy the overflow policy
+     */
+    public static synchronized void setOverflowPolicy(OverflowPolicy policy) {
+        overflowPolicy = policy;
+        AsyncLogWriter writer = fileWriter;
+        if (writer != null) {
+            writer.setOverflowPolicy(policy);
+        }
+    }
+
+    /**
+     * Sets the rotation of the log file. If the log file exceeds the maximum size, it is renamed to
+     * {@code <name>.1}, older files are renamed to {@code <name>.2} and so on, and a new log file is started.
+     * Rotation is done by the writer thread, so logging never waits for it.
+     *
+     * @param maxFileSize the size in bytes when the log file is rotated, 0 to never rotate (the default)
+     * @param maxFiles the number of rotated log files to keep
+     * @param compress true to compress the rotated log files with gzip ({@code <name>.1.gz})
+     */
+    public static synchronized void setLogRotation(long maxFileSize, int maxFiles, boolean compress) {
+        maxLogFileSize = maxFileSize;
+        maxLogArchives = maxFiles;
+        compressLogArchives = compress;
+        AsyncLogWriter writer = fileWriter;
+        if (writer != null) {
+            writer.setRotation(maxFileSize, maxFiles, compress);
+        }
+    }
+
+    /**
+     * @return the size in bytes when the log file is rotated, 0 if it is never rotated
+     */
+    public static synchronized long getMaxLogFileSize() {
+        return maxLogFileSize;
+    }
+
+    /**
+     * @return the current overflow policy
+     */
+    public static synchronized OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * @return the number of lines dropped by the current log file because they were logged too fast
+     */
+    public static long getDroppedLines() {
+        AsyncLogWriter writer = fileWriter;
+        return (writer == null) ? 0 : writer.getDroppedLines();
+    }
+
     /**
      * @return true if file logging is activated, false if default Android logging is used
      */
@@ -107,12 +240,43 @@ public final class HGBaseLog {
     	return fileLogging;
     }
     
+    /**
+     * Sets the minimum level of messages to log. Messages with a lower level are dropped without
+     * building the message string, if the {@link Supplier} or format string overloads are used.
+     *
+     * @param level the minimum level, one of {@link Log#VERBOSE}, {@link Log#DEBUG}, {@link Log#INFO},
+     *              {@link Log#WARN} or {@link Log#ERROR}
+     */
+    public static void setMinLevel(int level) {
+        minLevel = level;
+    }
+
+    /**
+     * @return the minimum level of messages to log
+     */
+    public static int getMinLevel() {
+        return minLevel;
+    }
+
+    /**
+     * Checks if messages of the given level are logged. Can be used to skip expensive work for log messages.
+     *
+     * @param level the level to check, one of the level constants of {@link Log}
+     * @return true if messages of the given level are logged
+     */
+    public static boolean isLoggable(int level) {
+        return (level >= minLevel);
+    }
+
     /**
      * Prints out the message.
      *
      * @param msg msg to log (in verbose mode)
      */
     public static void log(String msg) {
+    	if (!isLoggable(Log.VERBOSE)) {
+    		return;
+    	}
     	if (isFileLogging()) {
     		logToFile("-", msg);
     	} else {
@@ -120,10 +284,36 @@ public final class HGBaseLog {
     	}
     }
 
+    /**
+     * The message is only built if the level is enabled.
+     *
+     * @param msg supplier of the message to log
+     */
+    public static void log(Supplier<String> msg) {
+        if (isLoggable(Log.VERBOSE)) {
+            log(msg.get());
+        }
+    }
+
+    /**
+     * The message is only formatted if the level is enabled.
+     *
+     * @param format format string of the message to log, see {@link String#format(String, Object...)}
+     * @param args the arguments for the format string
+     */
+    public static void log(String format, Object... args) {
+        if (isLoggable(Log.VERBOSE)) {
+            log(String.format(format, args));
+        }
+    }
+
     /**
      * @param msg error message
      */
     public static void logError(String msg) {
+    	if (!isLoggable(Log.ERROR)) {
+    		return;
+    	}
     	if (isFileLogging()) {
     		logToFile("E", msg);
     	} else {
@@ -131,10 +321,36 @@ public final class HGBaseLog {
     	}
     }
 
+    /**
+     * The message is only built if the level is enabled.
+     *
+     * @param msg supplier of the error message
+     */
+    public static void logError(Supplier<String> msg) {
+        if (isLoggable(Log.ERROR)) {
+            logError(msg.get());
+        }
+    }
+
+    /**
+     * The message is only formatted if the level is enabled.
+     *
+     * @param format format string of the error message, see {@link String#format(String, Object...)}
+     * @param args the arguments for the format string
+     */
+    public static void logError(String format, Object... args) {
+        if (isLoggable(Log.ERROR)) {
+            logError(String.format(format, args));
+        }
+    }
+
     /**
      * @param msg warning message
      */
     public static void logWarn(String msg) {
+    	if (!isLoggable(Log.WARN)) {
+    		return;
+    	}
     	if (isFileLogging()) {
     		logToFile("W", msg);
     	} else {
@@ -142,10 +358,36 @@ public final class HGBaseLog {
     	}
     }
 
+    /**
+     * The message is only built if the level is enabled.
+     *
+     * @param msg supplier of the warning message
+     */
+    public static void logWarn(Supplier<String> msg) {
+        if (isLoggable(Log.WARN)) {
+            logWarn(msg.get());
+        }
+    }
+
+    /**
+     * The message is only formatted if the level is enabled.
+     *
+     * @param format format string of the warning message, see {@link String#format(String, Object...)}
+     * @param args the arguments for the format string
+     */
+    public static void logWarn(String format, Object... args) {
+        if (isLoggable(Log.WARN)) {
+            logWarn(String.format(format, args));
+        }
+    }
+
     /**
      * @param msg info message
      */
     public static void logInfo(String msg) {
+    	if (!isLoggable(Log.INFO)) {
+    		return;
+    	}
     	if (isFileLogging()) {
     		logToFile("I", msg);
     	} else {
@@ -153,35 +395,79 @@ public final class HGBaseLog {
     	}
     }
 
+    /**
+     * The message is only built if the level is enabled.
+     *
+     * @param msg supplier of the info message
+     */
+    public static void logInfo(Supplier<String> msg) {
+        if (isLoggable(Log.INFO)) {
+            logInfo(msg.get());
+        }
+    }
+
+    /**
+     * The message is only formatted if the level is enabled.
+     *
+     * @param format format string of the info message, see {@link String#format(String, Object...)}
+     * @param args the arguments for the format string
+     */
+    public static void logInfo(String format, Object... args) {
+        if (isLoggable(Log.INFO)) {
+            logInfo(String.format(format, args));
+        }
+    }
+
     /**
      * @param msg debug message
      */
     public static void logDebug(String msg) {
+    	if (!isLoggable(Log.DEBUG)) {
+    		return;
+    	}
     	if (isFileLogging()) {
     		logToFile("D", msg);
     	} else {
     		Log.d(getTag(), msg);
     	}
     }
+
+    /**
+     * The message is only built if the level is enabled.
+     *
+     * @param msg supplier of the debug message
+     */
+    public static void logDebug(Supplier<String> msg) {
+        if (isLoggable(Log.DEBUG)) {
+            logDebug(msg.get());
+        }
+    }
+
+    /**
+     * The message is only formatted if the level is enabled.
+     *
+     * @param format format string of the debug message, see {@link String#format(String, Object...)}
+     * @param args the arguments for the format string
+     */
+    public static void logDebug(String format, Object... args) {
+        if (isLoggable(Log.DEBUG)) {
+            logDebug(String.format(format, args));
+        }
+    }
     
     /**
-     * Logs the message to file. The file has to be valid when calling this function - it won't be checked.
+     * Logs the message to file. The line is only put into the buffer of the writer thread.
+     * If there is no running writer thread, the message is logged by Android.
      * 
      * @param level Code for the log level
      * @param msg the log message
      */
-    private static void logToFile(String level, String msg) {    	
-        SimpleDateFormat formatter = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault());
-        String date = formatter.format(new Date());
-        String text = date + "\t" + level + "\t" + getTag()  + "\t" + msg;
-        try {
-            BufferedWriter buf = new BufferedWriter(new FileWriter(logFile, true));
-            buf.append(text);
-            buf.newLine();
-            buf.flush();
-            buf.close();
-        } catch (IOException e) {
-            logError(e.getLocalizedMessage());
-        }        
+    private static void logToFile(String level, String msg) {
+        AsyncLogWriter writer = fileWriter;
+        if (writer != null && writer.isRunning()) {
+            writer.write(level, msg);
+        } else {
+            Log.println(Log.WARN, getTag(), level + "\t" + msg);
+        }
     }
 }
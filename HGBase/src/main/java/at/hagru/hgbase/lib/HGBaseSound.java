@@ -1,29 +1,22 @@
 package at.hagru.hgbase.lib;
 
 import android.content.Context;
-import android.content.res.AssetFileDescriptor;
-import android.content.res.AssetManager;
 import android.media.AudioManager;
-import android.media.SoundPool;
-
-import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
 
 import at.hagru.hgbase.android.HGBaseAppTools;
 import at.hagru.hgbase.android.HGBaseResources;
 
 /**
- * For playing sound using Android library.
+ * For playing sound using Android library.<p>
+ * The sounds are played by a {@link SoundEngine}, so playing never blocks the caller. Sounds that are used often
+ * should be preloaded with {@link #preloadAudio(String...)} or {@link #preloadAudio(int...)}, otherwise they are
+ * loaded at the first request to play them.
  *
  * @author hagru
  */
 public final class HGBaseSound {
 
-    @SuppressWarnings("deprecation")
-    private static final SoundPool soundPool = new SoundPool(2, AudioManager.STREAM_MUSIC, 100);
-    private static final Map<Integer, Integer> soundPoolMap = new HashMap<>();
-    private static final Map<String, Integer> soundPoolAssetsMap = new HashMap<>();
+    private static SoundEngine engine;
 
     /**
      * Prevent instantiation.
@@ -32,35 +25,68 @@ public final class HGBaseSound {
         super();
     }
 
+    /**
+     * Returns the sound engine, it is created with the default settings if no engine was set.
+     *
+     * @return the sound engine
+     */
+    public static synchronized SoundEngine getEngine() {
+        if (engine == null) {
+            engine = new SoundEngine();
+        }
+        return engine;
+    }
+
+    /**
+     * Sets the sound engine, e.g., to use more streams. A previous engine is released,
+     * requests to play a sound on the released engine are ignored.
+     *
+     * @param soundEngine the new sound engine, null to use a default engine
+     */
+    public static synchronized void setEngine(SoundEngine soundEngine) {
+        if (engine != null && engine != soundEngine) {
+            engine.release();
+        }
+        engine = soundEngine;
+    }
+
+    /**
+     * Loads audio files in the background, so they can be played at once later.
+     *
+     * @param audioFiles the names of the audio files (raw resources) or the paths in the assets folder
+     */
+    public static void preloadAudio(String... audioFiles) {
+        SoundEngine soundEngine = getEngine();
+        for (String audioFile : audioFiles) {
+            int resId = HGBaseResources.getResourceIdByName(audioFile, HGBaseResources.RAW);
+            if (resId != 0) {
+                soundEngine.preload(resId);
+            } else {
+                soundEngine.preloadAssets(audioFile);
+            }
+        }
+    }
+
+    /**
+     * Loads audio files in the background, so they can be played at once later.
+     *
+     * @param resIds the raw resource ids of the audio files
+     */
+    public static void preloadAudio(int... resIds) {
+        getEngine().preload(resIds);
+    }
+
     /**
      * Plays an audio file by specifying the name.
      *
-     * @param audioFile the name of the audio file (raw resource)
+     * @param audioFile the name of the audio file (raw resource) or the path in the assets folder
      */
     public static void playAudio(String audioFile) {
         int resId = HGBaseResources.getResourceIdByName(audioFile, HGBaseResources.RAW);
         if (resId != 0) {
             playAudio(resId);
         } else {
-            Integer soundId = soundPoolAssetsMap.get(audioFile);
-            if (soundId == null) {
-                AssetManager am = HGBaseAppTools.getContext().getResources().getAssets();
-                AssetFileDescriptor afd;
-                try {
-                    afd = am.openFd(HGBaseFileTools.correctAssetsPath(audioFile));
-                    soundId = soundPool.load(afd, 1);
-                    if (soundId > 0) {
-                        HGBaseTools.delay(100);
-                        soundPoolAssetsMap.put(audioFile, soundId);
-                    }
-                } catch (IOException e) {
-                    HGBaseLog.logError("Could not open file in assets directory: " + audioFile);
-                }
-
-            }
-            if (soundId != null && soundId > 0) {
-                soundPool.play(soundId, 1.0f, 1.0f, 1, 0, 1.0f);
-            }
+            getEngine().playAsset(audioFile);
         }
     }
 
@@ -72,13 +98,7 @@ public final class HGBaseSound {
     public static void playAudio(int resId) {
         AudioManager am = (AudioManager) HGBaseAppTools.getContext().getSystemService(Context.AUDIO_SERVICE);
         if (am.getRingerMode() == AudioManager.RINGER_MODE_NORMAL) {
-            Integer soundId = soundPoolMap.get(resId);
-            if (soundId == null) {
-                soundId = soundPool.load(HGBaseAppTools.getContext(), resId, 1);
-                HGBaseTools.delay(100);
-                soundPoolMap.put(resId, soundId);
-            }
-            soundPool.play(soundId, 1.0f, 1.0f, 1, 0, 1.0f);
+            getEngine().play(resId);
         }
     }
 
@@ -86,10 +106,9 @@ public final class HGBaseSound {
      * Returns if the given audio file exists in the assets folder.
      *
      * @param audioFile the file path to check
-     * @return true if the file exists in the assets folder
+     * @return true if the file exists in the assets folder, false if it does not exist or could not be loaded
      */
     public static boolean existsSoundFile(String audioFile) {
-        Integer soundId = soundPoolAssetsMap.get(audioFile);
-        return (soundId != null && soundId > 0);
+        return getEngine().isAssetAvailable(audioFile);
     }
 }
@@ -3,19 +3,31 @@
  */
 package at.hagru.hgbase.lib;
 
+import android.content.ComponentCallbacks;
 import android.content.Context;
+import android.content.res.Configuration;
 import android.content.res.Resources;
 
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import androidx.annotation.NonNull;
 import at.hagru.hgbase.android.HGBaseAppTools;
 import at.hagru.hgbase.android.HGBaseResources;
 
 /**
- * Facade to the string resource of Android to use simple access methods to get a text for the current language.
+ * Facade to the string resource of Android to use simple access methods to get a text for the current language.<p>
+ * The texts are cached as {@link TextTemplate} by resource id for the current locale, so a text is read and its
+ * format pattern is parsed only once. The cache is cleared when the configuration changes.
  * 
  * @author hagru
  */
 public final class HGBaseText {
 
+	private static volatile TextCache textCache;
+	private static volatile boolean callbacksRegistered;
+
 	/**
 	 * Prevent instantiation.
 	 */
@@ -60,13 +72,89 @@ public final class HGBaseText {
     *  @return text for the message id
     */
    public static String getText(int id, Object... formatArgs) {    
+	   TextTemplate template = getTemplate(id);
+	   return (template == null)? String.valueOf(id) : template.format(formatArgs);
+   }
+
+   /**
+    * Returns the text for a code as template, that can be formatted again and again without parsing the text.
+    * 
+    * @param name code of the message
+    * @return the template or null if no text is defined
+    */
+   public static TextTemplate getTemplate(String name) {
+	   int id = getIdByName(name);
+	   return (id == 0)? null : getTemplate(id);
+   }
+
+   /**
+    * Returns the text for a message id as template, that can be formatted again and again without parsing the text.
+    * 
+    * @param id id of the message
+    * @return the template or null if the text cannot be read
+    */
+   public static TextTemplate getTemplate(int id) {
 	   Context appContext = HGBaseAppTools.getContext();
-		try {
-		    return (appContext == null)? String.valueOf(id) : appContext.getString(id, formatArgs);
-		} catch (Resources.NotFoundException e) {
-			HGBaseLog.logWarn("Resources.NotFoundException in HGBaseText.getText: " + e.getMessage());
-		    return String.valueOf(id);
-		}
+	   if (appContext == null) {
+		   return null;
+	   }
+	   TextCache cache = getTextCache(appContext);
+	   TextTemplate template = cache.templates.get(id);
+	   if (template == null) {
+		   try {
+			   template = TextTemplate.compile(appContext.getString(id), cache.locale);
+			   cache.templates.put(id, template);
+		   } catch (Resources.NotFoundException e) {
+			   HGBaseLog.logWarn("Resources.NotFoundException in HGBaseText.getText: " + e.getMessage());
+		   }
+	   }
+	   return template;
+   }
+
+   /**
+    * Removes all cached texts, they are read again at the next access.
+    */
+   public static void clearCache() {
+	   textCache = null;
+   }
+
+   /**
+    * @param appContext the context of the app
+    * @return the cache for the current locale
+    */
+   private static TextCache getTextCache(Context appContext) {
+	   if (!callbacksRegistered) {
+		   registerCallbacks(appContext);
+	   }
+	   Locale locale = appContext.getResources().getConfiguration().getLocales().get(0);
+	   TextCache cache = textCache;
+	   if (cache == null || !cache.locale.equals(locale)) {
+		   cache = new TextCache(locale);
+		   textCache = cache;
+	   }
+	   return cache;
+   }
+
+   /**
+    * Registers the callback that clears the cache when the configuration changes.
+    * 
+    * @param appContext the context of the app
+    */
+   private static synchronized void registerCallbacks(Context appContext) {
+	   if (!callbacksRegistered) {
+		   appContext.getApplicationContext().registerComponentCallbacks(new ComponentCallbacks() {
+			   @Override
+			   public void onConfigurationChanged(@NonNull Configuration newConfig) {
+				   clearCache();
+			   }
+
+			   @Override
+			   public void onLowMemory() {
+				   clearCache();
+			   }
+		   });
+		   callbacksRegistered = true;
+	   }
    }
    
    /**
@@ -80,4 +168,16 @@ public final class HGBaseText {
 	   return (existsText(name))? getText(name) : defaultText;
    }
 
+   /**
+    * The texts of one locale.
+    */
+   private static final class TextCache {
+	   final Locale locale;
+	   final Map<Integer, TextTemplate> templates = new ConcurrentHashMap<>();
+
+	   TextCache(Locale locale) {
+		   this.locale = locale;
+	   }
+   }
+
 }
@@ -0,0 +1,129 @@
+package at.hagru.hgbase.lib;
+
+import android.content.SharedPreferences;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import at.hagru.hgbase.android.awt.Color;
+
+/**
+ * A cache of the options of shared preferences, used by {@link HGBaseConfig}.<p>
+ * The first time a key is not cached, the cache is filled with a snapshot of all preferences, and int and boolean
+ * values are kept unboxed. A listener registered at the preferences invalidates the keys that are changed.
+ * Changes that are not notified, e.g., setting default values, have to be invalidated by {@link #invalidate(String)}.
+ *
+ * @author hagru
+ */
+final class PreferenceCache {
+
+    private final SharedPreferences prefs;
+    private final Object lock = new Object();
+    private final Map<String, CachedValue> values = new ConcurrentHashMap<>();
+    private volatile String[] keys = null;
+    // the preferences keep only a weak reference to the listener, so it has to be kept here
+    private final SharedPreferences.OnSharedPreferenceChangeListener invalidator = (p, key) -> invalidate(key);
+
+    /**
+     * @param prefs the preferences to cache, the cache registers a listener for changes
+     */
+    PreferenceCache(SharedPreferences prefs) {
+        this.prefs = prefs;
+        prefs.registerOnSharedPreferenceChangeListener(invalidator);
+    }
+
+    /**
+     * Returns the cached value for the given key. If the key is not cached yet, the cache is filled
+     * with a snapshot of all preferences.
+     *
+     * @param key the key of the option
+     * @return the cached value, {@link CachedValue#MISSING} if the option does not exist
+     */
+    CachedValue lookup(String key) {
+        CachedValue value = values.get(key);
+        if (value == null) {
+            synchronized (lock) {
+                Map<String, ?> all = prefs.getAll();
+                for (Map.Entry<String, ?> entry : all.entrySet()) {
+                    if (entry.getKey() != null && !values.containsKey(entry.getKey())) {
+                        values.put(entry.getKey(), CachedValue.of(entry.getValue()));
+                    }
+                }
+                value = values.get(key);
+                if (value == null) {
+                    value = CachedValue.MISSING;
+                    values.put(key, value);
+                }
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Returns the keys of all options. The array is shared, so it must not be changed.
+     *
+     * @return the cached keys
+     */
+    String[] getKeys() {
+        String[] cached = keys;
+        if (cached == null) {
+            synchronized (lock) {
+                Set<String> keySet = prefs.getAll().keySet();
+                cached = keySet.toArray(new String[keySet.size()]);
+                keys = cached;
+            }
+        }
+        return cached;
+    }
+
+    /**
+     * Removes the given key from the cache, so it will be read again from the preferences.
+     *
+     * @param key the key of the changed option, null to clear the whole cache
+     */
+    void invalidate(String key) {
+        synchronized (lock) {
+            if (key == null) {
+                values.clear();
+            } else {
+                values.remove(key);
+            }
+            keys = null;
+        }
+    }
+
+    /**
+     * An immutable snapshot of one option, holding the typed value in unboxed form.
+     */
+    static final class CachedValue {
+
+        static final CachedValue MISSING = new CachedValue(null);
+
+        final Object raw;
+        final String text;
+        final boolean isInt;
+        final int intValue;
+        final boolean isBoolean;
+        final boolean booleanValue;
+        final Color color;
+
+        private CachedValue(Object raw) {
+            this.raw = raw;
+            this.text = (raw != null) ? raw.toString() : "";
+            this.isInt = (raw instanceof Integer);
+            this.intValue = isInt ? (Integer) raw : HGBaseTools.INVALID_INT;
+            this.isBoolean = (raw instanceof Boolean);
+            this.booleanValue = isBoolean && (Boolean) raw;
+            this.color = (isInt && intValue != HGBaseTools.INVALID_INT) ? new Color(intValue) : null;
+        }
+
+        /**
+         * @param raw the value as stored in the preferences
+         * @return the cached value for the given raw value
+         */
+        static CachedValue of(Object raw) {
+            return (raw == null) ? MISSING : new CachedValue(raw);
+        }
+    }
+}
@@ -0,0 +1,441 @@
+package at.hagru.hgbase.lib;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.media.AudioAttributes;
+import android.media.SoundPool;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import at.hagru.hgbase.android.HGBaseAppTools;
+
+/**
+ * Plays short sounds from raw resources or the assets folder with a {@link SoundPool} without blocking the caller.<p>
+ * Sounds are loaded in the background, either in advance by {@link #preload(int...)} and {@link #preloadAssets(String...)}
+ * or at the first request to play them. The readiness is tracked by the {@link SoundPool.OnLoadCompleteListener}.
+ * A request to play a sound that is not ready yet is queued and played when loading is complete,
+ * or dropped, depending on the {@link PendingPolicy}.
+ *
+ * @author hagru
+ */
+public final class SoundEngine {
+
+    /**
+     * What to do with a request to play a sound that is not loaded yet.
+     */
+    public enum PendingPolicy {
+        /**
+         * Play the sound as soon as it is loaded.
+         */
+        QUEUE,
+        /**
+         * Do not play the sound.
+         */
+        DROP
+    }
+
+    /**
+     * The default number of sounds that can be played at the same time.
+     */
+    public static final int DEFAULT_MAX_STREAMS = 2;
+    /**
+     * The default priority of a sound, higher values have a higher priority.
+     */
+    public static final int DEFAULT_PRIORITY = 1;
+    /**
+     * The maximum number of queued requests per sound, further requests are dropped.
+     */
+    private static final int MAX_QUEUED_REQUESTS = 4;
+
+    private final SoundPool soundPool;
+    private final int maxStreams;
+    private final ExecutorService loader;
+    private final Map<Object, Sample> samples = new HashMap<>();
+    private final Map<Integer, Sample> samplesById = new HashMap<>();
+    private volatile PendingPolicy pendingPolicy = PendingPolicy.QUEUE;
+    private volatile int defaultPriority = DEFAULT_PRIORITY;
+    private boolean released = false;
+
+    /**
+     * Creates a sound engine with {@link #DEFAULT_MAX_STREAMS} streams.
+     */
+    public SoundEngine() {
+        this(DEFAULT_MAX_STREAMS);
+    }
+
+    /**
+     * @param maxStreams the maximum number of sounds that can be played at the same time
+     */
+    public SoundEngine(int maxStreams) {
+        super();
+        this.maxStreams = Math.max(1, maxStreams);
+        AudioAttributes attributes = new AudioAttributes.Builder()
+                .setUsage(AudioAttributes.USAGE_GAME)
+                .setContentType(AudioAttributes.CONTENT_TYPE_SONIFICATION)
+                .build();
+        this.soundPool = new SoundPool.Builder().setMaxStreams(this.maxStreams).setAudioAttributes(attributes).build();
+        this.soundPool.setOnLoadCompleteListener(this::onLoadComplete);
+        this.loader = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "HGBaseSoundLoader");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
+    /**
+     * @return the maximum number of sounds that can be played at the same time
+     */
+    public int getMaxStreams() {
+        return maxStreams;
+    }
+
+    /**
+     * @param policy what to do with a request to play a sound that is not loaded yet
+     */
+    public void setPendingPolicy(PendingPolicy policy) {
+        this.pendingPolicy = (policy == null) ? PendingPolicy.QUEUE : policy;
+    }
+
+    /**
+     * @return what to do with a request to play a sound that is not loaded yet
+     */
+    public PendingPolicy getPendingPolicy() {
+        return pendingPolicy;
+    }
+
+    /**
+     * @param priority the priority for playing sounds without an explicit priority, higher values have a higher priority
+     */
+    public void setDefaultPriority(int priority) {
+        this.defaultPriority = Math.max(0, priority);
+    }
+
+    /**
+     * @return the priority for playing sounds without an explicit priority
+     */
+    public int getDefaultPriority() {
+        return defaultPriority;
+    }
+
+    /**
+     * Loads the given raw resources in the background.
+     *
+     * @param resIds the raw resource ids of the sounds
+     */
+    public void preload(int... resIds) {
+        for (int resId : resIds) {
+            getSample(resId);
+        }
+    }
+
+    /**
+     * Loads the given files of the assets folder in the background.
+     *
+     * @param assetPaths the paths of the sounds in the assets folder
+     */
+    public void preloadAssets(String... assetPaths) {
+        for (String assetPath : assetPaths) {
+            getSample(assetPath);
+        }
+    }
+
+    /**
+     * Plays a raw resource with the default priority.
+     *
+     * @param resId the raw resource id of the sound
+     */
+    public void play(int resId) {
+        play(resId, defaultPriority);
+    }
+
+    /**
+     * Plays a raw resource.
+     *
+     * @param resId the raw resource id of the sound
+     * @param priority the priority of the sound, higher values have a higher priority
+     */
+    public void play(int resId, int priority) {
+        play(getSample(resId), new PlayRequest(1.0f, priority, 0, 1.0f));
+    }
+
+    /**
+     * Plays a file of the assets folder with the default priority.
+     *
+     * @param assetPath the path of the sound in the assets folder
+     */
+    public void playAsset(String assetPath) {
+        playAsset(assetPath, defaultPriority);
+    }
+
+    /**
+     * Plays a file of the assets folder.
+     *
+     * @param assetPath the path of the sound in the assets folder
+     * @param priority the priority of the sound, higher values have a higher priority
+     */
+    public void playAsset(String assetPath, int priority) {
+        play(getSample(assetPath), new PlayRequest(1.0f, priority, 0, 1.0f));
+    }
+
+    /**
+     * @param resId the raw resource id of a sound
+     * @return true if the sound is loaded and can be played at once
+     */
+    public boolean isReady(int resId) {
+        return isReady((Object) resId);
+    }
+
+    /**
+     * @param assetPath the path of a sound in the assets folder
+     * @return true if the sound is loaded and can be played at once
+     */
+    public boolean isAssetReady(String assetPath) {
+        return isReady((Object) assetPath);
+    }
+
+    /**
+     * Checks whether the sound exists in the assets folder. If the sound was not loaded yet or is still loading,
+     * the assets folder is checked for the file.
+     *
+     * @param assetPath the path of a sound in the assets folder
+     * @return true if the sound is loaded or the file exists, false if it does not exist or could not be loaded
+     */
+    public boolean isAssetAvailable(String assetPath) {
+        synchronized (this) {
+            Sample sample = samples.get(assetPath);
+            if (sample != null && sample.state != Sample.LOADING) {
+                return (sample.state == Sample.READY);
+            }
+        }
+        try (InputStream in = HGBaseAppTools.getContext().getResources().getAssets()
+                                            .open(HGBaseFileTools.correctAssetsPath(assetPath))) {
+            return (in != null);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Stops the loading thread and releases all sounds. Later requests to play a sound are ignored.
+     */
+    public void release() {
+        synchronized (this) {
+            released = true;
+            samples.clear();
+            samplesById.clear();
+        }
+        loader.shutdownNow();
+        soundPool.release();
+    }
+
+    /**
+     * @param key the raw resource id or the asset path of a sound
+     * @return true if the sound is loaded
+     */
+    private boolean isReady(Object key) {
+        synchronized (this) {
+            Sample sample = samples.get(key);
+            return (sample != null && sample.state == Sample.READY);
+        }
+    }
+
+    /**
+     * Returns the sample for the given sound, it is loaded in the background if it is unknown.
+     * If the engine was released, a failed sample is returned, which is never played.
+     *
+     * @param key the raw resource id or the asset path of a sound
+     * @return the sample
+     */
+    private Sample getSample(Object key) {
+        synchronized (this) {
+            Sample sample = samples.get(key);
+            if (sample != null) {
+                return sample;
+            }
+            Sample newSample = new Sample(key);
+            if (released) {
+                newSample.state = Sample.FAILED;
+                return newSample;
+            }
+            try {
+                loader.execute(() -> load(newSample));
+            } catch (RejectedExecutionException e) {
+                newSample.state = Sample.FAILED;
+                return newSample;
+            }
+            samples.put(key, newSample);
+            return newSample;
+        }
+    }
+
+    /**
+     * Loads the sample on the loading thread.
+     *
+     * @param sample the sample to load
+     */
+    private void load(Sample sample) {
+        int soundId = 0;
+        try {
+            if (sample.key instanceof Integer) {
+                soundId = loadResource((Integer) sample.key);
+            } else {
+                soundId = loadAsset((String) sample.key);
+            }
+        } catch (IOException e) {
+            HGBaseLog.logError("Could not open file in assets directory: " + sample.key);
+        } catch (RuntimeException e) {
+            HGBaseLog.logError("Could not load sound " + sample.key + "! " + e.getMessage());
+        }
+        if (soundId <= 0) {
+            synchronized (this) {
+                sample.state = Sample.FAILED;
+                sample.pending.clear();
+            }
+        }
+    }
+
+    /**
+     * @param resId the raw resource id of a sound
+     * @return the sound id of the sound pool
+     */
+    private int loadResource(int resId) {
+        Context context = HGBaseAppTools.getContext();
+        // lock, so the load complete listener always finds the sample
+        synchronized (this) {
+            int soundId = soundPool.load(context, resId, 1);
+            registerSoundId(resId, soundId);
+            return soundId;
+        }
+    }
+
+    /**
+     * @param assetPath the path of a sound in the assets folder
+     * @return the sound id of the sound pool
+     * @throws IOException if the file cannot be opened
+     */
+    private int loadAsset(String assetPath) throws IOException {
+        AssetFileDescriptor afd = HGBaseAppTools.getContext().getResources().getAssets()
+                                                .openFd(HGBaseFileTools.correctAssetsPath(assetPath));
+        try {
+            synchronized (this) {
+                int soundId = soundPool.load(afd, 1);
+                registerSoundId(assetPath, soundId);
+                return soundId;
+            }
+        } finally {
+            afd.close();
+        }
+    }
+
+    /**
+     * Must be called with the lock of the engine.
+     *
+     * @param key the raw resource id or the asset path of a sound
+     * @param soundId the sound id of the sound pool
+     */
+    private void registerSoundId(Object key, int soundId) {
+        Sample sample = samples.get(key);
+        if (sample != null && soundId > 0) {
+            sample.soundId = soundId;
+            samplesById.put(soundId, sample);
+        }
+    }
+
+    /**
+     * Called by the sound pool when a sound is loaded.
+     */
+    private void onLoadComplete(SoundPool pool, int soundId, int status) {
+        List<PlayRequest> requests;
+        Sample sample;
+        synchronized (this) {
+            sample = samplesById.get(soundId);
+            if (sample == null) {
+                return;
+            }
+            sample.state = (status == 0) ? Sample.READY : Sample.FAILED;
+            requests = new ArrayList<>(sample.pending);
+            sample.pending.clear();
+        }
+        if (sample.state == Sample.READY) {
+            for (PlayRequest request : requests) {
+                playNow(sample, request);
+            }
+        } else {
+            HGBaseLog.logWarn("Could not load sound " + sample.key + ", status " + status);
+        }
+    }
+
+    /**
+     * Plays the sample at once, queues the request or drops it.
+     *
+     * @param sample the sample
+     * @param request the request to play the sample
+     */
+    private void play(Sample sample, PlayRequest request) {
+        synchronized (this) {
+            if (released) {
+                return;
+            } else if (sample.state == Sample.LOADING) {
+                if (pendingPolicy == PendingPolicy.QUEUE && sample.pending.size() < MAX_QUEUED_REQUESTS) {
+                    sample.pending.add(request);
+                }
+                return;
+            } else if (sample.state == Sample.FAILED) {
+                return;
+            }
+        }
+        playNow(sample, request);
+    }
+
+    /**
+     * @param sample a loaded sample
+     * @param request the request to play the sample
+     */
+    private void playNow(Sample sample, PlayRequest request) {
+        soundPool.play(sample.soundId, request.volume, request.volume, request.priority, request.loop, request.rate);
+    }
+
+    /**
+     * A sound of the sound pool.
+     */
+    private static final class Sample {
+        static final int LOADING = 0;
+        static final int READY = 1;
+        static final int FAILED = 2;
+
+        final Object key;
+        final List<PlayRequest> pending = new ArrayList<>(1);
+        int soundId;
+        int state = LOADING;
+
+        Sample(Object key) {
+            this.key = key;
+        }
+    }
+
+    /**
+     * The parameters to play a sound.
+     */
+    private static final class PlayRequest {
+        final float volume;
+        final int priority;
+        final int loop;
+        final float rate;
+
+        PlayRequest(float volume, int priority, int loop, float rate) {
+            this.volume = volume;
+            this.priority = priority;
+            this.loop = loop;
+            this.rate = rate;
+        }
+    }
+}
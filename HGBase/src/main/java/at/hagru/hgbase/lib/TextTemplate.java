@@ -0,0 +1,210 @@
+package at.hagru.hgbase.lib;
+
+import java.text.DecimalFormatSymbols;
+import java.util.ArrayList;
+import java.util.Formattable;
+import java.util.IllegalFormatException;
+import java.util.List;
+import java.util.Locale;
+import java.util.MissingFormatArgumentException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A format pattern (as used by {@link String#format(Locale, String, Object...)}) that is parsed only once.<p>
+ * The pattern is split into the literal parts and the format specifiers. Simple specifiers ({@code %s} and
+ * {@code %d} without flags, width and precision) are formatted directly, all other specifiers are formatted
+ * with {@link String#format(Locale, String, Object...)} for the single argument. A pattern without specifiers
+ * just returns the text. The result is the same as formatting the whole pattern with {@link String#format}.
+ *
+ * @author hagru
+ */
+public final class TextTemplate {
+
+    /**
+     * The format specifier syntax of {@link java.util.Formatter}.
+     */
+    private static final Pattern SPECIFIER = Pattern.compile("%(\\d+\\$)?([-#+ 0,(<]*)?(\\d+)?(\\.\\d+)?([tT])?([a-zA-Z%])");
+
+    private final Locale locale;
+    private final String pattern;
+    private final Part[] parts;
+    private final boolean literal;
+
+    /**
+     * @param pattern the format pattern
+     * @param locale the locale for formatting
+     * @param parts the parsed parts or null, if the pattern cannot be parsed
+     */
+    private TextTemplate(String pattern, Locale locale, Part[] parts) {
+        super();
+        this.pattern = pattern;
+        this.locale = locale;
+        this.parts = parts;
+        this.literal = (parts != null && parts.length <= 1 && (parts.length == 0 || parts[0].text != null));
+    }
+
+    /**
+     * Parses the given format pattern.
+     *
+     * @param pattern the format pattern, must not be null
+     * @param locale the locale for formatting
+     * @return the template
+     */
+    public static TextTemplate compile(String pattern, Locale locale) {
+        return new TextTemplate(pattern, locale, parse(pattern, locale));
+    }
+
+    /**
+     * @return the format pattern
+     */
+    public String getPattern() {
+        return pattern;
+    }
+
+    /**
+     * @return the locale for formatting
+     */
+    public Locale getLocale() {
+        return locale;
+    }
+
+    /**
+     * Formats the template with the given arguments.
+     *
+     * @param args the format arguments
+     * @return the formatted text
+     * @throws IllegalFormatException if the arguments do not match the pattern
+     */
+    public String format(Object... args) {
+        if (literal) {
+            return (parts.length == 0) ? "" : parts[0].text;
+        }
+        if (parts == null) {
+            return String.format(locale, pattern, args);
+        }
+        StringBuilder sb = new StringBuilder(pattern.length() + 16);
+        for (Part part : parts) {
+            if (part.text != null) {
+                sb.append(part.text);
+            } else {
+                if (args == null || part.argIndex >= args.length) {
+                    throw new MissingFormatArgumentException(part.specifier);
+                }
+                Object arg = args[part.argIndex];
+                if (part.simple && !(arg instanceof Formattable)
+                        && (part.conversion == 's' || arg instanceof Integer || arg instanceof Long
+                                || arg instanceof Short || arg instanceof Byte)) {
+                    sb.append(arg);
+                } else {
+                    sb.append(String.format(locale, part.specifier, arg));
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return pattern;
+    }
+
+    /**
+     * @param pattern the format pattern
+     * @param locale the locale for formatting
+     * @return the parts of the pattern or null, if it cannot be parsed
+     */
+    private static Part[] parse(String pattern, Locale locale) {
+        boolean asciiDigits = (DecimalFormatSymbols.getInstance(locale).getZeroDigit() == '0');
+        List<Part> parts = new ArrayList<>();
+        StringBuilder text = new StringBuilder();
+        Matcher matcher = SPECIFIER.matcher(pattern);
+        int start = 0;
+        int nextIndex = 0;
+        int lastIndex = -1;
+        while (start < pattern.length()) {
+            int percent = pattern.indexOf('%', start);
+            if (percent < 0) {
+                text.append(pattern, start, pattern.length());
+                break;
+            }
+            text.append(pattern, start, percent);
+            if (!matcher.find(percent) || matcher.start() != percent) {
+                // invalid specifier, String.format will throw the exception when formatting
+                return null;
+            }
+            char conversion = matcher.group(6).charAt(0);
+            String flags = matcher.group(2);
+            if (conversion == '%') {
+                text.append('%');
+            } else if (conversion == 'n') {
+                text.append(System.lineSeparator());
+            } else {
+                int argIndex;
+                if (matcher.group(1) != null) {
+                    String index = matcher.group(1);
+                    argIndex = Integer.parseInt(index.substring(0, index.length() - 1)) - 1;
+                } else if (flags != null && flags.indexOf('<') >= 0) {
+                    argIndex = lastIndex;
+                } else {
+                    argIndex = nextIndex++;
+                }
+                if (argIndex < 0) {
+                    return null;
+                }
+                lastIndex = argIndex;
+                if (text.length() > 0) {
+                    parts.add(new Part(text.toString()));
+                    text.setLength(0);
+                }
+                // the argument is given alone, so the index has to be removed from the specifier
+                String specifier = "%" + ((flags == null) ? "" : flags.replace("<", ""))
+                                   + nullToEmpty(matcher.group(3)) + nullToEmpty(matcher.group(4))
+                                   + nullToEmpty(matcher.group(5)) + conversion;
+                boolean simple = (matcher.end() - matcher.start() == 2)
+                                 && (conversion == 's' || (conversion == 'd' && asciiDigits));
+                parts.add(new Part(specifier, argIndex, conversion, simple));
+            }
+            start = matcher.end();
+        }
+        if (text.length() > 0) {
+            parts.add(new Part(text.toString()));
+        }
+        return parts.toArray(new Part[0]);
+    }
+
+    /**
+     * @param s a string, may be null
+     * @return the string or an empty string
+     */
+    private static String nullToEmpty(String s) {
+        return (s == null) ? "" : s;
+    }
+
+    /**
+     * A literal text or a format specifier for one argument.
+     */
+    private static final class Part {
+        final String text;
+        final String specifier;
+        final int argIndex;
+        final char conversion;
+        final boolean simple;
+
+        Part(String text) {
+            this.text = text;
+            this.specifier = null;
+            this.argIndex = -1;
+            this.conversion = 0;
+            this.simple = false;
+        }
+
+        Part(String specifier, int argIndex, char conversion, boolean simple) {
+            this.text = null;
+            this.specifier = specifier;
+            this.argIndex = argIndex;
+            this.conversion = conversion;
+            this.simple = simple;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package at.hagru.hgbase.lib.binary;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Reads values written by {@link BinaryWriter}. The values have to be read in the same order as they were written.<p>
+ * The methods throw an {@link UncheckedIOException} if the stream cannot be read or is invalid, so they can be
+ * used in element readers given as {@link Function}.
+ *
+ * @author hagru
+ */
+public final class BinaryReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private final InputStream in;
+    private final List<String> stringTable = new ArrayList<>();
+    private final byte[] doubleBuffer = new byte[8];
+
+    /**
+     * Creates a new reader and checks the header of the format.
+     *
+     * @param in the stream to read from, will be closed by {@link #close()}
+     * @throws IOException if the stream does not start with a valid header
+     */
+    public BinaryReader(InputStream in) throws IOException {
+        super();
+        this.in = new BufferedInputStream(in, BUFFER_SIZE);
+        byte[] magic = new byte[HGBaseBinaryTools.MAGIC.length];
+        try {
+            readRaw(magic, magic.length);
+            if (!Arrays.equals(magic, HGBaseBinaryTools.MAGIC)) {
+                throw new IOException("The stream has no valid binary header!");
+            }
+            int version = readByte();
+            if (version != HGBaseBinaryTools.VERSION) {
+                throw new IOException("The binary format version " + version + " is not supported!");
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * @return the next byte
+     */
+    public int readByte() {
+        try {
+            int value = in.read();
+            if (value < 0) {
+                throw new EOFException("Unexpected end of binary stream!");
+            }
+            return value;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return the next boolean
+     */
+    public boolean readBoolean() {
+        return readByte() != 0;
+    }
+
+    /**
+     * @return the next variable length integer
+     * @see BinaryWriter#writeVarInt(int)
+     */
+    public int readVarInt() {
+        long value = readVarLong();
+        if ((value & ~0xFFFFFFFFL) != 0) {
+            throw new UncheckedIOException(new IOException("Invalid variable length integer!"));
+        }
+        return (int) value;
+    }
+
+    /**
+     * @return the next variable length integer
+     * @see BinaryWriter#writeVarLong(long)
+     */
+    public long readVarLong() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new UncheckedIOException(new IOException("Invalid variable length integer!"));
+    }
+
+    /**
+     * @return the next signed integer
+     * @see BinaryWriter#writeInt(int)
+     */
+    public int readInt() {
+        int value = readVarInt();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * @return the next signed long
+     * @see BinaryWriter#writeLong(long)
+     */
+    public long readLong() {
+        long value = readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * @return the next double
+     */
+    public double readDouble() {
+        readRaw(doubleBuffer, 8);
+        long bits = 0;
+        for (int i = 0; i < 8; i++) {
+            bits |= (doubleBuffer[i] & 0xFFL) << (i * 8);
+        }
+        return Double.longBitsToDouble(bits);
+    }
+
+    /**
+     * @return the next string, may be null
+     * @see BinaryWriter#writeString(String)
+     */
+    public String readString() {
+        int code = readVarInt();
+        if (code == 0) {
+            return null;
+        }
+        if ((code & 1) == 0) {
+            int index = (code >>> 1) - 1;
+            if (index >= stringTable.size()) {
+                throw new UncheckedIOException(new IOException("Invalid string reference " + index + "!"));
+            }
+            return stringTable.get(index);
+        }
+        byte[] bytes = new byte[code >>> 1];
+        readRaw(bytes, bytes.length);
+        String value = new String(bytes, StandardCharsets.UTF_8);
+        stringTable.add(value);
+        return value;
+    }
+
+    /**
+     * @return the next byte array, may be null
+     * @see BinaryWriter#writeBytes(byte[])
+     */
+    public byte[] readBytes() {
+        int length = readVarInt();
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length - 1];
+        readRaw(bytes, bytes.length);
+        return bytes;
+    }
+
+    /**
+     * Reads a collection written by {@link BinaryWriter#writeCollection(Collection, java.util.function.BiConsumer)}.
+     *
+     * @param collectionSupplier The supplier for the collection where to store the values.
+     * @param elementReader The reader to read one element.
+     * @return The collection with the read values.
+     * @param <T> The type of the collection elements.
+     */
+    public <T> Collection<T> readCollection(Supplier<Collection<T>> collectionSupplier, Function<BinaryReader, T> elementReader) {
+        Collection<T> collection = collectionSupplier.get();
+        int size = readVarInt();
+        for (int i = 0; i < size; i++) {
+            collection.add(elementReader.apply(this));
+        }
+        return collection;
+    }
+
+    /**
+     * Reads a map written by {@link BinaryWriter#writeMap(Map, java.util.function.BiConsumer, java.util.function.BiConsumer)}.
+     *
+     * @param mapSupplier The supplier for the map where to store the elements.
+     * @param keyReader The reader to read the key.
+     * @param valueReader The reader to read the value.
+     * @return The map with the read values.
+     * @param <K> The type of the map keys.
+     * @param <V> The type of the map values.
+     */
+    public <K, V> Map<K, V> readMap(Supplier<Map<K, V>> mapSupplier, Function<BinaryReader, K> keyReader, Function<BinaryReader, V> valueReader) {
+        Map<K, V> map = mapSupplier.get();
+        int size = readVarInt();
+        for (int i = 0; i < size; i++) {
+            K key = keyReader.apply(this);
+            map.put(key, valueReader.apply(this));
+        }
+        return map;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * @param bytes the array to fill
+     * @param length the number of bytes to read
+     */
+    private void readRaw(byte[] bytes, int length) {
+        try {
+            int offset = 0;
+            while (offset < length) {
+                int count = in.read(bytes, offset, length - offset);
+                if (count < 0) {
+                    throw new EOFException("Unexpected end of binary stream!");
+                }
+                offset += count;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
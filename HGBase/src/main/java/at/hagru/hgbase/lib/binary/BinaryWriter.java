@@ -0,0 +1,222 @@
+package at.hagru.hgbase.lib.binary;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Writes values in the compact binary format of {@link HGBaseBinaryTools}.<p>
+ * Integers are written as variable length integers (zig-zag encoded for signed values), strings are written
+ * only once and then referenced by their index in the string table. Collections and maps are prefixed by their size.<p>
+ * The methods throw an {@link UncheckedIOException} if the stream cannot be written, so they can be
+ * used in element writers given as {@link BiConsumer}.
+ *
+ * @author hagru
+ */
+public final class BinaryWriter implements Closeable {
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private final OutputStream out;
+    private final Map<String, Integer> stringTable = new HashMap<>();
+    private final byte[] varBuffer = new byte[10];
+
+    /**
+     * Creates a new writer and writes the header of the format.
+     *
+     * @param out the stream to write to, will be closed by {@link #close()}
+     */
+    public BinaryWriter(OutputStream out) {
+        super();
+        this.out = new BufferedOutputStream(out, BUFFER_SIZE);
+        writeRaw(HGBaseBinaryTools.MAGIC);
+        writeByte(HGBaseBinaryTools.VERSION);
+    }
+
+    /**
+     * @param value the byte to write
+     */
+    public void writeByte(int value) {
+        try {
+            out.write(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @param value the boolean to write as one byte
+     */
+    public void writeBoolean(boolean value) {
+        writeByte(value ? 1 : 0);
+    }
+
+    /**
+     * Writes a non-negative value as variable length integer, i.e., 7 bits per byte.
+     *
+     * @param value the value to write, interpreted as unsigned
+     */
+    public void writeVarInt(int value) {
+        writeVarLong(value & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Writes a non-negative value as variable length integer, i.e., 7 bits per byte.
+     *
+     * @param value the value to write, interpreted as unsigned
+     */
+    public void writeVarLong(long value) {
+        int count = 0;
+        while ((value & ~0x7FL) != 0) {
+            varBuffer[count++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        varBuffer[count++] = (byte) value;
+        writeRaw(varBuffer, count);
+    }
+
+    /**
+     * Writes a signed value zig-zag encoded, so small negative values need only few bytes.
+     *
+     * @param value the value to write
+     */
+    public void writeInt(int value) {
+        writeVarInt((value << 1) ^ (value >> 31));
+    }
+
+    /**
+     * Writes a signed value zig-zag encoded, so small negative values need only few bytes.
+     *
+     * @param value the value to write
+     */
+    public void writeLong(long value) {
+        writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    /**
+     * @param value the value to write with 8 bytes
+     */
+    public void writeDouble(double value) {
+        long bits = Double.doubleToLongBits(value);
+        for (int i = 0; i < 8; i++) {
+            varBuffer[i] = (byte) (bits >>> (i * 8));
+        }
+        writeRaw(varBuffer, 8);
+    }
+
+    /**
+     * Writes a string. A string that was written before is only written as reference into the string table.
+     *
+     * @param value the string to write, may be null
+     */
+    public void writeString(String value) {
+        if (value == null) {
+            writeVarInt(0);
+            return;
+        }
+        Integer index = stringTable.get(value);
+        if (index != null) {
+            writeVarInt((index + 1) << 1);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt((bytes.length << 1) | 1);
+            writeRaw(bytes);
+            stringTable.put(value, stringTable.size());
+        }
+    }
+
+    /**
+     * Writes a byte array prefixed by its length.
+     *
+     * @param value the bytes to write, may be null
+     */
+    public void writeBytes(byte[] value) {
+        if (value == null) {
+            writeVarInt(0);
+        } else {
+            writeVarInt(value.length + 1);
+            writeRaw(value);
+        }
+    }
+
+    /**
+     * Writes the specified collection prefixed by its size.
+     *
+     * @param collection The collection to write, null is written as empty collection.
+     * @param elementWriter The writer to write one element.
+     * @param <T> The type of the collection elements.
+     */
+    public <T> void writeCollection(Collection<T> collection, BiConsumer<BinaryWriter, T> elementWriter) {
+        if (collection == null) {
+            writeVarInt(0);
+            return;
+        }
+        writeVarInt(collection.size());
+        for (T element : collection) {
+            elementWriter.accept(this, element);
+        }
+    }
+
+    /**
+     * Writes the specified map prefixed by its size.
+     *
+     * @param map The map to write, null is written as empty map.
+     * @param keyWriter The writer to write the key of one map entry.
+     * @param valueWriter The writer to write the value of one map entry.
+     * @param <K> The type of the map keys.
+     * @param <V> The type of the map values.
+     */
+    public <K, V> void writeMap(Map<K, V> map, BiConsumer<BinaryWriter, K> keyWriter, BiConsumer<BinaryWriter, V> valueWriter) {
+        if (map == null) {
+            writeVarInt(0);
+            return;
+        }
+        writeVarInt(map.size());
+        for (Map.Entry<K, V> entry : map.entrySet()) {
+            keyWriter.accept(this, entry.getKey());
+            valueWriter.accept(this, entry.getValue());
+        }
+    }
+
+    /**
+     * Writes all buffered bytes to the underlying stream.
+     */
+    public void flush() {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    /**
+     * @param bytes the bytes to write without length
+     */
+    private void writeRaw(byte[] bytes) {
+        writeRaw(bytes, bytes.length);
+    }
+
+    /**
+     * @param bytes the bytes to write without length
+     * @param length the number of bytes to write
+     */
+    private void writeRaw(byte[] bytes, int length) {
+        try {
+            out.write(bytes, 0, length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
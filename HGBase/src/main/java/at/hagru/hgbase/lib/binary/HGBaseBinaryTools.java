@@ -0,0 +1,202 @@
+package at.hagru.hgbase.lib.binary;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import at.hagru.hgbase.lib.HGBaseLog;
+import at.hagru.hgbase.lib.xml.HGBaseXMLTools;
+
+/**
+ * Tools for a compact binary format, an alternative to the xml persistence of {@link HGBaseXMLTools}.<p>
+ * A binary file starts with a header of four bytes ({@code HGB} and the format version), followed by the values
+ * written with a {@link BinaryWriter}. Integers are variable length encoded, strings are length-prefixed and
+ * repeated strings are written as reference into a string table. Collections and maps are prefixed by their size.<p>
+ * Existing xml files can be converted with {@link #convertXML(File, File)} and read back as xml elements
+ * with {@link #readXML(File)}.
+ *
+ * @author hagru
+ */
+public final class HGBaseBinaryTools {
+
+    /**
+     * The first bytes of every binary file.
+     */
+    static final byte[] MAGIC = {'H', 'G', 'B'};
+    /**
+     * The version of the binary format.
+     */
+    static final int VERSION = 1;
+
+    private static final int NODE_END = 0;
+    private static final int NODE_ELEMENT = 1;
+    private static final int NODE_TEXT = 2;
+
+    private HGBaseBinaryTools() {
+        super();
+    }
+
+    /**
+     * Writes a binary file.
+     *
+     * @param file the file to write
+     * @param content the code that writes the values
+     * @return true, if writing was successful
+     */
+    public static boolean writeFile(File file, Consumer<BinaryWriter> content) {
+        File parentDir = file.getAbsoluteFile().getParentFile();
+        if (parentDir != null && !parentDir.isDirectory() && !parentDir.mkdirs()) {
+            HGBaseLog.logError("Could not create directory: " + parentDir);
+            return false;
+        }
+        try (BinaryWriter writer = new BinaryWriter(new BufferedOutputStream(new FileOutputStream(file)))) {
+            content.accept(writer);
+            writer.flush();
+            return true;
+        } catch (IOException | UncheckedIOException e) {
+            HGBaseLog.logError("Could not write binary file! " + e.getMessage());
+        }
+        return false;
+    }
+
+    /**
+     * Reads a binary file.
+     *
+     * @param file the file to read
+     * @param content the code that reads the values
+     * @param <T> the type of the result
+     * @return the result of the reading code or null, if an error occurred
+     */
+    public static <T> T readFile(File file, Function<BinaryReader, T> content) {
+        try (BinaryReader reader = new BinaryReader(new FileInputStream(file))) {
+            return content.apply(reader);
+        } catch (IOException | UncheckedIOException e) {
+            HGBaseLog.logError("Error when reading binary file! " + e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Converts an existing xml file into a binary file. The elements, attributes and all texts are kept,
+     * so the binary file can be read with {@link #readXML(File)}.
+     *
+     * @param xmlFile the xml file to convert
+     * @param binaryFile the binary file to write
+     * @return true, if the conversion was successful
+     */
+    public static boolean convertXML(File xmlFile, File binaryFile) {
+        return convertXML(xmlFile, binaryFile, false);
+    }
+
+    /**
+     * Converts an existing xml file into a binary file, see {@link #writeElement(BinaryWriter, Element, boolean)}.
+     *
+     * @param xmlFile the xml file to convert
+     * @param binaryFile the binary file to write
+     * @param skipWhitespace true to drop texts that consist of whitespace only, e.g., the indentation
+     * @return true, if the conversion was successful
+     */
+    public static boolean convertXML(File xmlFile, File binaryFile, boolean skipWhitespace) {
+        Element root = HGBaseXMLTools.readXML(xmlFile, "Could not read xml file " + xmlFile + "!");
+        return (root != null) && writeFile(binaryFile, writer -> writeElement(writer, root, skipWhitespace));
+    }
+
+    /**
+     * Reads a binary file written by {@link #convertXML(File, File)} or {@link #writeElement(BinaryWriter, Element)}.
+     *
+     * @param binaryFile the binary file
+     * @return the root element or null, if an error occurred
+     */
+    public static Element readXML(File binaryFile) {
+        Document doc = HGBaseXMLTools.createDocument();
+        if (doc == null) {
+            return null;
+        }
+        return readFile(binaryFile, reader -> readElement(reader, doc, null));
+    }
+
+    /**
+     * Writes a xml element with its attributes, all texts and child elements.
+     *
+     * @param writer the binary writer
+     * @param element the element to write
+     */
+    public static void writeElement(BinaryWriter writer, Element element) {
+        writeElement(writer, element, false);
+    }
+
+    /**
+     * Writes a xml element with its attributes, texts and child elements. Texts that consist of whitespace only
+     * may be dropped, this makes the file smaller, but the xml read back is not the same any more,
+     * e.g., the content of {@code <a> </a>} or of elements with {@code xml:space="preserve"} changes.
+     *
+     * @param writer the binary writer
+     * @param element the element to write
+     * @param skipWhitespace true to drop texts that consist of whitespace only, false to keep all texts
+     */
+    public static void writeElement(BinaryWriter writer, Element element, boolean skipWhitespace) {
+        writer.writeString(element.getNodeName());
+        NamedNodeMap attributes = element.getAttributes();
+        int attributeCount = (attributes == null) ? 0 : attributes.getLength();
+        writer.writeVarInt(attributeCount);
+        for (int i = 0; i < attributeCount; i++) {
+            Node attribute = attributes.item(i);
+            writer.writeString(attribute.getNodeName());
+            writer.writeString(attribute.getNodeValue());
+        }
+        NodeList children = element.getChildNodes();
+        for (int i = 0; i < children.getLength(); i++) {
+            Node child = children.item(i);
+            if (child.getNodeType() == Node.ELEMENT_NODE) {
+                writer.writeByte(NODE_ELEMENT);
+                writeElement(writer, (Element) child, skipWhitespace);
+            } else if (child.getNodeType() == Node.TEXT_NODE || child.getNodeType() == Node.CDATA_SECTION_NODE) {
+                String text = child.getNodeValue();
+                if (text != null && !(skipWhitespace && text.trim().isEmpty())) {
+                    writer.writeByte(NODE_TEXT);
+                    writer.writeString(text);
+                }
+            }
+        }
+        writer.writeByte(NODE_END);
+    }
+
+    /**
+     * Reads a xml element written by {@link #writeElement(BinaryWriter, Element)}.
+     *
+     * @param reader the binary reader
+     * @param doc the document to create the element in
+     * @param parent the parent element, null to add the element as root element
+     * @return the element read
+     */
+    public static Element readElement(BinaryReader reader, Document doc, Element parent) {
+        Element element = HGBaseXMLTools.createElement(doc, parent, reader.readString());
+        int attributeCount = reader.readVarInt();
+        for (int i = 0; i < attributeCount; i++) {
+            String name = reader.readString();
+            element.setAttribute(name, reader.readString());
+        }
+        int type;
+        while ((type = reader.readByte()) != NODE_END) {
+            if (type == NODE_ELEMENT) {
+                readElement(reader, doc, element);
+            } else if (type == NODE_TEXT) {
+                element.appendChild(doc.createTextNode(reader.readString()));
+            } else {
+                throw new UncheckedIOException(new IOException("Invalid node type " + type + "!"));
+            }
+        }
+        return element;
+    }
+}
@@ -0,0 +1,516 @@
+package at.hagru.hgbase.lib.internal;
+
+import android.util.Log;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.GZIPOutputStream;
+
+import at.hagru.hgbase.lib.HGBaseLog;
+
+/**
+ * Writes log lines to a file on a background thread.<p>
+ * Callers only put the lines into a {@link BoundedRingBuffer}. One writer thread keeps the file open,
+ * writes the lines in batches and flushes the file when enough lines were written or some time has passed.
+ * While there is nothing to write, the writer thread sleeps until a line is buffered or the pending lines have
+ * to be flushed, so an idle application is not woken up.<p>
+ * Optionally the file is rotated when it exceeds a maximum size: the current file becomes {@code <name>.1},
+ * older archives are shifted to {@code <name>.2} and so on, and the oldest archive is deleted. Archives may be
+ * compressed with gzip. Rotation is done by the writer thread, so callers never wait for it.
+ * The file is written in UTF-8 and its size is counted in encoded bytes.
+ *
+ * @author hagru
+ */
+public final class AsyncLogWriter {
+
+    private static final int FLUSH_LINES = 64;
+    private static final long FLUSH_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final String GZIP_EXTENSION = ".gz";
+
+    private final File file;
+    private final String tag;
+    private final BoundedRingBuffer<Entry> buffer;
+    private final Thread thread;
+    private final AtomicLong droppedLines = new AtomicLong();
+    private volatile HGBaseLog.OverflowPolicy overflowPolicy;
+    private volatile boolean stopped = false;
+    private volatile boolean sleeping = false;
+    private volatile long maxFileSize = 0;
+    private volatile int maxArchives = 0;
+    private volatile boolean compressArchives = false;
+
+    // only used by the writer thread
+    private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault());
+    private final Date date = new Date();
+    private final StringBuilder line = new StringBuilder();
+    private long lastSecond = Long.MIN_VALUE;
+    private String lastDate = "";
+    private long fileSize = 0;
+
+    /**
+     * @param file the log file
+     * @param tag the tag to write into every line
+     * @param capacity the number of lines that can be buffered
+     * @param overflowPolicy what to do if the buffer is full
+     */
+    public AsyncLogWriter(File file, String tag, int capacity, HGBaseLog.OverflowPolicy overflowPolicy) {
+        super();
+        this.file = file;
+        this.tag = tag;
+        this.buffer = new BoundedRingBuffer<>(capacity);
+        this.overflowPolicy = overflowPolicy;
+        this.thread = new Thread(this::runWriter, "HGBaseLog-" + file.getName());
+        this.thread.setDaemon(true);
+        this.thread.setPriority(Thread.MIN_PRIORITY);
+    }
+
+    /**
+     * Starts the writer thread.
+     */
+    public void start() {
+        thread.start();
+    }
+
+    /**
+     * @return the log file
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @param overflowPolicy what to do if the buffer is full
+     */
+    public void setOverflowPolicy(HGBaseLog.OverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    /**
+     * Sets the rotation of the log file.
+     *
+     * @param maxFileSize the approximate size in bytes when the file is rotated, 0 to never rotate
+     * @param maxArchives the number of rotated files to keep
+     * @param compress true to compress the rotated files with gzip
+     */
+    public void setRotation(long maxFileSize, int maxArchives, boolean compress) {
+        this.maxArchives = Math.max(0, maxArchives);
+        this.compressArchives = compress;
+        this.maxFileSize = Math.max(0, maxFileSize);
+    }
+
+    /**
+     * @return the number of lines that were dropped because the buffer was full
+     */
+    public long getDroppedLines() {
+        return droppedLines.get();
+    }
+
+    /**
+     * Puts a log line into the buffer. Never waits for the file, but may wait for free buffer space if
+     * the overflow policy is {@link HGBaseLog.OverflowPolicy#BLOCK}.
+     *
+     * @param level code for the log level
+     * @param msg the log message
+     * @return true if the line was buffered, false if it was dropped
+     */
+    public boolean write(String level, String msg) {
+        if (stopped) {
+            return false;
+        }
+        Entry entry = new Entry(System.currentTimeMillis(), level, msg, null, false);
+        if (buffer.offer(entry)) {
+            if (sleeping) {
+                LockSupport.unpark(thread);
+            }
+            return true;
+        }
+        if (overflowPolicy == HGBaseLog.OverflowPolicy.BLOCK && offerBlocking(entry, Long.MAX_VALUE)) {
+            return true;
+        }
+        droppedLines.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Waits until all lines buffered so far are written and flushed to the file.
+     *
+     * @param timeoutMillis the maximum time to wait
+     * @return true if the lines were flushed in time
+     */
+    public boolean flush(long timeoutMillis) {
+        return sendMarker(false, timeoutMillis);
+    }
+
+    /**
+     * Writes all buffered lines, closes the file and stops the writer thread.
+     * Lines logged after this call are dropped.
+     *
+     * @param timeoutMillis the maximum time to wait for the writer thread
+     * @return true if the writer thread finished in time
+     */
+    public boolean shutdown(long timeoutMillis) {
+        if (stopped) {
+            return true;
+        }
+        boolean done = sendMarker(true, timeoutMillis);
+        stopped = true;
+        return done;
+    }
+
+    /**
+     * Puts a flush marker into the buffer and waits until the writer thread has processed it.
+     *
+     * @param stop true to stop the writer thread after flushing
+     * @param timeoutMillis the maximum time to wait
+     * @return true if the marker was processed in time
+     */
+    private boolean sendMarker(boolean stop, long timeoutMillis) {
+        if (stopped || Thread.currentThread() == thread) {
+            return false;
+        }
+        CountDownLatch latch = new CountDownLatch(1);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        if (!offerBlocking(new Entry(0, null, null, latch, stop), deadline)) {
+            return false;
+        }
+        LockSupport.unpark(thread);
+        try {
+            return latch.await(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Tries to put the entry into the buffer until there is free space or the deadline is reached.
+     *
+     * @param entry the entry to put into the buffer
+     * @param deadline the deadline in nano seconds, {@link Long#MAX_VALUE} to wait without limit
+     * @return true if the entry was put into the buffer
+     */
+    private boolean offerBlocking(Entry entry, long deadline) {
+        while (!buffer.offer(entry)) {
+            if (stopped || !thread.isAlive() || (deadline != Long.MAX_VALUE && System.nanoTime() - deadline > 0)) {
+                return false;
+            }
+            LockSupport.unpark(thread);
+            LockSupport.parkNanos(this, BLOCK_PARK_NANOS);
+        }
+        return true;
+    }
+
+    /**
+     * The loop of the writer thread.
+     */
+    private void runWriter() {
+        Writer out = null;
+        int pendingLines = 0;
+        long lastFlush = System.nanoTime();
+        try {
+            out = openFile();
+            while (true) {
+                Entry entry = buffer.poll();
+                if (entry == null) {
+                    long untilFlush = FLUSH_INTERVAL_NANOS - (System.nanoTime() - lastFlush);
+                    if (pendingLines > 0 && untilFlush <= 0) {
+                        out.flush();
+                        pendingLines = 0;
+                        lastFlush = System.nanoTime();
+                    }
+                    // the buffer is checked again after announcing the sleep, so no unpark of a writer is missed
+                    sleeping = true;
+                    if (buffer.isEmpty()) {
+                        if (pendingLines > 0) {
+                            LockSupport.parkNanos(this, untilFlush);
+                        } else {
+                            LockSupport.park(this);
+                        }
+                    }
+                    sleeping = false;
+                } else if (entry.marker != null) {
+                    out.flush();
+                    pendingLines = 0;
+                    lastFlush = System.nanoTime();
+                    entry.marker.countDown();
+                    if (entry.stop) {
+                        break;
+                    }
+                } else {
+                    CharSequence text = formatLine(entry);
+                    out.append(text).append('\n');
+                    fileSize += getEncodedLength(text) + 1;
+                    pendingLines++;
+                    long maxSize = maxFileSize;
+                    if (maxSize > 0 && fileSize >= maxSize) {
+                        out = rotate(out);
+                        pendingLines = 0;
+                        lastFlush = System.nanoTime();
+                    } else if (pendingLines >= FLUSH_LINES) {
+                        out.flush();
+                        pendingLines = 0;
+                        lastFlush = System.nanoTime();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            Log.e(tag, "Could not write log file " + file.getAbsolutePath() + "! " + e.getLocalizedMessage());
+        } finally {
+            stopped = true;
+            closeQuietly(out);
+            releaseMarkers();
+        }
+    }
+
+    /**
+     * Opens the log file for appending. Only called by the writer thread.
+     *
+     * @return the writer for the log file
+     * @throws IOException if the file cannot be opened
+     */
+    private Writer openFile() throws IOException {
+        fileSize = file.length();
+        return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Closes the log file, moves it to the first archive and opens a new log file.
+     * Only called by the writer thread.
+     *
+     * @param out the writer of the current log file
+     * @return the writer for the new log file
+     * @throws IOException if the new file cannot be opened
+     */
+    private Writer rotate(Writer out) throws IOException {
+        out.close();
+        int archives = maxArchives;
+        boolean compress = compressArchives;
+        // also deletes archives left over from a larger number of archives
+        deleteArchivesFrom(Math.max(1, archives));
+        for (int i = archives - 1; i >= 1; i--) {
+            File archive = getExistingArchive(i);
+            if (archive != null) {
+                boolean zipped = archive.getName().endsWith(GZIP_EXTENSION);
+                if (!archive.renameTo(getArchive(i + 1, zipped))) {
+                    Log.w(tag, "Could not rename log file " + archive.getAbsolutePath());
+                }
+            }
+        }
+        if (archives == 0) {
+            if (!file.delete()) {
+                Log.w(tag, "Could not delete log file " + file.getAbsolutePath());
+            }
+        } else {
+            // without compression or if compressing failed, the file is archived uncompressed
+            boolean compressed = compress && compressFile(file, getArchive(1, true));
+            if (!compressed && !file.renameTo(getArchive(1, false))) {
+                Log.w(tag, "Could not rename log file " + file.getAbsolutePath());
+            }
+        }
+        return openFile();
+    }
+
+    /**
+     * Compresses the source file into the target file and deletes the source file. If compressing fails,
+     * the partly written target file is deleted and the source file is kept.
+     *
+     * @param source the file to compress
+     * @param target the compressed file
+     * @return true if the file was compressed, false if the source file is unchanged
+     */
+    private boolean compressFile(File source, File target) {
+        byte[] data = new byte[8192];
+        try (InputStream in = new FileInputStream(source);
+             OutputStream zip = new GZIPOutputStream(new FileOutputStream(target))) {
+            int count;
+            while ((count = in.read(data)) > 0) {
+                zip.write(data, 0, count);
+            }
+        } catch (IOException e) {
+            Log.w(tag, "Could not compress log file " + source.getAbsolutePath() + "! " + e.getLocalizedMessage());
+            if (target.exists() && !target.delete()) {
+                Log.w(tag, "Could not delete log file " + target.getAbsolutePath());
+            }
+            return false;
+        }
+        if (!source.delete()) {
+            Log.w(tag, "Could not delete log file " + source.getAbsolutePath());
+        }
+        return true;
+    }
+
+    /**
+     * @param index the index of the archive, starting with 1
+     * @param compressed true for the name of a compressed archive
+     * @return the file of the archive
+     */
+    private File getArchive(int index, boolean compressed) {
+        return new File(file.getPath() + "." + index + (compressed ? GZIP_EXTENSION : ""));
+    }
+
+    /**
+     * @param index the index of the archive, starting with 1
+     * @return the existing archive file, compressed or not, or null if there is no such archive
+     */
+    private File getExistingArchive(int index) {
+        File archive = getArchive(index, true);
+        if (archive.exists()) {
+            return archive;
+        }
+        archive = getArchive(index, false);
+        return archive.exists() ? archive : null;
+    }
+
+    /**
+     * Deletes all archives with the given or a higher index, compressed or not.
+     *
+     * @param first the index of the first archive to delete, starting with 1
+     */
+    private void deleteArchivesFrom(int first) {
+        File dir = file.getAbsoluteFile().getParentFile();
+        File[] files = (dir == null) ? null : dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        String prefix = file.getName() + ".";
+        for (File archive : files) {
+            int index = getArchiveIndex(archive.getName(), prefix);
+            if (index >= first && !archive.delete()) {
+                Log.w(tag, "Could not delete log file " + archive.getAbsolutePath());
+            }
+        }
+    }
+
+    /**
+     * @param name the name of a file
+     * @param prefix the name of the log file followed by a dot
+     * @return the index of the archive, or -1 if the file is no archive of the log file
+     */
+    private static int getArchiveIndex(String name, String prefix) {
+        if (!name.startsWith(prefix)) {
+            return -1;
+        }
+        int end = name.endsWith(GZIP_EXTENSION) ? name.length() - GZIP_EXTENSION.length() : name.length();
+        if (end <= prefix.length() || end - prefix.length() > 9) {
+            return -1;
+        }
+        int index = 0;
+        for (int i = prefix.length(); i < end; i++) {
+            char c = name.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            index = index * 10 + (c - '0');
+        }
+        return index;
+    }
+
+    /**
+     * @param text the text to write
+     * @return the number of bytes of the text encoded in UTF-8
+     */
+    private static long getEncodedLength(CharSequence text) {
+        long length = 0;
+        for (int i = 0, n = text.length(); i < n; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(text.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                // an unpaired surrogate is replaced by '?'
+                length++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * @return true if the writer accepts log lines, false if it was shut down or the file could not be written
+     */
+    public boolean isRunning() {
+        return !stopped;
+    }
+
+    /**
+     * Formats one log line. Only called by the writer thread.
+     *
+     * @param entry the entry to format
+     * @return the formatted line, valid until the next call
+     */
+    private CharSequence formatLine(Entry entry) {
+        long second = entry.time / 1000;
+        if (second != lastSecond) {
+            date.setTime(entry.time);
+            lastDate = dateFormat.format(date);
+            lastSecond = second;
+        }
+        line.setLength(0);
+        return line.append(lastDate).append('\t').append(entry.level).append('\t').append(tag).append('\t').append(entry.msg);
+    }
+
+    /**
+     * Releases callers waiting for a flush after the writer thread has stopped.
+     */
+    private void releaseMarkers() {
+        Entry entry;
+        while ((entry = buffer.poll()) != null) {
+            if (entry.marker != null) {
+                entry.marker.countDown();
+            }
+        }
+    }
+
+    /**
+     * @param out the writer to close, may be null
+     */
+    private void closeQuietly(Writer out) {
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException e) {
+                Log.e(tag, "Could not close log file! " + e.getLocalizedMessage());
+            }
+        }
+    }
+
+    /**
+     * One buffered log line or a flush marker.
+     */
+    private static final class Entry {
+        final long time;
+        final String level;
+        final String msg;
+        final CountDownLatch marker;
+        final boolean stop;
+
+        Entry(long time, String level, String msg, CountDownLatch marker, boolean stop) {
+            this.time = time;
+            this.level = level;
+            this.msg = msg;
+            this.marker = marker;
+            this.stop = stop;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package at.hagru.hgbase.lib.internal;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded lock-free ring buffer for many producers and one single consumer.<p>
+ * Each slot carries a sequence number that tells producers and the consumer whether the slot is free or filled,
+ * so neither side has to take a lock.
+ *
+ * @param <E> the type of the elements
+ * @author hagru
+ */
+public final class BoundedRingBuffer<E> {
+
+    private final int mask;
+    private final AtomicReferenceArray<E> slots;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head = 0;
+
+    /**
+     * @param capacity the minimum capacity, will be rounded up to the next power of two
+     */
+    public BoundedRingBuffer(int capacity) {
+        super();
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The capacity must be positive!");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.mask = size - 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * @return the number of elements the buffer can hold
+     */
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Adds an element to the buffer. May be called by any thread.
+     *
+     * @param element the element to add, must not be null
+     * @return true if the element was added, false if the buffer is full
+     */
+    public boolean offer(E element) {
+        long pos = tail.get();
+        while (true) {
+            int index = (int) (pos & mask);
+            long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    slots.set(index, element);
+                    sequences.set(index, pos + 1);
+                    return true;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                return false;
+            } else {
+                pos = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Removes the next element from the buffer. Must only be called by the consumer thread.
+     *
+     * @return the next element or null if the buffer is empty
+     */
+    public E poll() {
+        long pos = head;
+        int index = (int) (pos & mask);
+        if (sequences.get(index) != pos + 1) {
+            return null;
+        }
+        E element = slots.get(index);
+        slots.set(index, null);
+        sequences.set(index, pos + mask + 1);
+        head = pos + 1;
+        return element;
+    }
+
+    /**
+     * @return true if the buffer holds no elements at the moment
+     */
+    public boolean isEmpty() {
+        return (sequences.get((int) (head & mask)) != head + 1);
+    }
+}
@@ -0,0 +1,268 @@
+package at.hagru.hgbase.lib.internal;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BiConsumer;
+
+import at.hagru.hgbase.lib.HGBaseFileTools;
+import at.hagru.hgbase.lib.HGBaseLog;
+import at.hagru.hgbase.lib.HGBaseTools;
+import at.hagru.hgbase.lib.xml.ChildNodeIterator;
+import at.hagru.hgbase.lib.xml.HGBaseXMLTools;
+
+/**
+ * Resolves the {@code include} nodes of the xml files read by {@link IntBooleanStringMap}.<p>
+ * Parsed include files are cached by their path and modification time, so shared includes are only parsed once.
+ * Before the values are applied, all include files not cached yet are loaded in parallel on the common fork-join pool.
+ * The values are then applied in document order, so later values still override earlier ones.
+ * An include that is already being applied (a cycle) is skipped.
+ *
+ * @author hagru
+ */
+final class IncludeResolver {
+
+    private static final String INCLUDE_TAG = "include";
+    private static final String FILE_ATTRIBUTE = "file";
+    private static final Map<String, ParsedFile> CACHE = new ConcurrentHashMap<>();
+
+    private final String rootName;
+    private final String nodeName;
+    private final String attrKey;
+    private final String attrValue;
+
+    /**
+     * @param rootName The name of the root element.
+     * @param nodeName The node name to test for values.
+     * @param attrKey The attribute name of the key.
+     * @param attrValue The attribute name of the value.
+     */
+    IncludeResolver(String rootName, String nodeName, String attrKey, String attrValue) {
+        super();
+        this.rootName = rootName;
+        this.nodeName = nodeName;
+        this.attrKey = attrKey;
+        this.attrValue = attrValue;
+    }
+
+    /**
+     * Reads all values of the root element and its includes in document order.
+     *
+     * @param root the root element of the xml file
+     * @param path the absolute path of the xml file, may be null if the file was read from a stream
+     * @param values the consumer for the keys and values
+     */
+    void readValues(Element root, String path, BiConsumer<String, String> values) {
+        List<Item> items = parse(root);
+        preload(items);
+        Deque<String> stack = new ArrayDeque<>();
+        if (path != null) {
+            stack.push(path);
+        }
+        apply(items, values, stack);
+    }
+
+    /**
+     * Removes all cached include files.
+     */
+    static void clearCache() {
+        CACHE.clear();
+    }
+
+    /**
+     * Extracts the values and includes of the given root element.
+     *
+     * @param root the root element
+     * @return the values and includes in document order
+     */
+    private List<Item> parse(Element root) {
+        List<Item> items = new ArrayList<>();
+        ChildNodeIterator.run(new ChildNodeIterator(root, rootName, null) {
+            @Override
+            public void performNode(Node node, int index, Object obj) {
+                String currNodeName = node.getNodeName();
+                if (nodeName.equals(currNodeName)) {
+                    // the node name indicates a value
+                    String code = HGBaseXMLTools.getAttributeValue(node, attrKey);
+                    String value = HGBaseXMLTools.getAttributeValue(node, attrValue);
+                    if (code != null && code.length() > 0 && value != null && value.length() > 0) {
+                        items.add(new Item(code, value, null));
+                    }
+                } else if (INCLUDE_TAG.equals(currNodeName)) {
+                    // there is a file to include for reading values
+                    String includeFile = HGBaseXMLTools.getAttributeValue(node, FILE_ATTRIBUTE);
+                    if (HGBaseTools.hasContent(includeFile)) {
+                        items.add(new Item(null, null, HGBaseFileTools.getAbsolutePath(includeFile)));
+                    }
+                }
+            }
+        });
+        return items;
+    }
+
+    /**
+     * Loads all include files referenced directly or indirectly by the given items that are not cached yet.
+     *
+     * @param items the values and includes of a file
+     */
+    private void preload(List<Item> items) {
+        Set<String> visited = Collections.newSetFromMap(new ConcurrentHashMap<>());
+        List<String> includes = getIncludes(items, visited);
+        if (includes.size() == 1) {
+            new PreloadTask(includes.get(0), visited).compute();
+        } else if (!includes.isEmpty()) {
+            List<PreloadTask> tasks = new ArrayList<>(includes.size());
+            for (String include : includes) {
+                tasks.add(new PreloadTask(include, visited));
+            }
+            ForkJoinPool.commonPool().invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    invokeAll(tasks);
+                }
+            });
+        }
+    }
+
+    /**
+     * @param items the values and includes of a file
+     * @param visited the include files already loaded or being loaded
+     * @return the include files not visited yet, these are added to the visited files
+     */
+    private static List<String> getIncludes(List<Item> items, Set<String> visited) {
+        List<String> includes = new ArrayList<>();
+        for (Item item : items) {
+            if (item.include != null && visited.add(item.include)) {
+                includes.add(item.include);
+            }
+        }
+        return includes;
+    }
+
+    /**
+     * Passes the values to the consumer and applies the include files in document order.
+     *
+     * @param items the values and includes of a file
+     * @param values the consumer for the keys and values
+     * @param stack the include files currently applied, to detect cycles
+     */
+    private void apply(List<Item> items, BiConsumer<String, String> values, Deque<String> stack) {
+        for (Item item : items) {
+            if (item.include == null) {
+                values.accept(item.key, item.value);
+            } else if (stack.contains(item.include)) {
+                HGBaseLog.logWarn("Cyclic include of file " + item.include + " is ignored!");
+            } else {
+                ParsedFile parsed = load(item.include);
+                if (parsed != null) {
+                    stack.push(item.include);
+                    apply(parsed.items, values, stack);
+                    stack.pop();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the parsed include file from the cache or reads it, if it is not cached or was modified.
+     *
+     * @param path the absolute path of the include file
+     * @return the parsed file or null, if it cannot be read
+     */
+    private ParsedFile load(String path) {
+        String cacheKey = getCacheKey(path);
+        long lastModified = new File(path).lastModified();
+        ParsedFile parsed = CACHE.get(cacheKey);
+        if (parsed != null && parsed.lastModified == lastModified) {
+            return parsed;
+        }
+        Element includeRoot = HGBaseXMLTools.readXML(path);
+        if (includeRoot == null) {
+            CACHE.remove(cacheKey);
+            return null;
+        }
+        parsed = new ParsedFile(lastModified, parse(includeRoot));
+        CACHE.put(cacheKey, parsed);
+        return parsed;
+    }
+
+    /**
+     * @param path the absolute path of the include file
+     * @return the key for the cache, the parsed values depend on the node and attribute names
+     */
+    private String getCacheKey(String path) {
+        return path + '\n' + rootName + '\n' + nodeName + '\n' + attrKey + '\n' + attrValue;
+    }
+
+    /**
+     * Loads one include file and, in parallel, the files it includes.
+     */
+    private final class PreloadTask extends RecursiveAction {
+
+        private final String path;
+        private final Set<String> visited;
+
+        PreloadTask(String path, Set<String> visited) {
+            super();
+            this.path = path;
+            this.visited = visited;
+        }
+
+        @Override
+        protected void compute() {
+            ParsedFile parsed = load(path);
+            if (parsed == null) {
+                return;
+            }
+            List<String> includes = getIncludes(parsed.items, visited);
+            if (includes.size() == 1) {
+                new PreloadTask(includes.get(0), visited).compute();
+            } else if (!includes.isEmpty()) {
+                List<PreloadTask> tasks = new ArrayList<>(includes.size());
+                for (String include : includes) {
+                    tasks.add(new PreloadTask(include, visited));
+                }
+                invokeAll(tasks);
+            }
+        }
+    }
+
+    /**
+     * A value or an include of a xml file.
+     */
+    private static final class Item {
+        final String key;
+        final String value;
+        final String include;
+
+        Item(String key, String value, String include) {
+            this.key = key;
+            this.value = value;
+            this.include = include;
+        }
+    }
+
+    /**
+     * The values and includes of a parsed include file.
+     */
+    private static final class ParsedFile {
+        final long lastModified;
+        final List<Item> items;
+
+        ParsedFile(long lastModified, List<Item> items) {
+            this.lastModified = lastModified;
+            this.items = Collections.unmodifiableList(items);
+        }
+    }
+}
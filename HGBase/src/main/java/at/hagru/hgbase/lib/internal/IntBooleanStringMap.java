@@ -3,14 +3,16 @@ package at.hagru.hgbase.lib.internal;
 import org.w3c.dom.DOMException;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
-import org.w3c.dom.Node;
 
 import java.io.InputStream;
 import java.util.HashMap;
 import java.util.Map;
 
+import at.hagru.hgbase.lib.HGBaseFileTools;
 import at.hagru.hgbase.lib.HGBaseTools;
-import at.hagru.hgbase.lib.xml.ChildNodeIterator;
+import at.hagru.hgbase.lib.binary.BinaryReader;
+import at.hagru.hgbase.lib.binary.BinaryWriter;
+import at.hagru.hgbase.lib.binary.HGBaseBinaryTools;
 import at.hagru.hgbase.lib.xml.HGBaseXMLTools;
 
 /**
@@ -20,8 +22,6 @@ import at.hagru.hgbase.lib.xml.HGBaseXMLTools;
  */
 public class IntBooleanStringMap {
 
-    private static final String INCLUDE_TAG = "include";
-    private static final String FILE_ATTRIBUTE = "file";
     private Map<String,String> textOptions;
 
     public IntBooleanStringMap() {
@@ -36,9 +36,9 @@ public class IntBooleanStringMap {
      * @return 0 if there was no error.
      */
     public int fromFile(final String file, final String rootName, final String nodeName, final String attrKey, final String attrValue) {
-        textOptions.clear();
+        clear();
         Element root=HGBaseXMLTools.readXML(file);
-        return fromDomElement(root, rootName, nodeName, attrKey, attrValue);
+        return fromDomElement(root, rootName, nodeName, attrKey, attrValue, HGBaseFileTools.getAbsolutePath(file));
     }
 
     /**
@@ -49,19 +49,20 @@ public class IntBooleanStringMap {
      */
     public int fromFile(final InputStream stream, final String rootName, final String nodeName,
             final String attrKey, final String attrValue) {
-        textOptions.clear();
+        clear();
         Element root=HGBaseXMLTools.readXML(stream);
-        return fromDomElement(root, rootName, nodeName, attrKey, attrValue);
+        return fromDomElement(root, rootName, nodeName, attrKey, attrValue, null);
     }
 
     /**
      * @param root The root XML element.
+     * @param path The absolute path of the XML file, null if it was read from a stream.
      * @return 0 if there was no error.
      */
     private int fromDomElement(Element root, final String rootName, final String nodeName,
-            final String attrKey, final String attrValue) {
+            final String attrKey, final String attrValue, final String path) {
         if (root != null) {
-            readNodes(root, rootName, nodeName, attrKey, attrValue);
+            readNodes(root, rootName, nodeName, attrKey, attrValue, path);
             return 0;
         } else {
             return -1;
@@ -74,32 +75,11 @@ public class IntBooleanStringMap {
      * @param nodeName The node name to test for values.
      * @param attrKey The attribute name of the key.
      * @param attrValue The attribute name of the value.
+     * @param path The absolute path of the XML file, null if it was read from a stream.
      */
     private void readNodes(Element root, final String rootName, final String nodeName,
-                                         final String attrKey, final String attrValue) {
-        ChildNodeIterator.run(new ChildNodeIterator(root, rootName, null) {
-            @Override
-            public void performNode(Node node, int index, Object obj) {
-                String currNodeName = node.getNodeName();
-                if (nodeName.equals(currNodeName)) {
-                    // the node name indicates a value
-                    String code = HGBaseXMLTools.getAttributeValue(node, attrKey);
-                    String value = HGBaseXMLTools.getAttributeValue(node, attrValue);
-                    if (code != null && code.length() > 0 && value != null && value.length() > 0) {
-                        set(code, value);
-                    }
-                } else if (INCLUDE_TAG.equals(currNodeName)) {
-                    // there is a file to include for reading values
-                    String includeFile = HGBaseXMLTools.getAttributeValue(node, FILE_ATTRIBUTE);
-                    if (HGBaseTools.hasContent(includeFile)) {
-                        Element includeRoot = HGBaseXMLTools.readXML(includeFile);
-                        if (includeRoot != null) {
-                            readNodes(includeRoot, rootName, nodeName, attrKey, attrValue);
-                        }
-                    }
-                }
-            }
-        });
+                                         final String attrKey, final String attrValue, final String path) {
+        new IncludeResolver(rootName, nodeName, attrKey, attrValue).readValues(root, path, this::set);
     }
 
     /**
@@ -132,6 +112,55 @@ public class IntBooleanStringMap {
         return -1;
     }
 
+    /**
+     * Writes the configuration to the given file in the compact binary format of {@link HGBaseBinaryTools}.
+     *
+     * @param file file name for the configuration
+     * @return 0 if no errors
+     */
+    public int toBinaryFile(final String file) {
+        boolean written = HGBaseBinaryTools.writeFile(HGBaseFileTools.getFileForIntern(file),
+                writer -> writer.writeMap(toMap(), BinaryWriter::writeString, BinaryWriter::writeString));
+        return written ? 0 : -1;
+    }
+
+    /**
+     * Reads the configuration from the given file written by {@link #toBinaryFile(String)}.
+     *
+     * @param file file name of the configuration
+     * @return 0 if there was no error.
+     */
+    public int fromBinaryFile(final String file) {
+        clear();
+        Map<String, String> options = HGBaseBinaryTools.readFile(HGBaseFileTools.getFileForIntern(file),
+                reader -> reader.readMap(HashMap::new, BinaryReader::readString, BinaryReader::readString));
+        if (options == null) {
+            return -1;
+        }
+        for (Map.Entry<String, String> option : options.entrySet()) {
+            set(option.getKey(), option.getValue());
+        }
+        return 0;
+    }
+
+    /**
+     * @return a map with all keys and their text options
+     */
+    private Map<String, String> toMap() {
+        Map<String, String> options = new HashMap<>();
+        for (String key : getKeys()) {
+            options.put(key, get(key));
+        }
+        return options;
+    }
+
+    /**
+     * Removes all options.
+     */
+    public void clear() {
+        textOptions.clear();
+    }
+
     /**
      * @param key A key to test.
      * @return True, if this key exists.
@@ -0,0 +1,261 @@
+package at.hagru.hgbase.lib.internal;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import at.hagru.hgbase.lib.HGBaseTools;
+
+/**
+ * A map for int, boolean and String values that keeps int and boolean values unboxed.<p>
+ * Every key gets a slot with a fixed index. The index can be got by {@link #getSlot(String)} and used
+ * for reading and writing values without looking up the key, e.g., for options that are read very often.
+ * Text values are converted to int and boolean when they are set, int and boolean values are only converted
+ * to text when the text is requested, e.g., when writing the map to a file.
+ *
+ * @author hagru
+ */
+public class TypedIntBooleanStringMap extends IntBooleanStringMap {
+
+    private static final int INITIAL_CAPACITY = 16;
+    // the types up to TYPE_NULL have no value, so the getters return the default value
+    private static final byte TYPE_NONE = 0;
+    private static final byte TYPE_NULL = 1;
+    private static final byte TYPE_STRING = 2;
+    private static final byte TYPE_INT = 3;
+    private static final byte TYPE_BOOLEAN = 4;
+
+    private final Map<String, Integer> slots = new HashMap<>();
+    private String[] keys = new String[INITIAL_CAPACITY];
+    private byte[] types = new byte[INITIAL_CAPACITY];
+    private int[] ints = new int[INITIAL_CAPACITY];
+    private boolean[] booleans = new boolean[INITIAL_CAPACITY];
+    private String[] texts = new String[INITIAL_CAPACITY];
+    private int size;
+
+    public TypedIntBooleanStringMap() {
+        super();
+    }
+
+    /**
+     * Returns the slot of the given key, a new slot is created if the key has none yet.
+     * The slot stays valid when the value is removed or the map is cleared.
+     *
+     * @param key key of option
+     * @return the index of the slot
+     */
+    public int getSlot(String key) {
+        Integer slot = slots.get(key);
+        if (slot != null) {
+            return slot;
+        }
+        int newSlot = slots.size();
+        if (newSlot == keys.length) {
+            int capacity = keys.length * 2;
+            keys = Arrays.copyOf(keys, capacity);
+            types = Arrays.copyOf(types, capacity);
+            ints = Arrays.copyOf(ints, capacity);
+            booleans = Arrays.copyOf(booleans, capacity);
+            texts = Arrays.copyOf(texts, capacity);
+        }
+        keys[newSlot] = key;
+        slots.put(key, newSlot);
+        return newSlot;
+    }
+
+    /**
+     * @param slot the index of the slot
+     * @return true, if an option is set for the slot, also if it is a null text
+     */
+    public boolean existsSlot(int slot) {
+        return types[slot] != TYPE_NONE;
+    }
+
+    /**
+     * Returns the text option of the given slot.
+     *
+     * @param slot the index of the slot
+     * @param defaultValue default value if the slot has no value
+     * @return option
+     */
+    public String get(int slot, String defaultValue) {
+        switch (types[slot]) {
+            case TYPE_STRING:
+                return texts[slot];
+            case TYPE_INT:
+                return String.valueOf(ints[slot]);
+            case TYPE_BOOLEAN:
+                return String.valueOf(HGBaseTools.toInt(booleans[slot]));
+            default:
+                return defaultValue;
+        }
+    }
+
+    /**
+     * Returns the integer option of the given slot.
+     *
+     * @param slot the index of the slot
+     * @param defaultValue default value if the slot has no value
+     * @return option
+     */
+    public int getInt(int slot, int defaultValue) {
+        return (types[slot] <= TYPE_NULL) ? defaultValue : ints[slot];
+    }
+
+    /**
+     * Returns the boolean option of the given slot.
+     *
+     * @param slot the index of the slot
+     * @param defaultValue default value if the slot has no value
+     * @return option
+     */
+    public boolean getBoolean(int slot, boolean defaultValue) {
+        return (types[slot] <= TYPE_NULL) ? defaultValue : booleans[slot];
+    }
+
+    /**
+     * Sets the text option of the given slot, the text is converted to int and boolean at once.
+     * As in {@link IntBooleanStringMap}, a null text is kept, so the key exists but has the default values.
+     *
+     * @param slot the index of the slot
+     * @param option text of the option
+     */
+    public void set(int slot, String option) {
+        if (option == null) {
+            setType(slot, TYPE_NULL);
+            texts[slot] = null;
+            return;
+        }
+        setType(slot, TYPE_STRING);
+        texts[slot] = option;
+        ints[slot] = HGBaseTools.toInt(option);
+        booleans[slot] = HGBaseTools.toBoolean(option);
+    }
+
+    /**
+     * Sets the integer option of the given slot.
+     *
+     * @param slot the index of the slot
+     * @param option integer value of the option
+     */
+    public void set(int slot, int option) {
+        setType(slot, TYPE_INT);
+        texts[slot] = null;
+        ints[slot] = option;
+        booleans[slot] = option > 0;
+    }
+
+    /**
+     * Sets the boolean option of the given slot.
+     *
+     * @param slot the index of the slot
+     * @param option boolean value of the option
+     */
+    public void set(int slot, boolean option) {
+        setType(slot, TYPE_BOOLEAN);
+        texts[slot] = null;
+        ints[slot] = HGBaseTools.toInt(option);
+        booleans[slot] = option;
+    }
+
+    /**
+     * Removes the option of the given slot, the slot itself stays valid.
+     *
+     * @param slot the index of the slot
+     * @return true if the slot had a value
+     */
+    public boolean removeSlot(int slot) {
+        if (types[slot] == TYPE_NONE) {
+            return false;
+        }
+        setType(slot, TYPE_NONE);
+        texts[slot] = null;
+        return true;
+    }
+
+    /**
+     * @param slot the index of the slot
+     * @param type the new type of the value
+     */
+    private void setType(int slot, byte type) {
+        if (types[slot] == TYPE_NONE && type != TYPE_NONE) {
+            size++;
+        } else if (types[slot] != TYPE_NONE && type == TYPE_NONE) {
+            size--;
+        }
+        types[slot] = type;
+    }
+
+    /**
+     * @param key key of option
+     * @return the slot of the key or -1, if the key has no slot
+     */
+    private int findSlot(String key) {
+        Integer slot = slots.get(key);
+        return (slot == null) ? -1 : slot;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(types, TYPE_NONE);
+        Arrays.fill(texts, null);
+        size = 0;
+    }
+
+    @Override
+    public boolean existsKey(String key) {
+        int slot = findSlot(key);
+        return slot >= 0 && existsSlot(slot);
+    }
+
+    @Override
+    public String[] getKeys() {
+        String[] result = new String[size];
+        int count = 0;
+        for (int i = 0; i < slots.size(); i++) {
+            if (types[i] != TYPE_NONE) {
+                result[count++] = keys[i];
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public String get(String key, String defaultValue) {
+        int slot = findSlot(key);
+        return (slot < 0) ? defaultValue : get(slot, defaultValue);
+    }
+
+    @Override
+    public int getInt(String key, int defaultValue) {
+        int slot = findSlot(key);
+        return (slot < 0) ? defaultValue : getInt(slot, defaultValue);
+    }
+
+    @Override
+    public boolean getBoolean(String key, boolean defaultValue) {
+        int slot = findSlot(key);
+        return (slot < 0) ? defaultValue : getBoolean(slot, defaultValue);
+    }
+
+    @Override
+    public boolean remove(String key) {
+        int slot = findSlot(key);
+        return slot >= 0 && removeSlot(slot);
+    }
+
+    @Override
+    public void set(String key, String option) {
+        set(getSlot(key), option);
+    }
+
+    @Override
+    public void set(String key, int option) {
+        set(getSlot(key), option);
+    }
+
+    @Override
+    public void set(String key, boolean option) {
+        set(getSlot(key), option);
+    }
+}
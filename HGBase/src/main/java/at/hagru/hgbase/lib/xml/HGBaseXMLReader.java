@@ -0,0 +1,424 @@
+package at.hagru.hgbase.lib.xml;
+
+import android.util.Xml;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import at.hagru.hgbase.lib.HGBaseFileTools;
+import at.hagru.hgbase.lib.HGBaseLog;
+import at.hagru.hgbase.lib.HGBaseTools;
+import at.hagru.hgbase.lib.Pair;
+
+/**
+ * Streaming counterpart of the reading methods of {@link HGBaseXMLTools}.<p>
+ * The xml is read with a pull parser and never materialized as a {@code Document}, so only the values
+ * taken out of the xml stay in memory. Elements that are not needed can be skipped without being parsed into objects.
+ *
+ * @author hagru
+ */
+public final class HGBaseXMLReader {
+
+    private HGBaseXMLReader() {
+        super();
+    }
+
+    /**
+     * Creates a pull parser for the given input stream.
+     *
+     * @param in the input stream with the xml content
+     * @return the parser, positioned at the start of the document
+     * @throws XmlPullParserException if the parser cannot be created
+     */
+    public static XmlPullParser createParser(InputStream in) throws XmlPullParserException {
+        XmlPullParser parser = Xml.newPullParser();
+        parser.setInput(in, null);
+        return parser;
+    }
+
+    /**
+     * Reads the given xml file from the internal file system and passes all elements to the handler.
+     *
+     * @param file path of the xml-file
+     * @param handler the handler for the elements
+     * @return true if the file was read, false if an error occurred
+     */
+    public static boolean readXML(String file, IXMLElementHandler handler) {
+        return readXML(HGBaseFileTools.openInternalFileStream(file), handler);
+    }
+
+    /**
+     * Reads the given xml file and passes all elements to the handler.
+     *
+     * @param file file object of the xml-file
+     * @param errorMessage error message to be printed in case of an error
+     * @param handler the handler for the elements
+     * @return true if the file was read, false if an error occurred
+     */
+    public static boolean readXML(File file, String errorMessage, IXMLElementHandler handler) {
+        return readXML(HGBaseFileTools.openFileStream(file, errorMessage), handler);
+    }
+
+    /**
+     * Reads the xml content from an input stream and passes all elements to the handler.
+     * The input stream is closed afterwards.
+     *
+     * @param in the input stream
+     * @param handler the handler for the elements
+     * @return true if the xml content was read, false if an error occurred
+     */
+    public static boolean readXML(InputStream in, IXMLElementHandler handler) {
+        if (in != null) {
+            try {
+                readXML(createParser(in), handler);
+                return true;
+            } catch (XmlPullParserException | IOException e) {
+                HGBaseLog.logError("Error when reading xml file! " + e.getMessage());
+            } finally {
+                HGBaseFileTools.closeStream(in);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads all elements from the current position of the parser to the end of the document and passes them to the handler.
+     *
+     * @param parser the pull parser
+     * @param handler the handler for the elements
+     * @throws XmlPullParserException if the xml is invalid
+     * @throws IOException if the xml cannot be read
+     */
+    public static void readXML(XmlPullParser parser, IXMLElementHandler handler) throws XmlPullParserException, IOException {
+        StringBuilder text = new StringBuilder();
+        int event = parser.getEventType();
+        while (event != XmlPullParser.END_DOCUMENT) {
+            switch (event) {
+                case XmlPullParser.START_TAG:
+                    text.setLength(0);
+                    if (!handler.startElement(parser, parser.getName(), parser.getDepth())) {
+                        skipElement(parser);
+                    }
+                    break;
+                case XmlPullParser.TEXT:
+                    text.append(parser.getText());
+                    break;
+                case XmlPullParser.END_TAG:
+                    handler.endElement(parser.getName(), text.toString(), parser.getDepth());
+                    text.setLength(0);
+                    break;
+                default:
+                    break;
+            }
+            event = parser.next();
+        }
+    }
+
+    /**
+     * Moves the parser to the end tag of the current element, without reading the children.
+     * If the parser is not at a start tag, nothing happens.
+     *
+     * @param parser the parser positioned at a start tag
+     * @throws XmlPullParserException if the xml is invalid
+     * @throws IOException if the xml cannot be read
+     */
+    public static void skipElement(XmlPullParser parser) throws XmlPullParserException, IOException {
+        if (parser.getEventType() == XmlPullParser.START_TAG) {
+            moveToEndTag(parser, parser.getDepth());
+        }
+    }
+
+    /**
+     * Returns the text of the current element and moves the parser to its end tag.
+     * Child elements are skipped.
+     *
+     * @param parser the parser positioned at the start tag of an element
+     * @return the text of the element, may be empty
+     * @throws XmlPullParserException if the xml is invalid
+     * @throws IOException if the xml cannot be read
+     */
+    public static String readText(XmlPullParser parser) throws XmlPullParserException, IOException {
+        int depth = parser.getDepth();
+        StringBuilder text = new StringBuilder();
+        int event = parser.getEventType();
+        while (!(event == XmlPullParser.END_TAG && parser.getDepth() == depth)) {
+            event = parser.next();
+            if (event == XmlPullParser.TEXT && parser.getDepth() == depth) {
+                text.append(parser.getText());
+            } else if (event == XmlPullParser.END_DOCUMENT) {
+                break;
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * Returns the given attribute of the current element.
+     *
+     * @param parser the parser positioned at a start tag
+     * @param attribute attribute to look for
+     * @return attribute value or an empty string
+     */
+    public static String getAttributeValue(XmlPullParser parser, String attribute) {
+        String value = parser.getAttributeValue(null, attribute);
+        return (value == null) ? "" : value;
+    }
+
+    /**
+     * Returns the given attribute of the current element as int.
+     *
+     * @param parser the parser positioned at a start tag
+     * @param attribute attribute to look for
+     * @return attribute value as int
+     */
+    public static int getAttributeIntValue(XmlPullParser parser, String attribute) {
+        return HGBaseTools.toInt(getAttributeValue(parser, attribute));
+    }
+
+    /**
+     * Returns the given attribute of the current element as int.
+     *
+     * @param parser the parser positioned at a start tag
+     * @param attribute attribute to look for
+     * @param defaultValue default value if the attribute value is invalid
+     * @return attribute value as int or {@code defaultValue} if the attribute value is invalid
+     */
+    public static int getAttributeIntValue(XmlPullParser parser, String attribute, int defaultValue) {
+        return HGBaseTools.toInt(getAttributeValue(parser, attribute), defaultValue);
+    }
+
+    /**
+     * Returns the given attribute of the current element as long.
+     *
+     * @param parser the parser positioned at a start tag
+     * @param attribute attribute to look for
+     * @return attribute value as long
+     */
+    public static long getAttributeLongValue(XmlPullParser parser, String attribute) {
+        return HGBaseTools.toLong(getAttributeValue(parser, attribute));
+    }
+
+    /**
+     * Returns the given attribute of the current element as boolean.
+     *
+     * @param parser the parser positioned at a start tag
+     * @param attribute attribute to look for
+     * @return attribute value as boolean
+     */
+    public static boolean getAttributeBooleanValue(XmlPullParser parser, String attribute) {
+        return HGBaseTools.toBoolean(getAttributeValue(parser, attribute));
+    }
+
+    /**
+     * Returns the given attribute of the current element as boolean or {@code defaultValue} if the attribute value was not specified.
+     *
+     * @param parser the parser positioned at a start tag
+     * @param attribute attribute to look for
+     * @param defaultValue the value if the value was not specified
+     * @return attribute value as boolean or {@code defaultValue}
+     */
+    public static boolean getAttributeBooleanValue(XmlPullParser parser, String attribute, boolean defaultValue) {
+        String value = getAttributeValue(parser, attribute);
+        return HGBaseTools.hasContent(value) ? HGBaseTools.toBoolean(value) : defaultValue;
+    }
+
+    /**
+     * Reads a list of values from the root element of the xml content.
+     * Streaming counterpart of {@link HGBaseXMLTools#readCollection}. The input stream is closed afterwards.
+     *
+     * @param in The input stream with the xml content.
+     * @param collectionName The name of the node of the collection.
+     * @param elementName The name of the nodes of the collection elements.
+     * @param collectionSupplier The supplier for the collection where to store the values.
+     * @param elementReader The reader to read one element from the element node.
+     * @return The collection with the read values or null if an error occurred.
+     * @param <T> The type of the collection elements.
+     */
+    public static <T> Collection<T> readCollection(InputStream in, String collectionName, String elementName, Supplier<Collection<T>> collectionSupplier, IXMLElementReader<T> elementReader) {
+        if (in != null) {
+            try {
+                return readCollection(createParser(in), collectionName, elementName, collectionSupplier, elementReader);
+            } catch (XmlPullParserException | IOException e) {
+                HGBaseLog.logError("Error when reading xml file! " + e.getMessage());
+            } finally {
+                HGBaseFileTools.closeStream(in);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reads a list of values from the children of the current element of the parser.
+     * Streaming counterpart of {@link HGBaseXMLTools#readCollection}.
+     *
+     * @param parser The parser positioned at the start tag of the parent element or at the start of the document.
+     *               Afterwards, the parser is positioned at the end tag of the parent element.
+     * @param collectionName The name of the node of the collection.
+     * @param elementName The name of the nodes of the collection elements.
+     * @param collectionSupplier The supplier for the collection where to store the values.
+     * @param elementReader The reader to read one element from the element node.
+     * @return The collection with the read values.
+     * @param <T> The type of the collection elements.
+     * @throws XmlPullParserException if the xml is invalid
+     * @throws IOException if the xml cannot be read
+     */
+    public static <T> Collection<T> readCollection(XmlPullParser parser, String collectionName, String elementName, Supplier<Collection<T>> collectionSupplier, IXMLElementReader<T> elementReader) throws XmlPullParserException, IOException {
+        if (!HGBaseTools.hasContent(collectionName)) {
+            throw new IllegalArgumentException("The specified collection name must not be empty!");
+        }
+        if (!HGBaseTools.hasContent(elementName)) {
+            throw new IllegalArgumentException("The specified element name must not be empty!");
+        }
+        Collection<T> collection = collectionSupplier.get();
+        readChildren(parser, collectionNode -> {
+            if (collectionName.equals(collectionNode.getName())) {
+                readChildren(collectionNode, node -> {
+                    if (elementName.equals(node.getName())) {
+                        collection.add(elementReader.read(node));
+                    }
+                });
+            }
+        });
+        return collection;
+    }
+
+    /**
+     * Reads mapped values from the root element of the xml content.
+     * Streaming counterpart of {@link HGBaseXMLTools#readMap(org.w3c.dom.Node, String, Supplier, java.util.function.Function, java.util.function.Function)}.
+     * The input stream is closed afterwards.
+     *
+     * @param in The input stream with the xml content.
+     * @param mapName The name of the node of the map.
+     * @param mapSupplier The supplier for the map where to store the elements.
+     * @param keyReader The reader to read the key.
+     * @param valueReader The reader to read the value.
+     * @return The map with the read values or null if an error occurred.
+     * @param <K> The type of the map keys.
+     * @param <V> The type of the map values.
+     */
+    public static <K, V> Map<K, V> readMap(InputStream in, String mapName, Supplier<Map<K, V>> mapSupplier, IXMLElementReader<K> keyReader, IXMLElementReader<V> valueReader) {
+        if (in != null) {
+            try {
+                return readMap(createParser(in), mapName, mapSupplier, keyReader, valueReader);
+            } catch (XmlPullParserException | IOException e) {
+                HGBaseLog.logError("Error when reading xml file! " + e.getMessage());
+            } finally {
+                HGBaseFileTools.closeStream(in);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reads mapped values from the children of the current element of the parser.
+     * Streaming counterpart of {@link HGBaseXMLTools#readMap(org.w3c.dom.Node, String, Supplier, java.util.function.Function, java.util.function.Function)}.
+     *
+     * @param parser The parser positioned at the start tag of the parent element or at the start of the document.
+     *               Afterwards, the parser is positioned at the end tag of the parent element.
+     * @param mapName The name of the node of the map.
+     * @param mapSupplier The supplier for the map where to store the elements.
+     * @param keyReader The reader to read the key.
+     * @param valueReader The reader to read the value.
+     * @return The map with the read values.
+     * @param <K> The type of the map keys.
+     * @param <V> The type of the map values.
+     * @throws XmlPullParserException if the xml is invalid
+     * @throws IOException if the xml cannot be read
+     */
+    public static <K, V> Map<K, V> readMap(XmlPullParser parser, String mapName, Supplier<Map<K, V>> mapSupplier, IXMLElementReader<K> keyReader, IXMLElementReader<V> valueReader) throws XmlPullParserException, IOException {
+        if (!HGBaseTools.hasContent(mapName)) {
+            throw new IllegalArgumentException("The specified map name must not be empty!");
+        }
+        Map<K, V> map = mapSupplier.get();
+        readChildren(parser, mapNode -> {
+            if (mapName.equals(mapNode.getName())) {
+                readChildren(mapNode, entryNode -> {
+                    if (HGBaseXMLTools.MAP_ENTRY_NODE_KEY.equals(entryNode.getName())) {
+                        Pair<K, V> pair = new Pair<>();
+                        readChildren(entryNode, node -> {
+                            switch (node.getName()) {
+                                case HGBaseXMLTools.KEY_NODE_KEY:
+                                    pair.setFirst(keyReader.read(node));
+                                    break;
+                                case HGBaseXMLTools.VALUE_NODE_KEY:
+                                    pair.setSecond(valueReader.read(node));
+                                    break;
+                                default:
+                                    break;
+                            }
+                        });
+                        map.put(pair.getFirst(), pair.getSecond());
+                    }
+                });
+            }
+        });
+        return map;
+    }
+
+    /**
+     * Passes every direct child element of the current element to the given reader.
+     * Children not fully read by the reader are skipped.
+     *
+     * @param parser the parser positioned at the start tag of the parent element or at the start of the document;
+     *               afterwards, the parser is positioned at the end tag of the parent element
+     * @param childReader the reader that is called at the start tag of every child element
+     * @throws XmlPullParserException if the xml is invalid
+     * @throws IOException if the xml cannot be read
+     */
+    private static void readChildren(XmlPullParser parser, ChildReader childReader) throws XmlPullParserException, IOException {
+        int event = parser.getEventType();
+        while (event != XmlPullParser.START_TAG && event != XmlPullParser.END_DOCUMENT) {
+            event = parser.next();
+        }
+        if (event == XmlPullParser.END_DOCUMENT) {
+            return;
+        }
+        int depth = parser.getDepth();
+        while (true) {
+            event = parser.next();
+            if (event == XmlPullParser.END_DOCUMENT || (event == XmlPullParser.END_TAG && parser.getDepth() == depth)) {
+                return;
+            }
+            if (event == XmlPullParser.START_TAG) {
+                int childDepth = parser.getDepth();
+                childReader.read(parser);
+                moveToEndTag(parser, childDepth);
+            }
+        }
+    }
+
+    /**
+     * Moves the parser to the next end tag with the given depth, if it is not already there.
+     *
+     * @param parser the parser
+     * @param depth the depth of the end tag
+     * @throws XmlPullParserException if the xml is invalid
+     * @throws IOException if the xml cannot be read
+     */
+    private static void moveToEndTag(XmlPullParser parser, int depth) throws XmlPullParserException, IOException {
+        int event = parser.getEventType();
+        while (!(event == XmlPullParser.END_TAG && parser.getDepth() == depth) && event != XmlPullParser.END_DOCUMENT) {
+            event = parser.next();
+        }
+    }
+
+    /**
+     * Reads one child element, used by {@link #readChildren(XmlPullParser, ChildReader)}.
+     */
+    private interface ChildReader {
+
+        /**
+         * @param parser the parser positioned at the start tag of the child element
+         * @throws XmlPullParserException if the xml is invalid
+         * @throws IOException if the xml cannot be read
+         */
+        void read(XmlPullParser parser) throws XmlPullParserException, IOException;
+    }
+}
@@ -7,11 +7,13 @@ import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.xml.sax.SAXException;
 
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.util.Collection;
 import java.util.Map;
@@ -21,14 +23,12 @@ import java.util.function.Function;
 import java.util.function.Supplier;
 
 import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.FactoryConfigurationError;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.TransformerFactoryConfigurationError;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
@@ -50,15 +50,15 @@ public final class HGBaseXMLTools {
     /**
      * The XML key for the map entry node.
      */
-    private static final String MAP_ENTRY_NODE_KEY = "mapentry";
+    static final String MAP_ENTRY_NODE_KEY = "mapentry";
     /**
      * The XML key for the key node.
      */
-    private static final String KEY_NODE_KEY = "key";
+    static final String KEY_NODE_KEY = "key";
     /**
      * The XML key for the value node.
      */
-    private static final String VALUE_NODE_KEY = "value";
+    static final String VALUE_NODE_KEY = "value";
 
     private HGBaseXMLTools() {
         super();
@@ -93,8 +93,9 @@ public final class HGBaseXMLTools {
      */
     public static Element readXML(InputStream in) {
         if (in != null) {
+            DocumentBuilder build = null;
             try {
-                DocumentBuilder build = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+                build = XMLFactoryPool.acquireBuilder();
                 Document doc = build.parse(in);
                 if (doc != null) {
                     return doc.getDocumentElement();
@@ -102,6 +103,7 @@ public final class HGBaseXMLTools {
             } catch (SAXException | IOException | ParserConfigurationException e) {
                 HGBaseLog.logError("Error when reading xml file! " + e.getMessage());
             } finally {
+                XMLFactoryPool.releaseBuilder(build);
                 HGBaseFileTools.closeStream(in);
             }
         }
@@ -137,16 +139,48 @@ public final class HGBaseXMLTools {
      * @return true, if writing was successful
      */
     public static boolean writeXML(Document doc, File file) {
+        return writeXML(doc, file, false);
+    }
+
+    /**
+     * Writes a given document to a xml file. The document is transformed directly into the file
+     * without building the whole content in memory first.<p>
+     * In atomic mode the document is written to a temporary file that replaces the file afterwards,
+     * so the file is either unchanged or completely written.
+     *
+     * @param doc    document structure
+     * @param file   the file object of the xml-file
+     * @param atomic true to replace the file only if the document was written completely
+     * @return true, if writing was successful
+     */
+    public static boolean writeXML(Document doc, File file, boolean atomic) {
         if (doc != null && file != null && prepareFileToWrite(file)) {
+            File writeFile = atomic ? HGBaseXMLWriter.getTempFile(file) : file;
+            boolean written = false;
             try {
-                String content = transformDocument(doc);
-                FileOutputStream fout = new FileOutputStream(file);
-                fout.write(content.getBytes(getEncoding()));
-                fout.close();
-                return true;
+                FileOutputStream fout = new FileOutputStream(writeFile);
+                try {
+                    OutputStream out = new BufferedOutputStream(fout);
+                    transformDocument(doc, out);
+                    out.flush();
+                    if (atomic) {
+                        fout.getFD().sync();
+                    }
+                } finally {
+                    fout.close();
+                }
+                if (atomic) {
+                    HGBaseXMLWriter.replaceFile(writeFile, file);
+                }
+                written = true;
             } catch (IOException | TransformerFactoryConfigurationError | TransformerException e) {
                 HGBaseLog.logError("Could not write xml file! " + e.getMessage());
+            } finally {
+                if (atomic && !written && writeFile.exists() && !writeFile.delete()) {
+                    HGBaseLog.logWarn("Could not delete temporary file: " + writeFile);
+                }
             }
+            return written;
         }
         return false;
     }
@@ -316,17 +350,8 @@ public final class HGBaseXMLTools {
      * @return an xml string.
      */
     public static String transformDocument(Document newDoc) throws TransformerConfigurationException, TransformerFactoryConfigurationError, TransformerException {
-        Transformer transformer = TransformerFactory.newInstance().newTransformer();
         ByteArrayOutputStream output = new ByteArrayOutputStream();
-        transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-        try {
-            transformer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "4");
-        } catch (IllegalArgumentException ex) {
-            // NOCHECK: there should be no exception
-        }
-        transformer.setOutputProperty(OutputKeys.METHOD, "xml");
-        transformer.setOutputProperty(OutputKeys.ENCODING, getEncoding());
-        transformer.transform(new DOMSource(newDoc), new StreamResult(output));
+        transformDocument(newDoc, output);
         try {
             return output.toString(getEncoding());
         } catch (UnsupportedEncodingException e) {
@@ -335,16 +360,43 @@ public final class HGBaseXMLTools {
         }
     }
 
+    /**
+     * Transforms a document object to xml and writes it to the given output stream.
+     *
+     * @param newDoc an xml document.
+     * @param output the stream to write the xml to, will not be closed.
+     */
+    public static void transformDocument(Document newDoc, OutputStream output) throws TransformerConfigurationException, TransformerFactoryConfigurationError, TransformerException {
+        Transformer transformer = XMLFactoryPool.acquireTransformer();
+        try {
+            transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+            try {
+                transformer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "4");
+            } catch (IllegalArgumentException ex) {
+                // NOCHECK: there should be no exception
+            }
+            transformer.setOutputProperty(OutputKeys.METHOD, "xml");
+            transformer.setOutputProperty(OutputKeys.ENCODING, getEncoding());
+            transformer.transform(new DOMSource(newDoc), new StreamResult(output));
+        } finally {
+            XMLFactoryPool.releaseTransformer(transformer);
+        }
+    }
+
     /**
      * Creates a new xml document.
      *
      * @return a document object or null.
      */
     public static Document createDocument() {
+        DocumentBuilder build = null;
         try {
-            return DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+            build = XMLFactoryPool.acquireBuilder();
+            return build.newDocument();
         } catch (FactoryConfigurationError | ParserConfigurationException e) {
             // NOCHECK: ignore, will return null
+        } finally {
+            XMLFactoryPool.releaseBuilder(build);
         }
         return null;
     }
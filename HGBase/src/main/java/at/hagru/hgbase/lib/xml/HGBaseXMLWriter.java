@@ -0,0 +1,359 @@
+package at.hagru.hgbase.lib.xml;
+
+import android.os.Build;
+import android.util.Xml;
+
+import org.xmlpull.v1.XmlSerializer;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.Map;
+
+import at.hagru.hgbase.lib.HGBaseFileTools;
+import at.hagru.hgbase.lib.HGBaseLog;
+import at.hagru.hgbase.lib.HGBaseTools;
+
+/**
+ * Writes xml content directly to a file without building a {@code Document} first.<p>
+ * In atomic mode the content is written to a temporary file next to the target file, which replaces the
+ * target file when {@link #finish()} is called. So the target file is either unchanged or completely written.
+ * Below Android 8.0 the replacement is only atomic if the file can be renamed directly, see
+ * {@link #replaceFile(File, File)}.
+ * If the writer is closed without calling {@link #finish()}, the temporary file is deleted.
+ * <pre>
+ * try (HGBaseXMLWriter writer = HGBaseXMLWriter.create(file, true)) {
+ *     writer.startElement("root");
+ *     writer.writeCollection("items", "item", items, (w, item) -&gt; w.attribute("id", item.getId()));
+ *     writer.endElement("root");
+ *     writer.finish();
+ * }
+ * </pre>
+ *
+ * @author hagru
+ */
+public final class HGBaseXMLWriter implements Closeable {
+
+    private static final String INDENT_FEATURE = "http://xmlpull.org/v1/doc/features.html#indent-output";
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+    private static final String BACKUP_FILE_SUFFIX = ".bak";
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private final File file;
+    private final File writeFile;
+    private final FileOutputStream fileOut;
+    private final OutputStream out;
+    private final XmlSerializer serializer;
+    private boolean finished = false;
+    private boolean closed = false;
+
+    /**
+     * @param file the target file
+     * @param writeFile the file to write, the target file or a temporary file
+     * @throws IOException if the file cannot be opened
+     */
+    private HGBaseXMLWriter(File file, File writeFile) throws IOException {
+        super();
+        this.file = file;
+        this.writeFile = writeFile;
+        this.fileOut = new FileOutputStream(writeFile);
+        this.out = new BufferedOutputStream(fileOut, BUFFER_SIZE);
+        this.serializer = Xml.newSerializer();
+        try {
+            serializer.setFeature(INDENT_FEATURE, true);
+        } catch (IllegalStateException | UnsupportedOperationException e) {
+            // NOCHECK: indentation is optional
+        }
+        try {
+            serializer.setOutput(out, HGBaseXMLTools.getEncoding());
+            serializer.startDocument(HGBaseXMLTools.getEncoding(), null);
+        } catch (IOException | RuntimeException e) {
+            HGBaseFileTools.closeStream(out);
+            throw e;
+        }
+    }
+
+    /**
+     * Creates a writer for the given file. Missing directories are created.
+     *
+     * @param file the file to write
+     * @param atomic true to write to a temporary file that replaces the file when finished
+     * @return the xml writer
+     * @throws IOException if the file cannot be opened
+     */
+    public static HGBaseXMLWriter create(File file, boolean atomic) throws IOException {
+        File parentDir = file.getAbsoluteFile().getParentFile();
+        if (parentDir != null && !parentDir.isDirectory() && !parentDir.mkdirs()) {
+            throw new IOException("Could not create directory: " + parentDir);
+        }
+        return new HGBaseXMLWriter(file, atomic ? getTempFile(file) : file);
+    }
+
+    /**
+     * Creates a writer for the given file on the <b>internal</b> file system.
+     *
+     * @param file path of the xml-file
+     * @param atomic true to write to a temporary file that replaces the file when finished
+     * @return the xml writer
+     * @throws IOException if the file cannot be opened
+     */
+    public static HGBaseXMLWriter create(String file, boolean atomic) throws IOException {
+        return create(HGBaseFileTools.getFileForIntern(file), atomic);
+    }
+
+    /**
+     * @return the file that is written
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Writes the start tag of a new element.
+     *
+     * @param name the name of the element
+     * @return this writer
+     * @throws IOException if the xml cannot be written
+     */
+    public HGBaseXMLWriter startElement(String name) throws IOException {
+        serializer.startTag(null, name);
+        return this;
+    }
+
+    /**
+     * Writes the end tag of the current element.
+     *
+     * @param name the name of the element
+     * @return this writer
+     * @throws IOException if the xml cannot be written
+     */
+    public HGBaseXMLWriter endElement(String name) throws IOException {
+        serializer.endTag(null, name);
+        return this;
+    }
+
+    /**
+     * Writes an element that contains only the given text.
+     *
+     * @param name the name of the element
+     * @param text the text of the element
+     * @return this writer
+     * @throws IOException if the xml cannot be written
+     */
+    public HGBaseXMLWriter element(String name, String text) throws IOException {
+        return startElement(name).text(text).endElement(name);
+    }
+
+    /**
+     * Writes an attribute of the current element. Must be called directly after {@link #startElement(String)}.
+     *
+     * @param name the name of the attribute
+     * @param value the value of the attribute, null values are not written
+     * @return this writer
+     * @throws IOException if the xml cannot be written
+     */
+    public HGBaseXMLWriter attribute(String name, String value) throws IOException {
+        if (value != null) {
+            serializer.attribute(null, name, value);
+        }
+        return this;
+    }
+
+    /**
+     * @param name the name of the attribute
+     * @param value the value of the attribute
+     * @return this writer
+     * @throws IOException if the xml cannot be written
+     * @see #attribute(String, String)
+     */
+    public HGBaseXMLWriter attribute(String name, int value) throws IOException {
+        return attribute(name, String.valueOf(value));
+    }
+
+    /**
+     * @param name the name of the attribute
+     * @param value the value of the attribute
+     * @return this writer
+     * @throws IOException if the xml cannot be written
+     * @see #attribute(String, String)
+     */
+    public HGBaseXMLWriter attribute(String name, long value) throws IOException {
+        return attribute(name, String.valueOf(value));
+    }
+
+    /**
+     * @param name the name of the attribute
+     * @param value the value of the attribute
+     * @return this writer
+     * @throws IOException if the xml cannot be written
+     * @see #attribute(String, String)
+     */
+    public HGBaseXMLWriter attribute(String name, boolean value) throws IOException {
+        return attribute(name, String.valueOf(value));
+    }
+
+    /**
+     * Writes text into the current element.
+     *
+     * @param text the text, null is ignored
+     * @return this writer
+     * @throws IOException if the xml cannot be written
+     */
+    public HGBaseXMLWriter text(String text) throws IOException {
+        if (text != null) {
+            serializer.text(text);
+        }
+        return this;
+    }
+
+    /**
+     * Writes the specified collection as child of the current element.
+     * Streaming counterpart of {@link HGBaseXMLTools#writeCollection}.
+     *
+     * @param collectionName The name of the node for the collection.
+     * @param elementName The name of the nodes for the collection elements.
+     * @param collection The collection to write.
+     * @param elementWriter The writer to write one element.
+     * @param <T> The type of the collection elements.
+     * @throws IOException if the xml cannot be written
+     */
+    public <T> void writeCollection(String collectionName, String elementName, Collection<T> collection, IXMLElementWriter<T> elementWriter) throws IOException {
+        if (!HGBaseTools.hasContent(collectionName)) {
+            throw new IllegalArgumentException("The specified collection name must not be empty!");
+        }
+        startElement(collectionName);
+        if ((collection != null) && (!collection.isEmpty())) {
+            if (!HGBaseTools.hasContent(elementName)) {
+                throw new IllegalArgumentException("The specified element name must not be empty!");
+            }
+            for (T element : collection) {
+                startElement(elementName);
+                elementWriter.write(this, element);
+                endElement(elementName);
+            }
+        }
+        endElement(collectionName);
+    }
+
+    /**
+     * Writes the specified map as child of the current element.
+     * Streaming counterpart of {@link HGBaseXMLTools#writeMap(org.w3c.dom.Document, org.w3c.dom.Element, String, Map, java.util.function.BiConsumer, java.util.function.BiConsumer)}.
+     *
+     * @param mapName The name of the node for the map.
+     * @param map The map to write.
+     * @param keyWriter The writer to write the key of one map entry.
+     * @param valueWriter The writer to write the value of one map entry.
+     * @param <K> The type of the map keys.
+     * @param <V> The type of the map values.
+     * @throws IOException if the xml cannot be written
+     */
+    public <K, V> void writeMap(String mapName, Map<K, V> map, IXMLElementWriter<K> keyWriter, IXMLElementWriter<V> valueWriter) throws IOException {
+        startElement(mapName);
+        if ((map != null) && (!map.isEmpty())) {
+            for (Map.Entry<K, V> entry : map.entrySet()) {
+                startElement(HGBaseXMLTools.MAP_ENTRY_NODE_KEY);
+                startElement(HGBaseXMLTools.KEY_NODE_KEY);
+                keyWriter.write(this, entry.getKey());
+                endElement(HGBaseXMLTools.KEY_NODE_KEY);
+                startElement(HGBaseXMLTools.VALUE_NODE_KEY);
+                valueWriter.write(this, entry.getValue());
+                endElement(HGBaseXMLTools.VALUE_NODE_KEY);
+                endElement(HGBaseXMLTools.MAP_ENTRY_NODE_KEY);
+            }
+        }
+        endElement(mapName);
+    }
+
+    /**
+     * Ends the document and writes all content to the disk. In atomic mode the temporary file replaces the target file.
+     * The writer is closed afterwards.
+     *
+     * @throws IOException if the xml cannot be written
+     */
+    public void finish() throws IOException {
+        if (closed) {
+            throw new IOException("The xml writer is already closed!");
+        }
+        serializer.endDocument();
+        serializer.flush();
+        out.flush();
+        fileOut.getFD().sync();
+        finished = true;
+        close();
+    }
+
+    /**
+     * Closes the writer. If {@link #finish()} was not called before, the temporary file is deleted in atomic mode.
+     *
+     * @throws IOException if the file cannot be closed or replaced
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        HGBaseFileTools.closeStream(out);
+        if (writeFile.equals(file)) {
+            return;
+        }
+        if (finished) {
+            replaceFile(writeFile, file);
+        } else if (writeFile.exists() && !writeFile.delete()) {
+            HGBaseLog.logWarn("Could not delete temporary file: " + writeFile);
+        }
+    }
+
+    /**
+     * Returns the temporary file used to write the given file atomically.
+     *
+     * @param file the target file
+     * @return the temporary file in the same directory
+     */
+    static File getTempFile(File file) {
+        return new File(file.getPath() + TEMP_FILE_SUFFIX);
+    }
+
+    /**
+     * Replaces the target file by the source file. From Android 8.0 the file is moved atomically.
+     * Before, the file is renamed, which replaces the target atomically on most file systems. If this fails,
+     * the fallback is <b>not</b> atomic: the target is renamed to {@code <name>.bak} first and restored if the
+     * source cannot be moved. If the application dies in between, the previous content is kept in the backup file.
+     *
+     * @param source the completely written file
+     * @param target the file to replace
+     * @throws IOException if the file cannot be replaced
+     */
+    static void replaceFile(File source, File target) throws IOException {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE,
+                       StandardCopyOption.REPLACE_EXISTING);
+            return;
+        }
+        if (source.renameTo(target)) {
+            return;
+        }
+        File backup = new File(target.getPath() + BACKUP_FILE_SUFFIX);
+        if (backup.exists() && !backup.delete()) {
+            throw new IOException("Could not delete backup file " + backup);
+        }
+        if (target.exists() && !target.renameTo(backup)) {
+            throw new IOException("Could not replace file " + target + " by " + source);
+        }
+        if (!source.renameTo(target)) {
+            if (backup.exists() && !backup.renameTo(target)) {
+                HGBaseLog.logError("Could not restore file " + target + " from " + backup);
+            }
+            throw new IOException("Could not replace file " + target + " by " + source);
+        }
+        if (backup.exists() && !backup.delete()) {
+            HGBaseLog.logWarn("Could not delete backup file: " + backup);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package at.hagru.hgbase.lib.xml;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.IOException;
+
+/**
+ * Receives the elements of a xml file read by {@link HGBaseXMLReader#readXML(java.io.InputStream, IXMLElementHandler)}.
+ *
+ * @author hagru
+ */
+public interface IXMLElementHandler {
+
+    /**
+     * Called for every start tag. The attributes of the element can be read from the parser,
+     * e.g., with {@link HGBaseXMLReader#getAttributeValue(XmlPullParser, String)}.
+     * The parser must not be moved.
+     *
+     * @param parser the parser positioned at the start tag
+     * @param name the name of the element
+     * @param depth the depth of the element, the root element has depth 1
+     * @return true to read the children of the element, false to skip them (then {@link #endElement} is not called)
+     * @throws XmlPullParserException if the xml is invalid
+     * @throws IOException if the xml cannot be read
+     */
+    boolean startElement(XmlPullParser parser, String name, int depth) throws XmlPullParserException, IOException;
+
+    /**
+     * Called for every end tag of an element that was not skipped.
+     *
+     * @param name the name of the element
+     * @param text the text directly inside the element after the last child element, may be empty
+     * @param depth the depth of the element, the root element has depth 1
+     */
+    default void endElement(String name, String text, int depth) {
+        // nothing to do by default
+    }
+}
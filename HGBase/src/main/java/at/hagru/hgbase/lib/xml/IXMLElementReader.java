@@ -0,0 +1,26 @@
+package at.hagru.hgbase.lib.xml;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.IOException;
+
+/**
+ * Reads one value from an element of a xml file, used by the streaming methods of {@link HGBaseXMLReader}.
+ *
+ * @param <T> the type of the value
+ * @author hagru
+ */
+public interface IXMLElementReader<T> {
+
+    /**
+     * Reads the value from the element at the start tag of the parser. The reader may read the children of
+     * the element, but must not move the parser behind the end tag of the element.
+     *
+     * @param parser the parser positioned at the start tag of the element
+     * @return the value
+     * @throws XmlPullParserException if the xml is invalid
+     * @throws IOException if the xml cannot be read
+     */
+    T read(XmlPullParser parser) throws XmlPullParserException, IOException;
+}
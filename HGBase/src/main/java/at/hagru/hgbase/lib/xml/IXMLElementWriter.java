@@ -0,0 +1,22 @@
+package at.hagru.hgbase.lib.xml;
+
+import java.io.IOException;
+
+/**
+ * Writes one value into an element of a xml file, used by the streaming methods of {@link HGBaseXMLWriter}.
+ *
+ * @param <T> the type of the value
+ * @author hagru
+ */
+public interface IXMLElementWriter<T> {
+
+    /**
+     * Writes the value into the element whose start tag was just written. The writer may add attributes,
+     * text and child elements, but must not close the element.
+     *
+     * @param writer the xml writer
+     * @param value the value to write
+     * @throws IOException if the xml cannot be written
+     */
+    void write(HGBaseXMLWriter writer, T value) throws IOException;
+}
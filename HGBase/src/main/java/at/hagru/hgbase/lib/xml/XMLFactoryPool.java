@@ -0,0 +1,135 @@
+package at.hagru.hgbase.lib.xml;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+
+/**
+ * Keeps one document builder and one transformer per thread, so {@link HGBaseXMLTools} does not have to
+ * look up the factories and create new instances for every xml file.<p>
+ * An instance is taken out of the pool while it is used and reset when it is given back.
+ * Nested uses on the same thread get a new instance, which is counted as miss.
+ *
+ * @author hagru
+ */
+public final class XMLFactoryPool {
+
+    private static final DocumentBuilderFactory BUILDER_FACTORY = DocumentBuilderFactory.newInstance();
+    private static final TransformerFactory TRANSFORMER_FACTORY = TransformerFactory.newInstance();
+    private static final ThreadLocal<DocumentBuilder> BUILDERS = new ThreadLocal<>();
+    private static final ThreadLocal<Transformer> TRANSFORMERS = new ThreadLocal<>();
+    private static final AtomicLong builderHits = new AtomicLong();
+    private static final AtomicLong builderMisses = new AtomicLong();
+    private static final AtomicLong transformerHits = new AtomicLong();
+    private static final AtomicLong transformerMisses = new AtomicLong();
+
+    private XMLFactoryPool() {
+        super();
+    }
+
+    /**
+     * Takes the document builder of the current thread out of the pool or creates a new one.
+     *
+     * @return a document builder, to be given back with {@link #releaseBuilder(DocumentBuilder)}
+     * @throws ParserConfigurationException if no document builder can be created
+     */
+    static DocumentBuilder acquireBuilder() throws ParserConfigurationException {
+        DocumentBuilder builder = BUILDERS.get();
+        if (builder != null) {
+            BUILDERS.set(null);
+            builderHits.incrementAndGet();
+            return builder;
+        }
+        builderMisses.incrementAndGet();
+        // the factories are not guaranteed to be thread safe
+        synchronized (BUILDER_FACTORY) {
+            return BUILDER_FACTORY.newDocumentBuilder();
+        }
+    }
+
+    /**
+     * Resets the document builder and puts it back into the pool of the current thread.
+     *
+     * @param builder the document builder got by {@link #acquireBuilder()}
+     */
+    static void releaseBuilder(DocumentBuilder builder) {
+        if (builder != null && BUILDERS.get() == null) {
+            builder.reset();
+            BUILDERS.set(builder);
+        }
+    }
+
+    /**
+     * Takes the transformer of the current thread out of the pool or creates a new one.
+     *
+     * @return a transformer, to be given back with {@link #releaseTransformer(Transformer)}
+     * @throws TransformerConfigurationException if no transformer can be created
+     */
+    static Transformer acquireTransformer() throws TransformerConfigurationException {
+        Transformer transformer = TRANSFORMERS.get();
+        if (transformer != null) {
+            TRANSFORMERS.set(null);
+            transformerHits.incrementAndGet();
+            return transformer;
+        }
+        transformerMisses.incrementAndGet();
+        synchronized (TRANSFORMER_FACTORY) {
+            return TRANSFORMER_FACTORY.newTransformer();
+        }
+    }
+
+    /**
+     * Resets the transformer and puts it back into the pool of the current thread.
+     *
+     * @param transformer the transformer got by {@link #acquireTransformer()}
+     */
+    static void releaseTransformer(Transformer transformer) {
+        if (transformer != null && TRANSFORMERS.get() == null) {
+            transformer.reset();
+            TRANSFORMERS.set(transformer);
+        }
+    }
+
+    /**
+     * @return the number of times a pooled document builder was reused
+     */
+    public static long getBuilderHits() {
+        return builderHits.get();
+    }
+
+    /**
+     * @return the number of times a new document builder had to be created
+     */
+    public static long getBuilderMisses() {
+        return builderMisses.get();
+    }
+
+    /**
+     * @return the number of times a pooled transformer was reused
+     */
+    public static long getTransformerHits() {
+        return transformerHits.get();
+    }
+
+    /**
+     * @return the number of times a new transformer had to be created
+     */
+    public static long getTransformerMisses() {
+        return transformerMisses.get();
+    }
+
+    /**
+     * Sets all hit and miss counters to zero.
+     */
+    public static void resetStatistics() {
+        builderHits.set(0);
+        builderMisses.set(0);
+        transformerHits.set(0);
+        transformerMisses.set(0);
+    }
+}
@@ -0,0 +1,73 @@
+package at.hagru.hgbase.android;
+
+import android.content.ContextWrapper;
+import android.content.res.Resources;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A context for tests on the JVM, whose resources know the ids of some names and count the calls of
+ * {@link Resources#getIdentifier(String, String, String)}.<p>
+ * Like android, names are only found with the package name of the context, so a name that does not exist
+ * is looked up twice by {@link HGBaseResources}.
+ *
+ * @author hagru
+ */
+class FakeResourceContext extends ContextWrapper {
+
+    static final String PACKAGE_NAME = "at.hagru.test";
+
+    private final FakeResources resources = new FakeResources();
+
+    FakeResourceContext() {
+        super(null);
+    }
+
+    /**
+     * @param name the name of the resource
+     * @param resourceType the resource type
+     * @param resId the id of the resource
+     */
+    void addResource(String name, String resourceType, int resId) {
+        resources.ids.put(resourceType + "/" + name, resId);
+    }
+
+    /**
+     * @return the number of calls of {@link Resources#getIdentifier(String, String, String)}
+     */
+    int getIdentifierCount() {
+        return resources.identifierCount;
+    }
+
+    @Override
+    public Resources getResources() {
+        return resources;
+    }
+
+    @Override
+    public String getPackageName() {
+        return PACKAGE_NAME;
+    }
+
+    /**
+     * The resources with the ids by type and name.
+     */
+    private static class FakeResources extends Resources {
+
+        private final Map<String, Integer> ids = new HashMap<>();
+        private int identifierCount = 0;
+
+        @SuppressWarnings("deprecation")
+        FakeResources() {
+            super(null, null, null);
+        }
+
+        @Override
+        public int getIdentifier(String name, String defType, String defPackage) {
+            identifierCount++;
+            Integer resId = PACKAGE_NAME.equals(defPackage) ? ids.get(defType + "/" + name) : null;
+            return (resId == null) ? 0 : resId;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package at.hagru.hgbase.android;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * A rough benchmark of {@link HGBaseResources#getResourceIdByName(String, String)} with {@link FakeResourceContext}.<p>
+ * The uncached time clears the cache before every lookup, like it was before the ids were cached; half of the names
+ * do not exist and have a file extension. The fake resources find the ids with a hash map, so on android, where
+ * {@code getIdentifier} asks the asset manager, the uncached lookup is much slower than measured here.
+ * The times are only printed, they are not checked, as they depend on the machine.
+ *
+ * @author hagru
+ */
+public class HGBaseResourcesBenchmark {
+
+    private static final int NAMES = 200;
+    private static final int LOOKUPS = 20000;
+    private static final int ROUNDS = 5;
+
+    @After
+    public void tearDown() {
+        HGBaseAppTools.setContext(null);
+        HGBaseResources.clearResourceIdCache();
+    }
+
+    @Test
+    public void testLookups() {
+        FakeResourceContext context = new FakeResourceContext();
+        String[] names = new String[NAMES];
+        for (int i = 0; i < NAMES; i++) {
+            if (i % 2 == 0) {
+                names[i] = "text" + i;
+                context.addResource(names[i], HGBaseResources.STRING, 0x7f010000 + i);
+            } else {
+                names[i] = "missing" + i + ".txt";
+            }
+        }
+        HGBaseAppTools.setContext(context);
+        long uncachedNanos = Long.MAX_VALUE;
+        long cachedNanos = Long.MAX_VALUE;
+        long uncachedSum = 0;
+        long cachedSum = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            uncachedSum = 0;
+            for (int i = 0; i < LOOKUPS; i++) {
+                HGBaseResources.clearResourceIdCache();
+                uncachedSum += HGBaseResources.getResourceIdByName(names[i % NAMES], HGBaseResources.STRING);
+            }
+            uncachedNanos = Math.min(uncachedNanos, System.nanoTime() - start);
+            HGBaseResources.clearResourceIdCache();
+            start = System.nanoTime();
+            cachedSum = 0;
+            for (int i = 0; i < LOOKUPS; i++) {
+                cachedSum += HGBaseResources.getResourceIdByName(names[i % NAMES], HGBaseResources.STRING);
+            }
+            cachedNanos = Math.min(cachedNanos, System.nanoTime() - start);
+        }
+        assertEquals(uncachedSum, cachedSum);
+        System.out.println(String.format("HGBaseResources %d names: uncached %.1f ns/op, cached %.1f ns/op, "
+                                         + "getIdentifier calls %d", NAMES, (double) uncachedNanos / LOOKUPS,
+                                         (double) cachedNanos / LOOKUPS, context.getIdentifierCount()));
+    }
+}
@@ -0,0 +1,131 @@
+package at.hagru.hgbase.android;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests of the cached resource ids of {@link HGBaseResources} with {@link FakeResourceContext}.<p>
+ * Every name must be looked up at the resources only once, also if it is not found, and not at all
+ * after the resources were indexed.
+ *
+ * @author hagru
+ */
+public class HGBaseResourcesTest {
+
+    private static final int HELLO_ID = 0x7f010001;
+    private static final int IMAGE_ID = 0x7f020001;
+    private static final int HELLO_IMAGE_ID = 0x7f020002;
+
+    /**
+     * A generated resource class like the one of an app.
+     */
+    public static final class R {
+        public static final class string {
+            public static final int hello = HELLO_ID;
+            public static final int bye = 0x7f010002;
+        }
+        public static final class drawable {
+            public static final int image = IMAGE_ID;
+        }
+        public static final class styleable {
+            public static final int[] View = {1, 2};
+            public static final int View_id = 0;
+        }
+    }
+
+    private FakeResourceContext context;
+
+    @Before
+    public void setUp() {
+        context = new FakeResourceContext();
+        context.addResource("hello", HGBaseResources.STRING, HELLO_ID);
+        context.addResource("image", HGBaseResources.DRAWABLE, IMAGE_ID);
+        context.addResource("hello", HGBaseResources.DRAWABLE, HELLO_IMAGE_ID);
+        HGBaseAppTools.setContext(context);
+        HGBaseResources.clearResourceIdCache();
+    }
+
+    @After
+    public void tearDown() {
+        HGBaseAppTools.setContext(null);
+        HGBaseResources.clearResourceIdCache();
+    }
+
+    @Test
+    public void testCachedLookup() {
+        assertEquals(HELLO_ID, HGBaseResources.getResourceIdByName("hello", HGBaseResources.STRING));
+        assertEquals(1, context.getIdentifierCount());
+        assertEquals(HELLO_ID, HGBaseResources.getResourceIdByName("hello", HGBaseResources.STRING));
+        assertEquals(1, context.getIdentifierCount());
+    }
+
+    @Test
+    public void testMissingIsCached() {
+        assertEquals(0, HGBaseResources.getResourceIdByName("unknown", HGBaseResources.STRING));
+        // looked up with the package name of the app and without
+        assertEquals(2, context.getIdentifierCount());
+        assertEquals(0, HGBaseResources.getResourceIdByName("unknown", HGBaseResources.STRING));
+        assertEquals(2, context.getIdentifierCount());
+    }
+
+    @Test
+    public void testTypes() {
+        assertEquals(HELLO_ID, HGBaseResources.getResourceIdByName("hello", HGBaseResources.STRING));
+        assertEquals(HELLO_IMAGE_ID, HGBaseResources.getResourceIdByName("hello", HGBaseResources.DRAWABLE));
+        assertEquals(0, HGBaseResources.getResourceIdByName("hello", HGBaseResources.RAW));
+        assertEquals(HELLO_ID, HGBaseResources.getResourceIdByName("hello", HGBaseResources.STRING));
+        assertEquals(HELLO_IMAGE_ID, HGBaseResources.getResourceIdByName("hello", HGBaseResources.DRAWABLE));
+        assertEquals(4, context.getIdentifierCount());
+    }
+
+    @Test
+    public void testFileExtension() {
+        assertEquals(IMAGE_ID, HGBaseResources.getResourceIdByName("image.png", HGBaseResources.DRAWABLE));
+        assertEquals(IMAGE_ID, HGBaseResources.getResourceIdByName("image", HGBaseResources.DRAWABLE));
+        assertEquals(2, context.getIdentifierCount());
+    }
+
+    @Test
+    public void testInvalidNames() {
+        // numbers are no resource names, so they are not looked up
+        assertEquals(0, HGBaseResources.getResourceIdByName("12", HGBaseResources.DRAWABLE));
+        assertEquals(0, HGBaseResources.getResourceIdByName("12.png", HGBaseResources.DRAWABLE));
+        assertEquals(0, context.getIdentifierCount());
+        assertEquals(0, HGBaseResources.getResourceIdByName(null, HGBaseResources.DRAWABLE));
+        assertEquals(0, HGBaseResources.getResourceIdByName("image", null));
+        assertEquals(0, context.getIdentifierCount());
+    }
+
+    @Test
+    public void testNoContext() {
+        HGBaseAppTools.setContext(null);
+        assertEquals(0, HGBaseResources.getResourceIdByName("hello", HGBaseResources.STRING));
+        // a missing context is not cached as missing resource
+        HGBaseAppTools.setContext(context);
+        assertEquals(HELLO_ID, HGBaseResources.getResourceIdByName("hello", HGBaseResources.STRING));
+    }
+
+    @Test
+    public void testIndexResources() {
+        // the int fields of string and drawable, and the int field of styleable
+        assertEquals(4, HGBaseResources.indexResources(R.class));
+        assertEquals(HELLO_ID, HGBaseResources.getResourceIdByName("hello", HGBaseResources.STRING));
+        assertEquals(0x7f010002, HGBaseResources.getResourceIdByName("bye", HGBaseResources.STRING));
+        assertEquals(IMAGE_ID, HGBaseResources.getResourceIdByName("image.png", HGBaseResources.DRAWABLE));
+        assertEquals(0, context.getIdentifierCount());
+        // names that are not in the resource class are still looked up
+        assertEquals(HELLO_IMAGE_ID, HGBaseResources.getResourceIdByName("hello", HGBaseResources.DRAWABLE));
+        assertEquals(1, context.getIdentifierCount());
+    }
+
+    @Test
+    public void testClearCache() {
+        assertEquals(HELLO_ID, HGBaseResources.getResourceIdByName("hello", HGBaseResources.STRING));
+        HGBaseResources.clearResourceIdCache();
+        assertEquals(HELLO_ID, HGBaseResources.getResourceIdByName("hello", HGBaseResources.STRING));
+        assertEquals(2, context.getIdentifierCount());
+    }
+}
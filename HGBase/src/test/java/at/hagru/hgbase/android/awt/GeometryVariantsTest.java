@@ -0,0 +1,222 @@
+package at.hagru.hgbase.android.awt;
+
+import android.graphics.Point;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the variants of {@link Rectangle}, {@link Polygon} and {@link Circle} that write into a given object.<p>
+ * The results are compared with the variants that create new objects, and the per-frame operations are checked
+ * to create no objects at all. The variants that write into a {@link Point} are not tested, as the Android
+ * classes are only stubs in unit tests.
+ *
+ * @author hagru
+ */
+public class GeometryVariantsTest {
+
+    private static final long SEED = 4711L;
+    private static final int ROUNDS = 1000;
+    private static final int SIZE = 100;
+    private static final int OPERATIONS = 100000;
+
+    @Test
+    public void testIntersection() {
+        Random random = new Random(SEED);
+        for (int i = 0; i < ROUNDS; i++) {
+            Rectangle a = createRectangle(random);
+            Rectangle b = createRectangle(random);
+            Rectangle expected = a.getIntersection(b);
+            Rectangle dest = new Rectangle(-1, -2, -3, -4);
+            assertEquals(expected != null, a.getIntersection(b, dest));
+            assertEquals((expected == null) ? new Rectangle(-1, -2, -3, -4) : expected, dest);
+            // the destination may be one of the rectangles
+            Rectangle copyA = new Rectangle(a);
+            Rectangle copyB = new Rectangle(b);
+            assertEquals(expected != null, copyA.getIntersection(copyB, copyA));
+            assertEquals((expected == null) ? a : expected, copyA);
+            assertEquals(b, copyB);
+            copyA = new Rectangle(a);
+            assertEquals(expected != null, copyA.getIntersection(copyB, copyB));
+            assertEquals((expected == null) ? b : expected, copyB);
+            assertEquals(a, copyA);
+        }
+        Rectangle r = new Rectangle(10, 10, 20, 20);
+        assertNull(r.getIntersection(new Rectangle(40, 40, 5, 5)));
+        assertTrue(r.getIntersection(r, r));
+        assertEquals(new Rectangle(10, 10, 20, 20), r);
+    }
+
+    @Test
+    public void testRectangleBounds() {
+        Random random = new Random(SEED);
+        Rectangle dest = new Rectangle();
+        for (int i = 0; i < ROUNDS; i++) {
+            Rectangle r = createRectangle(random);
+            assertTrue(r.getBounds(dest) == dest);
+            assertEquals(r.getBounds(), dest);
+            int x = random.nextInt(SIZE);
+            int y = random.nextInt(SIZE);
+            assertEquals(r.contains(x, y), Rectangle.contains(r.x, r.y, r.width, r.height, x, y));
+            Rectangle other = createRectangle(random);
+            assertEquals(r.intersects(other), Rectangle.intersects(r.x, r.y, r.width, r.height,
+                                                                   other.x, other.y, other.width, other.height));
+        }
+    }
+
+    @Test
+    public void testPolygonBounds() {
+        Random random = new Random(SEED);
+        Rectangle dest = new Rectangle();
+        Polygon polygon = new Polygon();
+        assertEquals(new Rectangle(), polygon.getBounds(dest));
+        for (int i = 0; i < ROUNDS; i++) {
+            polygon.reset();
+            assertEquals(new Rectangle(), polygon.getBounds(new Rectangle(1, 2, 3, 4)));
+            int n = 1 + random.nextInt(10);
+            for (int j = 0; j < n; j++) {
+                polygon.addPoint(random.nextInt(SIZE), random.nextInt(SIZE));
+                if (random.nextBoolean()) {
+                    // the cached bounds are updated by adding a point
+                    assertEquals(createPolygon(polygon).getBounds(), polygon.getBounds(dest));
+                }
+            }
+            assertEquals(createPolygon(polygon).getBounds(), polygon.getBounds(dest));
+            assertEquals(polygon.getBounds(), dest);
+            // direct changes of the points are reflected after invalidating the bounds
+            polygon.xpoints[0] = random.nextInt(SIZE);
+            polygon.ypoints[0] = random.nextInt(SIZE);
+            polygon.invalidate();
+            assertEquals(createPolygon(polygon).getBounds(), polygon.getBounds(dest));
+            assertEquals(createPolygon(polygon).getBounds(), polygon.getBounds());
+        }
+    }
+
+    @Test
+    public void testCircleToPolygon() {
+        Random random = new Random(SEED);
+        Polygon dest = new Polygon();
+        for (int i = 0; i < ROUNDS; i++) {
+            Circle circle = new Circle(createPoint(random.nextInt(SIZE), random.nextInt(SIZE)), random.nextInt(SIZE));
+            int sides = 3 + random.nextInt(20);
+            int[] xpoints = dest.xpoints;
+            Polygon expected = circle.toPolygon(sides);
+            assertTrue(circle.toPolygon(sides, dest) == dest);
+            assertEquals(expected.npoints, dest.npoints);
+            for (int j = 0; j < sides; j++) {
+                assertEquals(expected.xpoints[j], dest.xpoints[j]);
+                assertEquals(expected.ypoints[j], dest.ypoints[j]);
+            }
+            assertEquals(expected.getBounds(), dest.getBounds());
+            if (xpoints.length >= sides) {
+                // the arrays are reused if they are large enough
+                assertTrue(dest.xpoints == xpoints);
+            }
+            int x = random.nextInt(SIZE);
+            int y = random.nextInt(SIZE);
+            Point center = circle.getCenter();
+            double distance = Math.sqrt(Math.pow(x - center.x, 2) + Math.pow(y - center.y, 2));
+            assertEquals(distance <= circle.getRadius(), circle.contains(x, y));
+        }
+        assertFalse(Circle.contains(0, 0, -1, 0, 0));
+        assertTrue(Circle.contains(0, 0, Integer.MAX_VALUE, Integer.MAX_VALUE, 0));
+    }
+
+    @Test
+    public void testNoAllocation() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(allocations.isThreadAllocatedMemorySupported());
+        allocations.setThreadAllocatedMemoryEnabled(true);
+        Rectangle a = new Rectangle(10, 10, 50, 40);
+        Rectangle b = new Rectangle(30, 20, 50, 40);
+        Rectangle dest = new Rectangle();
+        Polygon polygon = new Polygon();
+        Circle circle = new Circle(createPoint(50, 50), 30);
+        // fill the arrays and the cached bounds once
+        circle.toPolygon(32, polygon).getBounds(dest);
+        long threadId = Thread.currentThread().getId();
+        int hits = runOperations(a, b, dest, polygon, circle);
+        long before = allocations.getThreadAllocatedBytes(threadId);
+        hits += runOperations(a, b, dest, polygon, circle);
+        long allocated = allocations.getThreadAllocatedBytes(threadId) - before;
+        assertTrue(hits > 0);
+        assertTrue(allocated + " bytes allocated for " + OPERATIONS + " operations", allocated < OPERATIONS);
+    }
+
+    /**
+     * Runs the operations that must not create objects.
+     *
+     * @param a a rectangle
+     * @param b another rectangle
+     * @param dest a rectangle to write into
+     * @param polygon a polygon to write into
+     * @param circle a circle
+     * @return the number of successful tests, so the operations are not optimized away
+     */
+    private static int runOperations(Rectangle a, Rectangle b, Rectangle dest, Polygon polygon, Circle circle) {
+        int hits = 0;
+        for (int i = 0; i < OPERATIONS; i++) {
+            int x = i % SIZE;
+            int y = (i / SIZE) % SIZE;
+            if (a.getIntersection(b, dest) && dest.contains(x, y)) {
+                hits++;
+            }
+            a.getBounds(dest);
+            if (Rectangle.intersects(x, y, 5, 5, b.x, b.y, b.width, b.height)) {
+                hits++;
+            }
+            if (circle.contains(x, y)) {
+                hits++;
+            }
+            if (i % 100 == 0) {
+                circle.toPolygon(32, polygon);
+            }
+            if (polygon.contains(x, y) && polygon.getBounds(dest).width > 0) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * @param random the random generator
+     * @return a random rectangle, it may be empty
+     */
+    private static Rectangle createRectangle(Random random) {
+        return new Rectangle(random.nextInt(SIZE), random.nextInt(SIZE), random.nextInt(SIZE / 2),
+                             random.nextInt(SIZE / 2));
+    }
+
+    /**
+     * @param polygon a polygon
+     * @return a new polygon with the same points, without cached bounds
+     */
+    private static Polygon createPolygon(Polygon polygon) {
+        return new Polygon(polygon.xpoints, polygon.ypoints, polygon.npoints);
+    }
+
+    /**
+     * Creates a point without the constructor, which is only a stub in unit tests.
+     *
+     * @param x the X coordinate
+     * @param y the Y coordinate
+     * @return the point
+     */
+    private static Point createPoint(int x, int y) {
+        Point p = new Point();
+        p.x = x;
+        p.y = y;
+        return p;
+    }
+}
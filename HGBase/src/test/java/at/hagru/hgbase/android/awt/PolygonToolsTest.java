@@ -0,0 +1,440 @@
+package at.hagru.hgbase.android.awt;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Randomized tests of {@link PolygonTools} against a raster reference.<p>
+ * Random simple polygons are combined and the result is compared with the combination of the input polygons
+ * on the points of a grid. Because the results are rounded to integer coordinates, points close to an edge of
+ * the input polygons are not compared, and the covered areas may differ by about the length of the edges.
+ *
+ * @author hagru
+ */
+public class PolygonToolsTest {
+
+    private static final long SEED = 4711L;
+    private static final int ROUNDS = 300;
+    private static final int SIZE = 128;
+    private static final double MARGIN = 2.0;
+
+    /**
+     * A boolean operation and its reference.
+     */
+    private enum Operation {
+        INTERSECTION {
+            @Override
+            List<Polygon> apply(Polygon a, Polygon b) {
+                return PolygonTools.intersection(a, b);
+            }
+
+            @Override
+            boolean expected(boolean inA, boolean inB) {
+                return inA && inB;
+            }
+        },
+        UNION {
+            @Override
+            List<Polygon> apply(Polygon a, Polygon b) {
+                return PolygonTools.union(a, b);
+            }
+
+            @Override
+            boolean expected(boolean inA, boolean inB) {
+                return inA || inB;
+            }
+        },
+        DIFFERENCE {
+            @Override
+            List<Polygon> apply(Polygon a, Polygon b) {
+                return PolygonTools.difference(a, b);
+            }
+
+            @Override
+            boolean expected(boolean inA, boolean inB) {
+                return inA && !inB;
+            }
+        };
+
+        abstract List<Polygon> apply(Polygon a, Polygon b);
+
+        abstract boolean expected(boolean inA, boolean inB);
+    }
+
+    @Test
+    public void testIntersection() {
+        checkOperation(Operation.INTERSECTION);
+    }
+
+    @Test
+    public void testUnion() {
+        checkOperation(Operation.UNION);
+    }
+
+    @Test
+    public void testDifference() {
+        checkOperation(Operation.DIFFERENCE);
+    }
+
+    @Test
+    public void testIntersectionWithRectangle() {
+        Random random = new Random(SEED);
+        for (int round = 0; round < ROUNDS; round++) {
+            Polygon polygon = createPolygon(random);
+            Rectangle rectangle = createRectangle(random);
+            List<Polygon> result = PolygonTools.intersection(polygon, rectangle);
+            checkResult("round " + round, polygon, PolygonTools.toPolygon(rectangle), result, Operation.INTERSECTION);
+        }
+    }
+
+    @Test
+    public void testConcaveIntersectionWithRectangle() {
+        // a U shape that falls apart into two parts when the bottom is cut away
+        Polygon polygon = new Polygon(new int[] {10, 90, 90, 70, 70, 30, 30, 10},
+                                      new int[] {10, 10, 90, 90, 30, 30, 90, 90}, 8);
+        Rectangle rectangle = new Rectangle(0, 50, 100, 60);
+        List<Polygon> result = PolygonTools.intersection(polygon, rectangle);
+        assertEquals(2, result.size());
+        checkResult("U shape", polygon, PolygonTools.toPolygon(rectangle), result, Operation.INTERSECTION);
+        assertEquals(result.size(), PolygonTools.intersection(PolygonTools.toPolygon(rectangle), polygon).size());
+    }
+
+    @Test
+    public void testRectangleDifference() {
+        Random random = new Random(SEED);
+        for (int round = 0; round < ROUNDS; round++) {
+            Rectangle a = createRectangle(random);
+            Rectangle b = createRectangle(random);
+            List<Rectangle> result = PolygonTools.difference(a, b);
+            for (int x = 0; x < SIZE; x++) {
+                for (int y = 0; y < SIZE; y++) {
+                    int count = 0;
+                    for (Rectangle r : result) {
+                        if (r.contains(x, y)) {
+                            count++;
+                        }
+                    }
+                    boolean expected = a.contains(x, y) && !b.contains(x, y);
+                    assertEquals("round " + round + " at " + x + "/" + y, expected ? 1 : 0, count);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testConvexHull() {
+        Random random = new Random(SEED);
+        for (int round = 0; round < ROUNDS; round++) {
+            Polygon points = new Polygon();
+            for (int i = 0, n = 1 + random.nextInt(30); i < n; i++) {
+                points.addPoint(random.nextInt(SIZE) - SIZE / 2, random.nextInt(SIZE) - SIZE / 2);
+            }
+            Polygon hull = PolygonTools.convexHull(points);
+            assertTrue(hull.npoints <= points.npoints);
+            if (hull.npoints >= 3) {
+                assertTrue("round " + round, PolygonTools.isConvex(hull));
+            }
+            for (int h = 0; h < hull.npoints; h++) {
+                assertTrue("round " + round, indexOf(points, hull.xpoints[h], hull.ypoints[h]) >= 0);
+                int next = (h + 1) % hull.npoints;
+                for (int i = 0; i < points.npoints; i++) {
+                    long turn = cross(hull.xpoints[h], hull.ypoints[h], hull.xpoints[next], hull.ypoints[next],
+                                      points.xpoints[i], points.ypoints[i]);
+                    assertTrue("round " + round + ", point " + i + " outside of the hull", turn >= 0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSimplify() {
+        Random random = new Random(SEED);
+        for (int round = 0; round < ROUNDS; round++) {
+            Polygon polygon = createPolygon(random);
+            double tolerance = random.nextDouble() * 10.0;
+            Polygon simple = PolygonTools.simplify(polygon, tolerance);
+            assertTrue(simple.npoints <= polygon.npoints);
+            // the kept points are in the same order, every removed point is close to the edge that replaces it
+            int[] kept = new int[simple.npoints];
+            for (int k = 0; k < simple.npoints; k++) {
+                kept[k] = indexOf(polygon, simple.xpoints[k], simple.ypoints[k]);
+                assertTrue("round " + round, kept[k] >= 0 && (k == 0 || kept[k] > kept[k - 1]));
+            }
+            for (int k = 0; k < kept.length; k++) {
+                int first = kept[k];
+                int last = (k + 1 < kept.length) ? kept[k + 1] : kept[0] + polygon.npoints;
+                for (int i = first + 1; i < last; i++) {
+                    int p = i % polygon.npoints;
+                    double distance = getSquaredDistance(polygon.xpoints[p], polygon.ypoints[p],
+                                                         polygon.xpoints[first], polygon.ypoints[first],
+                                                         polygon.xpoints[last % polygon.npoints],
+                                                         polygon.ypoints[last % polygon.npoints]);
+                    assertTrue("round " + round + ", point " + p, distance <= tolerance * tolerance + 1e-9);
+                }
+            }
+        }
+    }
+
+    /**
+     * Combines random polygons with the operation and compares the results with the raster reference.
+     *
+     * @param operation the boolean operation
+     */
+    private static void checkOperation(Operation operation) {
+        Random random = new Random(SEED + operation.ordinal());
+        for (int round = 0; round < ROUNDS; round++) {
+            Polygon a = createPolygon(random);
+            Polygon b;
+            switch (round % 4) {
+                case 0:
+                    b = PolygonTools.toPolygon(createRectangle(random));
+                    break;
+                case 1:
+                    // shares edges and points with the first polygon
+                    b = translate(a, random.nextInt(9) - 4, random.nextInt(3) - 1);
+                    break;
+                default:
+                    b = createPolygon(random);
+                    break;
+            }
+            checkResult(operation + " round " + round, a, b, operation.apply(a, b), operation);
+        }
+    }
+
+    /**
+     * Compares the result of an operation with the raster reference, both the containment of the points that are
+     * not close to an edge and the covered area.
+     *
+     * @param message the message for a failure
+     * @param a the first polygon
+     * @param b the second polygon
+     * @param result the contours of the result
+     * @param operation the boolean operation
+     */
+    private static void checkResult(String message, Polygon a, Polygon b, List<Polygon> result, Operation operation) {
+        int expectedArea = 0;
+        int resultArea = 0;
+        for (int x = 0; x < SIZE; x++) {
+            for (int y = 0; y < SIZE; y++) {
+                boolean expected = operation.expected(a.contains(x, y), b.contains(x, y));
+                boolean actual = containsEvenOdd(result, x, y);
+                expectedArea += expected ? 1 : 0;
+                resultArea += actual ? 1 : 0;
+                if (expected != actual && !isNearEdge(a, x, y) && !isNearEdge(b, x, y)) {
+                    throw new AssertionError(message + ": wrong result at " + x + "/" + y + " for " + describe(a)
+                                             + " and " + describe(b));
+                }
+            }
+        }
+        double tolerance = getPerimeter(a) + getPerimeter(b);
+        assertTrue(message + ": area " + resultArea + " instead of " + expectedArea,
+                   Math.abs(resultArea - expectedArea) <= tolerance);
+    }
+
+    /**
+     * @param contours the contours
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @return true if the point is inside an odd number of contours
+     */
+    private static boolean containsEvenOdd(List<Polygon> contours, int x, int y) {
+        boolean inside = false;
+        for (Polygon contour : contours) {
+            if (contour.contains(x, y)) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+
+    /**
+     * Creates a random simple polygon with up to twelve points that is star-shaped around its center,
+     * so it is concave in most cases.
+     *
+     * @param random the random generator
+     * @return the polygon
+     */
+    private static Polygon createPolygon(Random random) {
+        while (true) {
+            int n = 3 + random.nextInt(10);
+            int cx = 30 + random.nextInt(SIZE - 60);
+            int cy = 30 + random.nextInt(SIZE - 60);
+            Polygon polygon = new Polygon();
+            for (int i = 0; i < n; i++) {
+                double angle = (i + 0.8 * random.nextDouble()) * 2.0 * Math.PI / n;
+                double radius = 6 + random.nextDouble() * 40;
+                polygon.addPoint((int) Math.round(cx + radius * Math.cos(angle)),
+                                 (int) Math.round(cy + radius * Math.sin(angle)));
+            }
+            if (isSimple(polygon)) {
+                return polygon;
+            }
+        }
+    }
+
+    /**
+     * @param random the random generator
+     * @return a random rectangle within the grid
+     */
+    private static Rectangle createRectangle(Random random) {
+        int x = random.nextInt(SIZE - 20);
+        int y = random.nextInt(SIZE - 20);
+        return new Rectangle(x, y, 1 + random.nextInt(SIZE - x), 1 + random.nextInt(SIZE - y));
+    }
+
+    /**
+     * @param polygon the polygon
+     * @param dx the distance in x direction
+     * @param dy the distance in y direction
+     * @return a moved copy of the polygon
+     */
+    private static Polygon translate(Polygon polygon, int dx, int dy) {
+        Polygon moved = new Polygon();
+        for (int i = 0; i < polygon.npoints; i++) {
+            moved.addPoint(polygon.xpoints[i] + dx, polygon.ypoints[i] + dy);
+        }
+        return moved;
+    }
+
+    /**
+     * @param polygon the polygon
+     * @return true if the polygon has distinct points and no edges that touch each other except at common points
+     */
+    private static boolean isSimple(Polygon polygon) {
+        int n = polygon.npoints;
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                if (polygon.xpoints[i] == polygon.xpoints[j] && polygon.ypoints[i] == polygon.ypoints[j]) {
+                    return false;
+                }
+                boolean adjacent = (j == i + 1) || (i == 0 && j == n - 1);
+                if (!adjacent && intersects(polygon, i, j)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param polygon the polygon
+     * @param i the index of the first edge
+     * @param j the index of the second edge
+     * @return true if the edges from the given points to the next points touch each other
+     */
+    private static boolean intersects(Polygon polygon, int i, int j) {
+        int n = polygon.npoints;
+        int ax = polygon.xpoints[i];
+        int ay = polygon.ypoints[i];
+        int bx = polygon.xpoints[(i + 1) % n];
+        int by = polygon.ypoints[(i + 1) % n];
+        int cx = polygon.xpoints[j];
+        int cy = polygon.ypoints[j];
+        int dx = polygon.xpoints[(j + 1) % n];
+        int dy = polygon.ypoints[(j + 1) % n];
+        long d1 = cross(ax, ay, bx, by, cx, cy);
+        long d2 = cross(ax, ay, bx, by, dx, dy);
+        long d3 = cross(cx, cy, dx, dy, ax, ay);
+        long d4 = cross(cx, cy, dx, dy, bx, by);
+        if (((d1 > 0 && d2 < 0) || (d1 < 0 && d2 > 0)) && ((d3 > 0 && d4 < 0) || (d3 < 0 && d4 > 0))) {
+            return true;
+        }
+        return (d1 == 0 && isOnSegment(cx, cy, ax, ay, bx, by)) || (d2 == 0 && isOnSegment(dx, dy, ax, ay, bx, by))
+               || (d3 == 0 && isOnSegment(ax, ay, cx, cy, dx, dy)) || (d4 == 0 && isOnSegment(bx, by, cx, cy, dx, dy));
+    }
+
+    /**
+     * @return true if the collinear point (px, py) is within the bounds of the segment from (ax, ay) to (bx, by)
+     */
+    private static boolean isOnSegment(int px, int py, int ax, int ay, int bx, int by) {
+        return Math.min(ax, bx) <= px && px <= Math.max(ax, bx) && Math.min(ay, by) <= py && py <= Math.max(ay, by);
+    }
+
+    /**
+     * @param polygon the polygon
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @return true if the point is closer to an edge of the polygon than the margin
+     */
+    private static boolean isNearEdge(Polygon polygon, int x, int y) {
+        int n = polygon.npoints;
+        for (int i = 0; i < n; i++) {
+            int next = (i + 1) % n;
+            double distance = getSquaredDistance(x, y, polygon.xpoints[i], polygon.ypoints[i],
+                                                 polygon.xpoints[next], polygon.ypoints[next]);
+            if (distance < MARGIN * MARGIN) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param polygon the polygon
+     * @return the length of all edges of the polygon
+     */
+    private static double getPerimeter(Polygon polygon) {
+        double length = 0.0;
+        for (int i = 0; i < polygon.npoints; i++) {
+            int next = (i + 1) % polygon.npoints;
+            length += Math.hypot(polygon.xpoints[next] - polygon.xpoints[i], polygon.ypoints[next] - polygon.ypoints[i]);
+        }
+        return length;
+    }
+
+    /**
+     * @param polygon the polygon
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @return the index of the point in the polygon or -1 if there is no such point
+     */
+    private static int indexOf(Polygon polygon, int x, int y) {
+        for (int i = 0; i < polygon.npoints; i++) {
+            if (polygon.xpoints[i] == x && polygon.ypoints[i] == y) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the cross product of the vectors (a, b) and (a, c)
+     */
+    private static long cross(int ax, int ay, int bx, int by, int cx, int cy) {
+        return ((long) bx - ax) * ((long) cy - ay) - ((long) by - ay) * ((long) cx - ax);
+    }
+
+    /**
+     * @return the squared distance of the point (px, py) to the segment from (ax, ay) to (bx, by)
+     */
+    private static double getSquaredDistance(int px, int py, int ax, int ay, int bx, int by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double ex = px - ax;
+        double ey = py - ay;
+        double length = dx * dx + dy * dy;
+        if (length > 0) {
+            double t = Math.max(0.0, Math.min(1.0, (ex * dx + ey * dy) / length));
+            ex -= t * dx;
+            ey -= t * dy;
+        }
+        return ex * ex + ey * ey;
+    }
+
+    /**
+     * @param polygon the polygon
+     * @return the points of the polygon as text
+     */
+    private static String describe(Polygon polygon) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < polygon.npoints; i++) {
+            sb.append(i > 0 ? ", " : "").append(polygon.xpoints[i]).append('/').append(polygon.ypoints[i]);
+        }
+        return sb.append(']').toString();
+    }
+}
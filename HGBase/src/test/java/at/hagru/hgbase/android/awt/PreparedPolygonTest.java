@@ -0,0 +1,177 @@
+package at.hagru.hgbase.android.awt;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+/**
+ * Randomized tests of {@link PreparedPolygon} against {@link Polygon}.<p>
+ * The point tests must give exactly the same results, so all points of the bounds and a margin around them
+ * are compared, including the points on the edges and corners.
+ *
+ * @author hagru
+ */
+public class PreparedPolygonTest {
+
+    private static final long SEED = 4711L;
+    private static final int ROUNDS = 300;
+    private static final int SIZE = 64;
+    private static final int MARGIN = 2;
+
+    @Test
+    public void testRandomPolygons() {
+        Random random = new Random(SEED);
+        for (int round = 0; round < ROUNDS; round++) {
+            // random points, so the polygons may be self-intersecting
+            int n = 3 + random.nextInt(12);
+            int[] xs = new int[n];
+            int[] ys = new int[n];
+            for (int i = 0; i < n; i++) {
+                xs[i] = random.nextInt(SIZE);
+                ys[i] = random.nextInt(SIZE);
+            }
+            checkEquivalence(xs, ys, n);
+        }
+    }
+
+    @Test
+    public void testRectilinearPolygons() {
+        Random random = new Random(SEED);
+        for (int round = 0; round < ROUNDS; round++) {
+            // every second edge is horizontal
+            int n = 2 * (2 + random.nextInt(6));
+            int[] xs = new int[n];
+            int[] ys = new int[n];
+            for (int i = 0; i < n; i += 2) {
+                xs[i] = random.nextInt(SIZE);
+                ys[i] = random.nextInt(SIZE);
+                xs[i + 1] = random.nextInt(SIZE);
+                ys[i + 1] = ys[i];
+            }
+            checkEquivalence(xs, ys, n);
+        }
+    }
+
+    @Test
+    public void testDuplicatePoints() {
+        Random random = new Random(SEED);
+        for (int round = 0; round < ROUNDS; round++) {
+            int n = 3 + random.nextInt(8);
+            int[] xs = new int[2 * n];
+            int[] ys = new int[2 * n];
+            int count = 0;
+            for (int i = 0; i < n; i++) {
+                xs[count] = random.nextInt(SIZE);
+                ys[count] = random.nextInt(SIZE);
+                count++;
+                if (random.nextBoolean()) {
+                    xs[count] = xs[count - 1];
+                    ys[count] = ys[count - 1];
+                    count++;
+                }
+            }
+            checkEquivalence(xs, ys, count);
+        }
+    }
+
+    @Test
+    public void testDegeneratePolygons() {
+        checkEquivalence(new int[0], new int[0], 0);
+        checkEquivalence(new int[] {5}, new int[] {7}, 1);
+        checkEquivalence(new int[] {5, 20}, new int[] {7, 30}, 2);
+        // the number of points is less than the length of the arrays
+        checkEquivalence(new int[] {5, 20, 40}, new int[] {7, 30, 3}, 2);
+        // all points on a line
+        checkEquivalence(new int[] {0, 10, 20}, new int[] {0, 10, 20}, 3);
+        checkEquivalence(new int[] {0, 10, 20}, new int[] {5, 5, 5}, 3);
+        checkEquivalence(new int[] {5, 5, 5}, new int[] {0, 10, 20}, 3);
+        checkEquivalence(new int[] {3, 3, 3, 3}, new int[] {3, 3, 3, 3}, 4);
+        // a single row and a single column
+        checkEquivalence(new int[] {0, 20, 20, 0}, new int[] {4, 4, 5, 5}, 4);
+        checkEquivalence(new int[] {4, 5, 5, 4}, new int[] {0, 0, 20, 20}, 4);
+    }
+
+    @Test
+    public void testLargeCoordinates() {
+        int big = Integer.MAX_VALUE / 2;
+        int[] xs = {-big, big, big, 0, -big};
+        int[] ys = {-big, -big, big, 0, big};
+        PreparedPolygon prepared = new PreparedPolygon(xs, ys, xs.length);
+        Polygon polygon = new Polygon(xs, ys, xs.length);
+        Random random = new Random(SEED);
+        for (int i = 0; i < 10000; i++) {
+            int x = random.nextInt();
+            int y = random.nextInt();
+            assertEquals(polygon.contains(x, y), prepared.contains(x, y));
+        }
+    }
+
+    @Test
+    public void testContainsAll() {
+        Random random = new Random(SEED);
+        for (int round = 0; round < ROUNDS; round++) {
+            int n = 3 + random.nextInt(12);
+            int[] xs = new int[n];
+            int[] ys = new int[n];
+            for (int i = 0; i < n; i++) {
+                xs[i] = random.nextInt(SIZE);
+                ys[i] = random.nextInt(SIZE);
+            }
+            PreparedPolygon prepared = new PreparedPolygon(xs, ys, n);
+            int count = 50;
+            int[] px = new int[count];
+            int[] py = new int[count];
+            for (int i = 0; i < count; i++) {
+                px[i] = random.nextInt(SIZE + 2 * MARGIN) - MARGIN;
+                py[i] = random.nextInt(SIZE + 2 * MARGIN) - MARGIN;
+            }
+            // the result array may be longer than the points
+            boolean[] out = new boolean[count + 1];
+            out[count] = true;
+            int inside = 0;
+            for (int i = 0; i < count; i++) {
+                if (prepared.contains(px[i], py[i])) {
+                    inside++;
+                }
+            }
+            assertEquals(inside, prepared.containsAll(px, py, out));
+            for (int i = 0; i < count; i++) {
+                assertEquals(prepared.contains(px[i], py[i]), out[i]);
+            }
+            assertEquals(true, out[count]);
+        }
+    }
+
+    /**
+     * Compares the prepared polygon with the polygon on all points of the bounds and a margin around them,
+     * and on the rectangles between random points.
+     *
+     * @param xs the X coordinates
+     * @param ys the Y coordinates
+     * @param n the number of points
+     */
+    private static void checkEquivalence(int[] xs, int[] ys, int n) {
+        Polygon polygon = new Polygon(xs, ys, n);
+        PreparedPolygon prepared = new PreparedPolygon(polygon);
+        assertEquals(n, prepared.getPointCount());
+        assertEquals(polygon.getBounds(), prepared.getBounds());
+        for (int y = -MARGIN; y <= SIZE + MARGIN; y++) {
+            for (int x = -MARGIN; x <= SIZE + MARGIN; x++) {
+                if (polygon.contains(x, y) != prepared.contains(x, y)) {
+                    fail(prepared + " differs at " + x + "/" + y);
+                }
+            }
+        }
+        Random random = new Random(n);
+        for (int i = 0; i < 20; i++) {
+            Rectangle r = new Rectangle(random.nextInt(SIZE), random.nextInt(SIZE),
+                                        random.nextInt(SIZE / 2), random.nextInt(SIZE / 2));
+            assertEquals(polygon.contains(r), prepared.contains(r));
+        }
+        assertFalse(prepared.contains((Rectangle) null));
+    }
+}
@@ -0,0 +1,87 @@
+package at.hagru.hgbase.android.awt;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * A rough benchmark of hit-testing with {@link ShapeIndex} against a linear search over all shapes.<p>
+ * The shapes are random rectangles with a constant density, so the area grows with the number of shapes.
+ * The times are only printed, they are not checked, as they depend on the machine.
+ *
+ * @author hagru
+ */
+public class ShapeIndexBenchmark {
+
+    private static final long SEED = 4711L;
+    private static final int[] COUNTS = {100, 1000, 10000};
+    private static final int SHAPE_SIZE = 40;
+    private static final int QUERIES = 2000;
+    private static final int ROUNDS = 3;
+
+    @Test
+    public void testFindAt() {
+        for (int count : COUNTS) {
+            Random random = new Random(SEED);
+            int size = (int) Math.sqrt(count) * SHAPE_SIZE;
+            List<Rectangle> shapes = new ArrayList<>(count);
+            ShapeIndex<Rectangle> index = ShapeIndex.forRectangles(SHAPE_SIZE);
+            for (int i = 0; i < count; i++) {
+                Rectangle r = new Rectangle(random.nextInt(size), random.nextInt(size),
+                                            1 + random.nextInt(SHAPE_SIZE), 1 + random.nextInt(SHAPE_SIZE));
+                shapes.add(r);
+                index.insert(r, r);
+            }
+            int[] xs = new int[QUERIES];
+            int[] ys = new int[QUERIES];
+            for (int i = 0; i < QUERIES; i++) {
+                xs[i] = random.nextInt(size);
+                ys[i] = random.nextInt(size);
+            }
+            long linearNanos = Long.MAX_VALUE;
+            long indexNanos = Long.MAX_VALUE;
+            int linearHits = 0;
+            int indexHits = 0;
+            for (int round = 0; round < ROUNDS; round++) {
+                long start = System.nanoTime();
+                linearHits = 0;
+                for (int i = 0; i < QUERIES; i++) {
+                    if (findLinear(shapes, xs[i], ys[i]) != null) {
+                        linearHits++;
+                    }
+                }
+                linearNanos = Math.min(linearNanos, System.nanoTime() - start);
+                start = System.nanoTime();
+                indexHits = 0;
+                for (int i = 0; i < QUERIES; i++) {
+                    if (index.findAt(xs[i], ys[i]) != null) {
+                        indexHits++;
+                    }
+                }
+                indexNanos = Math.min(indexNanos, System.nanoTime() - start);
+            }
+            assertEquals(linearHits, indexHits);
+            System.out.println(String.format("ShapeIndex %5d shapes: linear %8.1f ns/op, index %6.1f ns/op",
+                                             count, (double) linearNanos / QUERIES, (double) indexNanos / QUERIES));
+        }
+    }
+
+    /**
+     * @param shapes the shapes in the order of insertion
+     * @param x the x position
+     * @param y the y position
+     * @return the first shape that contains the point or null
+     */
+    private static Rectangle findLinear(List<Rectangle> shapes, int x, int y) {
+        for (Rectangle r : shapes) {
+            if (r.contains(x, y)) {
+                return r;
+            }
+        }
+        return null;
+    }
+}
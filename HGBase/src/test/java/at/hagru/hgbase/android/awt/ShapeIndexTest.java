@@ -0,0 +1,253 @@
+package at.hagru.hgbase.android.awt;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import at.hagru.hgbase.android.view.TolerantTouchPerformer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Randomized tests of {@link ShapeIndex} against a linear search over all shapes.<p>
+ * The shapes are random rectangles and triangles, partly overlapping and partly outside the positive quadrant,
+ * so several grid cells and negative cell indexes are involved.
+ *
+ * @author hagru
+ */
+public class ShapeIndexTest {
+
+    private static final long SEED = 4711L;
+    private static final int SHAPES = 200;
+    private static final int QUERIES = 2000;
+    private static final int SIZE = 1000;
+    private static final int CELL_SIZE = 48;
+
+    @Test
+    public void testQueryPointRectangles() {
+        Random random = new Random(SEED);
+        List<Rectangle> shapes = createRectangles(random);
+        ShapeIndex<Rectangle> index = ShapeIndex.forRectangles(CELL_SIZE);
+        for (Rectangle r : shapes) {
+            index.insert(r, r);
+        }
+        for (int i = 0; i < QUERIES; i++) {
+            int x = nextCoordinate(random);
+            int y = nextCoordinate(random);
+            List<Rectangle> expected = new ArrayList<>();
+            for (Rectangle r : shapes) {
+                if (r.contains(x, y)) {
+                    expected.add(r);
+                }
+            }
+            assertEquals(expected, index.queryPoint(x, y));
+            assertTrue(index.findAt(x, y) == (expected.isEmpty() ? null : expected.get(0)));
+        }
+    }
+
+    @Test
+    public void testQueryPointPolygons() {
+        Random random = new Random(SEED);
+        List<Polygon> shapes = createTriangles(random);
+        ShapeIndex<Polygon> index = ShapeIndex.forPolygons(CELL_SIZE);
+        for (Polygon p : shapes) {
+            index.insert(p, p.getBounds());
+        }
+        for (int i = 0; i < QUERIES; i++) {
+            int x = nextCoordinate(random);
+            int y = nextCoordinate(random);
+            List<Polygon> expected = new ArrayList<>();
+            for (Polygon p : shapes) {
+                if (p.contains(x, y)) {
+                    expected.add(p);
+                }
+            }
+            assertEquals(expected, index.queryPoint(x, y));
+            assertTrue(index.findAt(x, y) == (expected.isEmpty() ? null : expected.get(0)));
+        }
+    }
+
+    @Test
+    public void testQueryRadius() {
+        Random random = new Random(SEED);
+        List<Rectangle> shapes = createRectangles(random);
+        ShapeIndex<Rectangle> index = ShapeIndex.forRectangles(CELL_SIZE);
+        for (Rectangle r : shapes) {
+            index.insert(r, r);
+        }
+        for (int i = 0; i < QUERIES; i++) {
+            int x = nextCoordinate(random);
+            int y = nextCoordinate(random);
+            int xr = random.nextInt(80);
+            int yr = random.nextInt(80);
+            List<Rectangle> expected = new ArrayList<>();
+            for (Rectangle r : shapes) {
+                if (r.x <= x + xr && r.y <= y + yr && r.x + r.width >= x - xr && r.y + r.height >= y - yr) {
+                    expected.add(r);
+                }
+            }
+            assertEquals(expected, index.queryRadius(x, y, xr, yr));
+            assertEquals(expected, index.queryRadius(x, y, -xr, -yr));
+        }
+    }
+
+    @Test
+    public void testUpdateKeepsOrder() {
+        Rectangle first = new Rectangle(0, 0, 10, 10);
+        Rectangle second = new Rectangle(5, 5, 10, 10);
+        Rectangle third = new Rectangle(200, 200, 10, 10);
+        ShapeIndex<Rectangle> index = ShapeIndex.forRectangles(CELL_SIZE);
+        index.insert(first, first);
+        index.insert(second, second);
+        index.insert(third, third);
+        // the first shape is moved away and back into a cell that has only later shapes
+        first.setBounds(300, 300, 10, 10);
+        index.update(first, first);
+        assertTrue(index.findAt(7, 7) == second);
+        first.setBounds(202, 202, 10, 10);
+        index.update(first, first);
+        assertTrue(index.findAt(205, 205) == first);
+        assertEquals(listOf(first, third), index.queryPoint(205, 205));
+        assertEquals(listOf(first, third), index.queryRadius(205, 205, 1, 1));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    public void testUpdateRandom() {
+        Random random = new Random(SEED);
+        List<Rectangle> shapes = createRectangles(random);
+        ShapeIndex<Rectangle> index = ShapeIndex.forRectangles(CELL_SIZE);
+        for (Rectangle r : shapes) {
+            index.insert(r, r);
+        }
+        for (int i = 0; i < SHAPES; i++) {
+            Rectangle r = shapes.get(random.nextInt(shapes.size()));
+            r.setBounds(nextCoordinate(random), nextCoordinate(random), 1 + random.nextInt(120), 1 + random.nextInt(120));
+            index.update(r, r);
+        }
+        for (int i = 0; i < QUERIES; i++) {
+            int x = nextCoordinate(random);
+            int y = nextCoordinate(random);
+            List<Rectangle> expected = new ArrayList<>();
+            for (Rectangle r : shapes) {
+                if (r.contains(x, y)) {
+                    expected.add(r);
+                }
+            }
+            assertEquals(expected, index.queryPoint(x, y));
+        }
+    }
+
+    @Test
+    public void testRemove() {
+        Random random = new Random(SEED);
+        List<Rectangle> shapes = createRectangles(random);
+        ShapeIndex<Rectangle> index = ShapeIndex.forRectangles(CELL_SIZE);
+        for (Rectangle r : shapes) {
+            index.insert(r, r);
+        }
+        List<Rectangle> removed = new ArrayList<>();
+        for (int i = 0; i < shapes.size(); i += 2) {
+            removed.add(shapes.get(i));
+        }
+        for (Rectangle r : removed) {
+            assertTrue(index.remove(r));
+            assertFalse(index.remove(r));
+            assertFalse(index.containsShape(r));
+        }
+        shapes.removeAll(removed);
+        assertEquals(shapes.size(), index.size());
+        for (int i = 0; i < QUERIES; i++) {
+            int x = nextCoordinate(random);
+            int y = nextCoordinate(random);
+            List<Rectangle> expected = new ArrayList<>();
+            for (Rectangle r : shapes) {
+                if (r.contains(x, y)) {
+                    expected.add(r);
+                }
+            }
+            assertEquals(expected, index.queryPoint(x, y));
+        }
+        index.clear();
+        assertTrue(index.isEmpty());
+        assertNull(index.findAt(shapes.get(0).x, shapes.get(0).y));
+    }
+
+    @Test
+    public void testTolerantTouch() {
+        Random random = new Random(SEED);
+        List<Polygon> shapes = createTriangles(random);
+        ShapeIndex<Polygon> index = ShapeIndex.forPolygons(CELL_SIZE);
+        for (Polygon p : shapes) {
+            index.insert(p, p.getBounds());
+        }
+        TolerantTouchPerformer<Polygon> performer = new TolerantTouchPerformer<Polygon>(15, 10) {
+            @Override
+            protected Polygon performTouch(int xPos, int yPos) {
+                return index.findAt(xPos, yPos);
+            }
+        };
+        for (int i = 0; i < QUERIES; i++) {
+            int x = nextCoordinate(random);
+            int y = nextCoordinate(random);
+            assertTrue(performer.run(index, x, y) == performer.run(x, y));
+        }
+    }
+
+    /**
+     * @param random the random generator
+     * @return a coordinate of the test area, including a margin outside of it
+     */
+    private static int nextCoordinate(Random random) {
+        return random.nextInt(SIZE + 200) - 100;
+    }
+
+    /**
+     * @param random the random generator
+     * @return random rectangles in the order of insertion
+     */
+    private static List<Rectangle> createRectangles(Random random) {
+        List<Rectangle> shapes = new ArrayList<>();
+        for (int i = 0; i < SHAPES; i++) {
+            shapes.add(new Rectangle(nextCoordinate(random), nextCoordinate(random),
+                                     random.nextInt(120), random.nextInt(120)));
+        }
+        return shapes;
+    }
+
+    /**
+     * @param random the random generator
+     * @return random triangles in the order of insertion
+     */
+    private static List<Polygon> createTriangles(Random random) {
+        List<Polygon> shapes = new ArrayList<>();
+        for (int i = 0; i < SHAPES; i++) {
+            int x = nextCoordinate(random);
+            int y = nextCoordinate(random);
+            Polygon p = new Polygon();
+            p.addPoint(x, y);
+            p.addPoint(x + random.nextInt(120) - 60, y + random.nextInt(120) - 60);
+            p.addPoint(x + random.nextInt(120) - 60, y + random.nextInt(120) - 60);
+            shapes.add(p);
+        }
+        return shapes;
+    }
+
+    /**
+     * @param shapes the shapes
+     * @return a list of the shapes
+     */
+    @SafeVarargs
+    private static <T> List<T> listOf(T... shapes) {
+        List<T> list = new ArrayList<>();
+        for (T shape : shapes) {
+            list.add(shape);
+        }
+        return list;
+    }
+}
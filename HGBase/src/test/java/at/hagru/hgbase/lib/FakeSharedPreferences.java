@@ -0,0 +1,194 @@
+package at.hagru.hgbase.lib;
+
+import android.content.SharedPreferences;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Shared preferences held in memory, for tests on the JVM where the android implementation is not available.<p>
+ * Like the android implementation, {@link #getAll()} returns a copy, and the listeners are notified for every
+ * changed key when an editor is committed, with a null key when the preferences were cleared.
+ * The calls of {@link #getAll()} are counted.
+ *
+ * @author hagru
+ */
+class FakeSharedPreferences implements SharedPreferences {
+
+    private final Map<String, Object> values = new HashMap<>();
+    private final List<OnSharedPreferenceChangeListener> listeners = new ArrayList<>();
+    private int getAllCount = 0;
+
+    /**
+     * @return the number of calls of {@link #getAll()}
+     */
+    int getAllCount() {
+        return getAllCount;
+    }
+
+    /**
+     * Changes a value without notifying the listeners, like setting the default values of a preferences file.
+     *
+     * @param key the key
+     * @param value the new value
+     */
+    void putWithoutNotification(String key, Object value) {
+        values.put(key, value);
+    }
+
+    @Override
+    public Map<String, ?> getAll() {
+        getAllCount++;
+        return new HashMap<>(values);
+    }
+
+    @Override
+    public String getString(String key, String defValue) {
+        Object value = values.get(key);
+        return (value == null) ? defValue : (String) value;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Set<String> getStringSet(String key, Set<String> defValues) {
+        Object value = values.get(key);
+        return (value == null) ? defValues : (Set<String>) value;
+    }
+
+    @Override
+    public int getInt(String key, int defValue) {
+        Object value = values.get(key);
+        return (value == null) ? defValue : (Integer) value;
+    }
+
+    @Override
+    public long getLong(String key, long defValue) {
+        Object value = values.get(key);
+        return (value == null) ? defValue : (Long) value;
+    }
+
+    @Override
+    public float getFloat(String key, float defValue) {
+        Object value = values.get(key);
+        return (value == null) ? defValue : (Float) value;
+    }
+
+    @Override
+    public boolean getBoolean(String key, boolean defValue) {
+        Object value = values.get(key);
+        return (value == null) ? defValue : (Boolean) value;
+    }
+
+    @Override
+    public boolean contains(String key) {
+        return values.containsKey(key);
+    }
+
+    @Override
+    public Editor edit() {
+        return new FakeEditor();
+    }
+
+    @Override
+    public void registerOnSharedPreferenceChangeListener(OnSharedPreferenceChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void unregisterOnSharedPreferenceChangeListener(OnSharedPreferenceChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Collects the changes and applies them on commit.
+     */
+    private class FakeEditor implements Editor {
+
+        private final Map<String, Object> changes = new LinkedHashMap<>();
+        private boolean clear = false;
+
+        @Override
+        public Editor putString(String key, String value) {
+            changes.put(key, value);
+            return this;
+        }
+
+        @Override
+        public Editor putStringSet(String key, Set<String> values) {
+            changes.put(key, (values == null) ? null : new HashSet<>(values));
+            return this;
+        }
+
+        @Override
+        public Editor putInt(String key, int value) {
+            changes.put(key, value);
+            return this;
+        }
+
+        @Override
+        public Editor putLong(String key, long value) {
+            changes.put(key, value);
+            return this;
+        }
+
+        @Override
+        public Editor putFloat(String key, float value) {
+            changes.put(key, value);
+            return this;
+        }
+
+        @Override
+        public Editor putBoolean(String key, boolean value) {
+            changes.put(key, value);
+            return this;
+        }
+
+        @Override
+        public Editor remove(String key) {
+            changes.put(key, null);
+            return this;
+        }
+
+        @Override
+        public Editor clear() {
+            clear = true;
+            return this;
+        }
+
+        @Override
+        public boolean commit() {
+            if (clear) {
+                values.clear();
+                notifyListeners(null);
+            }
+            for (Map.Entry<String, Object> change : changes.entrySet()) {
+                if (change.getValue() == null) {
+                    values.remove(change.getKey());
+                } else {
+                    values.put(change.getKey(), change.getValue());
+                }
+                notifyListeners(change.getKey());
+            }
+            return true;
+        }
+
+        @Override
+        public void apply() {
+            commit();
+        }
+
+        /**
+         * @param key the changed key, null if the preferences were cleared
+         */
+        private void notifyListeners(String key) {
+            for (OnSharedPreferenceChangeListener listener : new ArrayList<>(listeners)) {
+                listener.onSharedPreferenceChanged(FakeSharedPreferences.this, key);
+            }
+        }
+    }
+}
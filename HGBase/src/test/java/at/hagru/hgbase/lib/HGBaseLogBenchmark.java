@@ -0,0 +1,54 @@
+package at.hagru.hgbase.lib;
+
+import android.util.Log;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * A rough benchmark of log calls below the minimum level of {@link HGBaseLog}.<p>
+ * A message built by string concatenation is compared with the {@link java.util.function.Supplier} and the
+ * format string overloads, which do not build the message. The times are only printed, they are not checked,
+ * as they depend on the machine.
+ *
+ * @author hagru
+ */
+public class HGBaseLogBenchmark {
+
+    private static final int CALLS = 1000000;
+    private static final int ROUNDS = 5;
+
+    @After
+    public void resetMinLevel() {
+        HGBaseLog.setMinLevel(Log.VERBOSE);
+    }
+
+    @Test
+    public void testDisabledLevel() {
+        HGBaseLog.setMinLevel(Log.ERROR);
+        long concatNanos = Long.MAX_VALUE;
+        long supplierNanos = Long.MAX_VALUE;
+        long formatNanos = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < CALLS; i++) {
+                HGBaseLog.logDebug("Position " + i + " of " + CALLS + " is " + (i * 0.5));
+            }
+            concatNanos = Math.min(concatNanos, System.nanoTime() - start);
+            start = System.nanoTime();
+            for (int i = 0; i < CALLS; i++) {
+                int position = i;
+                HGBaseLog.logDebug(() -> "Position " + position + " of " + CALLS + " is " + (position * 0.5));
+            }
+            supplierNanos = Math.min(supplierNanos, System.nanoTime() - start);
+            start = System.nanoTime();
+            for (int i = 0; i < CALLS; i++) {
+                HGBaseLog.logDebug("Position %d of %d is %f", i, CALLS, i * 0.5);
+            }
+            formatNanos = Math.min(formatNanos, System.nanoTime() - start);
+        }
+        System.out.println(String.format("HGBaseLog disabled level: concatenation %.1f ns/op, supplier %.1f ns/op, "
+                                         + "format %.1f ns/op", (double) concatNanos / CALLS,
+                                         (double) supplierNanos / CALLS, (double) formatNanos / CALLS));
+    }
+}
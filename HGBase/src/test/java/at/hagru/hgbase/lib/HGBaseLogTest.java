@@ -0,0 +1,89 @@
+package at.hagru.hgbase.lib;
+
+import android.util.Log;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that the messages below the minimum level of {@link HGBaseLog} are not built.<p>
+ * The suppliers and the arguments of the format strings count how often they are evaluated.
+ *
+ * @author hagru
+ */
+public class HGBaseLogTest {
+
+    private static final int DISABLED = Log.ERROR + 1;
+
+    @After
+    public void resetMinLevel() {
+        HGBaseLog.setMinLevel(Log.VERBOSE);
+    }
+
+    @Test
+    public void testIsLoggable() {
+        HGBaseLog.setMinLevel(Log.WARN);
+        assertEquals(Log.WARN, HGBaseLog.getMinLevel());
+        assertFalse(HGBaseLog.isLoggable(Log.VERBOSE));
+        assertFalse(HGBaseLog.isLoggable(Log.DEBUG));
+        assertFalse(HGBaseLog.isLoggable(Log.INFO));
+        assertTrue(HGBaseLog.isLoggable(Log.WARN));
+        assertTrue(HGBaseLog.isLoggable(Log.ERROR));
+        HGBaseLog.setMinLevel(Log.VERBOSE);
+        assertTrue(HGBaseLog.isLoggable(Log.VERBOSE));
+    }
+
+    @Test
+    public void testSupplierNotEvaluated() {
+        int[] calls = new int[1];
+        Supplier<String> msg = () -> {
+            calls[0]++;
+            return "message";
+        };
+        HGBaseLog.setMinLevel(DISABLED);
+        HGBaseLog.log(msg);
+        HGBaseLog.logDebug(msg);
+        HGBaseLog.logInfo(msg);
+        HGBaseLog.logWarn(msg);
+        HGBaseLog.logError(msg);
+        assertEquals(0, calls[0]);
+        // only the levels below the minimum level are skipped
+        HGBaseLog.setMinLevel(Log.ERROR);
+        HGBaseLog.log(msg);
+        HGBaseLog.logDebug(msg);
+        HGBaseLog.logInfo(msg);
+        HGBaseLog.logWarn(msg);
+        assertEquals(0, calls[0]);
+    }
+
+    @Test
+    public void testFormatNotEvaluated() {
+        int[] calls = new int[1];
+        Object arg = new Object() {
+            @Override
+            public String toString() {
+                calls[0]++;
+                return "argument";
+            }
+        };
+        HGBaseLog.setMinLevel(DISABLED);
+        HGBaseLog.log("message %s", arg);
+        HGBaseLog.logDebug("message %s", arg);
+        HGBaseLog.logInfo("message %s", arg);
+        HGBaseLog.logWarn("message %s", arg);
+        HGBaseLog.logError("message %s", arg);
+        assertEquals(0, calls[0]);
+        HGBaseLog.setMinLevel(Log.ERROR);
+        HGBaseLog.log("message %s %d", arg, 1);
+        HGBaseLog.logDebug("message %s", arg);
+        HGBaseLog.logInfo("message %s", arg);
+        HGBaseLog.logWarn("message %s", arg);
+        assertEquals(0, calls[0]);
+    }
+}
@@ -0,0 +1,56 @@
+package at.hagru.hgbase.lib;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * A rough benchmark of reading int options with {@link PreferenceCache} against reading them directly from
+ * {@link FakeSharedPreferences}, for 10, 100 and 1000 keys.<p>
+ * The direct read looks up the map and unboxes the value, the android implementation additionally takes a lock.
+ * The cached read returns the unboxed value of the snapshot, every round starts with an empty cache.
+ * The times are only printed, they are not checked, as they depend on the machine.
+ *
+ * @author hagru
+ */
+public class PreferenceCacheBenchmark {
+
+    private static final int[] KEYS = {10, 100, 1000};
+    private static final int READS = 200000;
+    private static final int ROUNDS = 5;
+
+    @Test
+    public void testReads() {
+        for (int keyCount : KEYS) {
+            FakeSharedPreferences prefs = new FakeSharedPreferences();
+            String[] keys = new String[keyCount];
+            for (int i = 0; i < keyCount; i++) {
+                keys[i] = "option" + i;
+                prefs.putWithoutNotification(keys[i], i);
+            }
+            PreferenceCache cache = new PreferenceCache(prefs);
+            long directNanos = Long.MAX_VALUE;
+            long cachedNanos = Long.MAX_VALUE;
+            long directSum = 0;
+            long cachedSum = 0;
+            for (int round = 0; round < ROUNDS; round++) {
+                long start = System.nanoTime();
+                directSum = 0;
+                for (int i = 0; i < READS; i++) {
+                    directSum += prefs.getInt(keys[i % keyCount], HGBaseTools.INVALID_INT);
+                }
+                directNanos = Math.min(directNanos, System.nanoTime() - start);
+                cache.invalidate(null);
+                start = System.nanoTime();
+                cachedSum = 0;
+                for (int i = 0; i < READS; i++) {
+                    cachedSum += cache.lookup(keys[i % keyCount]).intValue;
+                }
+                cachedNanos = Math.min(cachedNanos, System.nanoTime() - start);
+            }
+            assertEquals(directSum, cachedSum);
+            System.out.println(String.format("PreferenceCache %d keys: direct %.1f ns/op, cached %.1f ns/op",
+                                             keyCount, (double) directNanos / READS, (double) cachedNanos / READS));
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package at.hagru.hgbase.lib;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import at.hagru.hgbase.lib.PreferenceCache.CachedValue;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of {@link PreferenceCache} with {@link FakeSharedPreferences}.<p>
+ * The snapshot of all preferences must be taken only once, and every change notified by the preferences
+ * must invalidate the cached value of the changed key.
+ *
+ * @author hagru
+ */
+public class PreferenceCacheTest {
+
+    private FakeSharedPreferences prefs;
+    private PreferenceCache cache;
+
+    @Before
+    public void setUp() {
+        prefs = new FakeSharedPreferences();
+        prefs.edit().putInt("int", 42).putBoolean("flag", true).putString("text", "abc")
+             .putStringSet("set", new HashSet<>(Arrays.asList("a", "b"))).commit();
+        cache = new PreferenceCache(prefs);
+    }
+
+    @Test
+    public void testTypedValues() {
+        CachedValue value = cache.lookup("int");
+        assertTrue(value.isInt);
+        assertFalse(value.isBoolean);
+        assertEquals(42, value.intValue);
+        assertEquals("42", value.text);
+        assertEquals(42, value.color.getColorCode());
+        value = cache.lookup("flag");
+        assertTrue(value.isBoolean);
+        assertFalse(value.isInt);
+        assertTrue(value.booleanValue);
+        assertEquals("true", value.text);
+        assertNull(value.color);
+        value = cache.lookup("text");
+        assertFalse(value.isInt);
+        assertFalse(value.isBoolean);
+        assertEquals("abc", value.text);
+        assertEquals(HGBaseTools.INVALID_INT, value.intValue);
+        value = cache.lookup("set");
+        assertEquals(new HashSet<>(Arrays.asList("a", "b")), value.raw);
+    }
+
+    @Test
+    public void testSnapshotOnce() {
+        int count = prefs.getAllCount();
+        cache.lookup("int");
+        assertEquals(count + 1, prefs.getAllCount());
+        // all other keys are cached with the same snapshot
+        cache.lookup("flag");
+        cache.lookup("text");
+        cache.lookup("set");
+        cache.lookup("int");
+        assertEquals(count + 1, prefs.getAllCount());
+    }
+
+    @Test
+    public void testMissingIsCached() {
+        int count = prefs.getAllCount();
+        assertSame(CachedValue.MISSING, cache.lookup("unknown"));
+        assertSame(CachedValue.MISSING, cache.lookup("unknown"));
+        assertEquals(count + 1, prefs.getAllCount());
+        assertEquals("", CachedValue.MISSING.text);
+        assertEquals(HGBaseTools.INVALID_INT, CachedValue.MISSING.intValue);
+    }
+
+    @Test
+    public void testListenerInvalidatesKey() {
+        CachedValue flag = cache.lookup("flag");
+        assertEquals(42, cache.lookup("int").intValue);
+        prefs.edit().putInt("int", 7).commit();
+        assertEquals(7, cache.lookup("int").intValue);
+        // other keys stay cached
+        assertSame(flag, cache.lookup("flag"));
+        prefs.edit().remove("text").apply();
+        assertSame(CachedValue.MISSING, cache.lookup("text"));
+        prefs.edit().putString("unknown", "new").commit();
+        assertEquals("new", cache.lookup("unknown").text);
+    }
+
+    @Test
+    public void testClearInvalidatesAll() {
+        assertEquals(42, cache.lookup("int").intValue);
+        prefs.edit().clear().commit();
+        assertSame(CachedValue.MISSING, cache.lookup("int"));
+        assertSame(CachedValue.MISSING, cache.lookup("flag"));
+        assertEquals(0, cache.getKeys().length);
+    }
+
+    @Test
+    public void testInvalidateNotNotified() {
+        CachedValue flag = cache.lookup("flag");
+        assertEquals(42, cache.lookup("int").intValue);
+        // changes that are not notified are only seen after invalidating
+        prefs.putWithoutNotification("int", 8);
+        assertEquals(42, cache.lookup("int").intValue);
+        cache.invalidate(null);
+        assertEquals(8, cache.lookup("int").intValue);
+        assertTrue(cache.lookup("flag").booleanValue);
+        assertTrue(flag != cache.lookup("flag"));
+    }
+
+    @Test
+    public void testKeys() {
+        int count = prefs.getAllCount();
+        String[] keys = cache.getKeys();
+        assertSame(keys, cache.getKeys());
+        assertEquals(count + 1, prefs.getAllCount());
+        assertEquals(new HashSet<>(Arrays.asList("int", "flag", "text", "set")), toSet(keys));
+        prefs.edit().putInt("other", 1).commit();
+        assertEquals(new HashSet<>(Arrays.asList("int", "flag", "text", "set", "other")), toSet(cache.getKeys()));
+        prefs.edit().remove("int").remove("flag").commit();
+        assertEquals(new HashSet<>(Arrays.asList("text", "set", "other")), toSet(cache.getKeys()));
+        prefs.edit().clear().commit();
+        assertArrayEquals(new String[0], cache.getKeys());
+    }
+
+    /**
+     * @param keys an array of keys
+     * @return the keys as set
+     */
+    private static Set<String> toSet(String[] keys) {
+        Set<String> set = new HashSet<>();
+        Collections.addAll(set, keys);
+        return set;
+    }
+}
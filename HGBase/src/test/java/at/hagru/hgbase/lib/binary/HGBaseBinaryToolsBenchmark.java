@@ -0,0 +1,68 @@
+package at.hagru.hgbase.lib.binary;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import java.io.File;
+import java.io.IOException;
+
+import at.hagru.hgbase.lib.xml.HGBaseXMLTools;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A rough benchmark of writing and reading a xml document with {@link HGBaseBinaryTools} against
+ * {@link HGBaseXMLTools}.<p>
+ * The document has many elements with repeated attribute names and values, like a saved game or an option file.
+ * The times and file sizes are only printed, they are not checked, as they depend on the machine.
+ *
+ * @author hagru
+ */
+public class HGBaseBinaryToolsBenchmark {
+
+    private static final int ELEMENTS = 2000;
+    private static final int ROUNDS = 10;
+
+    @Test
+    public void testWriteRead() throws IOException {
+        Document doc = HGBaseXMLTools.createDocument();
+        Element root = HGBaseXMLTools.createElement(doc, null, "game");
+        for (int i = 0; i < ELEMENTS; i++) {
+            Element field = HGBaseXMLTools.createElement(doc, root, "field");
+            field.setAttribute("x", String.valueOf(i % 40));
+            field.setAttribute("y", String.valueOf(i / 40));
+            field.setAttribute("owner", "player" + (i % 4));
+            field.setAttribute("visible", (i % 3 == 0) ? "true" : "false");
+        }
+        File xmlFile = File.createTempFile("hgbase", ".xml");
+        File binaryFile = File.createTempFile("hgbase", ".bin");
+        xmlFile.deleteOnExit();
+        binaryFile.deleteOnExit();
+        long xmlWrite = Long.MAX_VALUE;
+        long binaryWrite = Long.MAX_VALUE;
+        long xmlRead = Long.MAX_VALUE;
+        long binaryRead = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            assertTrue(HGBaseXMLTools.writeXML(doc, xmlFile));
+            xmlWrite = Math.min(xmlWrite, System.nanoTime() - start);
+            start = System.nanoTime();
+            assertTrue(HGBaseBinaryTools.writeFile(binaryFile, writer -> HGBaseBinaryTools.writeElement(writer, root)));
+            binaryWrite = Math.min(binaryWrite, System.nanoTime() - start);
+            start = System.nanoTime();
+            Element xmlRoot = HGBaseXMLTools.readXML(xmlFile, "");
+            xmlRead = Math.min(xmlRead, System.nanoTime() - start);
+            start = System.nanoTime();
+            Element binaryRoot = HGBaseBinaryTools.readXML(binaryFile);
+            binaryRead = Math.min(binaryRead, System.nanoTime() - start);
+            assertEquals(ELEMENTS, xmlRoot.getElementsByTagName("field").getLength());
+            assertEquals(ELEMENTS, binaryRoot.getElementsByTagName("field").getLength());
+        }
+        System.out.println(String.format("HGBaseBinaryTools %d elements: xml %d bytes, write %.2f ms, read %.2f ms; "
+                                         + "binary %d bytes, write %.2f ms, read %.2f ms", ELEMENTS,
+                                         xmlFile.length(), xmlWrite / 1e6, xmlRead / 1e6,
+                                         binaryFile.length(), binaryWrite / 1e6, binaryRead / 1e6));
+    }
+}
@@ -0,0 +1,361 @@
+package at.hagru.hgbase.lib.binary;
+
+import org.junit.Test;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+import at.hagru.hgbase.lib.internal.IntBooleanStringMap;
+import at.hagru.hgbase.lib.xml.HGBaseXMLTools;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests of the binary format of {@link BinaryWriter}, {@link BinaryReader} and {@link HGBaseBinaryTools}.<p>
+ * The values are written into a byte array and read back. Converted xml files are compared with the xml read
+ * by {@link HGBaseXMLTools}.
+ *
+ * @author hagru
+ */
+public class HGBaseBinaryToolsTest {
+
+    private static final int HEADER_LENGTH = HGBaseBinaryTools.MAGIC.length + 1;
+    private static final int[] INTS = {0, 1, -1, 63, -64, 64, -65, 127, 128, 16383, 16384, 1 << 28,
+                                       Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE - 1,
+                                       Integer.MIN_VALUE + 1};
+    private static final long[] LONGS = {0L, 1L, -1L, 127L, 128L, 1L << 35, -(1L << 35), Integer.MAX_VALUE,
+                                         Integer.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE, Long.MAX_VALUE - 1,
+                                         Long.MIN_VALUE + 1};
+    private static final String XML = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                                      + "<config version=\"2\" name=\"t&#228;st &amp; more\">\n"
+                                      + "    <option key=\"a\" value=\"1\"/>\n"
+                                      + "    <option key=\"b\" value=\"\"/>\n"
+                                      + "    <text>  some text \uD83D\uDE00 with spaces  </text>\n"
+                                      + "    <mixed>before<inner x=\"1\">inside</inner> after</mixed>\n"
+                                      + "    <space> </space>\n"
+                                      + "    <data><![CDATA[<not> an & element]]></data>\n"
+                                      + "    <option key=\"a\" value=\"1\"/>\n"
+                                      + "</config>\n";
+
+    @Test
+    public void testVarInt() throws IOException {
+        BinaryReader reader = createReader(writer -> {
+            for (int value : INTS) {
+                writer.writeVarInt(value);
+                writer.writeInt(value);
+            }
+            for (long value : LONGS) {
+                writer.writeVarLong(value);
+                writer.writeLong(value);
+            }
+        });
+        for (int value : INTS) {
+            assertEquals(value, reader.readVarInt());
+            assertEquals(value, reader.readInt());
+        }
+        for (long value : LONGS) {
+            assertEquals(value, reader.readVarLong());
+            assertEquals(value, reader.readLong());
+        }
+    }
+
+    @Test
+    public void testVarIntLength() {
+        assertEquals(1, getLength(writer -> writer.writeVarInt(0)));
+        assertEquals(1, getLength(writer -> writer.writeVarInt(127)));
+        assertEquals(2, getLength(writer -> writer.writeVarInt(128)));
+        assertEquals(5, getLength(writer -> writer.writeVarInt(-1)));
+        assertEquals(10, getLength(writer -> writer.writeVarLong(-1L)));
+        // small negative values need only few bytes with zig-zag encoding
+        assertEquals(1, getLength(writer -> writer.writeInt(-64)));
+        assertEquals(2, getLength(writer -> writer.writeInt(-65)));
+        assertEquals(5, getLength(writer -> writer.writeInt(Integer.MIN_VALUE)));
+        assertEquals(10, getLength(writer -> writer.writeLong(Long.MIN_VALUE)));
+    }
+
+    @Test
+    public void testInvalidVarInt() throws IOException {
+        // more than 32 bits
+        assertInvalid(createReader(writer -> writer.writeVarLong(1L << 32))::readVarInt);
+        // more than 10 bytes
+        byte[] bytes = new byte[HEADER_LENGTH + 11];
+        System.arraycopy(HGBaseBinaryTools.MAGIC, 0, bytes, 0, HGBaseBinaryTools.MAGIC.length);
+        bytes[HGBaseBinaryTools.MAGIC.length] = (byte) HGBaseBinaryTools.VERSION;
+        Arrays.fill(bytes, HEADER_LENGTH, bytes.length, (byte) 0x80);
+        assertInvalid(new BinaryReader(new ByteArrayInputStream(bytes))::readVarLong);
+    }
+
+    @Test
+    public void testOtherValues() throws IOException {
+        byte[] data = {0, 1, -1, 127, -128};
+        double[] doubles = {0.0, -0.0, 1.5, -Math.PI, Double.MIN_VALUE, Double.MAX_VALUE, Double.NaN,
+                            Double.NEGATIVE_INFINITY};
+        BinaryReader reader = createReader(writer -> {
+            writer.writeBoolean(true);
+            writer.writeBoolean(false);
+            writer.writeByte(255);
+            for (double value : doubles) {
+                writer.writeDouble(value);
+            }
+            writer.writeBytes(data);
+            writer.writeBytes(new byte[0]);
+            writer.writeBytes(null);
+            writer.writeCollection(Arrays.asList(3, -4, 5), BinaryWriter::writeInt);
+            writer.writeCollection(null, BinaryWriter::writeInt);
+        });
+        assertTrue(reader.readBoolean());
+        assertFalse(reader.readBoolean());
+        assertEquals(255, reader.readByte());
+        for (double value : doubles) {
+            assertEquals(Double.doubleToRawLongBits(value), Double.doubleToRawLongBits(reader.readDouble()));
+        }
+        assertArrayEquals(data, reader.readBytes());
+        assertArrayEquals(new byte[0], reader.readBytes());
+        assertNull(reader.readBytes());
+        Collection<Integer> numbers = reader.readCollection(ArrayList::new, BinaryReader::readInt);
+        assertEquals(Arrays.asList(3, -4, 5), numbers);
+        assertTrue(reader.readCollection(ArrayList::new, BinaryReader::readInt).isEmpty());
+        // the end of the stream is reached
+        assertInvalid(reader::readByte);
+    }
+
+    @Test
+    public void testStrings() throws IOException {
+        StringBuilder longText = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            longText.append((char) ('a' + i % 26));
+        }
+        String[] strings = {"abc", null, "", "\u00E4\u00F6\u00FC\u00DF", "\uD83D\uDE00 smile \uD834\uDD1E",
+                            longText.toString(), "abc", "", "\uD83D\uDE00 smile \uD834\uDD1E", null,
+                            longText.toString(), "abd"};
+        BinaryReader reader = createReader(writer -> {
+            for (String value : strings) {
+                writer.writeString(value);
+            }
+        });
+        for (String value : strings) {
+            assertEquals(value, reader.readString());
+        }
+        // a repeated string is written as reference
+        int first = getLength(writer -> writer.writeString(longText.toString()));
+        int twice = getLength(writer -> {
+            writer.writeString(longText.toString());
+            writer.writeString(longText.toString());
+        });
+        assertEquals(first + 1, twice);
+    }
+
+    @Test
+    public void testInvalidStringReference() throws IOException {
+        BinaryReader reader = createReader(writer -> {
+            writer.writeString("first");
+            // a reference to the second string of the table
+            writer.writeVarInt(2 << 1);
+        });
+        assertEquals("first", reader.readString());
+        assertInvalid(reader::readString);
+    }
+
+    @Test
+    public void testInvalidHeader() {
+        assertInvalidHeader(new byte[0]);
+        assertInvalidHeader(new byte[] {'H', 'G'});
+        assertInvalidHeader(new byte[] {'H', 'G', 'B'});
+        assertInvalidHeader(new byte[] {'H', 'G', 'X', (byte) HGBaseBinaryTools.VERSION});
+        assertInvalidHeader(new byte[] {'<', '?', 'x', 'm', 'l'});
+        assertInvalidHeader(new byte[] {'H', 'G', 'B', (byte) (HGBaseBinaryTools.VERSION + 1)});
+        assertInvalidHeader(new byte[] {'H', 'G', 'B', 0});
+    }
+
+    @Test
+    public void testConvertXML() throws IOException {
+        File xmlFile = createTempFile(".xml");
+        File binaryFile = createTempFile(".bin");
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(xmlFile), StandardCharsets.UTF_8)) {
+            out.write(XML);
+        }
+        Element expected = HGBaseXMLTools.readXML(xmlFile, "");
+        assertTrue(HGBaseBinaryTools.convertXML(xmlFile, binaryFile));
+        Element actual = HGBaseBinaryTools.readXML(binaryFile);
+        assertEquals(toString(expected, false), toString(actual, false));
+        // the indentation and the text of the space element are kept
+        assertTrue(toString(actual, false).contains("#text[ ]"));
+        assertTrue(binaryFile.length() < xmlFile.length());
+
+        assertTrue(HGBaseBinaryTools.convertXML(xmlFile, binaryFile, true));
+        actual = HGBaseBinaryTools.readXML(binaryFile);
+        assertEquals(toString(expected, true), toString(actual, false));
+        assertFalse(toString(actual, false).contains("#text[ ]"));
+    }
+
+    @Test
+    public void testInvalidNodeType() throws IOException {
+        BinaryReader reader = createReader(writer -> {
+            writer.writeString("root");
+            writer.writeVarInt(0);
+            writer.writeByte(7);
+        });
+        assertInvalid(() -> HGBaseBinaryTools.readElement(reader, HGBaseXMLTools.createDocument(), null));
+    }
+
+    @Test
+    public void testMapBinaryFile() throws IOException {
+        File file = createTempFile(".bin");
+        IntBooleanStringMap map = new IntBooleanStringMap();
+        map.set("text", "some \uD83D\uDE00 text");
+        map.set("empty", "");
+        map.set("number", -42);
+        map.set("flag", true);
+        map.set("same", "some \uD83D\uDE00 text");
+        map.set("null", (String) null);
+        assertEquals(0, map.toBinaryFile(file.getAbsolutePath()));
+        IntBooleanStringMap read = new IntBooleanStringMap();
+        read.set("old", 1);
+        assertEquals(0, read.fromBinaryFile(file.getAbsolutePath()));
+        String[] keys = map.getKeys();
+        String[] readKeys = read.getKeys();
+        Arrays.sort(keys);
+        Arrays.sort(readKeys);
+        assertArrayEquals(keys, readKeys);
+        for (String key : keys) {
+            assertEquals(map.get(key), read.get(key));
+        }
+        assertEquals(-42, read.getInt("number"));
+        assertTrue(read.getBoolean("flag"));
+        assertFalse(read.existsKey("old"));
+    }
+
+    /**
+     * @param content the code that writes the values
+     * @return a reader for the written values, the header is already checked
+     * @throws IOException if the header is invalid
+     */
+    private static BinaryReader createReader(Consumer<BinaryWriter> content) throws IOException {
+        return new BinaryReader(new ByteArrayInputStream(write(content)));
+    }
+
+    /**
+     * @param content the code that writes the values
+     * @return the written bytes including the header
+     */
+    private static byte[] write(Consumer<BinaryWriter> content) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryWriter writer = new BinaryWriter(out);
+        content.accept(writer);
+        writer.flush();
+        return out.toByteArray();
+    }
+
+    /**
+     * @param content the code that writes the values
+     * @return the number of written bytes without the header
+     */
+    private static int getLength(Consumer<BinaryWriter> content) {
+        return write(content).length - HEADER_LENGTH;
+    }
+
+    /**
+     * Checks that reading fails with an {@link UncheckedIOException}.
+     *
+     * @param read the code that reads a value
+     */
+    private static void assertInvalid(Runnable read) {
+        try {
+            read.run();
+            fail("The value should be invalid!");
+        } catch (UncheckedIOException e) {
+            // NOCHECK: expected
+        }
+    }
+
+    /**
+     * Checks that creating a reader fails with an {@link IOException}.
+     *
+     * @param bytes the content of the stream
+     */
+    private static void assertInvalidHeader(byte[] bytes) {
+        try {
+            new BinaryReader(new ByteArrayInputStream(bytes));
+            fail("The header should be invalid!");
+        } catch (IOException e) {
+            // NOCHECK: expected
+        }
+    }
+
+    /**
+     * @param suffix the suffix of the file name
+     * @return a new temporary file that is deleted at the end
+     * @throws IOException if the file cannot be created
+     */
+    private static File createTempFile(String suffix) throws IOException {
+        File file = File.createTempFile("hgbase", suffix);
+        file.deleteOnExit();
+        return file;
+    }
+
+    /**
+     * Returns the structure of the element with its attributes and all texts. Adjacent texts are merged and
+     * CDATA sections are handled as texts, as both are the same after reading.
+     *
+     * @param element the element
+     * @param skipWhitespace true to drop texts that consist of whitespace only
+     * @return the structure as string
+     */
+    private static String toString(Element element, boolean skipWhitespace) {
+        StringBuilder sb = new StringBuilder(element.getNodeName());
+        Map<String, String> attributes = new TreeMap<>();
+        NamedNodeMap nodeMap = element.getAttributes();
+        for (int i = 0; i < nodeMap.getLength(); i++) {
+            attributes.put(nodeMap.item(i).getNodeName(), nodeMap.item(i).getNodeValue());
+        }
+        sb.append(attributes).append('{');
+        NodeList children = element.getChildNodes();
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < children.getLength(); i++) {
+            Node child = children.item(i);
+            if (child.getNodeType() == Node.TEXT_NODE || child.getNodeType() == Node.CDATA_SECTION_NODE) {
+                if (!(skipWhitespace && child.getNodeValue().trim().isEmpty())) {
+                    text.append(child.getNodeValue());
+                }
+            } else if (child.getNodeType() == Node.ELEMENT_NODE) {
+                appendText(sb, text);
+                sb.append(toString((Element) child, skipWhitespace));
+            }
+        }
+        appendText(sb, text);
+        return sb.append('}').toString();
+    }
+
+    /**
+     * @param sb the structure
+     * @param text the collected text, it is cleared
+     */
+    private static void appendText(StringBuilder sb, StringBuilder text) {
+        if (text.length() > 0) {
+            sb.append("#text[").append(text).append(']');
+            text.setLength(0);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package at.hagru.hgbase.lib.internal;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * A rough read-heavy benchmark of {@link TypedIntBooleanStringMap} against {@link IntBooleanStringMap}.<p>
+ * The int and boolean options are read by key from both maps and by slot from the typed map.
+ * The times are only printed, they are not checked, as they depend on the machine.
+ *
+ * @author hagru
+ */
+public class TypedIntBooleanStringMapBenchmark {
+
+    private static final int KEYS = 100;
+    private static final int READS = 200000;
+    private static final int ROUNDS = 5;
+
+    @Test
+    public void testReads() {
+        IntBooleanStringMap base = new IntBooleanStringMap();
+        TypedIntBooleanStringMap typed = new TypedIntBooleanStringMap();
+        String[] keys = new String[KEYS];
+        int[] slots = new int[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = "option" + i;
+            base.set(keys[i], i);
+            typed.set(keys[i], i);
+            slots[i] = typed.getSlot(keys[i]);
+        }
+        long baseNanos = Long.MAX_VALUE;
+        long keyNanos = Long.MAX_VALUE;
+        long slotNanos = Long.MAX_VALUE;
+        long baseSum = 0;
+        long keySum = 0;
+        long slotSum = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            baseSum = 0;
+            for (int i = 0; i < READS; i++) {
+                String key = keys[i % KEYS];
+                baseSum += base.getInt(key) + (base.getBoolean(key) ? 1 : 0);
+            }
+            baseNanos = Math.min(baseNanos, System.nanoTime() - start);
+            start = System.nanoTime();
+            keySum = 0;
+            for (int i = 0; i < READS; i++) {
+                String key = keys[i % KEYS];
+                keySum += typed.getInt(key) + (typed.getBoolean(key) ? 1 : 0);
+            }
+            keyNanos = Math.min(keyNanos, System.nanoTime() - start);
+            start = System.nanoTime();
+            slotSum = 0;
+            for (int i = 0; i < READS; i++) {
+                int slot = slots[i % KEYS];
+                slotSum += typed.getInt(slot, 0) + (typed.getBoolean(slot, false) ? 1 : 0);
+            }
+            slotNanos = Math.min(slotNanos, System.nanoTime() - start);
+        }
+        assertEquals(baseSum, keySum);
+        assertEquals(baseSum, slotSum);
+        System.out.println(String.format("IntBooleanStringMap %d keys: base %.1f ns/op, typed by key %.1f ns/op, "
+                                         + "typed by slot %.1f ns/op", KEYS, (double) baseNanos / READS,
+                                         (double) keyNanos / READS, (double) slotNanos / READS));
+    }
+}
@@ -0,0 +1,175 @@
+package at.hagru.hgbase.lib.internal;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import at.hagru.hgbase.lib.HGBaseTools;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Randomized tests of {@link TypedIntBooleanStringMap} against {@link IntBooleanStringMap}.<p>
+ * The same random operations are applied to both maps, by key and by slot, and all getters must return
+ * the same values afterwards.
+ *
+ * @author hagru
+ */
+public class TypedIntBooleanStringMapTest {
+
+    private static final long SEED = 4711L;
+    private static final int ROUNDS = 20000;
+    private static final int KEYS = 40;
+    private static final String[] TEXTS = {null, "", "0", "1", "-1", "42", "2147483647", "2147483648", "true",
+                                           "TRUE", "yes", "no", "false", " 1", "abc"};
+
+    @Test
+    public void testRandomOperations() {
+        Random random = new Random(SEED);
+        IntBooleanStringMap expected = new IntBooleanStringMap();
+        TypedIntBooleanStringMap typed = new TypedIntBooleanStringMap();
+        for (int round = 0; round < ROUNDS; round++) {
+            String key = "key" + random.nextInt(KEYS);
+            switch (random.nextInt(9)) {
+                case 0:
+                    String text = TEXTS[random.nextInt(TEXTS.length)];
+                    expected.set(key, text);
+                    typed.set(key, text);
+                    break;
+                case 1:
+                    text = TEXTS[random.nextInt(TEXTS.length)];
+                    expected.set(key, text);
+                    typed.set(typed.getSlot(key), text);
+                    break;
+                case 2:
+                    int value = random.nextInt(5) - 2;
+                    expected.set(key, value);
+                    typed.set(key, value);
+                    break;
+                case 3:
+                    value = random.nextInt();
+                    expected.set(key, value);
+                    typed.set(typed.getSlot(key), value);
+                    break;
+                case 4:
+                    boolean flag = random.nextBoolean();
+                    expected.set(key, flag);
+                    typed.set(key, flag);
+                    break;
+                case 5:
+                    flag = random.nextBoolean();
+                    expected.set(key, flag);
+                    typed.set(typed.getSlot(key), flag);
+                    break;
+                case 6:
+                    assertEquals(expected.remove(key), typed.remove(key));
+                    break;
+                case 7:
+                    assertEquals(expected.remove(key), typed.removeSlot(typed.getSlot(key)));
+                    break;
+                default:
+                    if (random.nextInt(50) == 0) {
+                        expected.clear();
+                        typed.clear();
+                    }
+                    break;
+            }
+            checkKey(expected, typed, key);
+            if (round % 100 == 0) {
+                checkAll(expected, typed);
+            }
+        }
+        checkAll(expected, typed);
+    }
+
+    @Test
+    public void testNullText() {
+        IntBooleanStringMap expected = new IntBooleanStringMap();
+        TypedIntBooleanStringMap typed = new TypedIntBooleanStringMap();
+        expected.set("a", 5);
+        typed.set("a", 5);
+        int slot = typed.getSlot("a");
+        expected.set("a", (String) null);
+        typed.set(slot, (String) null);
+        // a null text is kept as in the base class
+        assertTrue(expected.existsKey("a"));
+        assertTrue(typed.existsKey("a"));
+        assertTrue(typed.existsSlot(slot));
+        assertNull(typed.get("a"));
+        assertEquals("x", typed.get(slot, "x"));
+        assertEquals(7, typed.getInt(slot, 7));
+        assertTrue(typed.getBoolean(slot, true));
+        assertArrayEquals(new String[] {"a"}, typed.getKeys());
+        checkAll(expected, typed);
+        assertTrue(typed.removeSlot(slot));
+        assertFalse(typed.existsKey("a"));
+        assertEquals(0, typed.getKeys().length);
+    }
+
+    @Test
+    public void testSlots() {
+        TypedIntBooleanStringMap typed = new TypedIntBooleanStringMap();
+        int[] slots = new int[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            slots[i] = typed.getSlot("key" + i);
+            assertFalse(typed.existsSlot(slots[i]));
+        }
+        for (int i = 0; i < KEYS; i++) {
+            assertEquals(slots[i], typed.getSlot("key" + i));
+            typed.set(slots[i], i);
+        }
+        typed.clear();
+        // the slots stay valid after clearing the map
+        for (int i = 0; i < KEYS; i++) {
+            assertFalse(typed.existsKey("key" + i));
+            assertEquals(slots[i], typed.getSlot("key" + i));
+        }
+        typed.set(slots[3], true);
+        assertEquals(1, typed.getInt("key3"));
+        assertEquals("1", typed.get("key3"));
+        assertEquals(HGBaseTools.INVALID_INT, typed.getInt("key4"));
+    }
+
+    /**
+     * Compares the values of one key.
+     *
+     * @param expected the reference map
+     * @param typed the typed map
+     * @param key the key
+     */
+    private static void checkKey(IntBooleanStringMap expected, TypedIntBooleanStringMap typed, String key) {
+        assertEquals(key, expected.existsKey(key), typed.existsKey(key));
+        assertEquals(key, expected.get(key), typed.get(key));
+        assertEquals(key, expected.get(key, "default"), typed.get(key, "default"));
+        assertEquals(key, expected.getInt(key), typed.getInt(key));
+        assertEquals(key, expected.getInt(key, -7), typed.getInt(key, -7));
+        assertEquals(key, expected.getBoolean(key), typed.getBoolean(key));
+        assertEquals(key, expected.getBoolean(key, true), typed.getBoolean(key, true));
+        int slot = typed.getSlot(key);
+        assertEquals(key, expected.get(key, "default"), typed.get(slot, "default"));
+        assertEquals(key, expected.getInt(key, -7), typed.getInt(slot, -7));
+        assertEquals(key, expected.getBoolean(key, true), typed.getBoolean(slot, true));
+    }
+
+    /**
+     * Compares the keys and the values of all keys.
+     *
+     * @param expected the reference map
+     * @param typed the typed map
+     */
+    private static void checkAll(IntBooleanStringMap expected, TypedIntBooleanStringMap typed) {
+        String[] expectedKeys = expected.getKeys();
+        String[] typedKeys = typed.getKeys();
+        Arrays.sort(expectedKeys);
+        Arrays.sort(typedKeys);
+        assertArrayEquals(expectedKeys, typedKeys);
+        for (int i = 0; i < KEYS; i++) {
+            checkKey(expected, typed, "key" + i);
+        }
+    }
+}
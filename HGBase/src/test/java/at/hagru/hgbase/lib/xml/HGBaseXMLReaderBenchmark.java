@@ -0,0 +1,122 @@
+package at.hagru.hgbase.lib.xml;
+
+import org.junit.Test;
+import org.w3c.dom.Element;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * A rough benchmark of reading a collection from 1 MB and 10 MB of xml with {@link HGBaseXMLReader} against
+ * {@link HGBaseXMLTools}, which builds the whole document first.<p>
+ * For both, the fastest time, the allocated bytes and the largest heap still used while the result is reachable
+ * are printed.
+ * For the DOM, the used heap contains the document, which is the peak of the DOM path.
+ * The streaming reader runs on {@link StaxPullParser}, as the android parser is not available on the JVM,
+ * so the numbers show the difference of the two ways of reading, not the numbers on a device.
+ * The times and sizes are only printed, they are not checked, as they depend on the machine.
+ *
+ * @author hagru
+ */
+public class HGBaseXMLReaderBenchmark {
+
+    private static final int[] MEGABYTES = {1, 10};
+    private static final int ROUNDS = 3;
+    private static final double MB = 1024.0 * 1024.0;
+
+    @Test
+    public void testRead() throws XmlPullParserException, IOException {
+        for (int megabytes : MEGABYTES) {
+            byte[] xml = createXML(megabytes * 1024 * 1024);
+            long domNanos = Long.MAX_VALUE;
+            long streamNanos = Long.MAX_VALUE;
+            long domAllocated = Long.MAX_VALUE;
+            long streamAllocated = Long.MAX_VALUE;
+            long domUsed = 0;
+            long streamUsed = 0;
+            for (int round = 0; round < ROUNDS; round++) {
+                long heap = getUsedHeap();
+                long allocated = getAllocatedBytes();
+                long start = System.nanoTime();
+                Element root = HGBaseXMLTools.readXML(new ByteArrayInputStream(xml));
+                assertNotNull(root);
+                Collection<int[]> domFields = HGBaseXMLTools.readCollection(root, "fields", "field", ArrayList::new,
+                        node -> new int[] {HGBaseXMLTools.getAttributeIntValue(node, "x"),
+                                           HGBaseXMLTools.getAttributeIntValue(node, "y")});
+                domNanos = Math.min(domNanos, System.nanoTime() - start);
+                domAllocated = Math.min(domAllocated, getAllocatedBytes() - allocated);
+                domUsed = Math.max(domUsed, getUsedHeap() - heap);
+                // keep the document reachable until the used heap was measured
+                assertEquals("game", root.getNodeName());
+                root = null;
+
+                heap = getUsedHeap();
+                allocated = getAllocatedBytes();
+                start = System.nanoTime();
+                Collection<int[]> streamFields = HGBaseXMLReader.readCollection(
+                        StaxPullParser.create(new ByteArrayInputStream(xml)), "fields", "field", ArrayList::new,
+                        parser -> new int[] {HGBaseXMLReader.getAttributeIntValue(parser, "x"),
+                                             HGBaseXMLReader.getAttributeIntValue(parser, "y")});
+                streamNanos = Math.min(streamNanos, System.nanoTime() - start);
+                streamAllocated = Math.min(streamAllocated, getAllocatedBytes() - allocated);
+                streamUsed = Math.max(streamUsed, getUsedHeap() - heap);
+                assertEquals(domFields.size(), streamFields.size());
+            }
+            System.out.println(String.format("HGBaseXMLReader %d MB: dom %.0f ms, %.1f MB allocated, %.1f MB used; "
+                                             + "stream %.0f ms, %.1f MB allocated, %.1f MB used", megabytes,
+                                             domNanos / 1e6, domAllocated / MB, domUsed / MB,
+                                             streamNanos / 1e6, streamAllocated / MB, streamUsed / MB));
+        }
+    }
+
+    /**
+     * Creates a saved game with a collection of fields, followed by other elements.
+     *
+     * @param size the minimum size of the xml content in bytes
+     * @return the xml content
+     */
+    private static byte[] createXML(int size) {
+        StringBuilder xml = new StringBuilder(size + 1024);
+        xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<game name=\"benchmark\">\n<fields>\n");
+        for (int i = 0; xml.length() < size; i++) {
+            xml.append("<field x=\"").append(i % 100).append("\" y=\"").append(i / 100)
+               .append("\" owner=\"player").append(i % 4).append("\"><unit type=\"knight\" strength=\"")
+               .append(i % 10).append("\"/></field>\n");
+        }
+        xml.append("</fields>\n<history/>\n</game>\n");
+        return xml.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the bytes allocated by the current thread so far, 0 if this is not supported by the JVM
+     */
+    private static long getAllocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) bean;
+            if (allocations.isThreadAllocatedMemorySupported()) {
+                allocations.setThreadAllocatedMemoryEnabled(true);
+                return allocations.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return the used heap after a garbage collection
+     */
+    private static long getUsedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
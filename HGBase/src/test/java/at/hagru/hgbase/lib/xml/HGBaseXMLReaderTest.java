@@ -0,0 +1,165 @@
+package at.hagru.hgbase.lib.xml;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the streaming {@link HGBaseXMLReader} with {@link StaxPullParser}.<p>
+ * The collections and maps read by the streaming methods must be the same as the ones read by the DOM methods
+ * of {@link HGBaseXMLTools} from the same document.
+ *
+ * @author hagru
+ */
+public class HGBaseXMLReaderTest {
+
+    private static final long SEED = 4711L;
+    private static final String XML = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                                      + "<game name=\"test\">\n"
+                                      + "  <!-- the players -->\n"
+                                      + "  <player id=\"1\" human=\"true\">Anna</player>\n"
+                                      + "  <player id=\"2\" human=\"false\">Bob<![CDATA[ & ]]>Carl</player>\n"
+                                      + "  <board size=\"3\"><row>a<field/>b</row><row/></board>\n"
+                                      + "  <end>done</end>\n"
+                                      + "</game>\n";
+
+    @Test
+    public void testReadXML() throws XmlPullParserException, IOException {
+        List<String> events = new ArrayList<>();
+        HGBaseXMLReader.readXML(createParser(XML), new IXMLElementHandler() {
+            @Override
+            public boolean startElement(XmlPullParser parser, String name, int depth) {
+                events.add("start " + name + " " + depth + " " + HGBaseXMLReader.getAttributeValue(parser, "id"));
+                // the children of the board are skipped
+                return !"board".equals(name);
+            }
+
+            @Override
+            public void endElement(String name, String text, int depth) {
+                events.add("end " + name + " " + depth + " " + text.trim());
+            }
+        });
+        assertEquals(Arrays.asList("start game 1 ", "start player 2 1", "end player 2 Anna",
+                                   "start player 2 2", "end player 2 Bob & Carl", "start board 2 ",
+                                   "start end 2 ", "end end 2 done", "end game 1 "), events);
+    }
+
+    @Test
+    public void testReadText() throws XmlPullParserException, IOException {
+        XmlPullParser parser = createParser(XML);
+        List<String> texts = new ArrayList<>();
+        while (parser.next() != XmlPullParser.END_DOCUMENT) {
+            if (parser.getEventType() == XmlPullParser.START_TAG
+                    && ("player".equals(parser.getName()) || "row".equals(parser.getName()))) {
+                int depth = parser.getDepth();
+                texts.add(HGBaseXMLReader.readText(parser));
+                // the parser is moved to the end tag
+                assertEquals(XmlPullParser.END_TAG, parser.getEventType());
+                assertEquals(depth, parser.getDepth());
+            }
+        }
+        // the text of child elements is not part of the text
+        assertEquals(Arrays.asList("Anna", "Bob & Carl", "ab", ""), texts);
+    }
+
+    @Test
+    public void testAttributes() throws XmlPullParserException, IOException {
+        XmlPullParser parser = createParser("<a i=\"42\" l=\"12345678901\" b=\"true\" x=\"abc\"/>");
+        assertEquals(XmlPullParser.START_TAG, parser.next());
+        assertEquals("42", HGBaseXMLReader.getAttributeValue(parser, "i"));
+        assertEquals("", HGBaseXMLReader.getAttributeValue(parser, "missing"));
+        assertEquals(42, HGBaseXMLReader.getAttributeIntValue(parser, "i"));
+        assertEquals(7, HGBaseXMLReader.getAttributeIntValue(parser, "x", 7));
+        assertEquals(12345678901L, HGBaseXMLReader.getAttributeLongValue(parser, "l"));
+        assertTrue(HGBaseXMLReader.getAttributeBooleanValue(parser, "b"));
+        assertFalse(HGBaseXMLReader.getAttributeBooleanValue(parser, "missing"));
+        assertTrue(HGBaseXMLReader.getAttributeBooleanValue(parser, "missing", true));
+    }
+
+    @Test
+    public void testReadCollection() throws Exception {
+        Random random = new Random(SEED);
+        List<Integer> values = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            values.add(random.nextInt());
+        }
+        Document doc = HGBaseXMLTools.createDocument();
+        Element root = HGBaseXMLTools.createElement(doc, null, "root");
+        HGBaseXMLTools.createElement(doc, root, "other").setAttribute("value", "1");
+        HGBaseXMLTools.writeCollection(doc, root, "values", "value", values,
+                                       (node, value) -> node.setAttribute("value", String.valueOf(value)));
+        HGBaseXMLTools.writeCollection(doc, root, "empty", "value", null, null);
+        String xml = HGBaseXMLTools.transformDocument(doc);
+        Element domRoot = HGBaseXMLTools.readXML(toStream(xml));
+        Collection<Integer> expected = HGBaseXMLTools.readCollection(domRoot, "values", "value", ArrayList::new,
+                node -> HGBaseXMLTools.getAttributeIntValue(node, "value"));
+        Collection<Integer> streamed = HGBaseXMLReader.readCollection(createParser(xml), "values", "value",
+                ArrayList::new, parser -> HGBaseXMLReader.getAttributeIntValue(parser, "value"));
+        assertEquals(values, expected);
+        assertEquals(expected, streamed);
+        assertEquals(0, HGBaseXMLReader.readCollection(createParser(xml), "empty", "value", ArrayList::new,
+                parser -> HGBaseXMLReader.getAttributeIntValue(parser, "value")).size());
+    }
+
+    @Test
+    public void testReadMap() throws Exception {
+        Map<String, String> values = new LinkedHashMap<>();
+        for (int i = 0; i < 50; i++) {
+            values.put("key" + i, (i % 5 == 0) ? "" : "value " + i);
+        }
+        Document doc = HGBaseXMLTools.createDocument();
+        Element root = HGBaseXMLTools.createElement(doc, null, "root");
+        HGBaseXMLTools.writeMap(doc, root, "map", values, HGBaseXMLTools::setNodeValue, HGBaseXMLTools::setNodeValue);
+        String xml = HGBaseXMLTools.transformDocument(doc);
+        Element domRoot = HGBaseXMLTools.readXML(toStream(xml));
+        Map<String, String> expected = HGBaseXMLTools.readMap(domRoot, "map", LinkedHashMap::new,
+                HGBaseXMLTools::getNodeValue, HGBaseXMLTools::getNodeValue);
+        Map<String, String> streamed = HGBaseXMLReader.readMap(createParser(xml), "map", LinkedHashMap::new,
+                HGBaseXMLReader::readText, HGBaseXMLReader::readText);
+        assertEquals(values, expected);
+        assertEquals(expected, streamed);
+    }
+
+    @Test
+    public void testReaderNotAtEnd() throws XmlPullParserException, IOException {
+        String xml = "<root><list><e v=\"1\"><x><y/></x></e><e v=\"2\"/><f/><e v=\"3\">text</e></list></root>";
+        // the element reader does not move the parser, so the children are skipped
+        Collection<Integer> values = HGBaseXMLReader.readCollection(createParser(xml), "list", "e", ArrayList::new,
+                parser -> HGBaseXMLReader.getAttributeIntValue(parser, "v"));
+        assertEquals(Arrays.asList(1, 2, 3), values);
+    }
+
+    /**
+     * @param xml the xml content
+     * @return a parser for the xml content
+     * @throws XmlPullParserException if the parser cannot be created
+     */
+    private static XmlPullParser createParser(String xml) throws XmlPullParserException {
+        return StaxPullParser.create(toStream(xml));
+    }
+
+    /**
+     * @param xml the xml content
+     * @return an input stream with the xml content
+     */
+    private static ByteArrayInputStream toStream(String xml) {
+        return new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,337 @@
+package at.hagru.hgbase.lib.xml;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * A pull parser on top of the StAX parser of the JDK, for tests on the JVM where the android parser
+ * of {@link HGBaseXMLReader#createParser(InputStream)} is not available.<p>
+ * Only {@link #next()} is supported for moving the parser. Like the android parser, namespaces are processed,
+ * consecutive text is merged into one event, comments and processing instructions are skipped, and an end tag
+ * has the same depth as its start tag.
+ *
+ * @author hagru
+ */
+class StaxPullParser implements XmlPullParser {
+
+    private static final XMLInputFactory FACTORY = XMLInputFactory.newInstance();
+
+    private XMLStreamReader reader;
+    private int eventType = START_DOCUMENT;
+    private int depth = 0;
+    private String text = null;
+    // true if the current event of the reader was read ahead behind a text and is not passed yet
+    private boolean readAhead = false;
+
+    /**
+     * @param in the input stream with the xml content
+     * @return the parser, positioned at the start of the document
+     * @throws XmlPullParserException if the parser cannot be created
+     */
+    static StaxPullParser create(InputStream in) throws XmlPullParserException {
+        StaxPullParser parser = new StaxPullParser();
+        parser.setInput(in, null);
+        return parser;
+    }
+
+    @Override
+    public void setInput(InputStream inputStream, String inputEncoding) throws XmlPullParserException {
+        try {
+            setReader((inputEncoding == null) ? FACTORY.createXMLStreamReader(inputStream)
+                                              : FACTORY.createXMLStreamReader(inputStream, inputEncoding));
+        } catch (XMLStreamException e) {
+            throw new XmlPullParserException(e.getMessage());
+        }
+    }
+
+    @Override
+    public void setInput(Reader in) throws XmlPullParserException {
+        try {
+            setReader(FACTORY.createXMLStreamReader(in));
+        } catch (XMLStreamException e) {
+            throw new XmlPullParserException(e.getMessage());
+        }
+    }
+
+    /**
+     * @param newReader the StAX reader positioned at the start of the document
+     */
+    private void setReader(XMLStreamReader newReader) {
+        reader = newReader;
+        eventType = START_DOCUMENT;
+        depth = 0;
+        text = null;
+        readAhead = false;
+    }
+
+    @Override
+    public int next() throws XmlPullParserException, IOException {
+        if (eventType == END_TAG) {
+            depth--;
+        }
+        if (eventType == END_DOCUMENT) {
+            return eventType;
+        }
+        try {
+            StringBuilder textBuilder = null;
+            while (true) {
+                int event = readAhead ? reader.getEventType() : reader.next();
+                readAhead = false;
+                switch (event) {
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.CDATA:
+                    case XMLStreamConstants.SPACE:
+                        if (textBuilder == null) {
+                            textBuilder = new StringBuilder();
+                        }
+                        textBuilder.append(reader.getText());
+                        break;
+                    case XMLStreamConstants.START_ELEMENT:
+                    case XMLStreamConstants.END_ELEMENT:
+                    case XMLStreamConstants.END_DOCUMENT:
+                        if (textBuilder != null) {
+                            readAhead = true;
+                            text = textBuilder.toString();
+                            eventType = TEXT;
+                        } else {
+                            text = null;
+                            eventType = toEventType(event);
+                        }
+                        return eventType;
+                    default:
+                        break;
+                }
+            }
+        } catch (XMLStreamException e) {
+            throw new XmlPullParserException(e.getMessage());
+        }
+    }
+
+    /**
+     * @param event a tag or end of document event of StAX
+     * @return the pull parser event
+     */
+    private int toEventType(int event) {
+        switch (event) {
+            case XMLStreamConstants.START_ELEMENT:
+                depth++;
+                return START_TAG;
+            case XMLStreamConstants.END_ELEMENT:
+                return END_TAG;
+            default:
+                return END_DOCUMENT;
+        }
+    }
+
+    @Override
+    public int getEventType() {
+        return eventType;
+    }
+
+    @Override
+    public int getDepth() {
+        return depth;
+    }
+
+    @Override
+    public String getText() {
+        return text;
+    }
+
+    @Override
+    public boolean isWhitespace() {
+        return text != null && text.trim().isEmpty();
+    }
+
+    @Override
+    public String getName() {
+        return isTag() ? reader.getLocalName() : null;
+    }
+
+    @Override
+    public String getNamespace() {
+        if (!isTag()) {
+            return null;
+        }
+        String namespace = reader.getNamespaceURI();
+        return (namespace == null) ? NO_NAMESPACE : namespace;
+    }
+
+    @Override
+    public String getPrefix() {
+        if (!isTag()) {
+            return null;
+        }
+        String prefix = reader.getPrefix();
+        return (prefix == null || prefix.isEmpty()) ? null : prefix;
+    }
+
+    @Override
+    public int getAttributeCount() {
+        return (eventType == START_TAG) ? reader.getAttributeCount() : -1;
+    }
+
+    @Override
+    public String getAttributeNamespace(int index) {
+        String namespace = reader.getAttributeNamespace(index);
+        return (namespace == null) ? NO_NAMESPACE : namespace;
+    }
+
+    @Override
+    public String getAttributeName(int index) {
+        return reader.getAttributeLocalName(index);
+    }
+
+    @Override
+    public String getAttributePrefix(int index) {
+        String prefix = reader.getAttributePrefix(index);
+        return (prefix == null || prefix.isEmpty()) ? null : prefix;
+    }
+
+    @Override
+    public String getAttributeType(int index) {
+        return reader.getAttributeType(index);
+    }
+
+    @Override
+    public boolean isAttributeDefault(int index) {
+        return !reader.isAttributeSpecified(index);
+    }
+
+    @Override
+    public String getAttributeValue(int index) {
+        return reader.getAttributeValue(index);
+    }
+
+    @Override
+    public String getAttributeValue(String namespace, String name) {
+        if (eventType != START_TAG) {
+            throw new IndexOutOfBoundsException("The parser is not at a start tag!");
+        }
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            if (name.equals(reader.getAttributeLocalName(i))
+                    && (namespace == null || namespace.equals(getAttributeNamespace(i)))) {
+                return reader.getAttributeValue(i);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public int getLineNumber() {
+        return reader.getLocation().getLineNumber();
+    }
+
+    @Override
+    public int getColumnNumber() {
+        return reader.getLocation().getColumnNumber();
+    }
+
+    @Override
+    public String getPositionDescription() {
+        return "line " + getLineNumber() + ", column " + getColumnNumber();
+    }
+
+    @Override
+    public String getInputEncoding() {
+        return reader.getEncoding();
+    }
+
+    @Override
+    public boolean getFeature(String name) {
+        return FEATURE_PROCESS_NAMESPACES.equals(name);
+    }
+
+    @Override
+    public void setFeature(String name, boolean state) throws XmlPullParserException {
+        if (getFeature(name) != state) {
+            throw new XmlPullParserException("Unsupported feature " + name + "!");
+        }
+    }
+
+    @Override
+    public Object getProperty(String name) {
+        return null;
+    }
+
+    @Override
+    public void setProperty(String name, Object value) throws XmlPullParserException {
+        throw new XmlPullParserException("Unsupported property " + name + "!");
+    }
+
+    @Override
+    public void defineEntityReplacementText(String entityName, String replacementText) throws XmlPullParserException {
+        throw new XmlPullParserException("Entity replacement texts are not supported!");
+    }
+
+    @Override
+    public int getNamespaceCount(int depth) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String getNamespacePrefix(int pos) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String getNamespaceUri(int pos) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String getNamespace(String prefix) {
+        return reader.getNamespaceURI(prefix);
+    }
+
+    @Override
+    public char[] getTextCharacters(int[] holderForStartAndLength) {
+        if (text == null) {
+            return null;
+        }
+        holderForStartAndLength[0] = 0;
+        holderForStartAndLength[1] = text.length();
+        return text.toCharArray();
+    }
+
+    @Override
+    public boolean isEmptyElementTag() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int nextToken() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void require(int type, String namespace, String name) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String nextText() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int nextTag() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * @return true if the parser is at a start or end tag
+     */
+    private boolean isTag() {
+        return eventType == START_TAG || eventType == END_TAG;
+    }
+}
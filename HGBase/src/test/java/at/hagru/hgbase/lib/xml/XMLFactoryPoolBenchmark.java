@@ -0,0 +1,61 @@
+package at.hagru.hgbase.lib.xml;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * A rough startup benchmark of parsing 500 small documents with {@link HGBaseXMLTools#readXML(java.io.InputStream)},
+ * which uses the {@link XMLFactoryPool}, against looking up the factory and creating a builder for every document.<p>
+ * The factory lookup of the JDK differs from the one of android, so the difference on a device is not the same.
+ * The times are only printed, they are not checked, as they depend on the machine.
+ *
+ * @author hagru
+ */
+public class XMLFactoryPoolBenchmark {
+
+    private static final int DOCUMENTS = 500;
+    private static final int ROUNDS = 5;
+
+    @Test
+    public void testStartup() throws ParserConfigurationException, SAXException, IOException {
+        byte[][] documents = new byte[DOCUMENTS][];
+        for (int i = 0; i < DOCUMENTS; i++) {
+            documents[i] = ("<?xml version=\"1.0\" encoding=\"UTF-8\"?><links><link id=\"link" + i
+                            + "\" target=\"level" + (i % 20) + "\"/><option key=\"o" + i + "\" value=\"" + i
+                            + "\"/></links>").getBytes(StandardCharsets.UTF_8);
+        }
+        long newNanos = Long.MAX_VALUE;
+        long pooledNanos = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            int newCount = 0;
+            for (byte[] document : documents) {
+                Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder()
+                                                     .parse(new ByteArrayInputStream(document));
+                newCount += doc.getDocumentElement().getChildNodes().getLength();
+            }
+            newNanos = Math.min(newNanos, System.nanoTime() - start);
+            XMLFactoryPool.resetStatistics();
+            start = System.nanoTime();
+            int pooledCount = 0;
+            for (byte[] document : documents) {
+                pooledCount += HGBaseXMLTools.readXML(new ByteArrayInputStream(document)).getChildNodes().getLength();
+            }
+            pooledNanos = Math.min(pooledNanos, System.nanoTime() - start);
+            assertEquals(newCount, pooledCount);
+        }
+        System.out.println(String.format("XMLFactoryPool %d documents: new builder %.2f ms, pooled %.2f ms, "
+                                         + "%d hits, %d misses", DOCUMENTS, newNanos / 1e6, pooledNanos / 1e6,
+                                         XMLFactoryPool.getBuilderHits(), XMLFactoryPool.getBuilderMisses()));
+    }
+}
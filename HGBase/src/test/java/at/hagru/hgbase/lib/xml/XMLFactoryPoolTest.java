@@ -0,0 +1,173 @@
+package at.hagru.hgbase.lib.xml;
+
+import android.util.Log;
+
+import org.junit.After;
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+
+import at.hagru.hgbase.lib.HGBaseLog;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests of {@link XMLFactoryPool} and its use by {@link HGBaseXMLTools}.<p>
+ * The pool is per thread, so every test runs on a new thread, where the pool is empty.
+ *
+ * @author hagru
+ */
+public class XMLFactoryPoolTest {
+
+    private static final int DOCUMENTS = 500;
+    private static final String XML = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><root><element value=\"1\"/></root>";
+
+    @After
+    public void resetMinLevel() {
+        HGBaseLog.setMinLevel(Log.VERBOSE);
+    }
+
+    @Test
+    public void testBuilderReuse() throws Throwable {
+        runOnNewThread(() -> {
+            XMLFactoryPool.resetStatistics();
+            DocumentBuilder first = XMLFactoryPool.acquireBuilder();
+            assertEquals(0, XMLFactoryPool.getBuilderHits());
+            assertEquals(1, XMLFactoryPool.getBuilderMisses());
+            XMLFactoryPool.releaseBuilder(first);
+            assertSame(first, XMLFactoryPool.acquireBuilder());
+            assertEquals(1, XMLFactoryPool.getBuilderHits());
+            assertEquals(1, XMLFactoryPool.getBuilderMisses());
+        });
+    }
+
+    @Test
+    public void testNestedUse() throws Throwable {
+        runOnNewThread(() -> {
+            XMLFactoryPool.resetStatistics();
+            DocumentBuilder outer = XMLFactoryPool.acquireBuilder();
+            DocumentBuilder inner = XMLFactoryPool.acquireBuilder();
+            assertNotSame(outer, inner);
+            assertEquals(2, XMLFactoryPool.getBuilderMisses());
+            // only one builder is kept
+            XMLFactoryPool.releaseBuilder(inner);
+            XMLFactoryPool.releaseBuilder(outer);
+            assertSame(inner, XMLFactoryPool.acquireBuilder());
+            assertNotSame(outer, XMLFactoryPool.acquireBuilder());
+            assertEquals(1, XMLFactoryPool.getBuilderHits());
+            assertEquals(3, XMLFactoryPool.getBuilderMisses());
+        });
+    }
+
+    @Test
+    public void testThreads() throws Throwable {
+        AtomicReference<DocumentBuilder> other = new AtomicReference<>();
+        runOnNewThread(() -> {
+            DocumentBuilder builder = XMLFactoryPool.acquireBuilder();
+            XMLFactoryPool.releaseBuilder(builder);
+            other.set(builder);
+        });
+        runOnNewThread(() -> {
+            XMLFactoryPool.resetStatistics();
+            assertNotSame(other.get(), XMLFactoryPool.acquireBuilder());
+            assertEquals(1, XMLFactoryPool.getBuilderMisses());
+        });
+    }
+
+    @Test
+    public void testTransformerReset() throws Throwable {
+        runOnNewThread(() -> {
+            XMLFactoryPool.resetStatistics();
+            Transformer transformer = XMLFactoryPool.acquireTransformer();
+            String indent = transformer.getOutputProperty(OutputKeys.INDENT);
+            transformer.setOutputProperty(OutputKeys.INDENT, "yes".equals(indent) ? "no" : "yes");
+            transformer.setParameter("player", "Anna");
+            XMLFactoryPool.releaseTransformer(transformer);
+            assertSame(transformer, XMLFactoryPool.acquireTransformer());
+            assertEquals(indent, transformer.getOutputProperty(OutputKeys.INDENT));
+            assertNull(transformer.getParameter("player"));
+            assertEquals(1, XMLFactoryPool.getTransformerHits());
+            assertEquals(1, XMLFactoryPool.getTransformerMisses());
+        });
+    }
+
+    @Test
+    public void testReadAndTransform() throws Throwable {
+        runOnNewThread(() -> {
+            XMLFactoryPool.resetStatistics();
+            for (int i = 0; i < DOCUMENTS; i++) {
+                assertEquals("root", HGBaseXMLTools.readXML(toStream(XML)).getNodeName());
+            }
+            Document doc = HGBaseXMLTools.createDocument();
+            HGBaseXMLTools.createElement(doc, null, "root");
+            String xml = HGBaseXMLTools.transformDocument(doc);
+            assertEquals(xml, HGBaseXMLTools.transformDocument(doc));
+            assertEquals(DOCUMENTS, XMLFactoryPool.getBuilderHits());
+            assertEquals(1, XMLFactoryPool.getBuilderMisses());
+            assertEquals(1, XMLFactoryPool.getTransformerHits());
+            assertEquals(1, XMLFactoryPool.getTransformerMisses());
+        });
+    }
+
+    @Test
+    public void testReleaseAfterError() throws Throwable {
+        // the parse error is logged, which is not possible on the JVM
+        HGBaseLog.setMinLevel(Log.ASSERT);
+        runOnNewThread(() -> {
+            XMLFactoryPool.resetStatistics();
+            assertNotNull(HGBaseXMLTools.readXML(toStream(XML)));
+            assertNull(HGBaseXMLTools.readXML(toStream("<root><open></root>")));
+            assertNotNull(HGBaseXMLTools.readXML(toStream(XML)));
+            assertEquals(2, XMLFactoryPool.getBuilderHits());
+            assertEquals(1, XMLFactoryPool.getBuilderMisses());
+        });
+    }
+
+    /**
+     * Code of a test that may throw any exception.
+     */
+    private interface TestCode {
+        void run() throws Exception;
+    }
+
+    /**
+     * Runs the code on a new thread and waits for it. An error of the code is thrown again.
+     *
+     * @param code the code to run
+     * @throws Throwable the error thrown by the code
+     */
+    private static void runOnNewThread(TestCode code) throws Throwable {
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        Thread thread = new Thread(() -> {
+            try {
+                code.run();
+            } catch (Throwable e) {
+                error.set(e);
+            }
+        });
+        thread.start();
+        thread.join();
+        if (error.get() != null) {
+            throw error.get();
+        }
+    }
+
+    /**
+     * @param xml the xml content
+     * @return an input stream with the xml content
+     */
+    private static ByteArrayInputStream toStream(String xml) {
+        return new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8));
+    }
+}